@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.persistence;
+
+/**
+ * A queryable persistence service, which computes aggregates of the stored states itself.
+ * <p>
+ * Callers which only need a single value over a time range (like the maximum or the average of the states) should
+ * prefer {@link #aggregate(FilterCriteria, AggregateFunction)} over {@link #query(FilterCriteria)}, as the service
+ * does not need to create a {@link HistoricItem} for every stored state.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+public interface AggregatingPersistenceService extends QueryablePersistenceService {
+
+    /** Enumeration with all supported aggregate functions */
+    public enum AggregateFunction {
+
+        /** the historic item with the lowest <code>DecimalType</code> state, the earliest one on ties */
+        MINIMUM,
+
+        /** the historic item with the highest <code>DecimalType</code> state, the earliest one on ties */
+        MAXIMUM,
+
+        /** the sum of all <code>DecimalType</code> states */
+        SUM,
+
+        /** the number of <code>DecimalType</code> states */
+        COUNT,
+
+        /**
+         * the number of states, which differ from their predecessor. The predecessor of the first state is the last
+         * state at or before the begin date of the filter. If there is none, the first state counts as a change.
+         */
+        CHANGES
+    }
+
+    /**
+     * Computes an aggregate of the states, which match the given filter. The item name of the filter must be set, the
+     * paging and the ordering of the filter are ignored.
+     * <p>
+     * For {@link AggregateFunction#MINIMUM} and {@link AggregateFunction#MAXIMUM} the matching historic item is
+     * returned. For all other functions, the state of the returned historic item is a <code>DecimalType</code> holding
+     * the aggregate and its timestamp is the timestamp of the last regarded state.
+     * </p>
+     *
+     * @param filter the filter to apply
+     * @param function the aggregate function to compute
+     * @return the aggregate or null, if no state has been regarded
+     */
+    HistoricItem aggregate(FilterCriteria filter, AggregateFunction function);
+
+}
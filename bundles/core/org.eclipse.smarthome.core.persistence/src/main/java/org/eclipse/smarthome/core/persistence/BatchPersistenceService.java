@@ -0,0 +1,32 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.persistence;
+
+import java.util.List;
+
+/**
+ * A persistence service which stores item states in batches.
+ * <p>
+ * State updates and changes of items are not handed to a {@link BatchPersistenceService} one by one. Instead, snapshots
+ * of the item states are buffered by the persistence manager and are passed to {@link #store(List)} by a background
+ * worker, either when a configured number of entries is buffered or when the flush interval has passed. Hence the
+ * implementation may block while writing a batch without slowing down the item updates.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+public interface BatchPersistenceService extends PersistenceService {
+
+    /**
+     * Stores a batch of item states.
+     *
+     * @param entries the entries to store in the order of their timestamps
+     */
+    void store(List<PersistenceEntry> entries);
+
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.persistence;
+
+import java.util.Date;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * A {@link PersistenceEntry} is a snapshot of the state of an item at the time it should be persisted. It is handed
+ * to a {@link BatchPersistenceService}, which might store it some time after the item state has changed again.
+ *
+ * @author agent - Initial contribution
+ */
+public class PersistenceEntry {
+
+    private final Item item;
+
+    private final State state;
+
+    private final Date timestamp;
+
+    private final String alias;
+
+    /**
+     * Creates a new persistence entry.
+     *
+     * @param item the item to persist
+     * @param state the state of the item to persist
+     * @param timestamp the time of the state
+     * @param alias the alias under which the item should be persisted (can be null)
+     */
+    public PersistenceEntry(Item item, State state, Date timestamp, String alias) {
+        this.item = item;
+        this.state = state;
+        this.timestamp = timestamp;
+        this.alias = alias;
+    }
+
+    /**
+     * Returns the item to persist. Note that the current state of the item might differ from {@link #getState()}.
+     *
+     * @return the item
+     */
+    public Item getItem() {
+        return item;
+    }
+
+    /**
+     * Returns the state of the item to persist.
+     *
+     * @return the state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Returns the time of the state.
+     *
+     * @return the timestamp
+     */
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the alias under which the item should be persisted.
+     *
+     * @return the alias or null, if the item name should be used
+     */
+    public String getAlias() {
+        return alias;
+    }
+
+    @Override
+    public String toString() {
+        return "PersistenceEntry [item=" + item.getName() + ", state=" + state + ", timestamp=" + timestamp
+                + ", alias=" + alias + "]";
+    }
+}
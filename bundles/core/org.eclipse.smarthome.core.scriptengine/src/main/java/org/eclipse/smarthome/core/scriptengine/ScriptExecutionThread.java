@@ -21,7 +21,7 @@ import org.slf4j.LoggerFactory;
 @SuppressWarnings("restriction")
 public class ScriptExecutionThread extends Thread {
 
-    private final Logger logger = LoggerFactory.getLogger(ScriptExecutionThread.class);
+    private static final Logger logger = LoggerFactory.getLogger(ScriptExecutionThread.class);
 
     private Script script;
     private IEvaluationContext context;
@@ -38,15 +38,29 @@ public class ScriptExecutionThread extends Thread {
     @Override
     public void run() {
         super.run();
+        result = execute(getName(), script, context);
+    }
+
+    /**
+     * Executes the script of a rule in the current thread and logs an error, if the execution fails. This allows to
+     * execute rules by other threads than a {@link ScriptExecutionThread}, e.g. by a thread pool.
+     *
+     * @param ruleName the name of the rule, which is used for logging
+     * @param script the script to execute
+     * @param context the evaluation context
+     * @return the script evaluation result or null, if the execution failed
+     */
+    public static Object execute(String ruleName, Script script, IEvaluationContext context) {
         try {
-            result = script.execute(context);
+            return script.execute(context);
         } catch (ScriptExecutionException e) {
             String msg = e.getCause().getMessage();
             if (msg == null) {
-                logger.error("Error during the execution of rule '{}'", getName(), e.getCause());
+                logger.error("Error during the execution of rule '{}'", ruleName, e.getCause());
             } else {
-                logger.error("Error during the execution of rule '{}': {}", new Object[] { getName(), msg });
+                logger.error("Error during the execution of rule '{}': {}", new Object[] { ruleName, msg });
             }
+            return null;
         }
     }
 
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.common
+
+import groovy.transform.CompileStatic
+
+import java.lang.management.ManagementFactory
+import java.lang.reflect.Method
+
+
+/**
+ * The {@link MicroBenchmark} measures the duration and the heap allocation of an operation on the current thread.
+ * <p>
+ * Classes named {@code *Benchmark} are excluded from the test run, as their results depend on the machine and the JVM.
+ * They are run on demand as JUnit tests, e.g. by {@code mvn integration-test -Dtest=OSGiEventManagerBenchmark} in the
+ * test bundle or from the IDE, and print their results.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+@CompileStatic
+class MicroBenchmark {
+
+    /** the number of warm up rounds, which let the JIT compile the measured code before the measurement */
+    static final int WARMUP_ROUNDS = 10
+
+    private static final Method getThreadAllocatedBytes = getAllocatedBytesMethod()
+
+    /**
+     * Runs the given operation for warming up and then measures a single run of it.
+     *
+     * @param name the name of the operation, which is printed together with the results
+     * @param iterations the number of iterations, which the operation performs per run
+     * @param operation the operation, which runs the measured code {@code iterations} times
+     * @return the allocated bytes per iteration or -1, if the JVM cannot measure the allocation
+     */
+    static double measure(String name, int iterations, Runnable operation) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            operation.run()
+        }
+
+        long allocatedBefore = getAllocatedBytes()
+        long start = System.nanoTime()
+        operation.run()
+        long duration = System.nanoTime() - start
+        long allocatedAfter = getAllocatedBytes()
+
+        double bytesPerOperation = allocatedBefore < 0 ? -1 : (double) (allocatedAfter - allocatedBefore) / iterations
+        println String.format("%s: %.1f ns/op, %s", name, (double) duration / iterations,
+                bytesPerOperation < 0 ? "allocation not measurable" : String.format("%.2f bytes/op", bytesPerOperation))
+        return bytesPerOperation
+    }
+
+    private static long getAllocatedBytes() {
+        if (getThreadAllocatedBytes == null) {
+            return -1
+        }
+        return (Long) getThreadAllocatedBytes.invoke(ManagementFactory.getThreadMXBean(), Thread.currentThread().getId())
+    }
+
+    private static Method getAllocatedBytesMethod() {
+        try {
+            Class<?> threadMXBeanClass = ClassLoader.getSystemClassLoader().loadClass("com.sun.management.ThreadMXBean")
+            if (threadMXBeanClass.isInstance(ManagementFactory.getThreadMXBean())) {
+                return threadMXBeanClass.getMethod("getThreadAllocatedBytes", Long.TYPE)
+            }
+        } catch (Exception e) {
+            // allocation measurement is not supported by this JVM
+        }
+        return null
+    }
+}
@@ -220,6 +220,109 @@ class ItemRegistryOSGiTest extends OSGiTest {
         assertThat groupItem3.members.contains(updatedSwitchItem), is(true)
     }
 
+    @Test
+    void 'assert itemRegistry maintains transitive group memberships'() {
+        registerService itemProvider
+
+        def floor = new GroupItem("floor")
+        def room = new GroupItem("room")
+        room.addGroupName("floor")
+        def lamp = new SwitchItem("lamp")
+        lamp.addGroupName("room")
+        itemsChangeListener.added(itemProvider, lamp)
+        itemsChangeListener.added(itemProvider, room)
+
+        assertThat itemRegistry.getAncestorGroupNames("lamp"), is(["room"] as Set)
+        assertThat itemRegistry.getAllMemberNames("floor").size(), is(0)
+
+        itemsChangeListener.added(itemProvider, floor)
+        assertThat itemRegistry.getAncestorGroupNames("lamp"), is(["room", "floor"] as Set)
+        assertThat itemRegistry.getAllMemberNames("floor"), is(["lamp"] as Set)
+
+        // the room is moved out of the floor
+        def updatedRoom = new GroupItem("room")
+        itemsChangeListener.updated(itemProvider, room, updatedRoom)
+        assertThat itemRegistry.getAncestorGroupNames("lamp"), is(["room"] as Set)
+        assertThat itemRegistry.getAllMemberNames("floor").size(), is(0)
+
+        // a group is not added to one of its own members
+        def updatedFloor = new GroupItem("floor")
+        updatedFloor.addGroupName("room")
+        itemsChangeListener.updated(itemProvider, floor, updatedFloor)
+        itemsChangeListener.updated(itemProvider, updatedRoom, room)
+        assertThat room.members.contains(updatedFloor), is(true)
+        assertThat updatedFloor.members.contains(room), is(false)
+        assertThat updatedFloor.allMembers.size(), is(0)
+
+        itemsChangeListener.removed(itemProvider, lamp)
+        assertThat itemRegistry.getAncestorGroupNames("lamp").size(), is(0)
+        assertThat itemRegistry.getAllMemberNames("room").size(), is(0)
+    }
+
+    @Test
+    void 'assert itemRegistry follows the membership changes of group items'() {
+        registerService itemProvider
+
+        def room = new GroupItem("room")
+        def lamp = new SwitchItem("lamp")
+        itemsChangeListener.added(itemProvider, room)
+        itemsChangeListener.added(itemProvider, lamp)
+        assertThat itemRegistry.getAncestorGroupNames("lamp").size(), is(0)
+
+        // the members are changed without changing the group names of the items
+        room.addMember(lamp)
+        assertThat itemRegistry.getAncestorGroupNames("lamp"), is(["room"] as Set)
+        assertThat itemRegistry.getAllMemberNames("room"), is(["lamp"] as Set)
+
+        def floor = new GroupItem("floor")
+        itemsChangeListener.added(itemProvider, floor)
+        floor.addMember(room)
+        assertThat itemRegistry.getAncestorGroupNames("lamp"), is(["room", "floor"] as Set)
+        assertThat itemRegistry.getAllMemberNames("floor"), is(["lamp"] as Set)
+
+        room.removeMember(lamp)
+        assertThat itemRegistry.getAncestorGroupNames("lamp").size(), is(0)
+        assertThat itemRegistry.getAllMemberNames("floor").size(), is(0)
+
+        // the members of a removed group item are not regarded anymore
+        itemsChangeListener.removed(itemProvider, floor)
+        floor.addMember(lamp)
+        assertThat itemRegistry.getAncestorGroupNames("room").size(), is(0)
+        assertThat itemRegistry.getAncestorGroupNames("lamp").size(), is(0)
+    }
+
+    @Test
+    void 'assert itemRegistry updates its indexes on item changes'() {
+        registerService itemProvider
+
+        def items = itemRegistry.getItems()
+        assertThat itemRegistry.getItems().is(items), is(true)
+
+        def item = new SwitchItem("switch")
+        itemsChangeListener.added(itemProvider, item)
+        assertThat itemRegistry.getItems().size(), is(5)
+        assertThat itemRegistry.getItem("switch"), is(item)
+
+        // tags are changed on the registered instance
+        item.addTag(OTHER_TAG)
+        itemsChangeListener.updated(itemProvider, item, item)
+        assertThat itemRegistry.getItemsByTag(OTHER_TAG), is([item])
+
+        item.removeTag(OTHER_TAG)
+        itemsChangeListener.updated(itemProvider, item, item)
+        assertThat itemRegistry.getItemsByTag(OTHER_TAG).size(), is(0)
+
+        def newItem = new NumberItem("switch")
+        itemsChangeListener.updated(itemProvider, item, newItem)
+        assertThat itemRegistry.getItem("switch"), is(newItem)
+        assertThat itemRegistry.getItemsOfType("Number").size(), is(2)
+        assertThat itemRegistry.getItemsOfType("Switch").size(), is(3)
+
+        itemsChangeListener.removed(itemProvider, newItem)
+        assertThat itemRegistry.get("switch"), is(nullValue())
+        assertThat itemRegistry.getItemsOfType("Number").size(), is(1)
+    }
+
     @Test
     void 'assert itemRegistryChangeListeners are informed about item changes'() {
         registerService itemProvider
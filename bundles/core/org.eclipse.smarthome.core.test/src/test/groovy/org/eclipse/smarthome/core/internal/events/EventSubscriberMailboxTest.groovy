@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.events
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import java.util.concurrent.Executor
+
+import org.eclipse.smarthome.core.events.Event
+import org.eclipse.smarthome.core.events.EventSubscriber
+import org.eclipse.smarthome.core.internal.events.EventSubscriberMailbox.OverflowPolicy
+import org.junit.Before
+import org.junit.Test
+
+
+/**
+ * The {@link EventSubscriberMailboxTest} tests the overflow handling and the reconfiguration of the
+ * {@link EventSubscriberMailbox}. The delivery tasks are collected and run by the test itself.
+ *
+ * @author agent - Initial contribution
+ */
+class EventSubscriberMailboxTest {
+
+    List<Runnable> tasks
+
+    List<String> received
+
+    Executor executor
+
+    EventSubscriber subscriber
+
+    @Before
+    void setUp() {
+        tasks = []
+        received = []
+        executor = { Runnable task -> tasks.add(task) } as Executor
+        subscriber = [
+            receive: { Event event -> received.add(event.getTopic() + "=" + event.getPayload()) },
+            getSubscribedEventTypes: { [] as Set },
+            getEventFilter: { null }
+        ] as EventSubscriber
+    }
+
+    @Test
+    void 'assert full mailbox drops the oldest event by default'() {
+        def mailbox = new EventSubscriberMailbox(subscriber, executor, 2, OverflowPolicy.DROP_OLDEST)
+        mailbox.offer(event("a", "1"))
+        mailbox.offer(event("b", "1"))
+        mailbox.offer(event("c", "1"))
+        runTasks()
+
+        assertThat received, is(["b=1", "c=1"])
+    }
+
+    @Test
+    void 'assert coalesced event replaces the queued event with the same topic in place'() {
+        def mailbox = new EventSubscriberMailbox(subscriber, executor, 3, OverflowPolicy.COALESCE)
+        mailbox.offer(event("a", "1"))
+        mailbox.offer(event("b", "1"))
+        mailbox.offer(event("c", "1"))
+        mailbox.offer(event("b", "2"))
+        mailbox.offer(event("d", "1"))
+        runTasks()
+
+        assertThat received, is(["b=2", "c=1", "d=1"])
+    }
+
+    @Test
+    void 'assert reconfigured mailbox keeps its queued events'() {
+        def mailbox = new EventSubscriberMailbox(subscriber, executor, 3, OverflowPolicy.DROP_OLDEST)
+        mailbox.offer(event("a", "1"))
+        mailbox.offer(event("b", "1"))
+        mailbox.offer(event("c", "1"))
+
+        mailbox.reconfigure(2, OverflowPolicy.COALESCE)
+        mailbox.offer(event("c", "2"))
+        runTasks()
+
+        assertThat received, is(["b=1", "c=2"])
+    }
+
+    @Test
+    void 'assert closed mailbox delivers queued events, unless they are discarded'() {
+        def mailbox = new EventSubscriberMailbox(subscriber, executor, 10, OverflowPolicy.DROP_OLDEST)
+        mailbox.offer(event("a", "1"))
+        mailbox.close(false)
+        mailbox.offer(event("b", "1"))
+        runTasks()
+        assertThat received, is(["a=1"])
+
+        received.clear()
+        mailbox = new EventSubscriberMailbox(subscriber, executor, 10, OverflowPolicy.DROP_OLDEST)
+        mailbox.offer(event("a", "1"))
+        mailbox.close(true)
+        runTasks()
+        assertThat received.isEmpty(), is(true)
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run()
+        }
+    }
+
+    private static Event event(String topic, String payload) {
+        return [ getType: { "TYPE" }, getTopic: { topic }, getPayload: { payload }, getSource: { null } ] as Event
+    }
+}
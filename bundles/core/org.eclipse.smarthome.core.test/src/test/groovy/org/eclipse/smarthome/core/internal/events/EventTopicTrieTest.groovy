@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.events
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import org.junit.Test
+
+
+/**
+ * The {@link EventTopicTrieTest} tests that the {@link EventTopicTrie} resolves the same values as matching the
+ * topic regular expressions.
+ *
+ * @author agent - Initial contribution
+ */
+class EventTopicTrieTest {
+
+    def TOPIC_REGEXES = [
+        "smarthome/items/.*/state",
+        "smarthome/items/.*",
+        "smarthome/items/Light_.*/command",
+        "smarthome/items/x/state",
+        "smarthome/some/topic",
+        "smarthome/things/.*/removed",
+        ".*"
+    ]
+
+    def TOPICS = [
+        "smarthome/items/x/state",
+        "smarthome/items/x/command",
+        "smarthome/items/Light_1/command",
+        "smarthome/items/a/b/state",
+        "smarthome/items//state",
+        "smarthome/items/",
+        "smarthome/items",
+        "smarthome/some/topic",
+        "smarthome/some/topic/x",
+        "smarthome/things/binding:type:id/removed"
+    ]
+
+    @Test
+    void 'assert trie resolves the same values as the topic regular expressions'() {
+        def trie = new EventTopicTrie<String>()
+        TOPIC_REGEXES.each { trie.add(EventTopicTrie.toGlob(it), it) }
+
+        TOPICS.each { topic ->
+            def result = new HashSet<String>()
+            trie.collect(topic, result)
+            assertThat "topic " + topic, result, is(TOPIC_REGEXES.findAll { topic.matches(it) } as Set)
+        }
+    }
+
+    @Test
+    void 'assert trie is empty after all values have been removed'() {
+        def trie = new EventTopicTrie<String>()
+        TOPIC_REGEXES.each { trie.add(EventTopicTrie.toGlob(it), it) }
+        TOPIC_REGEXES.each { trie.remove(EventTopicTrie.toGlob(it), it) }
+
+        assertThat trie.isEmpty(), is(true)
+    }
+
+    @Test
+    void 'assert complex regular expressions are not converted to glob patterns'() {
+        assertThat EventTopicTrie.toGlob("smarthome/items/.*/state"), is("smarthome/items/*/state")
+        assertThat EventTopicTrie.toGlob("smarthome/items/[a-z]+/state"), is(nullValue())
+        assertThat EventTopicTrie.toGlob("smarthome/(items|things)/.*"), is(nullValue())
+        assertThat EventTopicTrie.toGlob("smarthome/items/.+"), is(nullValue())
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.events
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import groovy.transform.CompileStatic
+
+import org.eclipse.smarthome.core.common.MicroBenchmark
+import org.eclipse.smarthome.core.events.Event
+import org.eclipse.smarthome.core.events.EventFilter
+import org.eclipse.smarthome.core.events.EventSubscriber
+import org.junit.Before
+import org.junit.Test
+
+
+/**
+ * The {@link OSGiEventManagerBenchmark} measures the time and the heap allocation for resolving the subscribers of an
+ * event type and for dispatching an event to them by the {@link OSGiEventManager}. It is run on demand, see
+ * {@link MicroBenchmark}.
+ *
+ * @author agent - Initial contribution
+ */
+@CompileStatic
+class OSGiEventManagerBenchmark {
+
+    static final int ITERATIONS = 1000000
+
+    static final int DISPATCH_ITERATIONS = 10000
+
+    static final String EVENT_TYPE = "EVENT_TYPE_A"
+
+    OSGiEventManager eventManager
+
+    List<CountingSubscriber> subscribers
+
+    @Before
+    void setUp() {
+        eventManager = new OSGiEventManager()
+        subscribers = []
+        for (int i = 0; i < 5; i++) {
+            subscribers.add(new CountingSubscriber(EVENT_TYPE))
+            subscribers.add(new CountingSubscriber(EventSubscriber.ALL_EVENT_TYPES))
+        }
+        for (CountingSubscriber subscriber : subscribers) {
+            eventManager.addEventSubscriber(subscriber)
+        }
+    }
+
+    @Test
+    void 'measure resolving the subscribers of an event type'() {
+        final int[] resolved = new int[1]
+        double bytesPerOperation = MicroBenchmark.measure("Resolve 10 event subscribers", ITERATIONS, new Runnable() {
+                    @Override
+                    void run() {
+                        for (int i = 0; i < ITERATIONS; i++) {
+                            resolved[0] += eventManager.getEventSubscribers(EVENT_TYPE).length
+                        }
+                    }
+                })
+
+        assertThat resolved[0], is((MicroBenchmark.WARMUP_ROUNDS + 1) * ITERATIONS * 10)
+        // the subscribers are resolved from a shared snapshot, so nothing but the measurement itself is allocated
+        assertTrue "Allocated ${bytesPerOperation} bytes/op", bytesPerOperation < 1
+    }
+
+    @Test
+    void 'measure dispatching an event to the subscribers of its type'() {
+        Event event = new BenchmarkEvent()
+        Map<String, Object> properties = [(OSGiEventManager.EVENT_PROPERTY): (Object) event]
+        final org.osgi.service.event.Event osgiEvent = new org.osgi.service.event.Event(EVENT_TYPE, properties)
+        // the synchronous dispatch still allocates per subscriber in the SafeMethodCaller, which is not asserted
+        MicroBenchmark.measure("Dispatch an event to 10 subscribers", DISPATCH_ITERATIONS, new Runnable() {
+                    @Override
+                    void run() {
+                        for (int i = 0; i < DISPATCH_ITERATIONS; i++) {
+                            eventManager.handleEvent(osgiEvent)
+                        }
+                    }
+                })
+
+        for (CountingSubscriber subscriber : subscribers) {
+            assertThat subscriber.received, is((MicroBenchmark.WARMUP_ROUNDS + 1) * DISPATCH_ITERATIONS)
+        }
+    }
+
+    private static class CountingSubscriber implements EventSubscriber {
+
+        final Set<String> subscribedEventTypes
+
+        volatile int received
+
+        CountingSubscriber(String subscribedEventType) {
+            this.subscribedEventTypes = Collections.singleton(subscribedEventType)
+        }
+
+        @Override
+        Set<String> getSubscribedEventTypes() {
+            return subscribedEventTypes
+        }
+
+        @Override
+        EventFilter getEventFilter() {
+            return null
+        }
+
+        @Override
+        void receive(Event event) {
+            received++
+        }
+    }
+
+    private static class BenchmarkEvent implements Event {
+
+        @Override
+        String getType() {
+            return EVENT_TYPE
+        }
+
+        @Override
+        String getTopic() {
+            return "smarthome/benchmark"
+        }
+
+        @Override
+        String getPayload() {
+            return ""
+        }
+
+        @Override
+        String getSource() {
+            return null
+        }
+    }
+}
@@ -94,6 +94,7 @@ class OSGiEventManagerOSGiTest extends OSGiTest {
 
     @After
     public void cleanUp() {
+        eventPublisher.modified([dispatchMode: "osgi", asyncDispatch: "false"])
         serviceRegistrations.each() { name, service ->
             service.unregister()
         }
@@ -182,6 +183,40 @@ class OSGiEventManagerOSGiTest extends OSGiTest {
         waitForAssert {assertThat receivedEvent_TypeBasedSubscriber2, is(null)}
     }
     
+    @Test
+    void 'OSGiEventManager dispatches event objects directly in local dispatch mode'() {
+        eventPublisher.modified([dispatchMode: "local"])
+        unregisterService("EVENT_TYPE_FACTORY_A_B")
+
+        Event typeAEvent = createEvent(EVENT_TYPE_A)
+        eventPublisher.post(typeAEvent)
+
+        waitForAssert {assertThat receivedEvent_TypeBasedSubscriber1, not(null)}
+        assertThat receivedEvent_TypeBasedSubscriber1, is(sameInstance(typeAEvent))
+        waitForAssert {assertThat receivedEvent_TypeBasedSubscriber2, not(null)}
+        assertThat receivedEvent_TypeBasedSubscriber2, is(sameInstance(typeAEvent))
+    }
+
+    @Test
+    void 'OSGiEventManager dispatches events asynchronously without being blocked by a slow subscriber'() {
+        eventPublisher.modified([asyncDispatch: "true", queueSize: "10", overflowPolicy: "dropOldest"])
+
+        def slowSubscriber = [
+            receive: { event -> Thread.sleep(10000) },
+            getSubscribedEventTypes: { Sets.newHashSet(EVENT_TYPE_A) },
+            getEventFilter: { null },
+        ] as EventSubscriber
+        registerService("SLOW_SUBSCRIBER", EventSubscriber, slowSubscriber)
+
+        eventPublisher.post(createEvent(EVENT_TYPE_A))
+        waitForAssert({assertThat receivedEvent_TypeBasedSubscriber1, not(null)}, 1000)
+        resetReceivedEvents()
+
+        eventPublisher.post(createEvent(EVENT_TYPE_A))
+        waitForAssert({assertThat receivedEvent_TypeBasedSubscriber1, not(null)}, 1000)
+        waitForAssert({assertThat receivedEvent_TypeBasedSubscriber2, not(null)}, 1000)
+    }
+
     @Test
     public void 'OSGiEventManager validates events before posted'() {
         try {
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.events
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.eclipse.smarthome.core.events.Event
+import org.eclipse.smarthome.core.events.EventFilter
+import org.eclipse.smarthome.core.events.EventSubscriber
+import org.junit.Test
+
+import com.google.common.collect.Sets
+
+
+/**
+ * The {@link OSGiEventManagerSubscriberSnapshotTest} tests that the {@link OSGiEventManager} resolves the subscribers
+ * of an event type from a shared snapshot, which is only rebuilt if subscribers are added or removed, and that the
+ * handled events are dispatched to all of them.
+ *
+ * @author agent - Initial contribution
+ */
+class OSGiEventManagerSubscriberSnapshotTest {
+
+    static final int EVENTS = 1000
+
+    static final String EVENT_TYPE = "EVENT_TYPE_A"
+
+    static final String OTHER_EVENT_TYPE = "EVENT_TYPE_B"
+
+    @Test
+    void 'assert subscribers of an event type are resolved without copying'() {
+        OSGiEventManager eventManager = new OSGiEventManager()
+        eventManager.addEventSubscriber(new TestSubscriber(EVENT_TYPE, null))
+        eventManager.addEventSubscriber(new TestSubscriber(EventSubscriber.ALL_EVENT_TYPES, null))
+
+        EventSubscriber[] subscribers = eventManager.getEventSubscribers(EVENT_TYPE)
+        assertThat subscribers.length, is(2)
+        assertThat eventManager.getEventSubscribers(EVENT_TYPE), is(sameInstance(subscribers))
+        assertThat eventManager.getEventSubscribers(OTHER_EVENT_TYPE).length, is(1)
+
+        TestSubscriber subscriber = new TestSubscriber(EVENT_TYPE, null)
+        eventManager.addEventSubscriber(subscriber)
+        assertThat eventManager.getEventSubscribers(EVENT_TYPE).length, is(3)
+
+        eventManager.removeEventSubscriber(subscriber)
+        assertThat eventManager.getEventSubscribers(EVENT_TYPE).length, is(2)
+    }
+
+    @Test
+    void 'assert handled events are dispatched to all subscribers of the event type'() {
+        OSGiEventManager eventManager = new OSGiEventManager()
+        List<TestSubscriber> subscribers = []
+        for (int i = 0; i < 5; i++) {
+            subscribers.add(new TestSubscriber(EVENT_TYPE, null))
+            subscribers.add(new TestSubscriber(EventSubscriber.ALL_EVENT_TYPES, null))
+            subscribers.add(new TestSubscriber(OTHER_EVENT_TYPE, null))
+        }
+        TestSubscriber filteringSubscriber = new TestSubscriber(EVENT_TYPE, { Event event -> false } as EventFilter)
+        subscribers.add(filteringSubscriber)
+        subscribers.each { eventManager.addEventSubscriber(it) }
+
+        Event event = [ getType: { EVENT_TYPE }, getTopic: { "smarthome/test" }, getPayload: { "" },
+            getSource: { null } ] as Event
+        org.osgi.service.event.Event osgiEvent = new org.osgi.service.event.Event(EVENT_TYPE,
+                [(OSGiEventManager.EVENT_PROPERTY): event])
+        for (int i = 0; i < EVENTS; i++) {
+            eventManager.handleEvent(osgiEvent)
+        }
+
+        subscribers.each { TestSubscriber subscriber ->
+            boolean receives = !subscriber.subscribedEventTypes.contains(OTHER_EVENT_TYPE)
+                    && subscriber != filteringSubscriber
+            assertThat subscriber.received.get(), is(receives ? EVENTS : 0)
+        }
+    }
+
+    private static class TestSubscriber implements EventSubscriber {
+
+        final Set<String> subscribedEventTypes
+
+        final EventFilter eventFilter
+
+        final AtomicInteger received = new AtomicInteger()
+
+        TestSubscriber(String subscribedEventType, EventFilter eventFilter) {
+            this.subscribedEventTypes = Sets.newHashSet(subscribedEventType)
+            this.eventFilter = eventFilter
+        }
+
+        @Override
+        Set<String> getSubscribedEventTypes() {
+            return subscribedEventTypes
+        }
+
+        @Override
+        EventFilter getEventFilter() {
+            return eventFilter
+        }
+
+        @Override
+        void receive(Event event) {
+            received.incrementAndGet()
+        }
+    }
+}
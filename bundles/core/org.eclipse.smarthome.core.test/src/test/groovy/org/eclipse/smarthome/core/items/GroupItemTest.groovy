@@ -13,6 +13,8 @@ import static org.junit.matchers.JUnitMatchers.*
 
 import org.eclipse.smarthome.core.library.items.NumberItem
 import org.eclipse.smarthome.core.library.items.SwitchItem
+import org.eclipse.smarthome.core.library.types.ArithmeticGroupFunction
+import org.eclipse.smarthome.core.library.types.DecimalType
 import org.eclipse.smarthome.core.types.Command
 import org.eclipse.smarthome.core.types.RefreshType
 import org.eclipse.smarthome.core.types.State
@@ -67,6 +69,67 @@ class GroupItemTest {
         }
     }
 
+    @Test
+    void 'assert all members are cached until the memberships of the group or its nested groups change'() {
+        GroupItem rootGroup = new GroupItem("root")
+        GroupItem subGroup = new GroupItem("subGroup")
+        GroupItem subSubGroup = new GroupItem("subSubGroup")
+        GroupItem otherGroup = new GroupItem("other")
+        rootGroup.addMember(new TestItem("member1"))
+        rootGroup.addMember(subGroup)
+        subGroup.addMember(subSubGroup)
+
+        Set<Item> allMembers = rootGroup.allMembers
+        assertThat rootGroup.allMembers, is(sameInstance(allMembers))
+
+        otherGroup.addMember(new TestItem("otherMember"))
+        assertThat rootGroup.allMembers, is(sameInstance(allMembers))
+
+        subSubGroup.addMember(new TestItem("member2"))
+        assertThat rootGroup.allMembers*.name as Set, is(["member1", "member2"] as Set)
+        allMembers = rootGroup.allMembers
+
+        rootGroup.removeMember(subGroup)
+        subGroup.addMember(new TestItem("member3"))
+        assertThat rootGroup.allMembers*.name as Set, is(["member1"] as Set)
+        assertThat subGroup.allMembers*.name as Set, is(["member2", "member3"] as Set)
+    }
+
+    @Test
+    void 'assert the state of a group with nested groups is maintained for all members'() {
+        GroupItem rootGroup = new GroupItem("root", new NumberItem("base"), new ArithmeticGroupFunction.Sum())
+        GroupItem subGroup = new GroupItem("subGroup", new NumberItem("base"), new ArithmeticGroupFunction.Sum())
+        GroupItem subSubGroup = new GroupItem("subSubGroup", new NumberItem("base"), new ArithmeticGroupFunction.Sum())
+        NumberItem member1 = new NumberItem("member1")
+        NumberItem member2 = new NumberItem("member2")
+        NumberItem member3 = new NumberItem("member3")
+        rootGroup.addMember(member1)
+        rootGroup.addMember(subGroup)
+        subGroup.addMember(subSubGroup)
+        subSubGroup.addMember(member2)
+
+        member1.setState(new DecimalType(1))
+        member2.setState(new DecimalType(2))
+        assertThat rootGroup.getStateAs(DecimalType), is(new DecimalType(3))
+
+        member2.setState(new DecimalType(5))
+        assertThat rootGroup.getStateAs(DecimalType), is(new DecimalType(6))
+        assertThat subGroup.getStateAs(DecimalType), is(new DecimalType(5))
+
+        member3.setState(new DecimalType(4))
+        subSubGroup.addMember(member3)
+        assertThat rootGroup.getStateAs(DecimalType), is(new DecimalType(10))
+
+        subSubGroup.removeMember(member2)
+        member2.setState(new DecimalType(7))
+        assertThat rootGroup.getStateAs(DecimalType), is(new DecimalType(5))
+
+        // a member, whose state changes cannot be observed, is read on every request
+        Item unobservedMember = [getName: { "unobserved" }, getStateAs: { new DecimalType(8) }] as Item
+        subGroup.addMember(unobservedMember)
+        assertThat rootGroup.getStateAs(DecimalType), is(new DecimalType(13))
+    }
+
     class TestItem extends GenericItem {
 
         public TestItem(String name) {
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.items
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import groovy.transform.CompileStatic
+
+import org.eclipse.smarthome.core.common.MicroBenchmark
+import org.eclipse.smarthome.core.library.items.SwitchItem
+import org.eclipse.smarthome.core.library.types.OnOffType
+import org.eclipse.smarthome.core.types.State
+import org.junit.Before
+import org.junit.Test
+
+
+/**
+ * The {@link StateChangeListenersBenchmark} measures the time and the heap allocation for setting the state of a
+ * {@link GenericItem}, which notifies its {@link StateChangeListener}s. It is run on demand, see
+ * {@link MicroBenchmark}.
+ *
+ * @author agent - Initial contribution
+ */
+@CompileStatic
+class StateChangeListenersBenchmark {
+
+    static final int ITERATIONS = 1000000
+
+    SwitchItem item
+
+    List<CountingListener> listeners
+
+    @Before
+    void setUp() {
+        item = new SwitchItem("switch")
+        listeners = []
+        for (int i = 0; i < 5; i++) {
+            CountingListener listener = new CountingListener()
+            listeners.add(listener)
+            item.addStateChangeListener(listener)
+        }
+    }
+
+    @Test
+    void 'measure setting the state of an item with five listeners'() {
+        final SwitchItem item = this.item
+        double bytesPerOperation = MicroBenchmark.measure("Set item state with 5 listeners", ITERATIONS, new Runnable() {
+                    @Override
+                    void run() {
+                        for (int i = 0; i < ITERATIONS; i++) {
+                            item.setState((i & 1) == 0 ? OnOffType.ON : OnOffType.OFF)
+                        }
+                    }
+                })
+
+        for (CountingListener listener : listeners) {
+            assertThat listener.updates, is((MicroBenchmark.WARMUP_ROUNDS + 1) * ITERATIONS)
+            assertThat listener.changes, is((MicroBenchmark.WARMUP_ROUNDS + 1) * ITERATIONS)
+        }
+        // the listeners are notified without copying or locking, so nothing but the measurement itself is allocated
+        assertTrue "Allocated ${bytesPerOperation} bytes/op", bytesPerOperation < 1
+    }
+
+    private static class CountingListener implements StateChangeListener {
+
+        int updates
+
+        int changes
+
+        @Override
+        void stateChanged(Item item, State oldState, State newState) {
+            changes++
+        }
+
+        @Override
+        void stateUpdated(Item item, State state) {
+            updates++
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.items
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import groovy.transform.CompileStatic
+
+import org.eclipse.smarthome.core.library.items.SwitchItem
+import org.eclipse.smarthome.core.library.types.OnOffType
+import org.eclipse.smarthome.core.types.State
+import org.junit.Assume
+import org.junit.Test
+
+
+/**
+ * The {@link StateChangeListenersTest} tests the notification of the {@link StateChangeListener}s of a
+ * {@link GenericItem}.
+ *
+ * @author agent - Initial contribution
+ */
+class StateChangeListenersTest {
+
+    @Test
+    void 'assert listeners are notified about updates and changes until they are removed'() {
+        SwitchItem item = new SwitchItem("switch")
+        CountingListener listener = new CountingListener()
+        item.addStateChangeListener(listener)
+        item.addStateChangeListener(listener)
+
+        item.setState(OnOffType.ON)
+        item.setState(OnOffType.ON)
+        assertThat listener.updates, is(2)
+        assertThat listener.changes, is(1)
+
+        item.removeStateChangeListener(listener)
+        item.setState(OnOffType.OFF)
+        assertThat listener.updates, is(2)
+        assertThat listener.changes, is(1)
+    }
+
+    @Test
+    void 'assert garbage collected listeners are removed'() {
+        StateChangeListeners listeners = new StateChangeListeners()
+        CountingListener listener = new CountingListener()
+        listeners.add(listener)
+        addUnreferencedListener(listeners)
+        assertThat listeners.size(), is(2)
+
+        for (int i = 0; i < 50 && listeners.size() > 1; i++) {
+            System.gc()
+            Thread.sleep(10)
+            StateChangeListeners.purgeCollectedListeners()
+        }
+        Assume.assumeTrue(listeners.size() == 1)
+
+        listeners.notifyListeners(new SwitchItem("switch"), OnOffType.OFF, OnOffType.ON)
+        assertThat listener.updates, is(1)
+        assertThat listener.changes, is(1)
+    }
+
+    private static void addUnreferencedListener(StateChangeListeners listeners) {
+        listeners.add(new CountingListener())
+    }
+
+    @CompileStatic
+    private static class CountingListener implements StateChangeListener {
+
+        int updates
+
+        int changes
+
+        @Override
+        void stateChanged(Item item, State oldState, State newState) {
+            changes++
+        }
+
+        @Override
+        void stateUpdated(Item item, State state) {
+            updates++
+        }
+    }
+}
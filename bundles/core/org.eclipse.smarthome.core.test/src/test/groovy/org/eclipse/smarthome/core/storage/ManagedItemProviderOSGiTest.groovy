@@ -11,6 +11,7 @@ import static org.hamcrest.CoreMatchers.*
 import static org.junit.Assert.*
 import static org.junit.matchers.JUnitMatchers.*
 
+import org.eclipse.smarthome.core.items.GroupItem
 import org.eclipse.smarthome.core.items.ItemRegistry
 import org.eclipse.smarthome.core.items.ManagedItemProvider
 import org.eclipse.smarthome.core.library.items.StringItem
@@ -140,4 +141,36 @@ class ManagedItemProviderOSGiTest extends OSGiTest {
 
         assertThat itemProvider.getAll().size(), is(0)
     }
+
+    @Test
+    void 'assert itemRegistry indexes follow updates and removals of copied items'() {
+
+        itemProvider.add new GroupItem('Group')
+        itemProvider.add new SwitchItem('Item')
+
+        def copy = new SwitchItem('Item')
+        copy.addTag('tag1')
+        copy.addGroupName('Group')
+        itemProvider.update copy
+
+        assertThat itemRegistry.get('Item'), is(sameInstance(copy))
+        assertThat itemRegistry.getItemsByTag('tag1'), is([copy])
+        assertThat itemRegistry.getAllMemberNames('Group'), is(['Item'] as Set)
+
+        // the registered instance is changed and then updated, as the REST API does it
+        copy.addTag('tag2')
+        copy.removeGroupName('Group')
+        itemProvider.update copy
+
+        assertThat itemRegistry.getItemsByTag('tag2'), is([copy])
+        assertThat itemRegistry.getAllMemberNames('Group').size(), is(0)
+        assertThat itemRegistry.get('Group').getMembers().size(), is(0)
+
+        itemProvider.remove 'Item'
+
+        assertThat itemRegistry.get('Item'), is(nullValue())
+        assertThat itemRegistry.getItemsByTag('tag1').size(), is(0)
+        assertThat itemRegistry.getItemsByTag('tag2').size(), is(0)
+        assertThat itemRegistry.getItems().size(), is(1)
+    }
 }
@@ -15,8 +15,12 @@ import junit.framework.Assert;
 
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.GroupFunction;
+import org.eclipse.smarthome.core.items.GroupItem;
+import org.eclipse.smarthome.core.items.IncrementalGroupFunction;
+import org.eclipse.smarthome.core.items.IncrementalGroupFunction.Aggregation;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.library.items.DimmerItem;
+import org.eclipse.smarthome.core.library.items.NumberItem;
 import org.eclipse.smarthome.core.library.items.SwitchItem;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.State;
@@ -201,6 +205,92 @@ public class ArithmeticGroupFunctionTest {
         Assert.assertEquals(new DecimalType("234.95"), state);
     }
 
+    @Test
+    public void testAggregationsMatchCalculation() {
+        TestItem item1 = new TestItem("TestItem1", new DecimalType("23.54"));
+        TestItem item2 = new TestItem("TestItem2", OnOffType.ON);
+        TestItem item3 = new TestItem("TestItem3", new DecimalType("89"));
+        TestItem item4 = new TestItem("TestItem4", UnDefType.UNDEF);
+        items.add(item1);
+        items.add(item2);
+        items.add(item3);
+        items.add(item4);
+
+        IncrementalGroupFunction[] functions = { new ArithmeticGroupFunction.Avg(), new ArithmeticGroupFunction.Sum(),
+                new ArithmeticGroupFunction.Min(), new ArithmeticGroupFunction.Max(),
+                new ArithmeticGroupFunction.And(OnOffType.ON, OnOffType.OFF),
+                new ArithmeticGroupFunction.NAnd(OnOffType.ON, OnOffType.OFF),
+                new ArithmeticGroupFunction.Or(OnOffType.ON, OnOffType.OFF),
+                new ArithmeticGroupFunction.NOr(OnOffType.ON, OnOffType.OFF),
+                new ArithmeticGroupFunction.Count(new StringType("[0-9.]+")) };
+
+        for (IncrementalGroupFunction function : functions) {
+            Aggregation aggregation = function.createAggregation();
+            for (Item item : items) {
+                aggregation.add(item);
+            }
+            assertAggregation(function, aggregation);
+
+            item1.setState(new DecimalType("-5.125"));
+            aggregation.update(item1);
+            item2.setState(new DecimalType("7"));
+            aggregation.update(item2);
+            assertAggregation(function, aggregation);
+
+            items.remove(item3);
+            aggregation.remove(item3);
+            item4.setState(OnOffType.ON);
+            aggregation.update(item4);
+            assertAggregation(function, aggregation);
+
+            // updates of items, which are no members, are ignored
+            item3.setState(new DecimalType("1000"));
+            aggregation.update(item3);
+            assertAggregation(function, aggregation);
+
+            items.add(item3);
+            aggregation.add(item3);
+            items.remove(item1);
+            aggregation.remove(item1);
+            assertAggregation(function, aggregation);
+
+            item1.setState(new DecimalType("23.54"));
+            item2.setState(OnOffType.ON);
+            item3.setState(new DecimalType("89"));
+            item4.setState(UnDefType.UNDEF);
+            items.add(item1);
+        }
+    }
+
+    @Test
+    public void testAggregatedGroupState() {
+        GroupItem group = new GroupItem("TestGroup", new NumberItem("TestGroup"), new ArithmeticGroupFunction.Sum());
+        NumberItem number1 = new NumberItem("TestNumber1");
+        NumberItem number2 = new NumberItem("TestNumber2");
+        group.addMember(number1);
+        group.addMember(number2);
+
+        number1.setState(new DecimalType("1.5"));
+        Assert.assertEquals(new DecimalType("1.5"), group.getState());
+        number2.setState(new DecimalType("2"));
+        Assert.assertEquals(new DecimalType("3.5"), group.getState());
+        Assert.assertEquals(new DecimalType("3.5"), group.getStateAs(DecimalType.class));
+
+        group.removeMember(number1);
+        number2.setState(new DecimalType("4"));
+        Assert.assertEquals(new DecimalType("4"), group.getState());
+        Assert.assertEquals("4", group.getStateAs(DecimalType.class).toString());
+    }
+
+    private void assertAggregation(GroupFunction function, Aggregation aggregation) {
+        String name = function.getClass().getSimpleName();
+        Assert.assertEquals(name, function.calculate(items), aggregation.getState());
+        Assert.assertEquals(name, function.calculate(items).toString(), aggregation.getState().toString());
+        Assert.assertEquals(name, function.getStateAs(items, DecimalType.class),
+                aggregation.getStateAs(DecimalType.class));
+        Assert.assertEquals(name, function.getStateAs(items, OnOffType.class), aggregation.getStateAs(OnOffType.class));
+    }
+
     class TestItem extends GenericItem {
 
         public TestItem(String name, State state) {
@@ -36,4 +36,18 @@ class UIDTest {
         assertThat channelUID.getId(), is("group#id")
         assertThat channelUID.getIdWithoutGroup(), is("id")
     }
+
+    @Test(expected=IllegalArgumentException)
+    void 'channel UID cannot be constructed with invalid characters'() {
+        new ChannelUID("binding:type:thing:id.1")
+    }
+
+    @Test
+    void 'channel UID returns interned thing UID'() {
+        def channelUID1 = new ChannelUID("binding:type:bridge:thing:channel1")
+        def channelUID2 = new ChannelUID("binding:type:bridge:thing:channel2")
+        assertThat channelUID1.getThingUID().is(channelUID2.getThingUID()), is(true)
+        assertThat channelUID1.getThingUID(), is(equalTo(new ThingUID("binding:type:bridge:thing")))
+        assertThat new ThingUID("binding:type:bridge:thing").getBridgeIds(), is(equalTo(["bridge"]))
+    }
 }
@@ -18,6 +18,7 @@ import org.eclipse.smarthome.core.thing.ThingRegistry
 import org.eclipse.smarthome.core.thing.ThingTypeUID
 import org.eclipse.smarthome.core.thing.ThingUID
 import org.eclipse.smarthome.core.thing.binding.ThingHandler
+import org.eclipse.smarthome.core.thing.binding.builder.BridgeBuilder
 import org.eclipse.smarthome.core.thing.binding.builder.ThingBuilder
 import org.eclipse.smarthome.core.thing.events.ThingAddedEvent
 import org.eclipse.smarthome.core.thing.events.ThingRemovedEvent
@@ -87,6 +88,31 @@ class ThingRegistryOSGiTest extends OSGiTest {
         receivedEvent = null
     }
 
+    @Test
+    void 'assert that ThingRegistry returns the current thing after updates and removals with copies'() {
+        ThingRegistry thingRegistry = getService(ThingRegistry)
+        def bridge1 = BridgeBuilder.create(new ThingUID(THING_TYPE_UID, "bridge1")).build()
+        def bridge2 = BridgeBuilder.create(new ThingUID(THING_TYPE_UID, "bridge2")).build()
+        managedThingProvider.add(bridge1)
+        managedThingProvider.add(bridge2)
+        managedThingProvider.add(ThingBuilder.create(THING_UID).withBridge(bridge1.getUID()).build())
+
+        // the provider notifies the registry with a deserialized copy of the old thing
+        def updatedThing = ThingBuilder.create(THING_UID).withBridge(bridge2.getUID()).build()
+        managedThingProvider.update(updatedThing)
+
+        assertThat thingRegistry.get(THING_UID), is(sameInstance(updatedThing))
+        assertThat thingRegistry.getAll().size(), is(3)
+        assertThat bridge1.getThings().isEmpty(), is(true)
+        assertThat bridge2.getThings(), is([updatedThing])
+
+        managedThingProvider.remove(THING_UID)
+
+        assertThat thingRegistry.get(THING_UID), is(nullValue())
+        assertThat thingRegistry.getAll().size(), is(2)
+        assertThat bridge2.getThings().isEmpty(), is(true)
+    }
+
     @Test
     void 'assert that ThingRegistry delegates config update to thing handler'() {
         def changedParameters = null
@@ -101,9 +101,58 @@ class ItemChannelLinkOSGiTest extends OSGiTest {
         assertThat boundThings.first().UID, is(equalTo(CHANNEL_UID.getThingUID()))
     }
 
+    @Test
+    void 'assert getLinkedItems returns item'() {
+        managedItemChannelLinkProvider.add ITEM_CHANNEL_LINK
+        assertThat itemChannelLinkRegistry.getLinkedItems(CHANNEL_UID), is([ "item" ] as Set)
+
+        managedItemChannelLinkProvider.remove(ITEM_CHANNEL_LINK.getID())
+        assertThat itemChannelLinkRegistry.getLinkedItems(CHANNEL_UID).isEmpty(), is(true)
+        assertThat itemChannelLinkRegistry.getBoundChannels("item").isEmpty(), is(true)
+    }
+
+    @Test
+    void 'assert removeLinksForThing removes links of the thing'() {
+        managedItemChannelLinkProvider.add ITEM_CHANNEL_LINK
+        managedItemChannelLinkProvider.add new ItemChannelLink("otherItem", new ChannelUID("binding:typeId:otherThingId:channelId"))
+
+        itemChannelLinkRegistry.removeLinksForThing(CHANNEL_UID.getThingUID())
+
+        assertThat itemChannelLinkRegistry.getAll().size(), is(1)
+        assertThat itemChannelLinkRegistry.isLinked("item", CHANNEL_UID), is(false)
+        assertThat itemChannelLinkRegistry.getBoundChannels("otherItem").size(), is(1)
+    }
+
     @Test
     void 'assert getBoundThings returns empty set'() {
         def boundThings = itemChannelLinkRegistry.getBoundThings("notExistingItem")
         assertThat boundThings.isEmpty(), is(true)
     }
+
+    @Test
+    void 'assert unlinking through ManagedItemChannelLinkProvider removes the link from all indexes'() {
+        managedItemChannelLinkProvider.add new ItemChannelLink("item", CHANNEL_UID)
+        assertThat itemChannelLinkRegistry.isLinked("item", CHANNEL_UID), is(true)
+
+        // the provider notifies the registry about the removal with a deserialized copy of the link
+        managedItemChannelLinkProvider.remove(ITEM_CHANNEL_LINK.getID())
+
+        assertThat itemChannelLinkRegistry.get(ITEM_CHANNEL_LINK.getID()), is(nullValue())
+        assertThat itemChannelLinkRegistry.isLinked("item", CHANNEL_UID), is(false)
+        assertThat itemChannelLinkRegistry.getBoundChannels("item").isEmpty(), is(true)
+        assertThat itemChannelLinkRegistry.getBoundThings("item").isEmpty(), is(true)
+        assertThat itemChannelLinkRegistry.getLinkedItems(CHANNEL_UID).isEmpty(), is(true)
+
+        def link = new ItemChannelLink("item", CHANNEL_UID)
+        managedItemChannelLinkProvider.add link
+
+        assertThat itemChannelLinkRegistry.get(ITEM_CHANNEL_LINK.getID()), is(sameInstance(link))
+        assertThat itemChannelLinkRegistry.isLinked("item", CHANNEL_UID), is(true)
+        assertThat itemChannelLinkRegistry.getBoundChannels("item"), is([CHANNEL_UID] as Set)
+
+        itemChannelLinkRegistry.removeLinksForThing(CHANNEL_UID.getThingUID())
+
+        assertThat itemChannelLinkRegistry.isLinked("item", CHANNEL_UID), is(false)
+        assertThat itemChannelLinkRegistry.getBoundChannels("item").isEmpty(), is(true)
+    }
 }
@@ -7,8 +7,8 @@
  */
 package org.eclipse.smarthome.core.thing;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -22,6 +22,10 @@ public class ChannelUID extends UID {
 
     private static final String CHANNEL_GROUP_SEPERATOR = "#";
 
+    private transient ThingUID thingUID;
+
+    private transient List<String> bridgeIds;
+
     /**
      * Default constructor in package scope only. Will allow to instantiate this
      * class by reflection. Not intended to be used for normal instantiation.
@@ -132,15 +136,17 @@ public class ChannelUID extends UID {
     /**
      * Returns the bridge ids.
      *
-     * @return list of bridge ids
+     * @return unmodifiable list of bridge ids
      */
     public List<String> getBridgeIds() {
-        List<String> bridgeIds = new ArrayList<>();
-        String[] segments = getSegments();
-        for (int i = 3; i < segments.length - 1; i++) {
-            bridgeIds.add(segments[i]);
+        List<String> result = bridgeIds;
+        if (result == null) {
+            String[] segments = getSegments();
+            result = segments.length > 4 ? Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(segments, 3,
+                    segments.length - 1))) : Collections.<String> emptyList();
+            bridgeIds = result;
         }
-        return bridgeIds;
+        return result;
     }
 
     /**
@@ -192,7 +198,7 @@ public class ChannelUID extends UID {
         if (index < length - 1) {
             super.validateSegment(segment, index, length);
         } else {
-            if (!segment.matches("[A-Za-z0-9_#-]*")) {
+            if (!isValidSegment(segment, CHANNEL_GROUP_SEPERATOR)) {
                 throw new IllegalArgumentException(
                         "UID segment '"
                                 + segment
@@ -204,10 +210,15 @@ public class ChannelUID extends UID {
     /**
      * Returns the thing UID
      *
-     * @return the thing UID
+     * @return the thing UID (interned, see {@link UID#intern(UID)})
      */
     public ThingUID getThingUID() {
-        return new ThingUID(Arrays.copyOfRange(getSegments(), 0, getSegments().length - 1));
+        ThingUID result = thingUID;
+        if (result == null) {
+            result = intern(new ThingUID(Arrays.copyOfRange(getSegments(), 0, getSegments().length - 1)));
+            thingUID = result;
+        }
+        return result;
     }
 
     /**
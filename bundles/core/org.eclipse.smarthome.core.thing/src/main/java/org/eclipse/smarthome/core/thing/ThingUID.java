@@ -8,6 +8,8 @@
 package org.eclipse.smarthome.core.thing;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -18,6 +20,8 @@ import java.util.List;
  */
 public class ThingUID extends UID {
 
+    private transient List<String> bridgeIds;
+
     /**
      * Default constructor in package scope only. Will allow to instantiate this
      * class by reflection. Not intended to be used for normal instantiation.
@@ -142,15 +146,17 @@ public class ThingUID extends UID {
     /**
      * Returns the bridge ids.
      *
-     * @return list of bridge ids
+     * @return unmodifiable list of bridge ids
      */
     public List<String> getBridgeIds() {
-        List<String> bridgeIds = new ArrayList<>();
-        String[] segments = getSegments();
-        for (int i = 2; i < segments.length - 1; i++) {
-            bridgeIds.add(segments[i]);
+        List<String> result = bridgeIds;
+        if (result == null) {
+            String[] segments = getSegments();
+            result = segments.length > 3 ? Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(segments, 2,
+                    segments.length - 1))) : Collections.<String> emptyList();
+            bridgeIds = result;
         }
-        return bridgeIds;
+        return result;
     }
 
     /**
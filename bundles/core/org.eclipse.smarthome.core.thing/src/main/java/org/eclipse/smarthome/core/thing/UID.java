@@ -10,11 +10,17 @@ package org.eclipse.smarthome.core.thing;
 import java.util.Arrays;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 /**
  * {@link UID} is the base class for unique identifiers within the SmartHome
  * framework. A UID must always start with a binding ID.
  *
+ * <p>
+ * The string representation and the hash code are computed once, as UIDs are used as keys on the hot paths of the
+ * framework. Long living instances can be shared by {@link #intern(UID)}.
+ *
  * @author Dennis Nobel - Initial contribution
  * @author Oliver Libutzki - Added possibility to define UIDs with variable amount of segments
  * @author Jochen Hiller - Bugfix 455434: added default constructor, object is now mutable
@@ -23,8 +29,15 @@ public abstract class UID {
 
     public static final String SEGMENT_PATTERN = "[A-Za-z0-9_-]*";
     public static final String SEPARATOR = ":";
+
+    private static final Interner<UID> INTERNER = Interners.newWeakInterner();
+
     private String[] segments;
 
+    private transient String asString;
+
+    private transient int hash;
+
     /**
      * Default constructor in package scope only. Will allow to instantiate this
      * class by reflection. Not intended to be used for normal instantiation.
@@ -88,12 +101,45 @@ public abstract class UID {
     }
 
     protected void validateSegment(String segment, int index, int length) {
-        if (!segment.matches(SEGMENT_PATTERN)) {
+        if (!isValidSegment(segment, "")) {
             throw new IllegalArgumentException("UID segment '" + segment
                     + "' contains invalid characters. Each segment of the UID must match the pattern [A-Za-z0-9_-]*.");
         }
     }
 
+    /**
+     * Checks if the segment matches the {@link #SEGMENT_PATTERN}, extended by the given additional characters.
+     *
+     * @param segment
+     *            segment (must not be null)
+     * @param additionalCharacters
+     *            characters, which are allowed in addition to the pattern
+     * @return true if the segment is valid, false otherwise
+     */
+    static boolean isValidSegment(String segment, String additionalCharacters) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_' || c == '-'
+                    || additionalCharacters.indexOf(c) >= 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the canonical instance for the given UID. Interned UIDs share the same instance as long as it is
+     * referenced, so that they can be compared by identity. The instances are held weakly.
+     *
+     * @param uid
+     *            UID (must not be null)
+     * @return canonical instance, which is equal to the given UID
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends UID> T intern(T uid) {
+        return (T) INTERNER.intern(uid);
+    }
+
     /**
      * Returns the binding id.
      *
@@ -109,14 +155,23 @@ public abstract class UID {
     }
 
     public String getAsString() {
-        return Joiner.on(SEPARATOR).join(segments);
+        String result = asString;
+        if (result == null) {
+            result = Joiner.on(SEPARATOR).join(segments);
+            asString = result;
+        }
+        return result;
     }
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + Arrays.hashCode(segments);
+        int result = hash;
+        if (result == 0) {
+            final int prime = 31;
+            result = 1;
+            result = prime * result + Arrays.hashCode(segments);
+            hash = result;
+        }
         return result;
     }
 
@@ -129,6 +184,8 @@ public abstract class UID {
         if (getClass() != obj.getClass())
             return false;
         UID other = (UID) obj;
+        if (hashCode() != other.hashCode())
+            return false;
         if (!Arrays.equals(segments, other.segments))
             return false;
         return true;
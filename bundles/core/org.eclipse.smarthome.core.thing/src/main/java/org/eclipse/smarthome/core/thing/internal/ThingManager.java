@@ -9,13 +9,13 @@ package org.eclipse.smarthome.core.thing.internal;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 
@@ -35,6 +35,7 @@ import org.eclipse.smarthome.core.thing.ThingRegistry;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.ThingStatusInfo;
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.eclipse.smarthome.core.thing.binding.ThingHandlerCallback;
@@ -125,6 +126,8 @@ public class ThingManager extends AbstractItemEventSubscriber implements ThingTr
 
     private List<ThingHandlerFactory> thingHandlerFactories = new CopyOnWriteArrayList<>();
 
+    private Map<ThingTypeUID, ThingHandlerFactory> thingHandlerFactoriesByThingType = new ConcurrentHashMap<>();
+
     private Map<ThingUID, ThingHandler> thingHandlers = new ConcurrentHashMap<>();
 
     private ThingHandlerTracker thingHandlerTracker;
@@ -232,7 +235,7 @@ public class ThingManager extends AbstractItemEventSubscriber implements ThingTr
 
     private ManagedThingProvider managedThingProvider;
 
-    private Set<Thing> things = new CopyOnWriteArraySet<>();
+    private Map<ThingUID, Thing> things = new ConcurrentHashMap<>();
 
     private ThingLinkManager thingLinkManager;
 
@@ -359,7 +362,7 @@ public class ThingManager extends AbstractItemEventSubscriber implements ThingTr
 
     @Override
     public void thingAdded(Thing thing, ThingTrackerEvent thingTrackerEvent) {
-        this.things.add(thing);
+        this.things.put(thing.getUID(), thing);
         logger.debug("Thing '{}' is tracked by ThingManager.", thing.getUID());
         ThingHandler thingHandler = thingHandlers.get(thing.getUID());
         if (thingHandler == null) {
@@ -401,7 +404,7 @@ public class ThingManager extends AbstractItemEventSubscriber implements ThingTr
         }
 
         logger.debug("Thing '{}' is no longer tracked by ThingManager.", thing.getUID());
-        this.things.remove(thing);
+        this.things.remove(thing.getUID());
     }
 
     @Override
@@ -411,8 +414,7 @@ public class ThingManager extends AbstractItemEventSubscriber implements ThingTr
         Thing oldThing = getThing(thingUID);
 
         if (oldThing != thing) {
-            this.things.remove(oldThing);
-            this.things.add(thing);
+            this.things.put(thingUID, thing);
         }
 
         thingLinkManager.thingUpdated(thing);
@@ -465,8 +467,14 @@ public class ThingManager extends AbstractItemEventSubscriber implements ThingTr
     }
 
     private ThingHandlerFactory findThingHandlerFactory(Thing thing) {
+        ThingTypeUID thingTypeUID = thing.getThingTypeUID();
+        ThingHandlerFactory cachedFactory = thingHandlerFactoriesByThingType.get(thingTypeUID);
+        if (cachedFactory != null) {
+            return cachedFactory;
+        }
         for (ThingHandlerFactory factory : thingHandlerFactories) {
-            if (factory.supportsThingType(thing.getThingTypeUID())) {
+            if (factory.supportsThingType(thingTypeUID)) {
+                thingHandlerFactoriesByThingType.put(thingTypeUID, factory);
                 return factory;
             }
         }
@@ -474,13 +482,7 @@ public class ThingManager extends AbstractItemEventSubscriber implements ThingTr
     }
 
     private Thing getThing(ThingUID id) {
-        for (Thing thing : this.things) {
-            if (thing.getUID().equals(id)) {
-                return thing;
-            }
-        }
-
-        return null;
+        return this.things.get(id);
     }
 
     private void registerHandler(final Thing thing, final ThingHandlerFactory thingHandlerFactory) {
@@ -550,7 +552,7 @@ public class ThingManager extends AbstractItemEventSubscriber implements ThingTr
 
         thingHandlerFactories.add(thingHandlerFactory);
 
-        for (Thing thing : this.things) {
+        for (Thing thing : this.things.values()) {
             if (thingHandlerFactory.supportsThingType(thing.getThingTypeUID())) {
                 ThingUID thingId = thing.getUID();
 
@@ -574,6 +576,7 @@ public class ThingManager extends AbstractItemEventSubscriber implements ThingTr
         logger.debug("Thing handler factory '{}' removed", thingHandlerFactory.getClass().getSimpleName());
 
         thingHandlerFactories.remove(thingHandlerFactory);
+        thingHandlerFactoriesByThingType.values().removeAll(Collections.singleton(thingHandlerFactory));
     }
 
     protected void setEventPublisher(EventPublisher eventPublisher) {
@@ -55,12 +55,7 @@ public class ThingRegistryImpl extends AbstractRegistry<Thing, ThingUID> impleme
      */
     @Override
     public Thing get(ThingUID uid) {
-        for (Thing thing : getAll()) {
-            if (thing.getUID().equals(uid)) {
-                return thing;
-            }
-        }
-        return null;
+        return getElementByKey(uid);
     }
 
     @Override
@@ -124,6 +119,11 @@ public class ThingRegistryImpl extends AbstractRegistry<Thing, ThingUID> impleme
         postEvent(ThingEventFactory.createUpdateEvent(element, oldElement));
     }
 
+    @Override
+    protected ThingUID getKey(Thing element) {
+        return element.getUID();
+    }
+
     @Override
     protected void onAddElement(Thing thing) throws IllegalArgumentException {
         addThingToBridge(thing);
@@ -149,7 +149,8 @@ public class ThingRegistryImpl extends AbstractRegistry<Thing, ThingUID> impleme
     protected void onUpdateElement(Thing oldThing, Thing thing) {
         // better call it explicitly here, even if it is called in onRemoveElement
         preserveDynamicState(thing);
-        onRemoveElement(thing);
+        // the thing is removed from the bridge of the old thing, as the bridge might have been changed
+        onRemoveElement(oldThing);
         onAddElement(thing);
     }
 
@@ -7,8 +7,12 @@
  */
 package org.eclipse.smarthome.core.thing.link;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.smarthome.core.common.registry.AbstractRegistry;
@@ -16,7 +20,8 @@ import org.eclipse.smarthome.core.thing.UID;
 
 /**
  * {@link AbstractLinkRegistry} is an abstract class for link based registries,
- * which handle {@link AbstractLink}s.
+ * which handle {@link AbstractLink}s. The links are indexed by their ID, item
+ * name and UID.
  *
  * @author Dennis Nobel - Initial contribution
  *
@@ -25,6 +30,11 @@ import org.eclipse.smarthome.core.thing.UID;
  */
 public abstract class AbstractLinkRegistry<L extends AbstractLink> extends AbstractRegistry<L, String> {
 
+    // the indexes are guarded by this registry
+    private final Map<String, Set<L>> linksByItemName = new HashMap<>();
+
+    private final Map<UID, Set<L>> linksByUID = new HashMap<>();
+
     /**
      * Returns if an item for a given item name is linked to a channel or thing for a
      * given UID.
@@ -36,14 +46,7 @@ public abstract class AbstractLinkRegistry<L extends AbstractLink> extends Abstr
      * @return true if linked, false otherwise
      */
     public boolean isLinked(String itemName, UID uid) {
-
-        for (AbstractLink link : getAll()) {
-            if (link.getUID().equals(uid) && link.getItemName().equals(itemName)) {
-                return true;
-            }
-        }
-
-        return false;
+        return getElementByKey(AbstractLink.getIDFor(itemName, uid)) != null;
     }
 
     /**
@@ -55,22 +58,86 @@ public abstract class AbstractLinkRegistry<L extends AbstractLink> extends Abstr
      */
     public Set<String> getLinkedItems(UID uid) {
         Set<String> linkedItems = new LinkedHashSet<>();
-        for (AbstractLink link : getAll()) {
-            if (link.getUID().equals(uid)) {
-                linkedItems.add(link.getItemName());
-            }
+        for (AbstractLink link : getLinks(linksByUID, uid)) {
+            linkedItems.add(link.getItemName());
         }
         return linkedItems;
     }
 
     @Override
     public L get(String key) {
-        Collection<L> links = getAll();
-        for (L link : links) {
-            if (link.getID().equals(key)) {
-                return link;
+        return getElementByKey(key);
+    }
+
+    /**
+     * Returns all links for the given item name.
+     *
+     * @param itemName
+     *            item name
+     * @return links for the given item name (not null)
+     */
+    protected Collection<L> getLinks(String itemName) {
+        return getLinks(linksByItemName, itemName);
+    }
+
+    @Override
+    protected String getKey(L element) {
+        return element.getID();
+    }
+
+    @Override
+    protected synchronized void addToIndexes(L element) {
+        super.addToIndexes(element);
+        if (getElementByKey(element.getID()) == element) {
+            addToIndex(linksByItemName, element.getItemName(), element);
+            addToIndex(linksByUID, element.getUID(), element);
+        }
+    }
+
+    @Override
+    protected synchronized void removeFromIndexes(L element) {
+        // links are equal by their ID, so a copy of the indexed link removes it as well
+        removeFromIndex(linksByItemName, element.getItemName(), element);
+        removeFromIndex(linksByUID, element.getUID(), element);
+        super.removeFromIndexes(element);
+        L remainingLink = getElementByKey(element.getID());
+        if (remainingLink != null) {
+            // another provider provides a link with the same ID
+            addToIndex(linksByItemName, remainingLink.getItemName(), remainingLink);
+            addToIndex(linksByUID, remainingLink.getUID(), remainingLink);
+        }
+    }
+
+    /**
+     * Adds the link to the index. Must be called while holding the lock of this registry.
+     */
+    protected <T> void addToIndex(Map<T, Set<L>> index, T key, L link) {
+        Set<L> links = index.get(key);
+        if (links == null) {
+            links = new LinkedHashSet<>();
+            index.put(key, links);
+        }
+        links.add(link);
+    }
+
+    /**
+     * Removes the link from the index. Must be called while holding the lock of this registry.
+     */
+    protected <T> void removeFromIndex(Map<T, Set<L>> index, T key, L link) {
+        Set<L> links = index.get(key);
+        if (links != null) {
+            links.remove(link);
+            if (links.isEmpty()) {
+                index.remove(key);
             }
         }
-        return null;
+    }
+
+    /**
+     * Returns a copy of the links, which are indexed for the given key.
+     */
+    protected synchronized <T> Collection<L> getLinks(Map<T, Set<L>> index, T key) {
+        Set<L> links = index.get(key);
+        return links != null ? new ArrayList<>(links) : Collections.<L> emptyList();
     }
 }
@@ -8,7 +8,9 @@
 package org.eclipse.smarthome.core.thing.link;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.smarthome.core.thing.ChannelUID;
@@ -18,7 +20,8 @@ import org.eclipse.smarthome.core.thing.ThingUID;
 
 /**
  * {@link ItemChannelLinkRegistry} tracks all {@link ItemChannelLinkProvider}s
- * and aggregates all {@link ItemChannelLink}s.
+ * and aggregates all {@link ItemChannelLink}s. Additionally to the indexes of
+ * the {@link AbstractLinkRegistry} the links are indexed by the UID of the thing.
  *
  * @author Dennis Nobel - Initial contribution
  *
@@ -27,6 +30,9 @@ public class ItemChannelLinkRegistry extends AbstractLinkRegistry<ItemChannelLin
 
     private ThingRegistry thingRegistry;
 
+    // guarded by this registry
+    private final Map<ThingUID, Set<ItemChannelLink>> linksByThingUID = new HashMap<>();
+
     /**
      * Returns a set of bound channels for the given item name.
      *
@@ -38,10 +44,8 @@ public class ItemChannelLinkRegistry extends AbstractLinkRegistry<ItemChannelLin
 
         Set<ChannelUID> channelUIDs = new HashSet<>();
 
-        for (ItemChannelLink itemChannelLink : getAll()) {
-            if (itemChannelLink.getItemName().equals(itemName)) {
-                channelUIDs.add(itemChannelLink.getUID());
-            }
+        for (ItemChannelLink itemChannelLink : getLinks(itemName)) {
+            channelUIDs.add(itemChannelLink.getUID());
         }
 
         return channelUIDs;
@@ -79,9 +83,29 @@ public class ItemChannelLinkRegistry extends AbstractLinkRegistry<ItemChannelLin
 
     public void removeLinksForThing(ThingUID thingUID) {
         if (this.managedProvider != null) {
-            ((ManagedItemChannelLinkProvider) this.managedProvider).removeLinksForThing(thingUID);
+            for (ItemChannelLink itemChannelLink : getLinks(linksByThingUID, thingUID)) {
+                this.managedProvider.remove(itemChannelLink.getID());
+            }
         } else {
             throw new IllegalStateException("ManagedProvider is not available");
         }
     }
+
+    @Override
+    protected synchronized void addToIndexes(ItemChannelLink element) {
+        super.addToIndexes(element);
+        if (getElementByKey(element.getID()) == element) {
+            addToIndex(linksByThingUID, element.getUID().getThingUID(), element);
+        }
+    }
+
+    @Override
+    protected synchronized void removeFromIndexes(ItemChannelLink element) {
+        removeFromIndex(linksByThingUID, element.getUID().getThingUID(), element);
+        super.removeFromIndexes(element);
+        ItemChannelLink remainingLink = getElementByKey(element.getID());
+        if (remainingLink != null) {
+            addToIndex(linksByThingUID, remainingLink.getUID().getThingUID(), remainingLink);
+        }
+    }
 }
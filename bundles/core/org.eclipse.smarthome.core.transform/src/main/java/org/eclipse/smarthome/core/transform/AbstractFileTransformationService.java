@@ -163,8 +163,9 @@ public abstract class AbstractFileTransformationService<T> implements   Transfor
      * Ensures that a modified or deleted cached files does not stay in the cache
      */
     private void processFolderEvents() {
-        WatchKey key = watchService.poll();
-        if (key != null) {
+        WatchKey key;
+        // every watched directory has its own key
+        while ((key = watchService.poll()) != null) {
             for (WatchEvent<?> e : key.pollEvents()) {
                 if (e.kind() == OVERFLOW) {
                     continue;
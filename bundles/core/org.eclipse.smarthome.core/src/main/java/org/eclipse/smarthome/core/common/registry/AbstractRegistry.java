@@ -8,7 +8,9 @@
 package org.eclipse.smarthome.core.common.registry;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 
@@ -24,6 +26,13 @@ import com.google.common.collect.Iterables;
  * The {@link AbstractRegistry} is an abstract implementation of the {@link Registry} interface, that can be used as
  * base class for {@link Registry} implementations.
  *
+ * <p>
+ * The registry keeps an immutable snapshot of all elements, which is returned by {@link #getAll()} and only rebuilt
+ * after the elements have changed. Sub classes can index the elements by their key by overriding
+ * {@link #getKey(Object)}, in order to look up elements in constant time by {@link #getElementByKey(Object)}. Updated
+ * and removed elements are matched by their key, as providers might pass a copy of the element instead of the
+ * instance, which has been added before.
+ *
  * @author Dennis Nobel - Initial contribution
  * @author Stefan Bußweiler - Migration to new event mechanism 
  * 
@@ -46,6 +55,14 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
 
     protected EventPublisher eventPublisher;
 
+    private final Map<K, E> elementsByKey = new ConcurrentHashMap<>();
+
+    private final Set<K> duplicateKeys = new HashSet<>();
+
+    private volatile Collection<E> allElements;
+
+    private int modificationCount = 0;
+
     @Override
     public void added(Provider<E> provider, E element) {
         Collection<E> elements = elementMap.get(provider);
@@ -53,6 +70,7 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
             try {
                 onAddElement(element);
                 elements.add(element);
+                addToIndexes(element);
                 notifyListenersAboutAddedElement(element);
             } catch (Exception ex) {
                 logger.warn("Could not add element: " + ex.getMessage(), ex);
@@ -67,7 +85,21 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
 
     @Override
     public Collection<E> getAll() {
-        return ImmutableList.copyOf(Iterables.concat(elementMap.values()));
+        Collection<E> all = allElements;
+        if (all == null) {
+            int count;
+            synchronized (this) {
+                count = modificationCount;
+            }
+            all = ImmutableList.copyOf(Iterables.concat(elementMap.values()));
+            synchronized (this) {
+                // only cache the snapshot if the elements have not been changed in the meantime
+                if (count == modificationCount) {
+                    allElements = all;
+                }
+            }
+        }
+        return all;
     }
 
     @Override
@@ -76,7 +108,8 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
         if (elements != null) {
             try {
                 onRemoveElement(element);
-                elements.remove(element);
+                removeElement(elements, element);
+                removeFromIndexes(element);
                 notifyListenersAboutRemovedElement(element);
             } catch (Exception ex) {
                 logger.warn("Could not remove element: " + ex.getMessage(), ex);
@@ -95,8 +128,10 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
         if (elements != null) {
             try {
                 onUpdateElement(oldElement, element);
-                elements.remove(oldElement);
+                removeElement(elements, oldElement);
+                removeFromIndexes(oldElement);
                 elements.add(element);
+                addToIndexes(element);
                 notifyListenersAboutUpdatedElement(oldElement, element);
             } catch (Exception ex) {
                 logger.warn("Could not update element: " + ex.getMessage(), ex);
@@ -182,6 +217,7 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
                 try {
                     onAddElement(element);
                     elements.add(element);
+                    addToIndexes(element);
                     notifyListenersAboutAddedElement(element);
                 } catch (Exception ex) {
                     logger.warn("Could not add element: " + ex.getMessage(), ex);
@@ -244,6 +280,108 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
         // can be overridden by sub classes
     }
 
+    /**
+     * Returns the key of the given element, which is used to index the elements of the registry. Sub classes, which
+     * want to look up elements by {@link #getElementByKey(Object)}, must override this method.
+     *
+     * @param element
+     *            element
+     * @return key of the element or null if the element should not be indexed (default)
+     */
+    protected K getKey(E element) {
+        return null;
+    }
+
+    /**
+     * Returns the element with the given key in constant time. If several providers provide an element with the same
+     * key, only one of them is returned.
+     *
+     * @param key
+     *            key of the element
+     * @return element or null if no element with the given key is indexed (see {@link #getKey(Object)})
+     */
+    protected E getElementByKey(K key) {
+        return key != null ? elementsByKey.get(key) : null;
+    }
+
+    /**
+     * This method is called after an element has been added to the elements of a provider. Sub classes, which
+     * maintain additional indexes, can override this method, but must call the super implementation.
+     *
+     * @param element
+     *            element that has been added
+     */
+    protected synchronized void addToIndexes(E element) {
+        modificationCount++;
+        allElements = null;
+        K key = getKey(element);
+        if (key != null) {
+            E indexedElement = elementsByKey.get(key);
+            if (indexedElement == null) {
+                elementsByKey.put(key, element);
+            } else if (indexedElement != element) {
+                duplicateKeys.add(key);
+            }
+        }
+    }
+
+    /**
+     * This method is called after an element has been removed from the elements of a provider. Sub classes, which
+     * maintain additional indexes, can override this method, but must call the super implementation. The given
+     * element does not need to be the indexed instance, all indexes are updated by its key.
+     *
+     * @param element
+     *            element that has been removed
+     */
+    protected synchronized void removeFromIndexes(E element) {
+        modificationCount++;
+        allElements = null;
+        K key = getKey(element);
+        if (key != null) {
+            if (duplicateKeys.contains(key)) {
+                // one of the remaining elements with the same key has to be indexed instead
+                E indexedElement = elementsByKey.get(key);
+                E remainingElement = null;
+                int remainingElements = 0;
+                for (E other : Iterables.concat(elementMap.values())) {
+                    if (key.equals(getKey(other))) {
+                        if (remainingElement == null || other == indexedElement) {
+                            remainingElement = other;
+                        }
+                        remainingElements++;
+                    }
+                }
+                if (remainingElements < 2) {
+                    duplicateKeys.remove(key);
+                }
+                if (remainingElement != null) {
+                    elementsByKey.put(key, remainingElement);
+                } else {
+                    elementsByKey.remove(key);
+                }
+            } else {
+                elementsByKey.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes the given element from the elements of a provider. If the element has a key, the element with the same
+     * key is removed, even if it is not equal to the given one.
+     */
+    private void removeElement(Collection<E> elements, E element) {
+        K key = getKey(element);
+        if (key == null) {
+            elements.remove(element);
+            return;
+        }
+        for (E other : elements) {
+            if (key.equals(getKey(other))) {
+                elements.remove(other);
+            }
+        }
+    }
+
     protected void removeProvider(Provider<E> provider) {
         if (elementMap.containsKey(provider)) {
 
@@ -256,7 +394,10 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
                 }
             }
 
-            elementMap.remove(provider);
+            Collection<E> elements = elementMap.remove(provider);
+            for (E element : elements) {
+                removeFromIndexes(element);
+            }
 
             provider.removeProviderChangeListener(this);
 
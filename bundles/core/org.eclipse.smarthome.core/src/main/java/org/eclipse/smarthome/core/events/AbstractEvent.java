@@ -16,7 +16,7 @@ public abstract class AbstractEvent implements Event {
 
     private final String topic;
 
-    private final String payload;
+    private volatile String payload;
 
     private final String source;
 
@@ -33,6 +33,17 @@ public abstract class AbstractEvent implements Event {
         this.source = source;
     }
 
+    /**
+     * Can be called in subclass constructor to create a new event whose payload is serialized lazily by
+     * {@link #createPayload()} when {@link #getPayload()} is called for the first time.
+     * 
+     * @param topic the topic
+     * @param source the source
+     */
+    protected AbstractEvent(String topic, String source) {
+        this(topic, null, source);
+    }
+
     @Override
     public String getTopic() {
         return topic;
@@ -40,6 +51,11 @@ public abstract class AbstractEvent implements Event {
 
     @Override
     public String getPayload() {
+        String payload = this.payload;
+        if (payload == null) {
+            payload = createPayload();
+            this.payload = payload;
+        }
         return payload;
     }
 
@@ -48,4 +64,14 @@ public abstract class AbstractEvent implements Event {
         return source;
     }
 
+    /**
+     * Creates the serialized payload of an event which has been constructed without a payload. Subclasses which make
+     * use of the lazy payload serialization must override this method. The default implementation returns null.
+     * 
+     * @return the serialized payload, or null
+     */
+    protected String createPayload() {
+        return null;
+    }
+
 }
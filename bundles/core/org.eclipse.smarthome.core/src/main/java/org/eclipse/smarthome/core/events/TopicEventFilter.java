@@ -7,6 +7,8 @@
  */
 package org.eclipse.smarthome.core.events;
 
+import java.util.regex.Pattern;
+
 /**
  * The {@link TopicEventFilter} is a default Eclipse SmartHome {@link EventFilter} implementation that ensures filtering
  * of events based on an event topic.
@@ -16,7 +18,9 @@ package org.eclipse.smarthome.core.events;
 public class TopicEventFilter implements EventFilter {
 
     private final String topicRegex;
-    
+
+    private final Pattern topicPattern;
+
     /**
      * Constructs a new topic event filter.
      * 
@@ -25,11 +29,21 @@ public class TopicEventFilter implements EventFilter {
      */
     public TopicEventFilter(String topicRegex) {
         this.topicRegex = topicRegex;
+        this.topicPattern = Pattern.compile(topicRegex);
     }
- 
+
     @Override
     public boolean apply(Event event) {
-        return event.getTopic().matches(topicRegex);
+        return topicPattern.matcher(event.getTopic()).matches();
+    }
+
+    /**
+     * Gets the regular expression of the topic.
+     * 
+     * @return the topic regex (not null)
+     */
+    public String getTopicRegex() {
+        return topicRegex;
     }
 
 }
@@ -0,0 +1,274 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.events;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.concurrent.Executor;
+
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link EventSubscriberMailbox} is a bounded and ordered queue of events for a single {@link EventSubscriber}.
+ * Queued events are delivered one after another by a task of a shared worker pool, so that a slow subscriber does not
+ * delay the delivery of events to other subscribers. The behavior of a full mailbox is defined by the
+ * {@link OverflowPolicy}.
+ *
+ * @author agent - Initial contribution
+ */
+class EventSubscriberMailbox implements Runnable {
+
+    /**
+     * The {@link OverflowPolicy} defines how a full mailbox handles a new event.
+     */
+    enum OverflowPolicy {
+
+        /**
+         * The oldest queued event is dropped.
+         */
+        DROP_OLDEST,
+
+        /**
+         * A queued event with the same topic is replaced by the new event at its position in the queue. If there is no
+         * such event the oldest queued event is dropped.
+         */
+        COALESCE,
+
+        /**
+         * The publishing thread is blocked until the subscriber has processed a queued event. A slow subscriber
+         * therefore delays the delivery to all other subscribers.
+         */
+        BLOCK;
+
+        /**
+         * Returns the overflow policy for the given configuration value, e.g. "dropOldest", "coalesce" or "block".
+         *
+         * @param value the configuration value
+         * @return the overflow policy or null if the value is unknown
+         */
+        static OverflowPolicy fromConfig(String value) {
+            for (OverflowPolicy policy : values()) {
+                if (policy.name().replace("_", "").equalsIgnoreCase(value)) {
+                    return policy;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Maximum number of events which are delivered in one run, before the task is rescheduled in order to give other
+     * mailboxes a chance to be processed by the shared worker pool.
+     */
+    private static final int MAX_EVENTS_PER_RUN = 32;
+
+    private final Logger logger = LoggerFactory.getLogger(EventSubscriberMailbox.class);
+
+    private final EventSubscriber eventSubscriber;
+
+    private final Executor executor;
+
+    private final LinkedList<Event> queue = new LinkedList<Event>();
+
+    private int capacity;
+
+    private OverflowPolicy overflowPolicy;
+
+    /** the number of events dropped since the last report, guarded by the queue */
+    private long droppedEvents = 0;
+
+    private boolean scheduled = false;
+
+    private boolean closed = false;
+
+    private volatile Event currentEvent;
+
+    private volatile long currentEventStarted;
+
+    private volatile boolean currentEventReported;
+
+    /**
+     * Creates a new mailbox.
+     *
+     * @param eventSubscriber the subscriber the events are delivered to
+     * @param executor the executor which runs the delivery task
+     * @param capacity the maximum number of queued events (must be positive)
+     * @param overflowPolicy the policy which is applied if the mailbox is full
+     */
+    EventSubscriberMailbox(EventSubscriber eventSubscriber, Executor executor, int capacity,
+            OverflowPolicy overflowPolicy) {
+        this.eventSubscriber = eventSubscriber;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Adds an event to the mailbox and schedules its delivery. If the mailbox is closed, the event is ignored.
+     *
+     * @param event the event
+     * @throws InterruptedException if the thread was interrupted while waiting for free space (only for
+     *             {@link OverflowPolicy#BLOCK})
+     */
+    void offer(Event event) throws InterruptedException {
+        boolean schedule = false;
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            if (queue.size() >= capacity && !handleOverflow(event)) {
+                return;
+            }
+            queue.add(event);
+            if (!scheduled) {
+                scheduled = true;
+                schedule = true;
+            }
+        }
+        if (schedule) {
+            executor.execute(this);
+        }
+    }
+
+    /**
+     * Makes room for the given event in the full queue or puts it in place of a queued event. Must be called while
+     * holding the lock of the queue.
+     *
+     * @return true, if the event is still to be added, false, if it has been queued already or must be ignored
+     */
+    private boolean handleOverflow(Event event) throws InterruptedException {
+        switch (overflowPolicy) {
+            case BLOCK:
+                while (queue.size() >= capacity && !closed && overflowPolicy == OverflowPolicy.BLOCK) {
+                    queue.wait();
+                }
+                if (closed) {
+                    return false;
+                }
+                // the mailbox may have been reconfigured meanwhile
+                return queue.size() < capacity || handleOverflow(event);
+            case COALESCE:
+                ListIterator<Event> iterator = queue.listIterator();
+                while (iterator.hasNext()) {
+                    Event queuedEvent = iterator.next();
+                    if (queuedEvent.getTopic().equals(event.getTopic())) {
+                        iterator.set(event);
+                        dropped(queuedEvent);
+                        return false;
+                    }
+                }
+                // fall through, if there is no event with the same topic
+            case DROP_OLDEST:
+            default:
+                dropped(queue.poll());
+                return true;
+        }
+    }
+
+    private void dropped(Event event) {
+        droppedEvents++;
+        logger.debug("Mailbox of subscriber '{}' is full, dropped event '{}'.", eventSubscriber, event);
+    }
+
+    @Override
+    public void run() {
+        for (int i = 0; i < MAX_EVENTS_PER_RUN; i++) {
+            Event event;
+            synchronized (queue) {
+                event = queue.poll();
+                if (event == null) {
+                    scheduled = false;
+                    reportDroppedEvents();
+                    return;
+                }
+                queue.notifyAll();
+            }
+            deliver(event);
+        }
+        // reschedule to be fair to the other mailboxes of the worker pool
+        executor.execute(this);
+    }
+
+    private void deliver(Event event) {
+        currentEventReported = false;
+        currentEventStarted = System.currentTimeMillis();
+        currentEvent = event;
+        try {
+            eventSubscriber.receive(event);
+        } catch (Throwable t) {
+            logger.error("Dispatching event to subscriber '" + eventSubscriber + "' failed: " + t.getMessage(), t);
+        } finally {
+            currentEvent = null;
+        }
+    }
+
+    /**
+     * Checks whether the delivery of the current event takes longer than the given timeout and logs a warning once per
+     * event. This method does not block and can be called by a watchdog.
+     *
+     * @param timeout the timeout in milliseconds
+     */
+    void checkTimeout(long timeout) {
+        Event event = currentEvent;
+        if (event != null && !currentEventReported && System.currentTimeMillis() - currentEventStarted > timeout) {
+            currentEventReported = true;
+            logger.warn("Dispatching event '{}' to subscriber '{}' takes more than {}ms.",
+                    new Object[] { event, eventSubscriber, timeout });
+        }
+    }
+
+    /**
+     * Logs a warning about the events, which have been dropped or coalesced since the last report, once the mailbox
+     * has caught up. Must be called while holding the lock of the queue.
+     */
+    private void reportDroppedEvents() {
+        if (droppedEvents > 0) {
+            logger.warn("Mailbox of subscriber '{}' overflowed, {} events have been dropped or coalesced.",
+                    eventSubscriber, droppedEvents);
+            droppedEvents = 0;
+        }
+    }
+
+    /**
+     * Changes the capacity and the overflow policy of the mailbox. Queued events are kept, unless they exceed the new
+     * capacity, in which case the oldest ones are dropped.
+     *
+     * @param capacity the maximum number of queued events (must be positive)
+     * @param overflowPolicy the policy which is applied if the mailbox is full
+     */
+    void reconfigure(int capacity, OverflowPolicy overflowPolicy) {
+        synchronized (queue) {
+            this.capacity = capacity;
+            this.overflowPolicy = overflowPolicy;
+            while (queue.size() > capacity) {
+                dropped(queue.poll());
+            }
+            // blocked publishers may proceed with a larger capacity or another policy
+            queue.notifyAll();
+        }
+    }
+
+    /**
+     * Closes the mailbox and releases blocked publishers. Events offered afterwards are ignored.
+     *
+     * @param discardQueuedEvents whether the queued events are discarded or still delivered
+     */
+    void close(boolean discardQueuedEvents) {
+        synchronized (queue) {
+            closed = true;
+            if (discardQueuedEvents) {
+                queue.clear();
+            }
+            queue.notifyAll();
+        }
+    }
+
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.events;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * The {@link EventTopicTrie} indexes values by topic patterns, so that all values whose pattern matches a topic can be
+ * resolved by a single walk over the topic segments (separated by '/') instead of matching a regular expression per
+ * value.
+ *
+ * Only topic regular expressions which consist of literal characters and the wildcard {@code .*} can be indexed (see
+ * {@link #toGlob(String)}), e.g. {@code smarthome/items/.*}{@code /state}. The literal segments in front of the first
+ * wildcard form the path within the trie, the rest of the pattern is matched against the remaining topic by a simple
+ * wildcard comparison. Fully literal patterns are resolved by hash lookups only.
+ *
+ * The trie can be read concurrently, modifications must be synchronized externally.
+ *
+ * @param <T> the type of the indexed values
+ * @author agent - Initial contribution
+ */
+class EventTopicTrie<T> {
+
+    private static final char SEPARATOR = '/';
+
+    private static final char WILDCARD = '*';
+
+    private final Node<T> root = new Node<T>();
+
+    /**
+     * Converts a topic regular expression into a glob pattern, where {@code *} matches any sequence of characters.
+     *
+     * @param topicRegex the topic regular expression
+     * @return the glob pattern or null if the regular expression contains other constructs than literal characters and
+     *         the {@code .*} wildcard
+     */
+    static String toGlob(String topicRegex) {
+        StringBuilder glob = new StringBuilder(topicRegex.length());
+        int length = topicRegex.length();
+        for (int i = 0; i < length; i++) {
+            char c = topicRegex.charAt(i);
+            if (c == '.' && i + 1 < length && topicRegex.charAt(i + 1) == WILDCARD) {
+                // collapse subsequent wildcards
+                if (glob.length() == 0 || glob.charAt(glob.length() - 1) != WILDCARD) {
+                    glob.append(WILDCARD);
+                }
+                i++;
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == SEPARATOR || c == ':'
+                    || c == ' ' || c == ',' || c == '@' || c == '#' || c == '~' || c == '%') {
+                glob.append(c);
+            } else {
+                return null;
+            }
+        }
+        return glob.toString();
+    }
+
+    /**
+     * Adds a value for the given glob pattern.
+     *
+     * @param glob the glob pattern (see {@link #toGlob(String)})
+     * @param value the value
+     */
+    void add(String glob, T value) {
+        Node<T> node = root;
+        int start = 0;
+        int wildcard = glob.indexOf(WILDCARD);
+        while (true) {
+            int end = glob.indexOf(SEPARATOR, start);
+            if (wildcard >= 0 && (end < 0 || wildcard < end)) {
+                // the current segment contains a wildcard, the rest is matched as glob
+                node.globs.add(new GlobEntry<T>(glob.substring(start), value));
+                return;
+            }
+            String segment = end < 0 ? glob.substring(start) : glob.substring(start, end);
+            Node<T> child = node.children.get(segment);
+            if (child == null) {
+                child = new Node<T>();
+                node.children.put(segment, child);
+            }
+            node = child;
+            if (end < 0) {
+                node.values.add(value);
+                return;
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Removes a value which has been added for the given glob pattern.
+     *
+     * @param glob the glob pattern
+     * @param value the value
+     */
+    void remove(String glob, T value) {
+        remove(root, glob, 0, glob.indexOf(WILDCARD), value);
+    }
+
+    private void remove(Node<T> node, String glob, int start, int wildcard, T value) {
+        int end = glob.indexOf(SEPARATOR, start);
+        if (wildcard >= 0 && (end < 0 || wildcard < end)) {
+            node.globs.remove(new GlobEntry<T>(glob.substring(start), value));
+            return;
+        }
+        String segment = end < 0 ? glob.substring(start) : glob.substring(start, end);
+        Node<T> child = node.children.get(segment);
+        if (child == null) {
+            return;
+        }
+        if (end < 0) {
+            child.values.remove(value);
+        } else {
+            remove(child, glob, end + 1, wildcard, value);
+        }
+        if (child.isEmpty()) {
+            node.children.remove(segment);
+        }
+    }
+
+    /**
+     * Adds all values whose pattern matches the given topic to the result.
+     *
+     * @param topic the topic
+     * @param result the collection the matching values are added to
+     */
+    void collect(String topic, Collection<? super T> result) {
+        Node<T> node = root;
+        int start = 0;
+        while (true) {
+            for (GlobEntry<T> entry : node.globs) {
+                if (matches(entry.glob, topic, start)) {
+                    result.add(entry.value);
+                }
+            }
+            int end = topic.indexOf(SEPARATOR, start);
+            node = node.children.get(end < 0 ? topic.substring(start) : topic.substring(start, end));
+            if (node == null) {
+                return;
+            }
+            if (end < 0) {
+                result.addAll(node.values);
+                return;
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Returns true if nothing has been added to this trie.
+     *
+     * @return true if the trie is empty
+     */
+    boolean isEmpty() {
+        return root.isEmpty();
+    }
+
+    /**
+     * Matches the glob pattern against the topic starting at the given offset.
+     */
+    private static boolean matches(String glob, String topic, int offset) {
+        int g = 0;
+        int t = offset;
+        int starGlob = -1;
+        int starTopic = -1;
+        while (t < topic.length()) {
+            if (g < glob.length() && glob.charAt(g) == WILDCARD) {
+                starGlob = g++;
+                starTopic = t;
+            } else if (g < glob.length() && glob.charAt(g) == topic.charAt(t)) {
+                g++;
+                t++;
+            } else if (starGlob >= 0) {
+                g = starGlob + 1;
+                t = ++starTopic;
+            } else {
+                return false;
+            }
+        }
+        while (g < glob.length() && glob.charAt(g) == WILDCARD) {
+            g++;
+        }
+        return g == glob.length();
+    }
+
+    private static class Node<T> {
+        private final Map<String, Node<T>> children = new ConcurrentHashMap<String, Node<T>>();
+        private final Set<T> values = new CopyOnWriteArraySet<T>();
+        private final Set<GlobEntry<T>> globs = new CopyOnWriteArraySet<GlobEntry<T>>();
+
+        private boolean isEmpty() {
+            return children.isEmpty() && values.isEmpty() && globs.isEmpty();
+        }
+    }
+
+    private static class GlobEntry<T> {
+        private final String glob;
+        private final T value;
+
+        private GlobEntry(String glob, T value) {
+            this.glob = glob;
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * glob.hashCode() + value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof GlobEntry)) {
+                return false;
+            }
+            GlobEntry<?> other = (GlobEntry<?>) obj;
+            return glob.equals(other.glob) && value.equals(other.value);
+        }
+    }
+
+}
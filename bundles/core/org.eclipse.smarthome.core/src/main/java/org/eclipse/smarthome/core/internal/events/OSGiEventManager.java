@@ -10,29 +10,39 @@ package org.eclipse.smarthome.core.internal.events;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Dictionary;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.eclipse.smarthome.core.common.SafeMethodCaller;
 import org.eclipse.smarthome.core.common.SafeMethodCaller.ActionWithException;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.events.Event;
 import org.eclipse.smarthome.core.events.EventFactory;
 import org.eclipse.smarthome.core.events.EventFilter;
 import org.eclipse.smarthome.core.events.EventPublisher;
 import org.eclipse.smarthome.core.events.EventSubscriber;
+import org.eclipse.smarthome.core.events.TopicEventFilter;
+import org.eclipse.smarthome.core.internal.events.EventSubscriberMailbox.OverflowPolicy;
 import org.osgi.service.event.EventAdmin;
 import org.osgi.service.event.EventHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimaps;
+import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.SetMultimap;
 
 /**
@@ -45,18 +55,180 @@ import com.google.common.collect.SetMultimap;
  * The {@link OSGiEventManager} also serves as {@link EventPublisher} by implementing the EventPublisher interface.
  * Events are send in an asynchronous way via OSGi Event Admin mechanism.
  *
+ * The dispatch mode can be configured by the {@code dispatchMode} property:
+ * <ul>
+ * <li>{@code osgi} (default): the event is serialized into the OSGi event properties and recreated by the
+ * corresponding {@link EventFactory} before it is dispatched to the {@link EventSubscriber}s.</li>
+ * <li>{@code local}: the already created ESH {@link Event} object is attached to the OSGi event and handed directly to
+ * the {@link EventSubscriber}s. The payload is not part of the OSGi event properties and therefore only serialized if a
+ * consumer requests it by {@link Event#getPayload()}.</li>
+ * </ul>
+ *
+ * By default each event is delivered to the {@link EventSubscriber}s one after another by the {@link SafeMethodCaller}.
+ * If the {@code asyncDispatch} property is set to {@code true}, each subscriber gets its own bounded and ordered
+ * {@link EventSubscriberMailbox} instead, which is processed by the shared "events" thread pool. The size of the
+ * mailboxes can be configured by the {@code queueSize} property and the behavior of a full mailbox by the
+ * {@code overflowPolicy} property ({@code dropOldest} (default), {@code coalesce} or {@code block}). Configuration
+ * changes are applied to the existing mailboxes. Subscribers which take longer than
+ * {@link SafeMethodCaller#DEFAULT_TIMEOUT} to process an event are reported by a watchdog.
+ *
+ * Subscribers which provide a {@link TopicEventFilter} with a simple topic pattern (literal characters and the
+ * {@code .*} wildcard) are indexed by an {@link EventTopicTrie} at registration time, so that the matching subscribers
+ * of a topic are resolved by a single lookup instead of applying the filter of each subscriber.
+ *
+ * The other subscribers of an event type (including the subscribers of all event types) are held in immutable arrays
+ * per event type, which are only rebuilt if an {@link EventSubscriber} is added or removed. Dispatching an event
+ * therefore neither locks nor copies the registered subscribers.
+ *
  * @author Stefan Bußweiler - Initial contribution
  */
 public class OSGiEventManager implements EventHandler, EventPublisher {
 
+    /**
+     * The name of the OSGi event property which holds the ESH event object in local dispatch mode.
+     */
+    static final String EVENT_PROPERTY = "event";
+
+    private static final String DISPATCH_MODE_PROPERTY = "dispatchMode";
+
+    private static final String DISPATCH_MODE_LOCAL = "local";
+
+    private static final String DISPATCH_MODE_OSGI = "osgi";
+
+    private static final String ASYNC_DISPATCH_PROPERTY = "asyncDispatch";
+
+    private static final String QUEUE_SIZE_PROPERTY = "queueSize";
+
+    private static final String OVERFLOW_POLICY_PROPERTY = "overflowPolicy";
+
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    private static final String THREAD_POOL_NAME = "events";
+
+    private static final String WATCHDOG_THREAD_POOL_NAME = "eventWatchdog";
+
     private Logger logger = LoggerFactory.getLogger(OSGiEventManager.class);
 
     private EventAdmin osgiEventAdmin;
 
+    private volatile boolean localDispatch = false;
+
+    private volatile boolean asyncDispatch = false;
+
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    private final Map<EventSubscriber, EventSubscriberMailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private ScheduledFuture<?> watchdogJob;
+
     private final Map<String, EventFactory> typedEventFactories = new ConcurrentHashMap<String, EventFactory>();
 
-    private final SetMultimap<String, EventSubscriber> typedEventSubscribers = Multimaps
-            .synchronizedSetMultimap(HashMultimap.<String, EventSubscriber> create());
+    private final SetMultimap<String, EventSubscriber> typedEventSubscribers = LinkedHashMultimap.create();
+
+    private static final EventSubscriber[] NO_SUBSCRIBERS = new EventSubscriber[0];
+
+    private volatile Map<String, EventSubscriber[]> typedEventSubscriberSnapshots = Collections.emptyMap();
+
+    private volatile EventSubscriber[] allEventTypesSubscriberSnapshot = NO_SUBSCRIBERS;
+
+    private final Map<String, EventTopicTrie<EventSubscriber>> topicIndexedSubscribers = new ConcurrentHashMap<>();
+
+    private final Map<EventSubscriber, String> subscriberTopicGlobs = new ConcurrentHashMap<>();
+
+    protected void activate(Map<String, Object> properties) {
+        modified(properties);
+    }
+
+    protected synchronized void modified(Map<String, Object> properties) {
+        if (properties == null) {
+            return;
+        }
+        boolean async = asyncDispatch;
+        for (Entry<String, Object> entry : properties.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (key.equals(DISPATCH_MODE_PROPERTY)) {
+                if (DISPATCH_MODE_LOCAL.equals(value)) {
+                    localDispatch = true;
+                } else if (value == null || DISPATCH_MODE_OSGI.equals(value)) {
+                    localDispatch = false;
+                } else {
+                    logger.warn("Ignoring invalid event dispatch mode '{}' - allowed values are '{}' and '{}'",
+                            new Object[] { value, DISPATCH_MODE_OSGI, DISPATCH_MODE_LOCAL });
+                }
+            } else if (key.equals(ASYNC_DISPATCH_PROPERTY)) {
+                async = value != null && Boolean.parseBoolean(value.toString());
+            } else if (key.equals(QUEUE_SIZE_PROPERTY) && value != null) {
+                try {
+                    int size = Integer.parseInt(value.toString());
+                    if (size > 0) {
+                        queueSize = size;
+                    } else {
+                        logger.warn("Ignoring invalid event queue size '{}' - value must be positive", value);
+                    }
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring invalid event queue size '{}' - value must be an integer", value);
+                }
+            } else if (key.equals(OVERFLOW_POLICY_PROPERTY) && value != null) {
+                OverflowPolicy policy = OverflowPolicy.fromConfig(value.toString());
+                if (policy != null) {
+                    overflowPolicy = policy;
+                } else {
+                    logger.warn("Ignoring invalid event overflow policy '{}' - allowed values are "
+                            + "'dropOldest', 'coalesce' and 'block'", value);
+                }
+            }
+        }
+        asyncDispatch = async;
+        if (async) {
+            for (EventSubscriberMailbox mailbox : mailboxes.values()) {
+                mailbox.reconfigure(queueSize, overflowPolicy);
+            }
+            startWatchdog();
+        } else {
+            // the events, which are queued already, are still delivered
+            closeMailboxes(false);
+            stopWatchdog();
+        }
+        logger.debug("Event dispatch mode is '{}', asynchronous dispatch is {}",
+                localDispatch ? DISPATCH_MODE_LOCAL : DISPATCH_MODE_OSGI, async ? "enabled" : "disabled");
+    }
+
+    protected synchronized void deactivate() {
+        asyncDispatch = false;
+        stopWatchdog();
+        closeMailboxes(true);
+    }
+
+    private void startWatchdog() {
+        if (watchdogJob == null) {
+            ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(WATCHDOG_THREAD_POOL_NAME);
+            watchdogJob = scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    for (EventSubscriberMailbox mailbox : mailboxes.values()) {
+                        mailbox.checkTimeout(SafeMethodCaller.DEFAULT_TIMEOUT);
+                    }
+                }
+            }, SafeMethodCaller.DEFAULT_TIMEOUT, SafeMethodCaller.DEFAULT_TIMEOUT / 5, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void stopWatchdog() {
+        if (watchdogJob != null) {
+            watchdogJob.cancel(false);
+            watchdogJob = null;
+        }
+    }
+
+    private void closeMailboxes(boolean discardQueuedEvents) {
+        for (EventSubscriberMailbox mailbox : mailboxes.values()) {
+            mailbox.close(discardQueuedEvents);
+        }
+        mailboxes.clear();
+    }
 
     protected void setEventAdmin(EventAdmin eventAdmin) {
         this.osgiEventAdmin = eventAdmin;
@@ -88,26 +260,59 @@ public class OSGiEventManager implements EventHandler, EventPublisher {
 
     protected void addEventSubscriber(EventSubscriber eventSubscriber) {
         Set<String> subscribedEventTypes = eventSubscriber.getSubscribedEventTypes();
+        String topicGlob = getTopicGlob(eventSubscriber.getEventFilter());
 
         for (String subscribedEventType : subscribedEventTypes) {
             synchronized (this) {
-                if (!typedEventSubscribers.containsEntry(subscribedEventType, eventSubscriber)) {
+                if (topicGlob != null) {
+                    EventTopicTrie<EventSubscriber> topicTrie = topicIndexedSubscribers.get(subscribedEventType);
+                    if (topicTrie == null) {
+                        topicTrie = new EventTopicTrie<EventSubscriber>();
+                        topicIndexedSubscribers.put(subscribedEventType, topicTrie);
+                    }
+                    topicTrie.add(topicGlob, eventSubscriber);
+                    subscriberTopicGlobs.put(eventSubscriber, topicGlob);
+                } else if (!typedEventSubscribers.containsEntry(subscribedEventType, eventSubscriber)) {
                     typedEventSubscribers.put(subscribedEventType, eventSubscriber);
                 }
             }
         }
+        rebuildSubscriberSnapshots();
     }
 
     protected void removeEventSubscriber(EventSubscriber eventSubscriber) {
         Set<String> subscribedEventTypes = eventSubscriber.getSubscribedEventTypes();
 
-        for (String subscribedEventType : subscribedEventTypes) {
-            typedEventSubscribers.remove(subscribedEventType, eventSubscriber);
+        synchronized (this) {
+            String topicGlob = subscriberTopicGlobs.remove(eventSubscriber);
+            for (String subscribedEventType : subscribedEventTypes) {
+                if (topicGlob != null) {
+                    EventTopicTrie<EventSubscriber> topicTrie = topicIndexedSubscribers.get(subscribedEventType);
+                    if (topicTrie != null) {
+                        topicTrie.remove(topicGlob, eventSubscriber);
+                    }
+                } else {
+                    typedEventSubscribers.remove(subscribedEventType, eventSubscriber);
+                }
+            }
+            rebuildSubscriberSnapshots();
+
+            // removed while holding the lock, so that getMailbox() cannot create a new one for the removed subscriber
+            EventSubscriberMailbox mailbox = mailboxes.remove(eventSubscriber);
+            if (mailbox != null) {
+                mailbox.close(true);
+            }
         }
     }
 
     @Override
     public void handleEvent(org.osgi.service.event.Event osgiEvent) {
+        Object eventObj = osgiEvent.getProperty(EVENT_PROPERTY);
+        if (eventObj instanceof Event) {
+            handleEvent((Event) eventObj);
+            return;
+        }
+
         Object typeObj = osgiEvent.getProperty("type");
         Object payloadObj = osgiEvent.getProperty("payload");
         Object topicObj = osgiEvent.getProperty("topic");
@@ -132,11 +337,12 @@ public class OSGiEventManager implements EventHandler, EventPublisher {
         EventFactory eventFactory = typedEventFactories.get(type);
 
         if (eventFactory != null) {
-            Set<EventSubscriber> eventSubscribers = getEventSubscribers(type);
-            if (!eventSubscribers.isEmpty()) {
+            EventSubscriber[] eventSubscribers = getEventSubscribers(type);
+            Collection<EventSubscriber> topicSubscribers = getTopicSubscribers(type, topic);
+            if (eventSubscribers.length > 0 || !topicSubscribers.isEmpty()) {
                 Event eshEvent = createESHEvent(eventFactory, type, payload, topic, source);
                 if (eshEvent != null) {
-                    dispatchESHEvent(eventSubscribers, eshEvent);
+                    dispatchESHEvent(eventSubscribers, topicSubscribers, eshEvent);
                 }
             }
         } else {
@@ -144,6 +350,14 @@ public class OSGiEventManager implements EventHandler, EventPublisher {
         }
     }
 
+    private void handleEvent(final Event event) {
+        EventSubscriber[] eventSubscribers = getEventSubscribers(event.getType());
+        Collection<EventSubscriber> topicSubscribers = getTopicSubscribers(event.getType(), event.getTopic());
+        if (eventSubscribers.length > 0 || !topicSubscribers.isEmpty()) {
+            dispatchESHEvent(eventSubscribers, topicSubscribers, event);
+        }
+    }
+
     private Event createESHEvent(final EventFactory eventFactory, final String type, final String payload,
             final String topic, final String source) {
         Event eshEvent = null;
@@ -156,58 +370,161 @@ public class OSGiEventManager implements EventHandler, EventPublisher {
         return eshEvent;
     }
 
-    private void dispatchESHEvent(final Set<EventSubscriber> eventSubscribers, final Event event) {
-        for (final EventSubscriber eventSubscriber : eventSubscribers) {
-            try {
-                EventFilter filter = eventSubscriber.getEventFilter();
-                if (filter == null || filter.apply(event)) {
-                    SafeMethodCaller.call(new ActionWithException<Void>() {
+    private void dispatchESHEvent(final EventSubscriber[] eventSubscribers,
+            final Collection<EventSubscriber> topicSubscribers, final Event event) {
+        boolean asyncDispatch = this.asyncDispatch;
+        for (EventSubscriber eventSubscriber : eventSubscribers) {
+            dispatchESHEvent(eventSubscriber, event, true, asyncDispatch);
+        }
+        // the filter of topic indexed subscribers has already been applied by the index lookup
+        for (EventSubscriber eventSubscriber : topicSubscribers) {
+            dispatchESHEvent(eventSubscriber, event, false, asyncDispatch);
+        }
+    }
+
+    private void dispatchESHEvent(final EventSubscriber eventSubscriber, final Event event, boolean applyFilter,
+            boolean asyncDispatch) {
+        try {
+            EventFilter filter = applyFilter ? eventSubscriber.getEventFilter() : null;
+            if (filter == null || filter.apply(event)) {
+                EventSubscriberMailbox mailbox = asyncDispatch ? getMailbox(eventSubscriber) : null;
+                if (mailbox != null) {
+                    mailbox.offer(event);
+                    return;
+                }
+                SafeMethodCaller.call(new ActionWithException<Void>() {
+
+                    @Override
+                    public Void call() throws Exception {
+                        eventSubscriber.receive(event);
+                        return null;
+                    }
+                });
+            }
+        } catch (TimeoutException timeoutException) {
+            logger.warn("Dispatching event to subscriber '{}' takes more than {}ms.", eventSubscriber.toString(),
+                    SafeMethodCaller.DEFAULT_TIMEOUT);
+        } catch (InterruptedException e) {
+            logger.debug("Interrupted while waiting for free space in the mailbox of subscriber '{}'.",
+                    eventSubscriber);
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            logger.error("Dispatching/filtering event for subscriber '" + EventSubscriber.class.getName()
+                    + "' failed: " + t.getMessage(), t);
+        }
+    }
 
-                        @Override
-                        public Void call() throws Exception {
-                            eventSubscriber.receive(event);
-                            return null;
-                        }
-                    });
+    /**
+     * Returns the mailbox of the given subscriber and creates it, if necessary.
+     *
+     * @param eventSubscriber the subscriber
+     * @return the mailbox or null, if the subscriber has been removed or asynchronous dispatch has been disabled
+     *         meanwhile
+     */
+    private EventSubscriberMailbox getMailbox(EventSubscriber eventSubscriber) {
+        EventSubscriberMailbox mailbox = mailboxes.get(eventSubscriber);
+        if (mailbox == null) {
+            synchronized (this) {
+                mailbox = mailboxes.get(eventSubscriber);
+                if (mailbox == null) {
+                    if (!asyncDispatch || !isRegistered(eventSubscriber)) {
+                        return null;
+                    }
+                    mailbox = new EventSubscriberMailbox(eventSubscriber,
+                            ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME), queueSize, overflowPolicy);
+                    mailboxes.put(eventSubscriber, mailbox);
                 }
-            } catch (TimeoutException timeoutException) {
-                logger.warn("Dispatching event to subscriber '{}' takes more than {}ms.", eventSubscriber.toString(),
-                        SafeMethodCaller.DEFAULT_TIMEOUT);
-            } catch (Throwable t) {
-                logger.error("Dispatching/filtering event for subscriber '" + EventSubscriber.class.getName()
-                        + "' failed: " + t.getMessage(), t);
             }
         }
+        return mailbox;
+    }
+
+    private boolean isRegistered(EventSubscriber eventSubscriber) {
+        return subscriberTopicGlobs.containsKey(eventSubscriber)
+                || typedEventSubscribers.containsValue(eventSubscriber);
     }
 
-    private Set<EventSubscriber> getEventSubscribers(String eventType) {
-        Set<EventSubscriber> eventTypeSubscribers = typedEventSubscribers.get(eventType);
-        Set<EventSubscriber> allEventTypeSubscribers = typedEventSubscribers.get(EventSubscriber.ALL_EVENT_TYPES);
+    /**
+     * Returns the subscribers of the given event type, which are not indexed by their topic filter. The returned array
+     * is shared and must not be modified.
+     *
+     * @param eventType the event type
+     * @return the subscribers (not null)
+     */
+    EventSubscriber[] getEventSubscribers(String eventType) {
+        EventSubscriber[] subscribers = typedEventSubscriberSnapshots.get(eventType);
+        return (subscribers != null) ? subscribers : allEventTypesSubscriberSnapshot;
+    }
 
-        Set<EventSubscriber> subscribers = new HashSet<EventSubscriber>();
-        if (eventTypeSubscribers != null)
-            subscribers.addAll(eventTypeSubscribers);
-        if (allEventTypeSubscribers != null)
-            subscribers.addAll(allEventTypeSubscribers);
+    private Collection<EventSubscriber> getTopicSubscribers(String eventType, String topic) {
+        EventTopicTrie<EventSubscriber> eventTypeTopicTrie = topicIndexedSubscribers.get(eventType);
+        EventTopicTrie<EventSubscriber> allEventTypesTopicTrie = topicIndexedSubscribers
+                .get(EventSubscriber.ALL_EVENT_TYPES);
+        if (eventTypeTopicTrie == null && allEventTypesTopicTrie == null) {
+            return Collections.emptyList();
+        }
+
+        // a subscriber can be indexed for the event type and for all event types
+        Collection<EventSubscriber> subscribers = (eventTypeTopicTrie != null && allEventTypesTopicTrie != null)
+                ? new LinkedHashSet<EventSubscriber>() : new ArrayList<EventSubscriber>(2);
+        if (eventTypeTopicTrie != null)
+            eventTypeTopicTrie.collect(topic, subscribers);
+        if (allEventTypesTopicTrie != null)
+            allEventTypesTopicTrie.collect(topic, subscribers);
         return subscribers;
     }
 
+    /**
+     * Rebuilds the immutable subscriber arrays per event type. Must be called whenever the registered subscribers have
+     * changed.
+     */
+    private synchronized void rebuildSubscriberSnapshots() {
+        Set<EventSubscriber> allEventTypesSubscribers = typedEventSubscribers.get(EventSubscriber.ALL_EVENT_TYPES);
+
+        Map<String, EventSubscriber[]> snapshots = new HashMap<String, EventSubscriber[]>();
+        for (String eventType : typedEventSubscribers.keySet()) {
+            if (eventType.equals(EventSubscriber.ALL_EVENT_TYPES)) {
+                continue;
+            }
+            Set<EventSubscriber> subscribers = new LinkedHashSet<EventSubscriber>(typedEventSubscribers.get(eventType));
+            subscribers.addAll(allEventTypesSubscribers);
+            snapshots.put(eventType, subscribers.toArray(new EventSubscriber[subscribers.size()]));
+        }
+
+        typedEventSubscriberSnapshots = snapshots;
+        allEventTypesSubscriberSnapshot = allEventTypesSubscribers.isEmpty() ? NO_SUBSCRIBERS
+                : allEventTypesSubscribers.toArray(new EventSubscriber[allEventTypesSubscribers.size()]);
+    }
+
+    private String getTopicGlob(EventFilter filter) {
+        if (filter instanceof TopicEventFilter) {
+            return EventTopicTrie.toGlob(((TopicEventFilter) filter).getTopicRegex());
+        }
+        return null;
+    }
+
     @Override
     public void post(final Event event) throws IllegalArgumentException, IllegalStateException {
         EventAdmin eventAdmin = this.osgiEventAdmin;
-        assertValidArgument(event);
+        boolean localDispatch = this.localDispatch;
+        assertValidArgument(event, localDispatch);
         assertValidState(eventAdmin);
-        postAsOSGiEvent(eventAdmin, event);
+        postAsOSGiEvent(eventAdmin, event, localDispatch);
     }
 
-    private void postAsOSGiEvent(final EventAdmin eventAdmin, final Event event) throws IllegalStateException {
+    private void postAsOSGiEvent(final EventAdmin eventAdmin, final Event event, final boolean localDispatch)
+            throws IllegalStateException {
         try {
             AccessController.doPrivileged(new PrivilegedExceptionAction<Void>() {
                 @Override
                 public Void run() throws Exception {
-                    Dictionary<String, Object> properties = new Hashtable<String, Object>(3);
+                    Dictionary<String, Object> properties = new Hashtable<String, Object>(4);
                     properties.put("type", event.getType());
-                    properties.put("payload", event.getPayload());
+                    if (localDispatch) {
+                        properties.put(EVENT_PROPERTY, event);
+                    } else {
+                        properties.put("payload", event.getPayload());
+                    }
                     properties.put("topic", event.getTopic());
                     if (event.getSource() != null) {
                         properties.put("source", event.getSource());
@@ -223,13 +540,16 @@ public class OSGiEventManager implements EventHandler, EventPublisher {
         }
     }
 
-    private void assertValidArgument(Event event) throws IllegalArgumentException {
+    private void assertValidArgument(Event event, boolean localDispatch) throws IllegalArgumentException {
         String errorMsg = "The %s of the 'event' argument must not be null or empty.";
         Preconditions.checkArgument(event != null, "Argument 'event' must not be null.");
         Preconditions.checkArgument(event.getType() != null && !event.getType().isEmpty(),
                 String.format(errorMsg, "type"));
-        Preconditions.checkArgument(event.getPayload() != null && !event.getPayload().isEmpty(),
-                String.format(errorMsg, "payload"));
+        if (!localDispatch) {
+            // in local dispatch mode the payload is serialized on demand only
+            Preconditions.checkArgument(event.getPayload() != null && !event.getPayload().isEmpty(),
+                    String.format(errorMsg, "payload"));
+        }
         Preconditions.checkArgument(event.getTopic() != null && !event.getTopic().isEmpty(),
                 String.format(errorMsg, "topic"));
     }
@@ -9,10 +9,13 @@ package org.eclipse.smarthome.core.internal.items;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.smarthome.core.common.registry.AbstractRegistry;
@@ -27,6 +30,7 @@ import org.eclipse.smarthome.core.items.ItemProvider;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.items.ItemsChangeListener;
 import org.eclipse.smarthome.core.items.ManagedItemProvider;
+import org.eclipse.smarthome.core.items.MembershipChangeListener;
 import org.eclipse.smarthome.core.items.events.ItemEventFactory;
 import org.eclipse.smarthome.core.types.StateDescriptionProvider;
 import org.slf4j.Logger;
@@ -38,16 +42,51 @@ import org.slf4j.LoggerFactory;
  * current state in memory. This is the central point where states are kept and
  * thus it is a core part for all stateful services.
  *
+ * <p>
+ * The items are indexed by their name, type, tags and group names, so that lookups do not need to iterate over all
+ * items. The transitive closures of the group memberships are cached in both directions. They follow the actual
+ * members of the group items, which notify the registry about their membership changes, and are invalidated for the
+ * affected items only, whenever an item is added or removed or the members of a group change.
+ *
  * @author Kai Kreuzer - Initial contribution and API
  * @author Stefan Bußweiler - Migration to new event mechanism 
  *
  */
-public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements ItemRegistry, ItemsChangeListener {
+public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements ItemRegistry, ItemsChangeListener,
+        MembershipChangeListener {
 
     private final Logger logger = LoggerFactory.getLogger(ItemRegistryImpl.class);
 
     protected List<StateDescriptionProvider> stateDescriptionProviders = new CopyOnWriteArrayList<>();
 
+    // all index maps are guarded by this registry, the item name sets keep the order in which the items were added
+    private final Map<String, Set<String>> itemNamesByType = new HashMap<>();
+
+    private final Map<String, Set<String>> itemNamesByTag = new HashMap<>();
+
+    private final Map<String, Set<String>> memberNamesByGroup = new HashMap<>();
+
+    // type, tags and group names of the indexed items, as they can be changed after the item has been added and an
+    // updated or removed item might be passed as a copy
+    private final Map<String, String> indexedTypes = new HashMap<>();
+
+    private final Map<String, Set<String>> indexedTags = new HashMap<>();
+
+    private final Map<String, List<String>> indexedGroupNames = new HashMap<>();
+
+    // the actual members of the group items by group name and the groups of the members by member name, which are
+    // maintained by the membership changes of the group items
+    private final Map<String, Set<String>> actualMemberNames = new HashMap<>();
+
+    private final Map<String, Set<String>> actualGroupNames = new HashMap<>();
+
+    // the cached transitive closures of the group memberships, which are guarded by this registry as well
+    private final Map<String, Set<String>> ancestorNames = new HashMap<>();
+
+    private final Map<String, Set<String>> descendantNames = new HashMap<>();
+
+    private final Map<String, Set<String>> allMemberNames = new HashMap<>();
+
     @Override
     public void allItemsChanged(ItemProvider provider, Collection<String> oldItemNames) {
 
@@ -74,6 +113,12 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
         Collection<Item> providedItems = provider.getAll();
         List<Item> items = new CopyOnWriteArrayList<Item>();
         elementMap.put(provider, items);
+        if (oldItems != null) {
+            for (Item oldItem : oldItems) {
+                unobserveMemberships(oldItem);
+                removeFromIndexes(oldItem);
+            }
+        }
         for (Item item : providedItems) {
             Item oldItem = oldItemsMap.get(item.getName());
             if (oldItem == null) {
@@ -81,6 +126,7 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
                 try {
                     onAddElement(item);
                     items.add(item);
+                    addToIndexes(item);
                     for (RegistryChangeListener<Item> listener : listeners) {
                         listener.added(item);
                     }
@@ -92,6 +138,7 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
                 try {
                     onAddElement(item);
                     items.add(item);
+                    addToIndexes(item);
                     for (RegistryChangeListener<Item> listener : listeners) {
                         listener.updated(oldItem, item);
                     }
@@ -100,7 +147,11 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
                 }
             } else {
                 // it has not been modified, so keep the old instance
+                if (oldItem instanceof GroupItem) {
+                    observeMemberships((GroupItem) oldItem);
+                }
                 items.add(oldItem);
+                addToIndexes(oldItem);
             }
             oldItemsMap.remove(item.getName());
         }
@@ -123,14 +174,11 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
      */
     @Override
     public Item getItem(String name) throws ItemNotFoundException {
-
-        for (Item item : getItems()) {
-            if (item.getName().equals(name)) {
-                return item;
-            }
+        Item item = getElementByKey(name);
+        if (item == null) {
+            throw new ItemNotFoundException(name);
         }
-
-        throw new ItemNotFoundException(name);
+        return item;
     }
 
     @Override
@@ -177,15 +225,7 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
 
     @Override
     public Collection<Item> getItemsOfType(String type) {
-        Collection<Item> matchedItems = new ArrayList<Item>();
-
-        for (Item item : getItems()) {
-            if (item.getType().equals(type)) {
-                matchedItems.add(item);
-            }
-        }
-
-        return matchedItems;
+        return getIndexedItems(itemNamesByType, type);
     }
 
     /*
@@ -218,7 +258,7 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
         for (String groupName : groupItemNames) {
             try {
                 Item groupItem = getItem(groupName);
-                if (groupItem instanceof GroupItem) {
+                if (groupItem instanceof GroupItem && !createsCycle(item, groupName)) {
                     ((GroupItem) groupItem).addMember(item);
                 }
             } catch (ItemNotFoundException e) {
@@ -247,6 +287,7 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
 
             if (item instanceof GroupItem) {
                 // fill group with its members
+                observeMemberships((GroupItem) item);
                 addMembersToGroupItem((GroupItem) item);
             }
 
@@ -259,19 +300,47 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
     }
 
     private void addMembersToGroupItem(GroupItem groupItem) {
-        for (Item i : getItems()) {
-            if (i.getGroupNames().contains(groupItem.getName())) {
+        for (Item i : getIndexedItems(memberNamesByGroup, groupItem.getName())) {
+            if (i.getGroupNames().contains(groupItem.getName()) && !createsCycle(i, groupItem.getName())) {
                 groupItem.addMember(i);
             }
         }
     }
 
+    /**
+     * Checks whether adding the given item to the group with the given name would make the group a member of
+     * itself. Both the actual members and the items, which name a group as one of their groups, are regarded, as the
+     * latter are added to the group when it is registered.
+     *
+     * @param item the item to add
+     * @param groupName the name of the group
+     * @return true, if the group already is the item itself or one of its members
+     */
+    private synchronized boolean createsCycle(Item item, String groupName) {
+        boolean cycle = item.getName().equals(groupName);
+        if (!cycle && item instanceof GroupItem) {
+            cycle = getDescendantNames(item.getName()).contains(groupName)
+                    || isDeclaredDescendant(groupName, item.getName(), new HashSet<String>());
+        }
+        if (cycle) {
+            logger.warn("Item '{}' is not added to group '{}', as the group is a member of the item itself.",
+                    item.getName(), groupName);
+            return true;
+        }
+        return false;
+    }
+
     private void removeFromGroupItems(Item item, List<String> groupItemNames) {
         for (String groupName : groupItemNames) {
             try {
                 Item groupItem = getItem(groupName);
                 if (groupItem instanceof GroupItem) {
-                    ((GroupItem) groupItem).removeMember(item);
+                    // the member is looked up by its name, as the given item might be a copy of the member
+                    for (Item member : ((GroupItem) groupItem).getMembers()) {
+                        if (member.getName().equals(item.getName())) {
+                            ((GroupItem) groupItem).removeMember(member);
+                        }
+                    }
                 }
             } catch (ItemNotFoundException e) {
                 // the group might not yet be registered, let's ignore this
@@ -286,11 +355,16 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
 
     @Override
     protected void onRemoveElement(Item element) {
+        unobserveMemberships(element);
         removeFromGroupItems(element, element.getGroupNames());
     }
 
     @Override
     protected void onUpdateElement(Item oldItem, Item item) {
+        unobserveMemberships(oldItem);
+        if (item instanceof GroupItem) {
+            observeMemberships((GroupItem) item);
+        }
         removeFromGroupItems(oldItem, oldItem.getGroupNames());
         addToGroupItems(item, item.getGroupNames());
         if (item instanceof GroupItem) {
@@ -298,6 +372,60 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
         }
     }
 
+    /**
+     * Registers the registry for the membership changes of the given group item and adds its current members to the
+     * actual memberships.
+     */
+    private synchronized void observeMemberships(GroupItem groupItem) {
+        groupItem.addMembershipChangeListener(this);
+        for (Item member : groupItem.getMembers()) {
+            memberAdded(groupItem, member);
+        }
+    }
+
+    /**
+     * Unregisters the registry from the membership changes of the given item and of the registered item with the same
+     * name, as a removed or updated item might be passed as a copy, and removes their members from the actual
+     * memberships.
+     */
+    private synchronized void unobserveMemberships(Item item) {
+        String groupName = item.getName();
+        Item registeredItem = getElementByKey(groupName);
+        if (item instanceof GroupItem) {
+            ((GroupItem) item).removeMembershipChangeListener(this);
+        }
+        if (registeredItem instanceof GroupItem) {
+            ((GroupItem) registeredItem).removeMembershipChangeListener(this);
+        }
+        Set<String> memberNames = actualMemberNames.get(groupName);
+        if (memberNames != null) {
+            for (String memberName : new ArrayList<>(memberNames)) {
+                removeMembership(groupName, memberName);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void memberAdded(GroupItem groupItem, Item member) {
+        String memberName = member.getName();
+        invalidateClosures(memberName);
+        addToIndex(actualMemberNames, groupItem.getName(), memberName);
+        addToIndex(actualGroupNames, memberName, groupItem.getName());
+        invalidateClosures(memberName);
+    }
+
+    @Override
+    public synchronized void memberRemoved(GroupItem groupItem, Item member) {
+        removeMembership(groupItem.getName(), member.getName());
+    }
+
+    private void removeMembership(String groupName, String memberName) {
+        invalidateClosures(memberName);
+        removeFromIndex(actualMemberNames, groupName, memberName);
+        removeFromIndex(actualGroupNames, memberName, groupName);
+        invalidateClosures(memberName);
+    }
+
     @Override
     protected void setEventPublisher(EventPublisher eventPublisher) {
         super.setEventPublisher(eventPublisher);
@@ -331,7 +459,8 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
     @Override
     public Collection<Item> getItemsByTag(String... tags) {
         List<Item> filteredItems = new ArrayList<Item>();
-        for (Item item : getItems()) {
+        Collection<Item> candidates = tags.length > 0 ? getIndexedItems(itemNamesByTag, tags[0]) : getItems();
+        for (Item item : candidates) {
             if (itemHasTags(item, tags)) {
                 filteredItems.add(item);
             }
@@ -373,6 +502,29 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
         return filteredItems;
     }
 
+    @Override
+    public synchronized Set<String> getAncestorGroupNames(String itemName) {
+        return getAncestorNames(itemName);
+    }
+
+    @Override
+    public synchronized Set<String> getAllMemberNames(String groupName) {
+        Set<String> memberNames = allMemberNames.get(groupName);
+        if (memberNames == null) {
+            memberNames = new LinkedHashSet<>();
+            if (getElementByKey(groupName) instanceof GroupItem) {
+                for (String descendantName : getDescendantNames(groupName)) {
+                    if (!(getElementByKey(descendantName) instanceof GroupItem)) {
+                        memberNames.add(descendantName);
+                    }
+                }
+            }
+            memberNames = Collections.unmodifiableSet(memberNames);
+            allMemberNames.put(groupName, memberNames);
+        }
+        return memberNames;
+    }
+
     @Override
     public void remove(String itemName, boolean recursive) {
         if (this.managedProvider != null) {
@@ -382,6 +534,201 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String> implements
         }
     }
 
+    @Override
+    protected String getKey(Item element) {
+        return element.getName();
+    }
+
+    @Override
+    protected synchronized void addToIndexes(Item element) {
+        String name = element.getName();
+        invalidateClosures(name);
+        super.addToIndexes(element);
+        if (getElementByKey(name) == element) {
+            // the item might have been indexed before, but its tags or group names might have changed since then
+            unindexItem(name);
+            indexItem(element);
+        }
+        invalidateClosures(name);
+    }
+
+    @Override
+    protected synchronized void removeFromIndexes(Item element) {
+        String name = element.getName();
+        invalidateClosures(name);
+        unindexItem(name);
+        super.removeFromIndexes(element);
+        Item remainingItem = getElementByKey(name);
+        if (remainingItem != null) {
+            // another provider provides an item with the same name
+            indexItem(remainingItem);
+        }
+        invalidateClosures(name);
+    }
+
+    private void indexItem(Item item) {
+        String name = item.getName();
+        Set<String> tags = item.getTags();
+        List<String> groupNames = item.getGroupNames();
+        indexedTypes.put(name, item.getType());
+        indexedTags.put(name, tags);
+        indexedGroupNames.put(name, groupNames);
+        addToIndex(itemNamesByType, item.getType(), name);
+        for (String tag : tags) {
+            addToIndex(itemNamesByTag, tag, name);
+        }
+        for (String groupName : groupNames) {
+            addToIndex(memberNamesByGroup, groupName, name);
+        }
+    }
+
+    private void unindexItem(String name) {
+        String type = indexedTypes.remove(name);
+        if (type != null) {
+            removeFromIndex(itemNamesByType, type, name);
+        }
+        Set<String> tags = indexedTags.remove(name);
+        if (tags != null) {
+            for (String tag : tags) {
+                removeFromIndex(itemNamesByTag, tag, name);
+            }
+        }
+        List<String> groupNames = indexedGroupNames.remove(name);
+        if (groupNames != null) {
+            for (String groupName : groupNames) {
+                removeFromIndex(memberNamesByGroup, groupName, name);
+            }
+        }
+    }
+
+    /**
+     * Returns the names of all groups, which the given item is an actual direct or indirect member of. The item is
+     * contained itself, if it is part of a membership cycle. The caller must hold the lock of this registry.
+     */
+    private Set<String> getAncestorNames(String itemName) {
+        Set<String> ancestors = ancestorNames.get(itemName);
+        if (ancestors == null) {
+            ancestors = new LinkedHashSet<>();
+            collectAncestorNames(itemName, ancestors);
+            ancestors = Collections.unmodifiableSet(ancestors);
+            ancestorNames.put(itemName, ancestors);
+        }
+        return ancestors;
+    }
+
+    private void collectAncestorNames(String itemName, Set<String> ancestors) {
+        Set<String> groupNames = actualGroupNames.get(itemName);
+        if (groupNames != null) {
+            for (String groupName : groupNames) {
+                if (getElementByKey(groupName) instanceof GroupItem && ancestors.add(groupName)) {
+                    collectAncestorNames(groupName, ancestors);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the names of all actual members of the given group and recursively the names of the members of those
+     * members, which are groups. The caller must hold the lock of this registry.
+     */
+    private Set<String> getDescendantNames(String groupName) {
+        Set<String> descendants = descendantNames.get(groupName);
+        if (descendants == null) {
+            descendants = new LinkedHashSet<>();
+            collectDescendantNames(groupName, descendants);
+            descendants = Collections.unmodifiableSet(descendants);
+            descendantNames.put(groupName, descendants);
+        }
+        return descendants;
+    }
+
+    private void collectDescendantNames(String groupName, Set<String> descendants) {
+        Set<String> memberNames = actualMemberNames.get(groupName);
+        if (memberNames != null) {
+            for (String memberName : memberNames) {
+                if (descendants.add(memberName) && getElementByKey(memberName) instanceof GroupItem) {
+                    collectDescendantNames(memberName, descendants);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether the item with the given name names the given group as one of its groups, directly or by one of
+     * the groups it names. The caller must hold the lock of this registry.
+     */
+    private boolean isDeclaredDescendant(String itemName, String groupName, Set<String> visitedGroups) {
+        Set<String> memberNames = memberNamesByGroup.get(groupName);
+        if (memberNames != null && visitedGroups.add(groupName)) {
+            for (String memberName : memberNames) {
+                if (memberName.equals(itemName) || isDeclaredDescendant(itemName, memberName, visitedGroups)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the cached closures, which are affected by indexing or unindexing the given item. These are the
+     * ancestors of the item and its descendants and the descendants of the item, its groups and their ancestors. It
+     * is called both before and after the indexes or the memberships are changed, so that the closures of the former
+     * and the new memberships are covered. The caller must hold the lock of this registry.
+     */
+    private void invalidateClosures(String itemName) {
+        for (String descendantName : getDescendantNames(itemName)) {
+            ancestorNames.remove(descendantName);
+        }
+        for (String ancestorName : getAncestorNames(itemName)) {
+            removeDescendantNames(ancestorName);
+        }
+        Set<String> groupNames = actualGroupNames.get(itemName);
+        if (groupNames != null) {
+            for (String groupName : groupNames) {
+                removeDescendantNames(groupName);
+            }
+        }
+        ancestorNames.remove(itemName);
+        removeDescendantNames(itemName);
+    }
+
+    private void removeDescendantNames(String groupName) {
+        descendantNames.remove(groupName);
+        allMemberNames.remove(groupName);
+    }
+
+    private void addToIndex(Map<String, Set<String>> index, String key, String itemName) {
+        Set<String> itemNames = index.get(key);
+        if (itemNames == null) {
+            itemNames = new LinkedHashSet<>();
+            index.put(key, itemNames);
+        }
+        itemNames.add(itemName);
+    }
+
+    private void removeFromIndex(Map<String, Set<String>> index, String key, String itemName) {
+        Set<String> itemNames = index.get(key);
+        if (itemNames != null) {
+            itemNames.remove(itemName);
+            if (itemNames.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private List<Item> getIndexedItems(Map<String, Set<String>> index, String key) {
+        List<Item> items = new ArrayList<Item>();
+        synchronized (this) {
+            Set<String> itemNames = index.get(key);
+            if (itemNames != null) {
+                for (String itemName : itemNames) {
+                    items.add(getElementByKey(itemName));
+                }
+            }
+        }
+        return items;
+    }
+
     @Override
     protected void notifyListenersAboutAddedElement(Item element) {
         super.notifyListenersAboutAddedElement(element);
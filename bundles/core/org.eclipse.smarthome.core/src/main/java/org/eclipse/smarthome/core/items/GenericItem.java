@@ -10,13 +10,10 @@ package org.eclipse.smarthome.core.items;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
-import java.util.WeakHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.eclipse.smarthome.core.events.EventPublisher;
 import org.eclipse.smarthome.core.items.events.ItemEventFactory;
@@ -45,8 +42,7 @@ abstract public class GenericItem implements ActiveItem {
 
     protected EventPublisher eventPublisher;
 
-    protected Set<StateChangeListener> listeners = new CopyOnWriteArraySet<StateChangeListener>(
-            Collections.newSetFromMap(new WeakHashMap<StateChangeListener, Boolean>()));
+    private final StateChangeListeners listeners = new StateChangeListeners();
 
     protected List<String> groupNames = new ArrayList<String>();
 
@@ -190,17 +186,8 @@ abstract public class GenericItem implements ActiveItem {
     }
 
     private void notifyListeners(State oldState, State newState) {
-        // if nothing has changed, we send update notifications
-        Set<StateChangeListener> clonedListeners = null;
-        clonedListeners = new CopyOnWriteArraySet<StateChangeListener>(listeners);
-        for (StateChangeListener listener : clonedListeners) {
-            listener.stateUpdated(this, newState);
-        }
-        if (newState!=null && !newState.equals(oldState)) {
-            for (StateChangeListener listener : clonedListeners) {
-                listener.stateChanged(this, oldState, newState);
-            }
-        }
+        // the listeners are notified about every update and, if the state has changed, about the change
+        listeners.notifyListeners(this, oldState, newState);
     }
 
     /**
@@ -232,16 +219,19 @@ abstract public class GenericItem implements ActiveItem {
         return sb.toString();
     }
 
+    /**
+     * Adds a listener, which is notified about the state updates and changes of this item. The listener is only
+     * weakly referenced, so it must be referenced elsewhere as long as it should be notified.
+     *
+     * @param listener
+     *            the listener to add
+     */
     public void addStateChangeListener(StateChangeListener listener) {
-        synchronized (listeners) {
-            listeners.add(listener);
-        }
+        listeners.add(listener);
     }
 
     public void removeStateChangeListener(StateChangeListener listener) {
-        synchronized (listeners) {
-            listeners.remove(listener);
-        }
+        listeners.remove(listener);
     }
 
 
@@ -13,6 +13,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.smarthome.core.items.events.ItemEventFactory;
 import org.eclipse.smarthome.core.types.Command;
@@ -33,6 +34,28 @@ public class GroupItem extends GenericItem implements StateChangeListener {
 
     protected GroupFunction function;
 
+    /** the incrementally maintained group state, if the group function supports it */
+    private final IncrementalGroupFunction.Aggregation aggregation;
+
+    /** the version of the memberships of this group and its nested groups, which invalidates the cached members */
+    private final AtomicLong membershipVersion = new AtomicLong();
+
+    /** the groups, which this group is a direct member of */
+    private final Set<GroupItem> parentGroups = new CopyOnWriteArraySet<GroupItem>();
+
+    private final Set<MembershipChangeListener> membershipChangeListeners = new CopyOnWriteArraySet<>();
+
+    /** the number of direct members, which are groups themselves */
+    private volatile int memberGroups;
+
+    /** the number of direct members, whose state changes cannot be observed */
+    private volatile int unobservedMembers;
+
+    private volatile CachedMembers allMembers;
+
+    /** the incrementally maintained state of all members, which is guarded by itself */
+    private final CachedAggregation allMembersAggregation = new CachedAggregation();
+
     public GroupItem(String name) {
         this(name, null);
     }
@@ -46,6 +69,8 @@ public class GroupItem extends GenericItem implements StateChangeListener {
         members = new CopyOnWriteArraySet<Item>();
         this.function = function;
         this.baseItem = baseItem;
+        this.aggregation = function instanceof IncrementalGroupFunction ? ((IncrementalGroupFunction) function)
+                .createAggregation() : null;
     }
 
     /**
@@ -77,15 +102,24 @@ public class GroupItem extends GenericItem implements StateChangeListener {
      * @return all members of this and all contained {@link GroupItem}s
      */
     public Set<Item> getAllMembers() {
-        Set<Item> allMembers = new HashSet<Item>();
-        collectMembers(allMembers, members);
-        return ImmutableSet.copyOf(allMembers);
+        long version = membershipVersion.get();
+        CachedMembers cachedMembers = allMembers;
+        if (cachedMembers == null || cachedMembers.version != version) {
+            Set<Item> allMembers = new HashSet<Item>();
+            collectMembers(allMembers, members, new HashSet<Item>());
+            cachedMembers = new CachedMembers(version, ImmutableSet.copyOf(allMembers));
+            this.allMembers = cachedMembers;
+        }
+        return cachedMembers.members;
     }
 
-    private void collectMembers(Set<Item> allMembers, Set<Item> members) {
+    private void collectMembers(Set<Item> allMembers, Set<Item> members, Set<Item> visitedGroups) {
         for (Item member : members) {
             if (member instanceof GroupItem) {
-                collectMembers(allMembers, ((GroupItem) member).members);
+                // a group, which is a member of itself, is only followed once
+                if (visitedGroups.add(member)) {
+                    collectMembers(allMembers, ((GroupItem) member).members, visitedGroups);
+                }
             } else {
                 allMembers.add(member);
             }
@@ -93,7 +127,25 @@ public class GroupItem extends GenericItem implements StateChangeListener {
     }
 
     public void addMember(Item item) {
-        members.add(item);
+        synchronized (members) {
+            if (members.add(item)) {
+                if (item instanceof GroupItem) {
+                    memberGroups++;
+                    ((GroupItem) item).parentGroups.add(this);
+                }
+                if (!(item instanceof GenericItem)) {
+                    unobservedMembers++;
+                }
+                if (aggregation != null) {
+                    aggregation.add(item);
+                }
+                incrementMembershipVersion(new HashSet<GroupItem>());
+                // the listeners are notified while holding the lock, so that they receive the changes in order
+                for (MembershipChangeListener listener : membershipChangeListeners) {
+                    listener.memberAdded(this, item);
+                }
+            }
+        }
         if (item instanceof GenericItem) {
             GenericItem genericItem = (GenericItem) item;
             genericItem.addStateChangeListener(this);
@@ -101,13 +153,51 @@ public class GroupItem extends GenericItem implements StateChangeListener {
     }
 
     public void removeMember(Item item) {
-        members.remove(item);
+        synchronized (members) {
+            if (members.remove(item)) {
+                if (item instanceof GroupItem) {
+                    memberGroups--;
+                    ((GroupItem) item).parentGroups.remove(this);
+                }
+                if (!(item instanceof GenericItem)) {
+                    unobservedMembers--;
+                }
+                if (aggregation != null) {
+                    aggregation.remove(item);
+                }
+                incrementMembershipVersion(new HashSet<GroupItem>());
+                for (MembershipChangeListener listener : membershipChangeListeners) {
+                    listener.memberRemoved(this, item);
+                }
+            }
+        }
         if (item instanceof GenericItem) {
             GenericItem genericItem = (GenericItem) item;
             genericItem.removeStateChangeListener(this);
         }
     }
 
+    public void addMembershipChangeListener(MembershipChangeListener listener) {
+        membershipChangeListeners.add(listener);
+    }
+
+    public void removeMembershipChangeListener(MembershipChangeListener listener) {
+        membershipChangeListeners.remove(listener);
+    }
+
+    /**
+     * Increments the membership version of this group and of all groups, which contain this group directly or
+     * indirectly, as their members have changed as well.
+     */
+    private void incrementMembershipVersion(Set<GroupItem> visitedGroups) {
+        if (visitedGroups.add(this)) {
+            membershipVersion.incrementAndGet();
+            for (GroupItem parentGroup : parentGroups) {
+                parentGroup.incrementMembershipVersion(visitedGroups);
+            }
+        }
+    }
+
     /**
      * The accepted data types of a group item is the same as of the underlying base item.
      * If none is defined, the intersection of all sets of accepted data types of all group
@@ -189,7 +279,15 @@ public class GroupItem extends GenericItem implements StateChangeListener {
      */
     @Override
     public State getStateAs(Class<? extends State> typeClass) {
-        State newState = function.getStateAs(getAllMembers(), typeClass);
+        State newState;
+        if (isAggregated() && memberGroups == 0) {
+            // without nested groups, all members are the direct members
+            newState = aggregation.getStateAs(typeClass);
+        } else if (aggregation != null) {
+            newState = allMembersAggregation.getStateAs(typeClass);
+        } else {
+            newState = function.getStateAs(getAllMembers(), typeClass);
+        }
         if (newState == null && baseItem != null) {
             // we use the transformation method from the base item
             baseItem.setState(state);
@@ -243,7 +341,10 @@ public class GroupItem extends GenericItem implements StateChangeListener {
      */
     @Override
     public void stateChanged(Item item, State oldState, State newState) {
-        setState(function.calculate(members));
+        if (!(item instanceof GroupItem)) {
+            allMembersUpdated(item, null);
+        }
+        setState(calculate(item));
     }
 
     /**
@@ -251,7 +352,96 @@ public class GroupItem extends GenericItem implements StateChangeListener {
      */
     @Override
     public void stateUpdated(Item item, State state) {
-        setState(function.calculate(members));
+        if (!(item instanceof GroupItem)) {
+            allMembersUpdated(item, null);
+        }
+        setState(calculate(item));
+    }
+
+    /**
+     * Calculates the group state after the state of the given member has been updated.
+     */
+    private State calculate(Item updatedMember) {
+        if (isAggregated()) {
+            aggregation.update(updatedMember);
+            return aggregation.getState();
+        } else {
+            return function.calculate(members);
+        }
+    }
+
+    /**
+     * Updates the aggregation of all members of this group and of the groups, which contain this group directly or
+     * indirectly, after the state of the given member, which is not a group, has been updated.
+     */
+    private void allMembersUpdated(Item updatedMember, Set<GroupItem> visitedGroups) {
+        allMembersAggregation.update(updatedMember);
+        for (GroupItem parentGroup : parentGroups) {
+            if (visitedGroups == null) {
+                visitedGroups = new HashSet<GroupItem>();
+                visitedGroups.add(this);
+            }
+            if (visitedGroups.add(parentGroup)) {
+                parentGroup.allMembersUpdated(updatedMember, visitedGroups);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the group state is maintained incrementally, which requires all members to be observable.
+     */
+    private boolean isAggregated() {
+        return aggregation != null && unobservedMembers == 0;
+    }
+
+    /**
+     * The {@link CachedMembers} are all members of a group at a certain membership version.
+     */
+    private static class CachedMembers {
+
+        final long version;
+        final Set<Item> members;
+
+        CachedMembers(long version, Set<Item> members) {
+            this.version = version;
+            this.members = members;
+        }
+    }
+
+    /**
+     * The {@link CachedAggregation} maintains the state of all members of a group with nested groups incrementally.
+     * It is created from all members on the first read after a membership change and is then updated by the state
+     * updates of the members, which the nested groups pass on to their parent groups.
+     */
+    private class CachedAggregation {
+
+        private long version = -1;
+
+        /** the aggregation of all members or null, if the state of a member cannot be observed */
+        private IncrementalGroupFunction.Aggregation aggregation;
+
+        synchronized State getStateAs(Class<? extends State> typeClass) {
+            long currentVersion = membershipVersion.get();
+            if (version != currentVersion) {
+                aggregation = ((IncrementalGroupFunction) function).createAggregation();
+                for (Item member : getAllMembers()) {
+                    if (!(member instanceof GenericItem)) {
+                        aggregation = null;
+                        break;
+                    }
+                    aggregation.add(member);
+                }
+                version = currentVersion;
+            }
+            return aggregation != null ? aggregation.getStateAs(typeClass) : function.getStateAs(getAllMembers(),
+                    typeClass);
+        }
+
+        synchronized void update(Item member) {
+            if (aggregation != null) {
+                aggregation.update(member);
+            }
+        }
     }
 
 }
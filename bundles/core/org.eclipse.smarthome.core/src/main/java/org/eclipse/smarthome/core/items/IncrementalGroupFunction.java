@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.items;
+
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * An incremental group function is able to maintain its group state while the member states change, so that the
+ * group state does not have to be calculated from all members on every change.
+ * <p>
+ * The {@link GroupItem} creates an {@link Aggregation} for its direct members and keeps it up to date by its
+ * membership changes and the state changes of its members. A group with nested groups creates another aggregation for
+ * all members of the nested groups, which is recreated after membership changes.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+public interface IncrementalGroupFunction extends GroupFunction {
+
+    /**
+     * Creates a new empty aggregation for the members of a single group.
+     *
+     * @return the new aggregation
+     */
+    public Aggregation createAggregation();
+
+    /**
+     * An aggregation holds the contributions of the members of a group to the group state. The contributions are
+     * identified by the item names. Implementations must be thread safe.
+     */
+    public interface Aggregation {
+
+        /**
+         * Adds the given item to the aggregated members or updates its contribution, if it is a member already.
+         *
+         * @param item the member item
+         */
+        public void add(Item item);
+
+        /**
+         * Updates the contribution of the given item after its state has been updated. Items which are not members
+         * of the aggregation are ignored.
+         *
+         * @param item the member item
+         */
+        public void update(Item item);
+
+        /**
+         * Removes the given item from the aggregated members.
+         *
+         * @param item the member item
+         */
+        public void remove(Item item);
+
+        /**
+         * Returns the aggregated state, which is equal to {@link GroupFunction#calculate(java.util.Set)} for all
+         * members.
+         *
+         * @return the aggregated group state
+         */
+        public State getState();
+
+        /**
+         * Returns the aggregated state as a state of the requested type, which is equal to
+         * {@link GroupFunction#getStateAs(java.util.Set, Class)} for all members.
+         *
+         * @param stateClass the type in which the state should be returned
+         * @return the aggregated group state of the requested type or null, if type is not supported
+         */
+        public State getStateAs(Class<? extends State> stateClass);
+    }
+
+}
@@ -8,6 +8,7 @@
 package org.eclipse.smarthome.core.items;
 
 import java.util.Collection;
+import java.util.Set;
 
 import org.eclipse.smarthome.core.common.registry.Registry;
 
@@ -110,6 +111,23 @@ public interface ItemRegistry extends Registry<Item, String> {
      */
     public <T extends GenericItem> Collection<T> getItemsByTag(Class<T> typeFilter, String... tags);
 
+    /**
+     * Returns the names of all group items, which the item with the given name is a direct or indirect member of.
+     *
+     * @param itemName the item name
+     * @return the names of the groups, which are empty if the item is not a member of any group
+     */
+    public Set<String> getAncestorGroupNames(String itemName);
+
+    /**
+     * Returns the names of all direct and indirect members of the group item with the given name. Like
+     * {@link GroupItem#getAllMembers()}, the names of the group items amongst them are not contained.
+     *
+     * @param groupName the group item name
+     * @return the names of all members, which are empty if there is no such group item
+     */
+    public Set<String> getAllMemberNames(String groupName);
+
     /**
      * @see ManagedItemProvider#remove(String, boolean)
      */
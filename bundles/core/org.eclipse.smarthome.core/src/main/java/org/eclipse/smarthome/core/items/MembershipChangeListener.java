@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.items;
+
+/**
+ * <p>
+ * This interface must be implemented by all classes that want to be notified about changes of the members of a group
+ * item.
+ * </p>
+ * <p>
+ * The {@link GroupItem} class provides the possibility to register such listeners. The listeners are notified in the
+ * order of the changes.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public interface MembershipChangeListener {
+
+    /**
+     * This method is called, if a member has been added to a group.
+     *
+     * @param groupItem the group item
+     * @param member the added member
+     */
+    public void memberAdded(GroupItem groupItem, Item member);
+
+    /**
+     * This method is called, if a member has been removed from a group.
+     *
+     * @param groupItem the group item
+     * @param member the removed member
+     */
+    public void memberRemoved(GroupItem groupItem, Item member);
+
+}
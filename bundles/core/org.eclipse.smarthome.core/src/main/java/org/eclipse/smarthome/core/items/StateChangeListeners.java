@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.items;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * The {@link StateChangeListeners} hold the {@link StateChangeListener}s of a {@link GenericItem}.
+ * <p>
+ * The listeners are kept in an immutable array of weak references, which is replaced by compare-and-set on every
+ * registration change. Notifications iterate over the current array without locking or copying. References of
+ * garbage collected listeners are enqueued by the garbage collector and removed whenever a listener is added or
+ * removed.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+final class StateChangeListeners {
+
+    private static final ListenerReference[] NO_LISTENERS = new ListenerReference[0];
+
+    private static final ReferenceQueue<StateChangeListener> collectedListeners = new ReferenceQueue<>();
+
+    private final AtomicReference<ListenerReference[]> references = new AtomicReference<ListenerReference[]>(
+            NO_LISTENERS);
+
+    /**
+     * Adds the given listener, unless an equal listener has been added already. Like a
+     * {@link java.util.WeakHashMap}, the references to garbage collected listeners are removed beforehand.
+     *
+     * @param listener the listener to add
+     * @return true, if the listener has been added
+     */
+    boolean add(StateChangeListener listener) {
+        purgeCollectedListeners();
+        ListenerReference reference = new ListenerReference(listener, this);
+        while (true) {
+            ListenerReference[] current = references.get();
+            if (indexOf(current, listener) >= 0) {
+                return false;
+            }
+            ListenerReference[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = reference;
+            if (references.compareAndSet(current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes the given listener or an equal one. The references to garbage collected listeners are removed
+     * beforehand.
+     *
+     * @param listener the listener to remove
+     * @return true, if the listener has been removed
+     */
+    boolean remove(StateChangeListener listener) {
+        purgeCollectedListeners();
+        while (true) {
+            ListenerReference[] current = references.get();
+            int index = indexOf(current, listener);
+            if (index < 0) {
+                return false;
+            }
+            if (references.compareAndSet(current, without(current, index))) {
+                // the reference must not be enqueued anymore, when the listener gets collected
+                current[index].clear();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Notifies all listeners about the state update and, if the state has changed, about the state change.
+     *
+     * @param item the item, which state has been updated
+     * @param oldState the previous state of the item
+     * @param newState the new state of the item
+     */
+    void notifyListeners(Item item, State oldState, State newState) {
+        ListenerReference[] current = references.get();
+        for (ListenerReference reference : current) {
+            StateChangeListener listener = reference.get();
+            if (listener != null) {
+                listener.stateUpdated(item, newState);
+            }
+        }
+        if (newState != null && !newState.equals(oldState)) {
+            for (ListenerReference reference : current) {
+                StateChangeListener listener = reference.get();
+                if (listener != null) {
+                    listener.stateChanged(item, oldState, newState);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of references, including those of garbage collected listeners, which are not removed yet
+     */
+    int size() {
+        return references.get().length;
+    }
+
+    /**
+     * Removes the given reference, whose listener has been garbage collected.
+     */
+    private void purge(ListenerReference reference) {
+        while (true) {
+            ListenerReference[] current = references.get();
+            int index = -1;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == reference) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0 || references.compareAndSet(current, without(current, index))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the references of all garbage collected listeners, which have been enqueued so far.
+     */
+    static void purgeCollectedListeners() {
+        Reference<? extends StateChangeListener> reference;
+        while ((reference = collectedListeners.poll()) != null) {
+            ListenerReference listenerReference = (ListenerReference) reference;
+            listenerReference.owner.purge(listenerReference);
+        }
+    }
+
+    private static int indexOf(ListenerReference[] references, StateChangeListener listener) {
+        for (int i = 0; i < references.length; i++) {
+            StateChangeListener registered = references[i].get();
+            if (registered != null && registered.equals(listener)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ListenerReference[] without(ListenerReference[] references, int index) {
+        if (references.length == 1) {
+            return NO_LISTENERS;
+        }
+        ListenerReference[] result = new ListenerReference[references.length - 1];
+        System.arraycopy(references, 0, result, 0, index);
+        System.arraycopy(references, index + 1, result, index, references.length - index - 1);
+        return result;
+    }
+
+    /**
+     * A weak reference to a listener, which knows the listeners it belongs to, so that it can be removed from them
+     * after the listener has been garbage collected.
+     */
+    private static class ListenerReference extends WeakReference<StateChangeListener> {
+
+        final StateChangeListeners owner;
+
+        ListenerReference(StateChangeListener listener, StateChangeListeners owner) {
+            super(listener, collectedListeners);
+            this.owner = owner;
+        }
+    }
+
+}
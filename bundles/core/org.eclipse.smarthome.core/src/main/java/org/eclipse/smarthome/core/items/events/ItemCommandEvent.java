@@ -31,7 +31,7 @@ public class ItemCommandEvent extends AbstractEvent {
      * Constructs a new item command event object.
      * 
      * @param topic the topic
-     * @param payload the payload
+     * @param payload the payload, if null the payload is serialized on demand
      * @param itemName the item name
      * @param command the command
      * @param source the source, can be null
@@ -65,6 +65,11 @@ public class ItemCommandEvent extends AbstractEvent {
         return command;
     }
 
+    @Override
+    protected String createPayload() {
+        return ItemEventFactory.serializeTypePayload(command);
+    }
+
     @Override
     public String toString() {
         return "Item '" + itemName + "' received command " + command;
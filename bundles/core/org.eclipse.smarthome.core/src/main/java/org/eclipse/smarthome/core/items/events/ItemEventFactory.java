@@ -10,6 +10,8 @@ package org.eclipse.smarthome.core.items.events;
 import java.lang.reflect.Method;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.smarthome.core.events.AbstractEventFactory;
 import org.eclipse.smarthome.core.events.Event;
@@ -45,6 +47,8 @@ public class ItemEventFactory extends AbstractEventFactory {
 
     private static final String ITEM_UPDATED_EVENT_TOPIC = "smarthome/items/{itemName}/updated";
 
+    private final Map<String, Method> valueOfMethods = new ConcurrentHashMap<String, Method>();
+
     /**
      * Constructs a new ItemEventFactory.
      */
@@ -108,9 +112,13 @@ public class ItemEventFactory extends AbstractEventFactory {
         if (typeName.equals(RefreshType.class.getSimpleName())) {
             return RefreshType.valueOf(valueToParse);
         }
-        Class<?> stateClass = Class.forName(CORE_LIBRARY_PACKAGE + typeName);
-        Method valueOfMethod = stateClass.getMethod("valueOf", String.class);
-        return valueOfMethod.invoke(stateClass, valueToParse);
+        Method valueOfMethod = valueOfMethods.get(typeName);
+        if (valueOfMethod == null) {
+            Class<?> stateClass = Class.forName(CORE_LIBRARY_PACKAGE + typeName);
+            valueOfMethod = stateClass.getMethod("valueOf", String.class);
+            valueOfMethods.put(typeName, valueOfMethod);
+        }
+        return valueOfMethod.invoke(null, valueToParse);
     }
 
     private Event createAddedEvent(String topic, String payload) {
@@ -145,9 +153,7 @@ public class ItemEventFactory extends AbstractEventFactory {
     public static ItemCommandEvent createCommandEvent(String itemName, Command command, String source) {
         assertValidArguments(itemName, command, "command");
         String topic = buildTopic(ITEM_COMAND_EVENT_TOPIC, itemName);
-        ItemEventPayloadBean bean = new ItemEventPayloadBean(command.getClass().getSimpleName(), command.toString());
-        String payload = serializePayload(bean);
-        return new ItemCommandEvent(topic, payload, itemName, command, source);
+        return new ItemCommandEvent(topic, null, itemName, command, source);
     }
 
     /**
@@ -178,9 +184,7 @@ public class ItemEventFactory extends AbstractEventFactory {
     public static ItemStateEvent createStateEvent(String itemName, State state, String source) {
         assertValidArguments(itemName, state, "state");
         String topic = buildTopic(ITEM_STATE_EVENT_TOPIC, itemName);
-        ItemEventPayloadBean bean = new ItemEventPayloadBean(state.getClass().getSimpleName(), state.toString());
-        String payload = serializePayload(bean);
-        return new ItemStateEvent(topic, payload, itemName, state, source);
+        return new ItemStateEvent(topic, null, itemName, state, source);
     }
 
     /**
@@ -254,6 +258,19 @@ public class ItemEventFactory extends AbstractEventFactory {
         return new ItemUpdatedEvent(topic, payload, itemDTO, oldItemDTO);
     }
 
+    /**
+     * Serializes the type and value of a state or command into the payload of an item event. This is called lazily by
+     * the item events, so that the payload is only serialized if it is actually requested.
+     *
+     * @param type the state or command
+     *
+     * @return the serialized payload
+     */
+    static String serializeTypePayload(Type type) {
+        ItemEventPayloadBean bean = new ItemEventPayloadBean(type.getClass().getSimpleName(), type.toString());
+        return serializePayload(bean);
+    }
+
     private static String buildTopic(String topic, String itemName) {
         return topic.replace("{itemName}", itemName);
     }
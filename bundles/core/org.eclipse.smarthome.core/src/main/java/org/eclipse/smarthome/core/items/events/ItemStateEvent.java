@@ -31,7 +31,7 @@ public class ItemStateEvent extends AbstractEvent {
      * Constructs a new item state event.
      * 
      * @param topic the topic
-     * @param payload the payload
+     * @param payload the payload, if null the payload is serialized on demand
      * @param itemName the item name
      * @param itemState the item state
      * @param source the source, can be null
@@ -65,6 +65,11 @@ public class ItemStateEvent extends AbstractEvent {
         return itemState;
     }
 
+    @Override
+    protected String createPayload() {
+        return ItemEventFactory.serializeTypePayload(itemState);
+    }
+
     @Override
     public String toString() {
         return itemName + " updated to " + itemState.toString();
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.library.types;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * The {@link ActiveStateAggregation} counts the members in an active state for the logical group functions. It
+ * counts both the members whose state equals the active state and the members whose state converted to the type of
+ * the active state equals it.
+ *
+ * @author agent - Initial contribution
+ */
+abstract class ActiveStateAggregation extends MemberAggregation<Integer> {
+
+    private static final int ACTIVE = 1;
+    private static final int ACTIVE_AS_CONVERTED = 2;
+
+    private final State activeState;
+
+    /** the number of members whose state equals the active state */
+    protected int activeMembers;
+
+    /** the number of members whose state converted to the type of the active state equals it */
+    protected int convertedActiveMembers;
+
+    ActiveStateAggregation(State activeState) {
+        this.activeState = activeState;
+    }
+
+    @Override
+    protected Integer contributionOf(Item item) {
+        int contribution = 0;
+        if (activeState.equals(item.getState())) {
+            contribution |= ACTIVE;
+        }
+        if (activeState.equals(item.getStateAs(activeState.getClass()))) {
+            contribution |= ACTIVE_AS_CONVERTED;
+        }
+        return contribution != 0 ? contribution : null;
+    }
+
+    @Override
+    protected void contribute(Integer contribution) {
+        if ((contribution & ACTIVE) != 0) {
+            activeMembers++;
+        }
+        if ((contribution & ACTIVE_AS_CONVERTED) != 0) {
+            convertedActiveMembers++;
+        }
+    }
+
+    @Override
+    protected void withdraw(Integer contribution) {
+        if ((contribution & ACTIVE) != 0) {
+            activeMembers--;
+        }
+        if ((contribution & ACTIVE_AS_CONVERTED) != 0) {
+            convertedActiveMembers--;
+        }
+    }
+
+}
@@ -14,6 +14,7 @@ import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
 import org.eclipse.smarthome.core.items.GroupFunction;
+import org.eclipse.smarthome.core.items.IncrementalGroupFunction;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.UnDefType;
@@ -21,6 +22,9 @@ import org.eclipse.smarthome.core.types.UnDefType;
 /**
  * This interface is only a container for functions that require the core type library
  * for its calculations.
+ * <p>
+ * All functions are {@link IncrementalGroupFunction}s, so group items maintain their states incrementally.
+ * </p>
  *
  * @author Kai Kreuzer - Initial contribution and API
  *
@@ -37,7 +41,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
      * @author Kai Kreuzer - Initial contribution and API
      *
      */
-    static class And implements GroupFunction {
+    static class And implements IncrementalGroupFunction {
 
         protected final State activeState;
         protected final State passiveState;
@@ -101,6 +105,42 @@ public interface ArithmeticGroupFunction extends GroupFunction {
             return count;
 
         }
+
+        /**
+         * @{inheritDoc
+         */
+        @Override
+        public Aggregation createAggregation() {
+            return new ActiveStateAggregation(activeState) {
+                @Override
+                protected State calculate() {
+                    return And.this.calculate(getMemberCount(), activeMembers);
+                }
+
+                @Override
+                protected State calculateAs(Class<? extends State> stateClass) {
+                    State state = calculate();
+                    if (stateClass.isInstance(state)) {
+                        return state;
+                    } else if (stateClass == DecimalType.class) {
+                        return new DecimalType(getMemberCount() - convertedActiveMembers);
+                    } else {
+                        return null;
+                    }
+                }
+            };
+        }
+
+        /**
+         * Calculates the group state out of the number of members, which are in the active state.
+         *
+         * @param memberCount the number of members
+         * @param activeCount the number of members in the active state
+         * @return the calculated group state
+         */
+        protected State calculate(int memberCount, int activeCount) {
+            return memberCount > 0 && activeCount == memberCount ? activeState : passiveState;
+        }
     }
 
     /**
@@ -113,7 +153,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
      * @author Kai Kreuzer - Initial contribution and API
      *
      */
-    static class Or implements GroupFunction {
+    static class Or implements IncrementalGroupFunction {
 
         protected final State activeState;
         protected final State passiveState;
@@ -169,6 +209,42 @@ public interface ArithmeticGroupFunction extends GroupFunction {
             }
             return count;
         }
+
+        /**
+         * @{inheritDoc
+         */
+        @Override
+        public Aggregation createAggregation() {
+            return new ActiveStateAggregation(activeState) {
+                @Override
+                protected State calculate() {
+                    return Or.this.calculate(getMemberCount(), activeMembers);
+                }
+
+                @Override
+                protected State calculateAs(Class<? extends State> stateClass) {
+                    State state = calculate();
+                    if (stateClass.isInstance(state)) {
+                        return state;
+                    } else if (stateClass == DecimalType.class) {
+                        return new DecimalType(convertedActiveMembers);
+                    } else {
+                        return null;
+                    }
+                }
+            };
+        }
+
+        /**
+         * Calculates the group state out of the number of members, which are in the active state.
+         *
+         * @param memberCount the number of members
+         * @param activeCount the number of members in the active state
+         * @return the calculated group state
+         */
+        protected State calculate(int memberCount, int activeCount) {
+            return activeCount > 0 ? activeState : passiveState;
+        }
     }
 
     /**
@@ -192,6 +268,12 @@ public interface ArithmeticGroupFunction extends GroupFunction {
             return notResult;
         }
 
+        @Override
+        protected State calculate(int memberCount, int activeCount) {
+            State result = super.calculate(memberCount, activeCount);
+            return result.equals(activeState) ? passiveState : activeState;
+        }
+
     }
 
     /**
@@ -215,6 +297,12 @@ public interface ArithmeticGroupFunction extends GroupFunction {
             return notResult;
         }
 
+        @Override
+        protected State calculate(int memberCount, int activeCount) {
+            State result = super.calculate(memberCount, activeCount);
+            return result.equals(activeState) ? passiveState : activeState;
+        }
+
     }
 
     /**
@@ -223,7 +311,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
      * @author Kai Kreuzer - Initial contribution and API
      *
      */
-    static class Avg implements GroupFunction {
+    static class Avg implements IncrementalGroupFunction {
 
         public Avg() {
         }
@@ -263,6 +351,23 @@ public interface ArithmeticGroupFunction extends GroupFunction {
                 return null;
             }
         }
+
+        /**
+         * @{inheritDoc
+         */
+        @Override
+        public Aggregation createAggregation() {
+            return new SumAggregation() {
+                @Override
+                protected State calculate() {
+                    if (getCount() > 0) {
+                        return new DecimalType(getSum().divide(new BigDecimal(getCount()), RoundingMode.HALF_UP));
+                    } else {
+                        return UnDefType.UNDEF;
+                    }
+                }
+            };
+        }
     }
 
     /**
@@ -271,7 +376,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
      * @author Thomas.Eichstaedt-Engelen
      *
      */
-    static class Sum implements GroupFunction {
+    static class Sum implements IncrementalGroupFunction {
 
         public Sum() {
         }
@@ -305,6 +410,19 @@ public interface ArithmeticGroupFunction extends GroupFunction {
                 return null;
             }
         }
+
+        /**
+         * @{inheritDoc
+         */
+        @Override
+        public Aggregation createAggregation() {
+            return new SumAggregation() {
+                @Override
+                protected State calculate() {
+                    return new DecimalType(getSum());
+                }
+            };
+        }
     }
 
     /**
@@ -313,7 +431,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
      * @author Kai Kreuzer - Initial contribution and API
      *
      */
-    static class Min implements GroupFunction {
+    static class Min implements IncrementalGroupFunction {
 
         public Min() {
         }
@@ -352,6 +470,14 @@ public interface ArithmeticGroupFunction extends GroupFunction {
                 return null;
             }
         }
+
+        /**
+         * @{inheritDoc
+         */
+        @Override
+        public Aggregation createAggregation() {
+            return new ExtremumAggregation(false);
+        }
     }
 
     /**
@@ -360,7 +486,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
      * @author Kai Kreuzer - Initial contribution and API
      *
      */
-    static class Max implements GroupFunction {
+    static class Max implements IncrementalGroupFunction {
 
         public Max() {
         }
@@ -399,6 +525,14 @@ public interface ArithmeticGroupFunction extends GroupFunction {
                 return null;
             }
         }
+
+        /**
+         * @{inheritDoc
+         */
+        @Override
+        public Aggregation createAggregation() {
+            return new ExtremumAggregation(true);
+        }
     }
     
 	/**
@@ -411,7 +545,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 	 * @author Gaël L'hopital
 	 *
 	 */
-	static class Count implements GroupFunction {
+	static class Count implements IncrementalGroupFunction {
 		
 		protected final Pattern pattern;
 		
@@ -450,6 +584,37 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 				return null;
 			}
 		}
+
+		/**
+		 * @{inheritDoc
+		 */
+		@Override
+		public Aggregation createAggregation() {
+			return new MemberAggregation<Boolean>() {
+				private int count;
+
+				@Override
+				protected Boolean contributionOf(Item item) {
+					State state = item.getState();
+					return state != null && pattern.matcher(state.toString()).matches() ? Boolean.TRUE : null;
+				}
+
+				@Override
+				protected void contribute(Boolean contribution) {
+					count++;
+				}
+
+				@Override
+				protected void withdraw(Boolean contribution) {
+					count--;
+				}
+
+				@Override
+				protected State calculate() {
+					return new DecimalType(count);
+				}
+			};
+		}
 	}
 
 
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.library.types;
+
+import java.math.BigDecimal;
+import java.util.TreeMap;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.UnDefType;
+
+/**
+ * The {@link ExtremumAggregation} maintains the minimum or the maximum of the decimal states of the members. The
+ * states are kept sorted along with the number of members having them.
+ *
+ * @author agent - Initial contribution
+ */
+class ExtremumAggregation extends MemberAggregation<BigDecimal> {
+
+    private final boolean maximum;
+
+    private final TreeMap<BigDecimal, Integer> values = new TreeMap<BigDecimal, Integer>();
+
+    /**
+     * @param maximum true to maintain the maximum, false to maintain the minimum
+     */
+    ExtremumAggregation(boolean maximum) {
+        this.maximum = maximum;
+    }
+
+    @Override
+    protected BigDecimal contributionOf(Item item) {
+        DecimalType itemState = (DecimalType) item.getStateAs(DecimalType.class);
+        return itemState != null ? itemState.toBigDecimal() : null;
+    }
+
+    @Override
+    protected void contribute(BigDecimal value) {
+        Integer valueCount = values.get(value);
+        values.put(value, valueCount == null ? 1 : valueCount + 1);
+    }
+
+    @Override
+    protected void withdraw(BigDecimal value) {
+        Integer valueCount = values.get(value);
+        if (valueCount == 1) {
+            values.remove(value);
+        } else {
+            values.put(value, valueCount - 1);
+        }
+    }
+
+    @Override
+    protected State calculate() {
+        if (values.isEmpty()) {
+            return UnDefType.UNDEF;
+        }
+        return new DecimalType(maximum ? values.lastKey() : values.firstKey());
+    }
+
+}
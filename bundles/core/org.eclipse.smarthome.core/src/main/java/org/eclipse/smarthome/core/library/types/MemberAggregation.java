@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.library.types;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.smarthome.core.items.IncrementalGroupFunction.Aggregation;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * The {@link MemberAggregation} is the base class of the aggregations of the {@link ArithmeticGroupFunction}s. It
+ * remembers the contribution of every member, so that the contribution can be withdrawn when the member state
+ * changes. Members, which do not contribute to the aggregate, are remembered with a null contribution.
+ *
+ * @param <V> the type of the contributions
+ * @author agent - Initial contribution
+ */
+abstract class MemberAggregation<V> implements Aggregation {
+
+    private final Map<String, V> contributions = new HashMap<String, V>();
+
+    @Override
+    public synchronized void add(Item item) {
+        V contribution = contributionOf(item);
+        V previousContribution = contributions.put(item.getName(), contribution);
+        if (previousContribution != null) {
+            withdraw(previousContribution);
+        }
+        if (contribution != null) {
+            contribute(contribution);
+        }
+    }
+
+    @Override
+    public synchronized void update(Item item) {
+        if (contributions.containsKey(item.getName())) {
+            add(item);
+        }
+    }
+
+    @Override
+    public synchronized void remove(Item item) {
+        if (contributions.containsKey(item.getName())) {
+            V contribution = contributions.remove(item.getName());
+            if (contribution != null) {
+                withdraw(contribution);
+            }
+        }
+    }
+
+    @Override
+    public synchronized State getState() {
+        return calculate();
+    }
+
+    @Override
+    public synchronized State getStateAs(Class<? extends State> stateClass) {
+        return calculateAs(stateClass);
+    }
+
+    /**
+     * @return the number of aggregated members, including those without contribution
+     */
+    protected int getMemberCount() {
+        return contributions.size();
+    }
+
+    /**
+     * Determines the contribution of the given member to the aggregate.
+     *
+     * @param item the member item
+     * @return the contribution or null, if the item does not contribute
+     */
+    protected abstract V contributionOf(Item item);
+
+    /**
+     * Adds the given contribution to the aggregate.
+     */
+    protected abstract void contribute(V contribution);
+
+    /**
+     * Removes the given contribution, which has been added before, from the aggregate.
+     */
+    protected abstract void withdraw(V contribution);
+
+    /**
+     * Calculates the group state from the aggregate. It is called while holding the lock of the aggregation.
+     */
+    protected abstract State calculate();
+
+    /**
+     * Calculates the group state as a state of the requested type. It is called while holding the lock of the
+     * aggregation.
+     */
+    protected State calculateAs(Class<? extends State> stateClass) {
+        State state = calculate();
+        return stateClass.isInstance(state) ? state : null;
+    }
+
+}
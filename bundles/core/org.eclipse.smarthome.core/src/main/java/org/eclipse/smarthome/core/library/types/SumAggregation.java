@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.library.types;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.smarthome.core.items.Item;
+
+/**
+ * The {@link SumAggregation} maintains the sum and the number of the decimal states of the members. The sum is
+ * calculated exactly and has the same scale as a sum that is calculated from scratch, which is the largest scale of
+ * its summands.
+ *
+ * @author agent - Initial contribution
+ */
+abstract class SumAggregation extends MemberAggregation<BigDecimal> {
+
+    private BigDecimal sum = BigDecimal.ZERO;
+
+    private int count;
+
+    /** the number of summands by their scale */
+    private final TreeMap<Integer, Integer> scales = new TreeMap<Integer, Integer>();
+
+    @Override
+    protected BigDecimal contributionOf(Item item) {
+        DecimalType itemState = (DecimalType) item.getStateAs(DecimalType.class);
+        return itemState != null ? itemState.toBigDecimal() : null;
+    }
+
+    @Override
+    protected void contribute(BigDecimal value) {
+        sum = sum.add(value);
+        count++;
+        Integer scaleCount = scales.get(value.scale());
+        scales.put(value.scale(), scaleCount == null ? 1 : scaleCount + 1);
+    }
+
+    @Override
+    protected void withdraw(BigDecimal value) {
+        sum = sum.subtract(value);
+        count--;
+        Integer scaleCount = scales.get(value.scale());
+        if (scaleCount == 1) {
+            scales.remove(value.scale());
+        } else {
+            scales.put(value.scale(), scaleCount - 1);
+        }
+    }
+
+    /**
+     * @return the sum of the decimal states of the members
+     */
+    protected BigDecimal getSum() {
+        Map.Entry<Integer, Integer> largestScale = scales.lastEntry();
+        // the sum has at least the scale of all current summands, so this does not round
+        return sum.setScale(largestScale != null ? Math.max(0, largestScale.getKey()) : 0);
+    }
+
+    /**
+     * @return the number of members with a decimal state
+     */
+    protected int getCount() {
+        return count;
+    }
+
+}
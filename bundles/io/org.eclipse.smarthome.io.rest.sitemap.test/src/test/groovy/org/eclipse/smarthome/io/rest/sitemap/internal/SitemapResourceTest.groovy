@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.rest.sitemap.internal
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import org.eclipse.emf.common.util.BasicEList
+import org.eclipse.smarthome.core.items.GroupItem
+import org.eclipse.smarthome.core.items.Item
+import org.eclipse.smarthome.core.items.ItemNotFoundException
+import org.eclipse.smarthome.core.library.items.SwitchItem
+import org.eclipse.smarthome.core.library.types.OnOffType
+import org.eclipse.smarthome.model.dto.PageDeltaDTO
+import org.eclipse.smarthome.model.sitemap.Group
+import org.eclipse.smarthome.model.sitemap.Sitemap
+import org.eclipse.smarthome.model.sitemap.SitemapFactory
+import org.eclipse.smarthome.model.sitemap.SitemapProvider
+import org.eclipse.smarthome.model.sitemap.Widget
+import org.eclipse.smarthome.ui.items.ItemUIRegistry
+import org.junit.Before
+import org.junit.Test
+
+
+/**
+ * The {@link SitemapResourceTest} tests the caching of rendered pages and the computation of page deltas by the
+ * {@link SitemapResource}.
+ *
+ * @author agent - Initial contribution
+ */
+class SitemapResourceTest {
+
+    static final URI BASE_URI = new URI("http://localhost:8080/rest/")
+
+    SitemapResource resource
+
+    Sitemap sitemap
+
+    Map<String, Item> items
+
+    Set<String> invisibleItems
+
+    @Before
+    void setUp() {
+        items = [:]
+        invisibleItems = [] as Set
+        sitemap = SitemapFactory.eINSTANCE.createSitemap()
+        sitemap.name = "test"
+
+        def itemUIRegistry = [
+            getItem: { String name ->
+                Item item = items[name]
+                if (item == null) {
+                    throw new ItemNotFoundException(name)
+                }
+                item
+            },
+            getWidget: { Sitemap s, String id -> s.children.find { it.item == id } },
+            getChildren: { w -> w instanceof Group && w.children.isEmpty() ? getDynamicGroupChildren(w) : w.children },
+            getVisiblity: { Widget w -> !invisibleItems.contains(w.item) },
+            getWidgetId: { Widget w -> w.item },
+            getLabel: { Widget w -> w.label ?: w.item },
+            getIcon: { Widget w -> null },
+            getLabelColor: { Widget w -> null },
+            getValueColor: { Widget w -> null }
+        ] as ItemUIRegistry
+
+        resource = new SitemapResource()
+        resource.setItemUIRegistry(itemUIRegistry)
+        resource.addSitemapProvider([
+            getSitemap: { String name -> name == sitemap.name ? sitemap : null },
+            getSitemapNames: { [sitemap.name] as Set }
+        ] as SitemapProvider)
+    }
+
+    @Test
+    void 'assert the delta contains only the widgets whose items have changed'() {
+        addSwitch("Light")
+        addSwitch("Fan")
+
+        PageDeltaDTO delta = getDelta("test", 0)
+        assertThat delta.full, is(true)
+        assertThat delta.widgets*.item*.name, is(["Light", "Fan"])
+
+        items["Fan"].setState(OnOffType.ON)
+        PageDeltaDTO changes = getDelta("test", delta.version)
+        assertThat changes.full, is(false)
+        assertThat changes.version > delta.version, is(true)
+        assertThat changes.widgets*.item*.name, is(["Fan"])
+        assertThat changes.widgets[0].item.state, is("ON")
+
+        PageDeltaDTO noChanges = getDelta("test", changes.version)
+        assertThat noChanges.version, is(changes.version)
+        assertThat noChanges.widgets.isEmpty(), is(true)
+        assertThat noChanges.removed.isEmpty(), is(true)
+    }
+
+    @Test
+    void 'assert widgets which have become invisible are reported as removed'() {
+        addSwitch("Light")
+        addSwitch("Fan")
+        PageDeltaDTO delta = getDelta("test", 0)
+
+        invisibleItems.add("Fan")
+        items["Fan"].setState(OnOffType.ON)
+        PageDeltaDTO changes = getDelta("test", delta.version)
+
+        assertThat changes.widgets.isEmpty(), is(true)
+        assertThat changes.removed, is([delta.widgets[1].widgetId])
+    }
+
+    @Test
+    void 'assert the whole page is returned for an unknown version'() {
+        addSwitch("Light")
+        PageDeltaDTO delta = getDelta("test", 0)
+
+        PageDeltaDTO full = getDelta("test", delta.version + 1000)
+
+        assertThat full.full, is(true)
+        assertThat full.widgets*.item*.name, is(["Light"])
+    }
+
+    @Test
+    void 'assert members added to and removed from a group page are rendered'() {
+        GroupItem group = new GroupItem("Lights")
+        items["Lights"] = group
+        Group groupWidget = SitemapFactory.eINSTANCE.createGroup()
+        groupWidget.item = "Lights"
+        sitemap.children.add(groupWidget)
+        SwitchItem kitchen = addMember(group, "Kitchen")
+
+        PageDeltaDTO delta = getDelta("Lights", 0)
+        assertThat delta.widgets*.item*.name, is(["Kitchen"])
+
+        addMember(group, "Bedroom")
+        delta = getDelta("Lights", delta.version)
+        assertThat delta.full, is(true)
+        assertThat delta.widgets*.item*.name as Set, is(["Kitchen", "Bedroom"] as Set)
+
+        group.removeMember(kitchen)
+        items.remove("Kitchen")
+        delta = getDelta("Lights", delta.version)
+        assertThat delta.full, is(true)
+        assertThat delta.widgets*.item*.name, is(["Bedroom"])
+    }
+
+    private PageDeltaDTO getDelta(String pageId, long since) {
+        resource.getPageDeltaBean("test", pageId, since, BASE_URI)
+    }
+
+    private void addSwitch(String itemName) {
+        items[itemName] = new SwitchItem(itemName)
+        def widget = SitemapFactory.eINSTANCE.createSwitch()
+        widget.item = itemName
+        sitemap.children.add(widget)
+    }
+
+    private SwitchItem addMember(GroupItem group, String itemName) {
+        SwitchItem item = new SwitchItem(itemName)
+        items[itemName] = item
+        group.addMember(item)
+        item
+    }
+
+    private BasicEList<Widget> getDynamicGroupChildren(Group groupWidget) {
+        // like the ItemUIRegistry, new widgets are created on every call
+        def children = new BasicEList<Widget>()
+        for (Item member : ((GroupItem) items[groupWidget.item]).members) {
+            def widget = SitemapFactory.eINSTANCE.createSwitch()
+            widget.item = member.name
+            children.add(widget)
+        }
+        children
+    }
+}
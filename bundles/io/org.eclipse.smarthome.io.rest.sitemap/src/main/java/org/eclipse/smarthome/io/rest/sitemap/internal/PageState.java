@@ -0,0 +1,294 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.rest.sitemap.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemNotFoundException;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.model.dto.WidgetDTO;
+import org.eclipse.smarthome.model.sitemap.ColorArray;
+import org.eclipse.smarthome.model.sitemap.Frame;
+import org.eclipse.smarthome.model.sitemap.Sitemap;
+import org.eclipse.smarthome.model.sitemap.VisibilityRule;
+import org.eclipse.smarthome.model.sitemap.Widget;
+import org.eclipse.smarthome.ui.items.ItemUIRegistry;
+
+/**
+ * The {@link PageState} caches the rendered widgets of a single page. For every widget it remembers the items the
+ * widget depends on - its own item and the items of its visibility and color rules - together with their states at
+ * the time of rendering. Only widgets with changed dependencies have to be rendered again.
+ * <p>
+ * Every change of the page gets a new version, so that clients can ask for the widgets which have changed since the
+ * version they know.
+ * </p>
+ * <p>
+ * The page also remembers the items of its children, as the children of a group page without explicit children are
+ * created from the members of the group. If the members change, the page has to be built again.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+class PageState {
+
+    /** the version counter starts with the current time, so that versions of a previous run are older */
+    private static final AtomicLong versionCounter = new AtomicLong(System.currentTimeMillis());
+
+    private final Sitemap sitemap;
+
+    private final List<String> childItemNames;
+
+    private final long baseVersion;
+
+    private final List<WidgetEntry> entries;
+
+    private final boolean leaf;
+
+    private long version;
+
+    PageState(Sitemap sitemap, List<String> childItemNames, List<WidgetEntry> entries, boolean leaf) {
+        this.sitemap = sitemap;
+        this.childItemNames = childItemNames;
+        this.entries = entries;
+        this.leaf = leaf;
+        this.baseVersion = nextVersion();
+        this.version = baseVersion;
+        for (WidgetEntry entry : entries) {
+            entry.markChanged(baseVersion);
+        }
+    }
+
+    static long nextVersion() {
+        return versionCounter.incrementAndGet();
+    }
+
+    Sitemap getSitemap() {
+        return sitemap;
+    }
+
+    /**
+     * Returns the names of the items of the children of the page, at the time the page has been built.
+     *
+     * @return the item names, which contain null for children without an item
+     */
+    List<String> getChildItemNames() {
+        return childItemNames;
+    }
+
+    List<WidgetEntry> getEntries() {
+        return entries;
+    }
+
+    boolean isLeaf() {
+        return leaf;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Checks whether the page knows the given version, so that the changes since this version can be determined.
+     *
+     * @param since a version returned by a previous request
+     * @return true, if the changes since this version are known
+     */
+    boolean knowsVersion(long since) {
+        return since >= baseVersion && since <= version;
+    }
+
+    /**
+     * A {@link WidgetEntry} is a rendered widget of the page. Frames have entries for their children.
+     */
+    static class WidgetEntry {
+
+        private final Widget widget;
+
+        private final String widgetId;
+
+        private final List<Dependency> dependencies;
+
+        private final List<WidgetEntry> children;
+
+        private WidgetDTO bean;
+
+        private long version;
+
+        WidgetEntry(Widget widget, String widgetId, List<Dependency> dependencies, WidgetDTO bean,
+                List<WidgetEntry> children) {
+            this.widget = widget;
+            this.widgetId = widgetId;
+            this.dependencies = dependencies;
+            this.bean = bean;
+            this.children = children;
+        }
+
+        Widget getWidget() {
+            return widget;
+        }
+
+        String getWidgetId() {
+            return widgetId;
+        }
+
+        List<Dependency> getDependencies() {
+            return dependencies;
+        }
+
+        /**
+         * Returns the rendered widget.
+         *
+         * @return the rendered widget or null, if the widget is not visible
+         */
+        WidgetDTO getBean() {
+            return bean;
+        }
+
+        List<WidgetEntry> getChildren() {
+            return children;
+        }
+
+        /**
+         * Returns the version of the page, in which the widget has been changed.
+         *
+         * @return the version
+         */
+        long getVersion() {
+            return version;
+        }
+
+        void setVersion(long version) {
+            this.version = version;
+        }
+
+        /**
+         * Sets the version of the widget and its children, after it has been rendered.
+         *
+         * @param version the current version of the page
+         */
+        void markChanged(long version) {
+            this.version = version;
+            for (WidgetEntry child : children) {
+                child.markChanged(version);
+            }
+        }
+
+        /**
+         * Checks whether an item the widget depends on has changed since the widget has been rendered.
+         *
+         * @param itemUIRegistry the registry to look up the items
+         * @return true, if the widget has to be rendered again
+         */
+        boolean isOutdated(ItemUIRegistry itemUIRegistry) {
+            for (Dependency dependency : dependencies) {
+                if (dependency.hasChanged(itemUIRegistry)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A {@link Dependency} is an item a widget depends on, together with the item instance and its state at the time
+     * of rendering.
+     */
+    static class Dependency {
+
+        private final String itemName;
+
+        private final Item item;
+
+        private final State state;
+
+        private Dependency(String itemName, Item item) {
+            this.itemName = itemName;
+            this.item = item;
+            this.state = item != null ? item.getState() : null;
+        }
+
+        boolean hasChanged(ItemUIRegistry itemUIRegistry) {
+            Item currentItem = getItem(itemUIRegistry, itemName);
+            if (currentItem != item) {
+                return true;
+            }
+            if (item == null) {
+                return false;
+            }
+            State currentState = item.getState();
+            return state == null ? currentState != null : !state.equals(currentState);
+        }
+
+        /**
+         * Collects the items a widget depends on. The dependencies have to be collected before the widget is
+         * rendered, so that a change during the rendering is detected by the next request.
+         *
+         * @param widget the widget
+         * @param recursive true, if the dependencies of the children of frames are included
+         * @param itemUIRegistry the registry to look up the items
+         * @return the dependencies
+         */
+        static List<Dependency> of(Widget widget, boolean recursive, ItemUIRegistry itemUIRegistry) {
+            Set<String> itemNames = new LinkedHashSet<>();
+            collectItemNames(widget, recursive, itemNames);
+            if (itemNames.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<Dependency> dependencies = new ArrayList<>(itemNames.size());
+            for (String itemName : itemNames) {
+                dependencies.add(new Dependency(itemName, getItem(itemUIRegistry, itemName)));
+            }
+            return dependencies;
+        }
+
+        private static void collectItemNames(Widget widget, boolean recursive, Set<String> itemNames) {
+            if (widget.getItem() != null) {
+                itemNames.add(widget.getItem());
+            }
+            for (VisibilityRule rule : widget.getVisibility()) {
+                if (rule.getItem() != null) {
+                    itemNames.add(rule.getItem());
+                }
+            }
+            for (ColorArray color : widget.getLabelColor()) {
+                if (color.getItem() != null) {
+                    itemNames.add(color.getItem());
+                }
+            }
+            for (ColorArray color : widget.getValueColor()) {
+                if (color.getItem() != null) {
+                    itemNames.add(color.getItem());
+                }
+            }
+            if (recursive && widget instanceof Frame) {
+                for (Widget child : ((Frame) widget).getChildren()) {
+                    collectItemNames(child, true, itemNames);
+                }
+            }
+        }
+
+        private static Item getItem(ItemUIRegistry itemUIRegistry, String itemName) {
+            try {
+                return itemUIRegistry.getItem(itemName);
+            } catch (ItemNotFoundException e) {
+                return null;
+            }
+        }
+    }
+
+}
@@ -10,9 +10,12 @@ package org.eclipse.smarthome.io.rest.sitemap.internal;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Date;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.ws.rs.DefaultValue;
@@ -34,19 +37,19 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemNotFoundException;
-import org.eclipse.smarthome.core.items.StateChangeListener;
-import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.eclipse.smarthome.io.rest.core.item.EnrichedItemDTOMapper;
+import org.eclipse.smarthome.io.rest.sitemap.internal.PageState.Dependency;
+import org.eclipse.smarthome.io.rest.sitemap.internal.PageState.WidgetEntry;
 import org.eclipse.smarthome.model.dto.MappingDTO;
 import org.eclipse.smarthome.model.dto.PageDTO;
+import org.eclipse.smarthome.model.dto.PageDeltaDTO;
 import org.eclipse.smarthome.model.dto.SitemapDTO;
 import org.eclipse.smarthome.model.dto.WidgetDTO;
 import org.eclipse.smarthome.model.sitemap.Chart;
 import org.eclipse.smarthome.model.sitemap.Frame;
 import org.eclipse.smarthome.model.sitemap.Image;
 import org.eclipse.smarthome.model.sitemap.LinkableWidget;
-import org.eclipse.smarthome.model.sitemap.List;
 import org.eclipse.smarthome.model.sitemap.Mapping;
 import org.eclipse.smarthome.model.sitemap.Mapview;
 import org.eclipse.smarthome.model.sitemap.Selection;
@@ -59,6 +62,7 @@ import org.eclipse.smarthome.model.sitemap.Video;
 import org.eclipse.smarthome.model.sitemap.Webview;
 import org.eclipse.smarthome.model.sitemap.Widget;
 import org.eclipse.smarthome.ui.items.ItemUIRegistry;
+import org.eclipse.smarthome.ui.items.PageChangeNotifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,6 +71,11 @@ import org.slf4j.LoggerFactory;
  * This class acts as a REST resource for sitemaps and provides different methods to interact with them, like retrieving
  * a list of all available sitemaps or just getting the widgets of a single page.
  * </p>
+ * <p>
+ * The rendered widgets of the requested pages are cached in {@link PageState}s. A widget is only rendered again, if
+ * the state of an item it depends on has changed. Clients can request only the widgets, which have changed since a
+ * version of the page they know.
+ * </p>
  *
  * @author Kai Kreuzer - Initial contribution and API
  * @author Chris Jackson
@@ -80,12 +89,27 @@ public class SitemapResource implements RESTResource {
 
     private static final long TIMEOUT_IN_MS = 30000;
 
+    /** the maximum number of pages, whose rendered widgets are cached */
+    private static final int MAX_CACHED_PAGES = 100;
+
     @Context
     UriInfo uriInfo;
 
     private ItemUIRegistry itemUIRegistry;
 
-    private java.util.List<SitemapProvider> sitemapProviders = new ArrayList<>();
+    private PageChangeNotifier pageChangeNotifier;
+
+    private List<SitemapProvider> sitemapProviders = new ArrayList<>();
+
+    /** the cached pages by sitemap name, page id and base URI in access order, guarded by itself */
+    private final Map<String, PageState> pageStates = new LinkedHashMap<String, PageState>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PageState> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
 
     public void setItemUIRegistry(ItemUIRegistry itemUIRegistry) {
         this.itemUIRegistry = itemUIRegistry;
@@ -95,6 +119,14 @@ public class SitemapResource implements RESTResource {
         this.itemUIRegistry = null;
     }
 
+    public void setPageChangeNotifier(PageChangeNotifier pageChangeNotifier) {
+        this.pageChangeNotifier = pageChangeNotifier;
+    }
+
+    public void unsetPageChangeNotifier(PageChangeNotifier pageChangeNotifier) {
+        this.pageChangeNotifier = null;
+    }
+
     public void addSitemapProvider(SitemapProvider provider) {
         sitemapProviders.add(provider);
     }
@@ -138,30 +170,50 @@ public class SitemapResource implements RESTResource {
         return Response.ok(responseObject).build();
     }
 
+    @GET
+    @Path("/{sitemapname: [a-zA-Z_0-9]*}/{pageid: [a-zA-Z_0-9]*}/delta")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getPageDelta(@Context HttpHeaders headers, @PathParam("sitemapname") String sitemapname,
+            @PathParam("pageid") String pageId, @QueryParam("since") @DefaultValue("0") long since) {
+        logger.debug("Received HTTP GET request at '{}'", uriInfo.getPath());
+
+        if (headers.getRequestHeader("X-Atmosphere-Transport") != null) {
+            blockUnlessChangeOccurs(sitemapname, pageId);
+        }
+        Object responseObject = getPageDeltaBean(sitemapname, pageId, since, uriInfo.getBaseUriBuilder().build());
+        return Response.ok(responseObject).build();
+    }
+
     private PageDTO getPageBean(String sitemapName, String pageId, URI uri) {
         Sitemap sitemap = getSitemap(sitemapName);
         if (sitemap != null) {
             if (pageId.equals(sitemap.getName())) {
-                return createPageBean(sitemapName, sitemap.getLabel(), sitemap.getIcon(), sitemap.getName(),
-                        sitemap.getChildren(), false, isLeaf(sitemap.getChildren()), uri);
+                PageDTO pageBean = createPageBean(sitemapName, sitemap.getLabel(), sitemap.getIcon(),
+                        sitemap.getName(), null, false, false, uri);
+                PageState pageState = getPageState(sitemapName, sitemap, pageId, null, uri);
+                fillPageBean(pageBean, pageState);
+                return pageBean;
             } else {
                 Widget pageWidget = itemUIRegistry.getWidget(sitemap, pageId);
                 if (pageWidget instanceof LinkableWidget) {
-                    EList<Widget> children = itemUIRegistry.getChildren((LinkableWidget) pageWidget);
                     PageDTO pageBean = createPageBean(sitemapName, itemUIRegistry.getLabel(pageWidget),
-                            itemUIRegistry.getIcon(pageWidget), pageId, children, false, isLeaf(children), uri);
+                            itemUIRegistry.getIcon(pageWidget), pageId, null, false, false, uri);
+                    PageState pageState = getPageState(sitemapName, sitemap, pageId, (LinkableWidget) pageWidget,
+                            uri);
+                    fillPageBean(pageBean, pageState);
                     EObject parentPage = pageWidget.eContainer();
                     while (parentPage instanceof Frame) {
                         parentPage = parentPage.eContainer();
                     }
-                    if (parentPage instanceof Widget) {
-                        String parentId = itemUIRegistry.getWidgetId((Widget) parentPage);
-                        pageBean.parent = getPageBean(sitemapName, parentId, uri);
-                        pageBean.parent.widgets = null;
-                        pageBean.parent.parent = null;
+                    if (parentPage instanceof LinkableWidget) {
+                        // the parent is only rendered as link without its widgets
+                        LinkableWidget parentWidget = (LinkableWidget) parentPage;
+                        pageBean.parent = createPageBean(sitemapName, itemUIRegistry.getLabel(parentWidget),
+                                itemUIRegistry.getIcon(parentWidget), itemUIRegistry.getWidgetId(parentWidget), null,
+                                false, isLeaf(itemUIRegistry.getChildren(parentWidget)), uri);
                     } else if (parentPage instanceof Sitemap) {
-                        pageBean.parent = getPageBean(sitemapName, sitemap.getName(), uri);
-                        pageBean.parent.widgets = null;
+                        pageBean.parent = createPageBean(sitemapName, sitemap.getLabel(), sitemap.getIcon(),
+                                sitemap.getName(), null, false, isLeaf(sitemap.getChildren()), uri);
                     }
                     return pageBean;
                 } else {
@@ -183,6 +235,218 @@ public class SitemapResource implements RESTResource {
         }
     }
 
+    private PageDeltaDTO getPageDeltaBean(String sitemapName, String pageId, long since, URI uri) {
+        Sitemap sitemap = getSitemap(sitemapName);
+        if (sitemap == null) {
+            logger.info("Received HTTP GET request at '{}' for the unknown sitemap '{}'.", uri, sitemapName);
+            throw new WebApplicationException(404);
+        }
+        PageDeltaDTO deltaBean = new PageDeltaDTO();
+        deltaBean.id = pageId;
+        PageState pageState;
+        if (pageId.equals(sitemap.getName())) {
+            deltaBean.title = sitemap.getLabel();
+            deltaBean.icon = sitemap.getIcon();
+            pageState = getPageState(sitemapName, sitemap, pageId, null, uri);
+        } else {
+            Widget pageWidget = itemUIRegistry.getWidget(sitemap, pageId);
+            if (!(pageWidget instanceof LinkableWidget)) {
+                logger.debug("Received HTTP GET request at '{}' for the invalid page id '{}'.", uri, pageId);
+                throw new WebApplicationException(404);
+            }
+            deltaBean.title = itemUIRegistry.getLabel(pageWidget);
+            deltaBean.icon = itemUIRegistry.getIcon(pageWidget);
+            pageState = getPageState(sitemapName, sitemap, pageId, (LinkableWidget) pageWidget, uri);
+        }
+        synchronized (pageState) {
+            deltaBean.version = pageState.getVersion();
+            if (!pageState.knowsVersion(since)) {
+                deltaBean.full = true;
+                for (WidgetEntry entry : pageState.getEntries()) {
+                    if (entry.getBean() != null) {
+                        deltaBean.widgets.add(entry.getBean());
+                    }
+                }
+                return deltaBean;
+            }
+            for (WidgetEntry entry : pageState.getEntries()) {
+                if (entry.getVersion() > since) {
+                    if (entry.getBean() != null) {
+                        deltaBean.widgets.add(entry.getBean());
+                    } else {
+                        deltaBean.removed.add(entry.getWidgetId());
+                    }
+                } else {
+                    for (WidgetEntry child : entry.getChildren()) {
+                        if (child.getVersion() > since && child.getBean() != null) {
+                            deltaBean.widgets.add(child.getBean());
+                        }
+                    }
+                }
+            }
+        }
+        return deltaBean;
+    }
+
+    private void fillPageBean(PageDTO pageBean, PageState pageState) {
+        pageBean.widgets = new ArrayList<WidgetDTO>();
+        synchronized (pageState) {
+            pageBean.leaf = pageState.isLeaf();
+            for (WidgetEntry entry : pageState.getEntries()) {
+                if (entry.getBean() != null) {
+                    pageBean.widgets.add(entry.getBean());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cached state of a page, in which all outdated widgets have been rendered again.
+     *
+     * @param sitemapName the name of the sitemap
+     * @param sitemap the sitemap
+     * @param pageId the id of the page
+     * @param pageWidget the widget of the page or null for the home page
+     * @param uri the base URI, which is used for the links of the widgets
+     * @return the up to date state of the page
+     */
+    private PageState getPageState(String sitemapName, Sitemap sitemap, String pageId, LinkableWidget pageWidget,
+            URI uri) {
+        String key = sitemapName + "/" + pageId + "@" + uri;
+        PageState pageState;
+        synchronized (pageStates) {
+            pageState = pageStates.get(key);
+        }
+        // the children of a group page without explicit children are created from the current members of the group
+        EList<Widget> children = pageWidget != null ? itemUIRegistry.getChildren(pageWidget) : sitemap.getChildren();
+        List<String> childItemNames = getItemNames(children);
+        if (pageState != null && pageState.getSitemap() == sitemap
+                && pageState.getChildItemNames().equals(childItemNames)) {
+            refreshPageState(sitemapName, pageState, uri);
+            return pageState;
+        }
+        // the page has not been requested yet, the sitemap has been reloaded or the members of the group have changed
+        List<WidgetEntry> entries = new ArrayList<>(children.size());
+        int cntWidget = 0;
+        for (Widget widget : children) {
+            entries.add(createWidgetEntry(sitemapName, widget, uri, pageId + "_" + cntWidget, true));
+            cntWidget++;
+        }
+        pageState = new PageState(sitemap, childItemNames, entries, isLeaf(children));
+        synchronized (pageStates) {
+            pageStates.put(key, pageState);
+        }
+        return pageState;
+    }
+
+    private static List<String> getItemNames(EList<Widget> widgets) {
+        List<String> itemNames = new ArrayList<>(widgets.size());
+        for (Widget widget : widgets) {
+            itemNames.add(widget.getItem());
+        }
+        return itemNames;
+    }
+
+    /**
+     * Renders a widget and remembers the items it depends on.
+     *
+     * @param splitFrame true, if the children of a frame get entries of their own
+     * @return the new entry
+     */
+    private WidgetEntry createWidgetEntry(String sitemapName, Widget widget, URI uri, String widgetId,
+            boolean splitFrame) {
+        if (!splitFrame || !(widget instanceof Frame)) {
+            List<Dependency> dependencies = Dependency.of(widget, true, itemUIRegistry);
+            WidgetDTO bean = createWidgetBean(sitemapName, widget, false, uri, widgetId);
+            return new WidgetEntry(widget, widgetId, dependencies, bean, Collections.<WidgetEntry> emptyList());
+        }
+        List<Dependency> dependencies = Dependency.of(widget, false, itemUIRegistry);
+        List<WidgetEntry> children = new ArrayList<>();
+        WidgetDTO bean = createWidgetBean(sitemapName, widget, false, uri, widgetId, false);
+        if (bean != null) {
+            // the ids of the children are built like in createWidgetBean
+            String childId = widgetId;
+            int cntWidget = 0;
+            for (Widget child : itemUIRegistry.getChildren((Frame) widget)) {
+                childId += "_" + cntWidget;
+                WidgetEntry childEntry = createWidgetEntry(sitemapName, child, uri, childId, false);
+                children.add(childEntry);
+                if (childEntry.getBean() != null) {
+                    bean.widgets.add(childEntry.getBean());
+                    cntWidget++;
+                }
+            }
+        }
+        return new WidgetEntry(widget, widgetId, dependencies, bean, children);
+    }
+
+    /**
+     * Renders all widgets of a page again, whose items have changed. The beans of the page are never modified, once
+     * they have been handed out, but replaced by new beans.
+     */
+    private void refreshPageState(String sitemapName, PageState pageState, URI uri) {
+        synchronized (pageState) {
+            long version = 0;
+            List<WidgetEntry> entries = pageState.getEntries();
+            for (int i = 0; i < entries.size(); i++) {
+                WidgetEntry entry = entries.get(i);
+                boolean outdated = entry.isOutdated(itemUIRegistry);
+                boolean childrenOutdated = false;
+                List<WidgetEntry> children = new ArrayList<>(entry.getChildren());
+                if (!outdated) {
+                    for (int j = 0; j < children.size() && !outdated; j++) {
+                        WidgetEntry child = children.get(j);
+                        if (child.isOutdated(itemUIRegistry)) {
+                            WidgetEntry newChild = createWidgetEntry(sitemapName, child.getWidget(), uri,
+                                    child.getWidgetId(), false);
+                            if ((child.getBean() == null) != (newChild.getBean() == null)) {
+                                // the visibility has changed, so that the ids of the following widgets change
+                                outdated = true;
+                            } else {
+                                children.set(j, newChild);
+                                childrenOutdated = true;
+                            }
+                        }
+                    }
+                }
+                if (outdated) {
+                    WidgetEntry newEntry = createWidgetEntry(sitemapName, entry.getWidget(), uri,
+                            entry.getWidgetId(), true);
+                    if (entry.getBean() == null && newEntry.getBean() == null) {
+                        // the widget is still invisible
+                        newEntry.markChanged(entry.getVersion());
+                    } else {
+                        version = version != 0 ? version : PageState.nextVersion();
+                        newEntry.markChanged(version);
+                    }
+                    entries.set(i, newEntry);
+                } else if (childrenOutdated) {
+                    version = version != 0 ? version : PageState.nextVersion();
+                    // the frame is rendered again without its children, which are taken from their entries
+                    WidgetDTO bean = createWidgetBean(sitemapName, entry.getWidget(), false, uri,
+                            entry.getWidgetId(), false);
+                    for (int j = 0; j < children.size(); j++) {
+                        WidgetEntry child = children.get(j);
+                        if (child != entry.getChildren().get(j)) {
+                            child.markChanged(version);
+                        }
+                        if (child.getBean() != null) {
+                            bean.widgets.add(child.getBean());
+                        }
+                    }
+                    // the frame itself keeps its version, as only the changed children are sent as delta
+                    WidgetEntry newEntry = new WidgetEntry(entry.getWidget(), entry.getWidgetId(),
+                            entry.getDependencies(), bean, children);
+                    newEntry.setVersion(entry.getVersion());
+                    entries.set(i, newEntry);
+                }
+            }
+            if (version != 0) {
+                pageState.setVersion(version);
+            }
+        }
+    }
+
     public Collection<SitemapDTO> getSitemapBeans(URI uri) {
         Collection<SitemapDTO> beans = new LinkedList<SitemapDTO>();
         logger.debug("Received HTTP GET request at '{}'.", UriBuilder.fromUri(uri).build().toASCIIString());
@@ -252,6 +516,11 @@ public class SitemapResource implements RESTResource {
     }
 
     private WidgetDTO createWidgetBean(String sitemapName, Widget widget, boolean drillDown, URI uri, String widgetId) {
+        return createWidgetBean(sitemapName, widget, drillDown, uri, widgetId, true);
+    }
+
+    private WidgetDTO createWidgetBean(String sitemapName, Widget widget, boolean drillDown, URI uri, String widgetId,
+            boolean includeFrameChildren) {
         // Test visibility
         if (itemUIRegistry.getVisiblity(widget) == false)
             return null;
@@ -277,13 +546,15 @@ public class SitemapResource implements RESTResource {
             LinkableWidget linkableWidget = (LinkableWidget) widget;
             EList<Widget> children = itemUIRegistry.getChildren(linkableWidget);
             if (widget instanceof Frame) {
-                int cntWidget = 0;
-                for (Widget child : children) {
-                    widgetId += "_" + cntWidget;
-                    WidgetDTO subWidget = createWidgetBean(sitemapName, child, drillDown, uri, widgetId);
-                    if (subWidget != null) {
-                        bean.widgets.add(subWidget);
-                        cntWidget++;
+                if (includeFrameChildren) {
+                    int cntWidget = 0;
+                    for (Widget child : children) {
+                        widgetId += "_" + cntWidget;
+                        WidgetDTO subWidget = createWidgetBean(sitemapName, child, drillDown, uri, widgetId);
+                        if (subWidget != null) {
+                            bean.widgets.add(subWidget);
+                            cntWidget++;
+                        }
                     }
                 }
             } else if (children.size() > 0) {
@@ -330,8 +601,8 @@ public class SitemapResource implements RESTResource {
             bean.sendFrequency = sliderWidget.getFrequency();
             bean.switchSupport = sliderWidget.isSwitchEnabled();
         }
-        if (widget instanceof List) {
-            List listWidget = (List) widget;
+        if (widget instanceof org.eclipse.smarthome.model.sitemap.List) {
+            org.eclipse.smarthome.model.sitemap.List listWidget = (org.eclipse.smarthome.model.sitemap.List) widget;
             bean.separator = listWidget.getSeparator();
         }
         if (widget instanceof Image) {
@@ -433,27 +704,13 @@ public class SitemapResource implements RESTResource {
      * @param widgets the widgets of the page to observe
      */
     private boolean waitForChanges(EList<Widget> widgets) {
-        long startTime = (new Date()).getTime();
-        boolean timeout = false;
-        BlockingStateChangeListener listener = new BlockingStateChangeListener();
+        PageChangeNotifier notifier = pageChangeNotifier;
+        if (notifier == null) {
+            return false;
+        }
         // let's get all items for these widgets
         Set<GenericItem> items = getAllItems(widgets);
-        for (GenericItem item : items) {
-            item.addStateChangeListener(listener);
-        }
-        while (!listener.hasChangeOccurred() && !timeout) {
-            timeout = (new Date()).getTime() - startTime > TIMEOUT_IN_MS;
-            try {
-                Thread.sleep(300);
-            } catch (InterruptedException e) {
-                timeout = true;
-                break;
-            }
-        }
-        for (GenericItem item : items) {
-            item.removeStateChangeListener(listener);
-        }
-        return !timeout;
+        return notifier.waitForChange(items, TIMEOUT_IN_MS);
     }
 
     /**
@@ -487,41 +744,4 @@ public class SitemapResource implements RESTResource {
         return items;
     }
 
-    /**
-     * This is a state change listener, which is merely used to determine, if a state
-     * change has occurred on one of a list of items.
-     * 
-     * @author Kai Kreuzer - Initial contribution and API
-     *
-     */
-    private static class BlockingStateChangeListener implements StateChangeListener {
-
-        private boolean changed = false;
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void stateChanged(Item item, State oldState, State newState) {
-            changed = true;
-        }
-
-        /**
-         * determines, whether a state change has occurred since its creation
-         * 
-         * @return true, if a state has changed
-         */
-        public boolean hasChangeOccurred() {
-            return changed;
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void stateUpdated(Item item, State state) {
-            // ignore if the state did not change
-        }
-    }
-
 }
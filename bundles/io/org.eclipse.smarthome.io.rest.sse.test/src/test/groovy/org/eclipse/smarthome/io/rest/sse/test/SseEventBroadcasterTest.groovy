@@ -0,0 +1,226 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.rest.sse.test
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import org.eclipse.smarthome.core.events.Event
+import org.eclipse.smarthome.io.rest.sse.internal.SseConnection
+import org.eclipse.smarthome.io.rest.sse.internal.SseEventBroadcaster
+import org.eclipse.smarthome.io.rest.sse.internal.SseConnection.OverflowPolicy
+import org.eclipse.smarthome.test.OSGiTest
+import org.glassfish.jersey.media.sse.EventOutput
+import org.glassfish.jersey.media.sse.OutboundEvent
+import org.junit.Test
+
+/**
+ * The {@link SseEventBroadcasterTest} tests the fan out of events to the queues of the SSE connections.
+ *
+ * @author agent - Initial contribution
+ */
+class SseEventBroadcasterTest extends OSGiTest {
+
+    Executor directExecutor = { Runnable runnable -> runnable.run() } as Executor
+
+    @Test
+    void 'events are serialized once and only enqueued for matching clients'() {
+        def broadcaster = new SseEventBroadcaster(directExecutor, 10, 0, OverflowPolicy.COALESCE)
+        def itemOutput = new RecordingEventOutput()
+        def thingOutput = new RecordingEventOutput()
+        def allOutput = new RecordingEventOutput()
+        broadcaster.add(itemOutput, "smarthome/items", null)
+        broadcaster.add(thingOutput, "smarthome/things", null)
+        broadcaster.add(allOutput, "", null)
+
+        broadcaster.broadcast(createEvent("smarthome/items/Light/state", "ON"))
+        broadcaster.broadcast(createEvent("smarthome/things/hue:bulb:1/status", "ONLINE"))
+
+        assertThat itemOutput.events.size(), is(1)
+        assertThat thingOutput.events.size(), is(1)
+        assertThat allOutput.events.size(), is(2)
+        assertThat itemOutput.events[0], is(sameInstance(allOutput.events[0]))
+        assertThat thingOutput.events[0], is(sameInstance(allOutput.events[1]))
+        assertThat itemOutput.events[0].data.contains('"topic":"smarthome/items/Light/state"'), is(true)
+    }
+
+    @Test
+    void 'a full queue coalesces events of the same topic'() {
+        def tasks = []
+        def queueingExecutor = { Runnable runnable -> tasks << runnable } as Executor
+        def broadcaster = new SseEventBroadcaster(queueingExecutor, 3, 0, OverflowPolicy.COALESCE)
+        def output = new RecordingEventOutput()
+        SseConnection connection = broadcaster.add(output, "", null)
+
+        broadcaster.broadcast(createEvent("smarthome/items/A/state", "1"))
+        broadcaster.broadcast(createEvent("smarthome/items/B/state", "1"))
+        broadcaster.broadcast(createEvent("smarthome/items/A/state", "2"))
+        broadcaster.broadcast(createEvent("smarthome/items/C/state", "1"))
+        broadcaster.broadcast(createEvent("smarthome/items/A/state", "3"))
+
+        assertThat connection.queueSize, is(3)
+        assertThat connection.droppedCount, is(1L)
+        assertThat connection.coalescedCount, is(1L)
+        assertThat tasks.size(), is(1)
+        tasks[0].run()
+
+        assertThat output.events.collect { it.data }, is([
+            serialized("smarthome/items/B/state", "1"),
+            serialized("smarthome/items/C/state", "1"),
+            serialized("smarthome/items/A/state", "3")
+        ])
+        assertThat connection.sentCount, is(3L)
+        assertThat connection.queueSize, is(0)
+        assertThat connection.lag, is(0L)
+    }
+
+    @Test
+    void 'a full queue drops the oldest event'() {
+        def tasks = []
+        def queueingExecutor = { Runnable runnable -> tasks << runnable } as Executor
+        def broadcaster = new SseEventBroadcaster(queueingExecutor, 2, 0, OverflowPolicy.DROP_OLDEST)
+        def output = new RecordingEventOutput()
+        SseConnection connection = broadcaster.add(output, "", null)
+
+        broadcaster.broadcast(createEvent("smarthome/items/A/state", "1"))
+        broadcaster.broadcast(createEvent("smarthome/items/A/state", "2"))
+        broadcaster.broadcast(createEvent("smarthome/items/A/state", "3"))
+        tasks[0].run()
+
+        assertThat output.events.collect { it.data }, is([
+            serialized("smarthome/items/A/state", "2"),
+            serialized("smarthome/items/A/state", "3")
+        ])
+        assertThat connection.droppedCount, is(1L)
+        assertThat connection.coalescedCount, is(0L)
+    }
+
+    @Test
+    void 'a slow client does not delay other clients'() {
+        ExecutorService executor = Executors.newFixedThreadPool(2)
+        try {
+            def broadcaster = new SseEventBroadcaster(executor, 5, 0, OverflowPolicy.DROP_OLDEST)
+            def blocked = new CountDownLatch(1)
+            def slowOutput = new RecordingEventOutput(blocked)
+            def fastOutput = new RecordingEventOutput()
+            SseConnection slowConnection = broadcaster.add(slowOutput, "", null)
+            broadcaster.add(fastOutput, "", null)
+
+            100.times { broadcaster.broadcast(createEvent("smarthome/items/Temperature/state", "$it")) }
+
+            // the fast client receives the latest event, while the slow client is still blocked
+            waitForAssert({
+                assertThat fastOutput.events.last().data, is(serialized("smarthome/items/Temperature/state", "99"))
+            }, 5000)
+            assertThat slowOutput.events.size(), is(0)
+            assertThat slowConnection.queueSize <= 5, is(true)
+            assertThat slowConnection.droppedCount > 0, is(true)
+            blocked.countDown()
+            waitForAssert({ assertThat slowConnection.queueSize, is(0) }, 5000)
+            assertThat slowOutput.events.last().data, is(serialized("smarthome/items/Temperature/state", "99"))
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    void 'a stalled client is closed after the write timeout and releases its thread'() {
+        ExecutorService executor = Executors.newFixedThreadPool(1)
+        try {
+            def broadcaster = new SseEventBroadcaster(executor, 5, 0, OverflowPolicy.DROP_OLDEST)
+            def stalledOutput = new RecordingEventOutput(new CountDownLatch(1))
+            SseConnection stalledConnection = broadcaster.add(stalledOutput, "", null)
+            broadcaster.broadcast(createEvent("smarthome/items/Temperature/state", "1"))
+
+            // the only thread of the pool is blocked by the write
+            waitForAssert({ assertThat stalledConnection.queueSize, is(0) }, 5000)
+            broadcaster.closeStalledConnections(10000)
+            assertThat broadcaster.connections.size(), is(1)
+            Thread.sleep(100)
+            broadcaster.closeStalledConnections(50)
+            assertThat broadcaster.connections.size(), is(0)
+            assertThat stalledOutput.isClosed(), is(true)
+
+            def output = new RecordingEventOutput()
+            broadcaster.add(output, "", null)
+            broadcaster.broadcast(createEvent("smarthome/items/Temperature/state", "2"))
+            waitForAssert({ assertThat output.events.size(), is(1) }, 5000)
+            assertThat stalledOutput.events.size(), is(1)
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    void 'a reconnecting client receives the missed events'() {
+        def broadcaster = new SseEventBroadcaster(directExecutor, 10, 3, OverflowPolicy.COALESCE)
+        def output = new RecordingEventOutput()
+        SseConnection connection = broadcaster.add(output, "smarthome/items", null)
+        broadcaster.broadcast(createEvent("smarthome/items/A/state", "1"))
+        connection.close()
+
+        broadcaster.broadcast(createEvent("smarthome/items/A/state", "2"))
+        broadcaster.broadcast(createEvent("smarthome/things/hue:bulb:1/status", "ONLINE"))
+        broadcaster.broadcast(createEvent("smarthome/items/A/state", "3"))
+        assertThat broadcaster.connections.size(), is(0)
+
+        def reconnectedOutput = new RecordingEventOutput()
+        broadcaster.add(reconnectedOutput, "smarthome/items", output.events[0].id)
+
+        assertThat reconnectedOutput.events.collect { it.data }, is([
+            serialized("smarthome/items/A/state", "2"),
+            serialized("smarthome/items/A/state", "3")
+        ])
+        assertThat Long.valueOf(reconnectedOutput.events[0].id) > Long.valueOf(output.events[0].id), is(true)
+    }
+
+    private Event createEvent(String topic, String payload) {
+        [
+            getTopic: { topic },
+            getPayload: { payload },
+            getType: { "ItemStateEvent" },
+            getSource: { null }
+        ] as Event
+    }
+
+    private String serialized(String topic, String payload) {
+        '{"topic":"' + topic + '","payload":"' + payload + '","type":"ItemStateEvent"}'
+    }
+
+    static class RecordingEventOutput extends EventOutput {
+
+        List<OutboundEvent> events = Collections.synchronizedList([])
+
+        CountDownLatch blocker
+
+        RecordingEventOutput(CountDownLatch blocker = null) {
+            this.blocker = blocker
+        }
+
+        @Override
+        void write(OutboundEvent event) throws IOException {
+            if (blocker != null) {
+                blocker.await(10, TimeUnit.SECONDS)
+            }
+            events << event
+        }
+
+        @Override
+        void close() throws IOException {
+            // like a closed socket, closing the output ends a blocked write
+            blocker?.countDown()
+            super.close()
+        }
+    }
+}
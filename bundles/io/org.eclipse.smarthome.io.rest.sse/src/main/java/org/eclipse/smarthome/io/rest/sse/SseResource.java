@@ -8,31 +8,53 @@
 package org.eclipse.smarthome.io.rest.sse;
 
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Singleton;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.events.Event;
-import org.eclipse.smarthome.io.rest.sse.internal.SseEventOutput;
+import org.eclipse.smarthome.io.rest.sse.beans.ConnectionBean;
+import org.eclipse.smarthome.io.rest.sse.internal.SseConnection;
+import org.eclipse.smarthome.io.rest.sse.internal.SseConnection.OverflowPolicy;
+import org.eclipse.smarthome.io.rest.sse.internal.SseEventBroadcaster;
 import org.eclipse.smarthome.io.rest.sse.internal.util.SseUtil;
 import org.glassfish.jersey.media.sse.EventOutput;
-import org.glassfish.jersey.media.sse.SseBroadcaster;
 import org.glassfish.jersey.media.sse.SseFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * SSE Resource for pushing events to currently listening clients.
+ * <p>
+ * The resource can be configured with the following properties:
+ * <ul>
+ * <li>queueSize: the maximum number of events queued for a single client (default 500)</li>
+ * <li>replaySize: the number of events kept for clients, which reconnect with a Last-Event-ID header (default 100)</li>
+ * <li>overflowPolicy: "coalesce" to replace a queued event with the same topic or "drop" to drop the oldest queued
+ * event, if the queue of a client is full (default coalesce)</li>
+ * <li>writeTimeout: the time in milliseconds, after which a client, which does not read a written event, is
+ * disconnected, so that it does not block a thread of the pool (default 30000)</li>
+ * </ul>
+ * </p>
  * 
  * @author Ivan Iliev - Initial Contribution and API
  * 
@@ -41,9 +63,22 @@ import org.glassfish.jersey.media.sse.SseFeature;
 @Singleton
 public class SseResource {
 
-    private final SseBroadcaster broadcaster;
+    private static final String THREAD_POOL_NAME = "sse";
 
-    private final ExecutorService executorService;
+    private static final int DEFAULT_QUEUE_SIZE = 500;
+
+    private static final int DEFAULT_REPLAY_SIZE = 100;
+
+    private static final int DEFAULT_WRITE_TIMEOUT = 30000;
+
+    /** the stalled connections are detected by a separate pool, as they may block all threads of the SSE pool */
+    private static final String WATCHDOG_THREAD_POOL_NAME = "sseWatchdog";
+
+    private final Logger logger = LoggerFactory.getLogger(SseResource.class);
+
+    private final SseEventBroadcaster broadcaster;
+
+    private ScheduledFuture<?> watchdogJob;
 
     @Context
     private UriInfo uriInfo;
@@ -55,8 +90,67 @@ public class SseResource {
     private HttpServletRequest request;
 
     public SseResource() {
-        this.executorService = Executors.newSingleThreadExecutor();
-        this.broadcaster = new SseBroadcaster();
+        this.broadcaster = new SseEventBroadcaster(ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME),
+                DEFAULT_QUEUE_SIZE, DEFAULT_REPLAY_SIZE, OverflowPolicy.COALESCE);
+    }
+
+    protected void activate(Map<String, Object> configProps) {
+        modified(configProps);
+    }
+
+    protected synchronized void modified(Map<String, Object> configProps) {
+        if (configProps == null) {
+            startWatchdog(DEFAULT_WRITE_TIMEOUT);
+            return;
+        }
+        startWatchdog(getIntProperty(configProps, "writeTimeout", DEFAULT_WRITE_TIMEOUT));
+        int queueSize = getIntProperty(configProps, "queueSize", DEFAULT_QUEUE_SIZE);
+        int replaySize = getIntProperty(configProps, "replaySize", DEFAULT_REPLAY_SIZE);
+        OverflowPolicy overflowPolicy = OverflowPolicy.COALESCE;
+        Object policy = configProps.get("overflowPolicy");
+        if (policy != null && "drop".equalsIgnoreCase(policy.toString().trim())) {
+            overflowPolicy = OverflowPolicy.DROP_OLDEST;
+        }
+        broadcaster.configure(queueSize, replaySize, overflowPolicy);
+    }
+
+    protected synchronized void deactivate() {
+        stopWatchdog();
+        broadcaster.close();
+    }
+
+    private void startWatchdog(final long writeTimeout) {
+        stopWatchdog();
+        if (writeTimeout <= 0) {
+            return;
+        }
+        ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(WATCHDOG_THREAD_POOL_NAME);
+        watchdogJob = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                broadcaster.closeStalledConnections(writeTimeout);
+            }
+        }, writeTimeout, Math.max(writeTimeout / 5, 1), TimeUnit.MILLISECONDS);
+    }
+
+    private void stopWatchdog() {
+        if (watchdogJob != null) {
+            watchdogJob.cancel(false);
+            watchdogJob = null;
+        }
+    }
+
+    private int getIntProperty(Map<String, Object> configProps, String name, int defaultValue) {
+        Object value = configProps.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.toString().trim()));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid value '{}' for the SSE property '{}'", value, name);
+            return defaultValue;
+        }
     }
 
     /**
@@ -64,6 +158,7 @@ public class SseResource {
      * given eventFilter.
      * 
      * @param eventFilter
+     * @param lastEventId the id of the last event the client has received before it reconnected
      * @return {@link EventOutput} object associated with the incoming
      *         connection.
      * @throws IOException
@@ -71,15 +166,17 @@ public class SseResource {
      */
     @GET
     @Produces(SseFeature.SERVER_SENT_EVENTS)
-    public Object getEvents(@QueryParam("topics") String eventFilter) throws IOException, InterruptedException {
+    public Object getEvents(@QueryParam("topics") String eventFilter,
+            @HeaderParam(SseFeature.LAST_EVENT_ID_HEADER) String lastEventId)
+                    throws IOException, InterruptedException {
 
         if (!SseUtil.isValidTopicFilter(eventFilter)) {
             return Response.status(Status.BAD_REQUEST).build();
         }
 
-        // construct an EventOutput that will only write out events that match the given filter
-        final EventOutput eventOutput = new SseEventOutput(eventFilter);
-        broadcaster.add(eventOutput);
+        // the broadcaster only enqueues events that match the given filter
+        final EventOutput eventOutput = new EventOutput();
+        broadcaster.add(eventOutput, eventFilter, lastEventId);
 
         if (!SseUtil.SERVLET3_SUPPORT) {
             // if we don't have sevlet 3.0 async support, we want to make sure
@@ -100,19 +197,38 @@ public class SseResource {
         return eventOutput;
     }
 
+    /**
+     * Returns the metrics of the currently connected clients.
+     * 
+     * @return a list of {@link ConnectionBean}s
+     */
+    @GET
+    @Path("connections")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<ConnectionBean> getConnections() {
+        List<ConnectionBean> beans = new ArrayList<>();
+        for (SseConnection connection : broadcaster.getConnections()) {
+            ConnectionBean bean = new ConnectionBean();
+            bean.topics = connection.getTopicFilter();
+            bean.connectedSince = connection.getConnectedSince();
+            bean.queueSize = connection.getQueueSize();
+            bean.lag = connection.getLag();
+            bean.sent = connection.getSentCount();
+            bean.dropped = connection.getDroppedCount();
+            bean.coalesced = connection.getCoalescedCount();
+            beans.add(bean);
+        }
+        return beans;
+    }
+
     /**
      * Broadcasts an event described by the given parameter to all currently
-     * listening clients.
+     * listening clients. The event is only enqueued for the clients, so that
+     * the caller is never blocked by a slow client.
      * 
-     * @param sseEventType the SSE event type
      * @param event the event
      */
     public void broadcastEvent(final Event event) {
-        executorService.execute(new Runnable() {
-            @Override
-            public void run() {
-                broadcaster.broadcast(SseUtil.buildEvent(event));
-            }
-        });
+        broadcaster.broadcast(event);
     }
 }
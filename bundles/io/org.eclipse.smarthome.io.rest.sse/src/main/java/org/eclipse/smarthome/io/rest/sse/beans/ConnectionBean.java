@@ -0,0 +1,31 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.rest.sse.beans;
+
+/**
+ * Bean for the metrics of a connected SSE client.
+ *
+ * @author agent - Initial contribution
+ */
+public class ConnectionBean {
+
+    public String topics;
+
+    public long connectedSince;
+
+    public int queueSize;
+
+    public long lag;
+
+    public long sent;
+
+    public long dropped;
+
+    public long coalesced;
+
+}
@@ -0,0 +1,279 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.rest.sse.internal;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
+
+import org.eclipse.smarthome.io.rest.sse.internal.util.SseUtil;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link SseConnection} is the connection of a single SSE client. Events are matched against the topic filter of
+ * the client before they are enqueued, and they are written to the client by a task of the SSE thread pool. The
+ * queue is bounded, so that a slow client does neither delay other clients nor let the memory grow.
+ * <p>
+ * If the queue is full, the {@link OverflowPolicy} decides which event is discarded. As a write blocks the thread
+ * while the client does not read, a connection, whose write takes longer than the write timeout, is considered stalled
+ * and closed by {@link #closeIfStalled(long)}, so that it does not hold a thread of the pool any longer.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+public class SseConnection implements Runnable {
+
+    /**
+     * Defines how a full queue makes room for a new event.
+     */
+    public enum OverflowPolicy {
+        /** the oldest queued event is dropped */
+        DROP_OLDEST,
+        /**
+         * a queued event with the same topic is replaced by the new event, so that e.g. only the latest state of an
+         * item is sent; if there is none, the oldest queued event is dropped
+         */
+        COALESCE
+    }
+
+    /** the maximum number of events written by a single task, before the thread is handed to other connections */
+    private static final int MAX_EVENTS_PER_RUN = 50;
+
+    private final Logger logger = LoggerFactory.getLogger(SseConnection.class);
+
+    private final EventOutput eventOutput;
+
+    private final String topicFilter;
+
+    private final List<Pattern> topicPatterns;
+
+    private final SseEventBroadcaster broadcaster;
+
+    private final Executor executor;
+
+    private final long connectedSince = System.currentTimeMillis();
+
+    /** the queued events, guarded by this */
+    private final Deque<SseEvent> queue = new ArrayDeque<>();
+
+    private int capacity;
+
+    private OverflowPolicy overflowPolicy;
+
+    /** true, if a task is running or scheduled to write the queued events, guarded by this */
+    private boolean writing = false;
+
+    private boolean closed = false;
+
+    /** the time, at which the current write has started, 0 if no event is being written, guarded by this */
+    private long writeStarted = 0;
+
+    private long sentCount = 0;
+
+    private long droppedCount = 0;
+
+    private long coalescedCount = 0;
+
+    public SseConnection(EventOutput eventOutput, String topicFilter, SseEventBroadcaster broadcaster,
+            Executor executor, int capacity, OverflowPolicy overflowPolicy) {
+        this.eventOutput = eventOutput;
+        this.topicFilter = topicFilter;
+        this.broadcaster = broadcaster;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+
+        List<String> regexFilters = SseUtil.convertToRegex(topicFilter);
+        this.topicPatterns = new ArrayList<Pattern>(regexFilters.size());
+        for (String regexFilter : regexFilters) {
+            this.topicPatterns.add(Pattern.compile(regexFilter));
+        }
+    }
+
+    /**
+     * Checks whether the client is interested in events of the given topic.
+     *
+     * @param topic the topic of an event
+     * @return true, if the topic matches the topic filter of the client
+     */
+    public boolean matches(String topic) {
+        for (Pattern topicPattern : topicPatterns) {
+            if (topicPattern.matcher(topic).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Enqueues an event for this client. This method never blocks on the client.
+     *
+     * @param event the event, which has to match the topic filter of the client
+     */
+    public void enqueue(SseEvent event) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (queue.size() >= capacity && !makeRoom(event)) {
+                droppedCount++;
+                return;
+            }
+            queue.addLast(event);
+            if (writing) {
+                return;
+            }
+            writing = true;
+        }
+        executor.execute(this);
+    }
+
+    private boolean makeRoom(SseEvent event) {
+        if (overflowPolicy == OverflowPolicy.COALESCE) {
+            Iterator<SseEvent> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getTopic().equals(event.getTopic())) {
+                    iterator.remove();
+                    coalescedCount++;
+                    return true;
+                }
+            }
+        }
+        if (queue.isEmpty()) {
+            return false;
+        }
+        queue.removeFirst();
+        droppedCount++;
+        return true;
+    }
+
+    /**
+     * Writes the queued events to the client.
+     */
+    @Override
+    public void run() {
+        for (int i = 0; i < MAX_EVENTS_PER_RUN; i++) {
+            SseEvent event;
+            synchronized (this) {
+                event = queue.pollFirst();
+                if (event == null) {
+                    writing = false;
+                    return;
+                }
+                writeStarted = System.currentTimeMillis();
+            }
+            if (eventOutput.isClosed()) {
+                close();
+                return;
+            }
+            try {
+                eventOutput.write(event.getOutboundEvent());
+                synchronized (this) {
+                    writeStarted = 0;
+                    sentCount++;
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Closing SSE connection, because the event could not be written: {}", e.getMessage());
+                close();
+                return;
+            }
+        }
+        // give other connections a chance, before the remaining events are written
+        executor.execute(this);
+    }
+
+    /**
+     * Closes the connection and removes it from the broadcaster.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            droppedCount += queue.size();
+            queue.clear();
+            writing = false;
+        }
+        broadcaster.remove(this);
+        try {
+            eventOutput.close();
+        } catch (IOException e) {
+            logger.debug("Error while closing the SSE connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the connection, if the current write has been blocked by the client for longer than the given timeout.
+     * Closing the output makes the blocked write fail, which releases its thread.
+     *
+     * @param writeTimeout the write timeout in milliseconds
+     * @return true, if the connection was stalled and has been closed
+     */
+    public boolean closeIfStalled(long writeTimeout) {
+        synchronized (this) {
+            if (closed || writeStarted == 0 || System.currentTimeMillis() - writeStarted < writeTimeout) {
+                return false;
+            }
+        }
+        logger.debug("Closing SSE connection, because the client has not read an event for {} ms", writeTimeout);
+        close();
+        return true;
+    }
+
+    synchronized void configure(int capacity, OverflowPolicy overflowPolicy) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        while (queue.size() > capacity) {
+            queue.removeFirst();
+            droppedCount++;
+        }
+    }
+
+    public String getTopicFilter() {
+        return topicFilter;
+    }
+
+    public long getConnectedSince() {
+        return connectedSince;
+    }
+
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Returns how far the client lags behind, i.e. the age of the oldest event, which has not been written yet.
+     *
+     * @return the lag in milliseconds, 0 if all events have been written
+     */
+    public synchronized long getLag() {
+        SseEvent oldest = queue.peekFirst();
+        return oldest != null ? Math.max(0, System.currentTimeMillis() - oldest.getTimestamp()) : 0;
+    }
+
+    public synchronized long getSentCount() {
+        return sentCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+}
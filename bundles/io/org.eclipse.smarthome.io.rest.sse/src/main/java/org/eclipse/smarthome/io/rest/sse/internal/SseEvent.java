@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.rest.sse.internal;
+
+import org.glassfish.jersey.media.sse.OutboundEvent;
+
+/**
+ * An {@link SseEvent} is an event, which has been serialized once for all connections. It is shared by the queues of
+ * all connections and by the replay buffer of the {@link SseEventBroadcaster}.
+ *
+ * @author agent - Initial contribution
+ */
+public class SseEvent {
+
+    private final long id;
+
+    private final String topic;
+
+    private final OutboundEvent outboundEvent;
+
+    private final long timestamp;
+
+    public SseEvent(long id, String topic, OutboundEvent outboundEvent) {
+        this.id = id;
+        this.topic = topic;
+        this.outboundEvent = outboundEvent;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the id of the event, which is sent to the clients and which they send back as Last-Event-ID header on
+     * reconnects.
+     *
+     * @return the id of the event
+     */
+    public long getId() {
+        return id;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public OutboundEvent getOutboundEvent() {
+        return outboundEvent;
+    }
+
+    /**
+     * Returns the time the event has been broadcasted.
+     *
+     * @return the time in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.rest.sse.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.io.rest.sse.internal.SseConnection.OverflowPolicy;
+import org.eclipse.smarthome.io.rest.sse.internal.util.SseUtil;
+import org.glassfish.jersey.media.sse.EventOutput;
+
+/**
+ * The {@link SseEventBroadcaster} fans out events to all connected SSE clients. Each event is serialized only once
+ * and handed to the bounded queues of the {@link SseConnection}s, whose topic filter it matches. The latest events
+ * are kept in a replay buffer, so that clients, which reconnect with a Last-Event-ID header, receive the events they
+ * have missed.
+ *
+ * @author agent - Initial contribution
+ */
+public class SseEventBroadcaster {
+
+    private final Executor executor;
+
+    private final List<SseConnection> connections = new CopyOnWriteArrayList<>();
+
+    /** the latest events, guarded by this */
+    private final Deque<SseEvent> replayBuffer = new ArrayDeque<>();
+
+    /**
+     * the id of the last event; it starts with the current time, so that ids of a previous run, which clients send on
+     * reconnects, are most likely older than the replayed events
+     */
+    private long lastId = System.currentTimeMillis();
+
+    private int queueSize;
+
+    private int replaySize;
+
+    private OverflowPolicy overflowPolicy;
+
+    public SseEventBroadcaster(Executor executor, int queueSize, int replaySize, OverflowPolicy overflowPolicy) {
+        this.executor = executor;
+        this.queueSize = queueSize;
+        this.replaySize = replaySize;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Adds a client. If the client has sent the id of the last event it has received, the newer events of the replay
+     * buffer are sent to it first.
+     *
+     * @param eventOutput the output of the client
+     * @param topicFilter the topic filter of the client
+     * @param lastEventId the content of the Last-Event-ID header or null
+     * @return the connection of the client
+     */
+    public synchronized SseConnection add(EventOutput eventOutput, String topicFilter, String lastEventId) {
+        SseConnection connection = new SseConnection(eventOutput, topicFilter, this, executor, queueSize,
+                overflowPolicy);
+        Long lastReceivedId = parseEventId(lastEventId);
+        if (lastReceivedId != null) {
+            for (SseEvent event : replayBuffer) {
+                if (event.getId() > lastReceivedId && connection.matches(event.getTopic())) {
+                    connection.enqueue(event);
+                }
+            }
+        }
+        connections.add(connection);
+        return connection;
+    }
+
+    void remove(SseConnection connection) {
+        connections.remove(connection);
+    }
+
+    /**
+     * Sends an event to all clients, whose topic filter matches the topic of the event. This method does not block on
+     * slow clients.
+     *
+     * @param event the event
+     */
+    public void broadcast(Event event) {
+        String data = SseUtil.serializeEvent(event);
+        synchronized (this) {
+            long id = ++lastId;
+            SseEvent sseEvent = new SseEvent(id, event.getTopic(), SseUtil.buildEvent(id, data));
+            if (replaySize > 0) {
+                replayBuffer.addLast(sseEvent);
+                while (replayBuffer.size() > replaySize) {
+                    replayBuffer.removeFirst();
+                }
+            }
+            for (SseConnection connection : connections) {
+                if (connection.matches(sseEvent.getTopic())) {
+                    connection.enqueue(sseEvent);
+                }
+            }
+        }
+    }
+
+    /**
+     * Changes the limits of the queues and the replay buffer.
+     *
+     * @param queueSize the maximum number of queued events per connection
+     * @param replaySize the number of events kept for reconnecting clients
+     * @param overflowPolicy the policy for full queues
+     */
+    public synchronized void configure(int queueSize, int replaySize, OverflowPolicy overflowPolicy) {
+        this.queueSize = queueSize;
+        this.replaySize = replaySize;
+        this.overflowPolicy = overflowPolicy;
+        while (replayBuffer.size() > replaySize) {
+            replayBuffer.removeFirst();
+        }
+        for (SseConnection connection : connections) {
+            connection.configure(queueSize, overflowPolicy);
+        }
+    }
+
+    /**
+     * Returns the currently connected clients.
+     *
+     * @return the connections
+     */
+    public List<SseConnection> getConnections() {
+        return new ArrayList<>(connections);
+    }
+
+    /**
+     * Closes the connections, whose clients have blocked a write for longer than the given timeout.
+     *
+     * @param writeTimeout the write timeout in milliseconds
+     */
+    public void closeStalledConnections(long writeTimeout) {
+        for (SseConnection connection : connections) {
+            connection.closeIfStalled(writeTimeout);
+        }
+    }
+
+    /**
+     * Closes all connections.
+     */
+    public void close() {
+        for (SseConnection connection : connections) {
+            connection.close();
+        }
+        synchronized (this) {
+            replayBuffer.clear();
+        }
+    }
+
+    private Long parseEventId(String eventId) {
+        if (eventId == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(eventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
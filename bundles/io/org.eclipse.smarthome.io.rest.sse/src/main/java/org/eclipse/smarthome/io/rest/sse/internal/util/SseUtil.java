@@ -19,6 +19,8 @@ import org.eclipse.smarthome.core.events.Event;
 import org.eclipse.smarthome.io.rest.sse.beans.EventBean;
 import org.glassfish.jersey.media.sse.OutboundEvent;
 
+import com.google.gson.Gson;
+
 /**
  * Utility class containing helper methods for the SSE implementation.
  * 
@@ -28,6 +30,8 @@ import org.glassfish.jersey.media.sse.OutboundEvent;
 public class SseUtil {
     static final String TOPIC_VALIDATE_PATTERN = "(\\w*\\*?\\/?,?\\s*)*";
 
+    private static final Gson GSON = new Gson();
+
     static {
         boolean servlet3 = false;
         try {
@@ -45,22 +49,34 @@ public class SseUtil {
     public static final boolean SERVLET3_SUPPORT;
 
     /**
-     * Creates a new {@link OutboundEvent} object containing an {@link EventBean} created for the given Eclipse
-     * SmartHome {@link Event}.
+     * Serializes an {@link EventBean} created for the given Eclipse SmartHome {@link Event} to JSON.
      * 
      * @param event the event
      * 
-     * @return a new OutboundEvent
+     * @return the JSON representation of the event
      */
-    public static OutboundEvent buildEvent(Event event) {
+    public static String serializeEvent(Event event) {
         EventBean eventBean = new EventBean();
         eventBean.topic = event.getTopic();
         eventBean.type = event.getType();
         eventBean.payload = event.getPayload();
 
+        return GSON.toJson(eventBean);
+    }
+
+    /**
+     * Creates a new {@link OutboundEvent} object containing an already serialized event. The data is written as it
+     * is, so that the event is not serialized again for every client.
+     * 
+     * @param id the id of the event
+     * @param data the serialized event, see {@link #serializeEvent(Event)}
+     * 
+     * @return a new OutboundEvent
+     */
+    public static OutboundEvent buildEvent(long id, String data) {
         OutboundEvent.Builder eventBuilder = new OutboundEvent.Builder();
-        OutboundEvent outboundEvent = eventBuilder.name("message").mediaType(MediaType.APPLICATION_JSON_TYPE)
-                .data(eventBean).build();
+        OutboundEvent outboundEvent = eventBuilder.id(String.valueOf(id)).name("message")
+                .mediaType(MediaType.TEXT_PLAIN_TYPE).data(String.class, data).build();
 
         return outboundEvent;
     }
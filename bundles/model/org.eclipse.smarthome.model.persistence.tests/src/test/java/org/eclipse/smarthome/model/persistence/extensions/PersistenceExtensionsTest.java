@@ -9,6 +9,7 @@ package org.eclipse.smarthome.model.persistence.extensions;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.List;
 
@@ -18,6 +19,7 @@ import org.eclipse.smarthome.core.persistence.HistoricItem;
 import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.model.persistence.tests.TestAggregatingPersistenceService;
 import org.eclipse.smarthome.model.persistence.tests.TestPersistenceService;
 import org.joda.time.DateMidnight;
 import org.junit.After;
@@ -102,4 +104,38 @@ public class PersistenceExtensionsTest {
         DecimalType average = PersistenceExtensions.averageSince(item, new DateMidnight(2003, 1, 1), "test");
         assertEquals("2100", average.toString());
     }
+
+    @Test
+    public void testAggregatesArePushedDown() {
+        TestAggregatingPersistenceService aggregatingService = new TestAggregatingPersistenceService();
+        ext.addPersistenceService(aggregatingService);
+        try {
+            DateMidnight since = new DateMidnight(2003, 1, 1);
+            item.setState(new DecimalType(3025));
+            DecimalType average = PersistenceExtensions.averageSince(item, since, "testaggregating");
+            assertEquals(PersistenceExtensions.averageSince(item, since, "test"), average);
+            assertEquals("2100", average.toString());
+
+            item.setState(new DecimalType(1));
+            HistoricItem historicItem = PersistenceExtensions.maximumSince(item, since, "testaggregating");
+            assertEquals("2012", historicItem.getState().toString());
+            assertEquals(new DateMidnight(2012, 1, 1).toDate(), historicItem.getTimestamp());
+
+            historicItem = PersistenceExtensions.minimumSince(item, since, "testaggregating");
+            assertEquals("1", historicItem.getState().toString());
+
+            item.setState(new DecimalType(5000));
+            historicItem = PersistenceExtensions.minimumSince(item, since, "testaggregating");
+            assertEquals("2003", historicItem.getState().toString());
+            assertEquals(since.toDate(), historicItem.getTimestamp());
+
+            assertEquals(PersistenceExtensions.changedSince(item, since, "test"),
+                    PersistenceExtensions.changedSince(item, since, "testaggregating"));
+            assertTrue(PersistenceExtensions.changedSince(item, since, "testaggregating"));
+
+            assertEquals(7, aggregatingService.getAggregations());
+        } finally {
+            ext.removePersistenceService(aggregatingService);
+        }
+    }
 }
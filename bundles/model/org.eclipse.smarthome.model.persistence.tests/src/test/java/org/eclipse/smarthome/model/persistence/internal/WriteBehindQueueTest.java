@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.model.persistence.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.BatchPersistenceService;
+import org.eclipse.smarthome.core.persistence.PersistenceEntry;
+import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.State;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The {@link WriteBehindQueueTest} tests the buffering and the batching of the {@link WriteBehindQueue}.
+ *
+ * @author agent - Initial contribution
+ */
+public class WriteBehindQueueTest {
+
+    private final List<List<PersistenceEntry>> batches = new ArrayList<>();
+
+    private BatchPersistenceService service;
+
+    private ScheduledThreadPoolExecutor executor;
+
+    private GenericItem item;
+
+    @Before
+    public void setUp() {
+        service = new BatchPersistenceService() {
+            @Override
+            public String getName() {
+                return "batch";
+            }
+
+            @Override
+            public void store(Item item) {
+            }
+
+            @Override
+            public void store(Item item, String alias) {
+            }
+
+            @Override
+            public void store(List<PersistenceEntry> entries) {
+                batches.add(entries);
+            }
+        };
+        // flushes are triggered by the test only
+        executor = new ScheduledThreadPoolExecutor(1) {
+            @Override
+            public void execute(Runnable command) {
+            }
+        };
+        item = new GenericItem("Test", "Test") {
+            @Override
+            public List<Class<? extends State>> getAcceptedDataTypes() {
+                return null;
+            }
+
+            @Override
+            public List<Class<? extends Command>> getAcceptedCommandTypes() {
+                return null;
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBatchesKeepTheOrderOfTheEntries() {
+        WriteBehindQueue queue = new WriteBehindQueue(service, executor, 10, 3);
+        for (int i = 0; i < 7; i++) {
+            queue.add(new PersistenceEntry(item, new DecimalType(i), new Date(), null));
+        }
+        assertEquals(7, queue.getQueueDepth());
+
+        queue.flush();
+
+        assertEquals(0, queue.getQueueDepth());
+        assertEquals(7, queue.getStoredEntries());
+        assertEquals(3, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertEquals(1, batches.get(2).size());
+        int expected = 0;
+        for (List<PersistenceEntry> batch : batches) {
+            for (PersistenceEntry entry : batch) {
+                assertEquals(new DecimalType(expected++), entry.getState());
+            }
+        }
+    }
+
+    @Test
+    public void testOldestEntriesAreDroppedIfTheQueueIsFull() {
+        WriteBehindQueue queue = new WriteBehindQueue(service, executor, 3, 3);
+        for (int i = 0; i < 5; i++) {
+            queue.add(new PersistenceEntry(item, new DecimalType(i), new Date(), "alias"));
+        }
+        assertEquals(3, queue.getQueueDepth());
+        assertEquals(2, queue.getDroppedEntries());
+
+        queue.stop();
+
+        assertEquals(1, batches.size());
+        assertEquals(new DecimalType(2), batches.get(0).get(0).getState());
+        assertEquals(new DecimalType(4), batches.get(0).get(2).getState());
+        assertEquals("alias", batches.get(0).get(0).getAlias());
+    }
+}
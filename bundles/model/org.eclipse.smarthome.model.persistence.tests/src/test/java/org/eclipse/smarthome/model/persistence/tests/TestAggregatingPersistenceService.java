@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.model.persistence.tests;
+
+import java.util.Date;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.AggregatingPersistenceService;
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * A simple aggregating persistence service used for unit tests, which holds the same states as the
+ * {@link TestPersistenceService}.
+ *
+ * @author agent - Initial contribution
+ */
+public class TestAggregatingPersistenceService extends TestPersistenceService implements
+        AggregatingPersistenceService {
+
+    private int aggregations = 0;
+
+    @Override
+    public String getName() {
+        return "testaggregating";
+    }
+
+    @Override
+    public HistoricItem aggregate(FilterCriteria filter, AggregateFunction function) {
+        aggregations++;
+        FilterCriteria range = new FilterCriteria().setItemName(filter.getItemName())
+                .setBeginDate(filter.getBeginDate()).setEndDate(filter.getEndDate()).setOrdering(Ordering.ASCENDING);
+        HistoricItem extremum = null;
+        HistoricItem last = null;
+        double sum = 0;
+        long count = 0;
+        for (HistoricItem historicItem : query(range)) {
+            DecimalType value = (DecimalType) historicItem.getState();
+            if (extremum == null || function == AggregateFunction.MINIMUM
+                    && value.compareTo((DecimalType) extremum.getState()) < 0
+                    || function == AggregateFunction.MAXIMUM && value.compareTo((DecimalType) extremum.getState()) > 0) {
+                extremum = historicItem;
+            }
+            sum += value.doubleValue();
+            count++;
+            last = historicItem;
+        }
+        if (last == null) {
+            return null;
+        }
+        switch (function) {
+            case MINIMUM:
+            case MAXIMUM:
+                return extremum;
+            case SUM:
+                return createHistoricItem(new DecimalType(sum), last.getTimestamp());
+            case CHANGES:
+                // all states differ, but the first one is the state at the begin date
+                return createHistoricItem(new DecimalType(count - 1), last.getTimestamp());
+            default:
+                return createHistoricItem(new DecimalType(count), last.getTimestamp());
+        }
+    }
+
+    /**
+     * Returns the number of computed aggregates.
+     *
+     * @return the number of aggregations
+     */
+    public int getAggregations() {
+        return aggregations;
+    }
+
+    private HistoricItem createHistoricItem(final State state, final Date timestamp) {
+        return new HistoricItem() {
+            @Override
+            public Date getTimestamp() {
+                return timestamp;
+            }
+
+            @Override
+            public State getState() {
+                return state;
+            }
+
+            @Override
+            public String getName() {
+                return "Test";
+            }
+        };
+    }
+
+}
@@ -17,6 +17,8 @@ import java.util.Map;
 
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.AggregatingPersistenceService;
+import org.eclipse.smarthome.core.persistence.AggregatingPersistenceService.AggregateFunction;
 import org.eclipse.smarthome.core.persistence.FilterCriteria;
 import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
 import org.eclipse.smarthome.core.persistence.HistoricItem;
@@ -31,6 +33,10 @@ import org.slf4j.LoggerFactory;
 /**
  * This class provides static methods that can be used in automation rules
  * for using persistence services
+ * <p>
+ * The aggregates over a time range are computed by the persistence service, if it is an
+ * {@link AggregatingPersistenceService}. Otherwise all states of the time range are queried and iterated.
+ * </p>
  *
  * @author Thomas.Eichstaedt-Engelen
  * @author Kai Kreuzer - Initial contribution and API
@@ -156,9 +162,15 @@ public class PersistenceExtensions implements ManagedService {
      * @return true, if item state had changed
      */
     static public Boolean changedSince(Item item, AbstractInstant timestamp, String serviceName) {
+        PersistenceService service = services.get(serviceName);
+        if (service instanceof AggregatingPersistenceService) {
+            return aggregateValueSince(item, timestamp, (AggregatingPersistenceService) service,
+                    AggregateFunction.CHANGES) > 0;
+        }
+
         Iterable<HistoricItem> result = getAllStatesSince(item, timestamp, serviceName);
         Iterator<HistoricItem> it = result.iterator();
-        HistoricItem itemThen = historicState(item, timestamp);
+        HistoricItem itemThen = historicState(item, timestamp, serviceName);
         if (itemThen == null) {
             // Can't get the state at the start time
             // If we've got results more recent that this, it must have changed
@@ -238,20 +250,32 @@ public class PersistenceExtensions implements ManagedService {
      * @return a historic item with the maximum state value since the given point in time
      */
     static public HistoricItem maximumSince(final Item item, AbstractInstant timestamp, String serviceName) {
-        Iterable<HistoricItem> result = getAllStatesSince(item, timestamp, serviceName);
-        Iterator<HistoricItem> it = result.iterator();
         HistoricItem maximumHistoricItem = null;
         DecimalType maximum = (DecimalType) item.getStateAs(DecimalType.class);
-        while (it.hasNext()) {
-            HistoricItem historicItem = it.next();
-            State state = historicItem.getState();
-            if (state instanceof DecimalType) {
-                DecimalType value = (DecimalType) state;
+        PersistenceService service = services.get(serviceName);
+        if (service instanceof AggregatingPersistenceService) {
+            HistoricItem historicItem = aggregateSince(item, timestamp, (AggregatingPersistenceService) service,
+                    AggregateFunction.MAXIMUM);
+            if (historicItem != null) {
+                DecimalType value = (DecimalType) historicItem.getState();
                 if (maximum == null || value.compareTo(maximum) > 0) {
                     maximum = value;
                     maximumHistoricItem = historicItem;
                 }
             }
+        } else {
+            Iterator<HistoricItem> it = getAllStatesSince(item, timestamp, serviceName).iterator();
+            while (it.hasNext()) {
+                HistoricItem historicItem = it.next();
+                State state = historicItem.getState();
+                if (state instanceof DecimalType) {
+                    DecimalType value = (DecimalType) state;
+                    if (maximum == null || value.compareTo(maximum) > 0) {
+                        maximum = value;
+                        maximumHistoricItem = historicItem;
+                    }
+                }
+            }
         }
         if (maximumHistoricItem == null && maximum != null) {
             // the maximum state is the current one, so construct a historic item on the fly
@@ -306,20 +330,32 @@ public class PersistenceExtensions implements ManagedService {
      * @return the historic item with the minimum state value since the given point in time
      */
     static public HistoricItem minimumSince(final Item item, AbstractInstant timestamp, String serviceName) {
-        Iterable<HistoricItem> result = getAllStatesSince(item, timestamp, serviceName);
-        Iterator<HistoricItem> it = result.iterator();
         HistoricItem minimumHistoricItem = null;
         DecimalType minimum = (DecimalType) item.getStateAs(DecimalType.class);
-        while (it.hasNext()) {
-            HistoricItem historicItem = it.next();
-            State state = historicItem.getState();
-            if (state instanceof DecimalType) {
-                DecimalType value = (DecimalType) state;
+        PersistenceService service = services.get(serviceName);
+        if (service instanceof AggregatingPersistenceService) {
+            HistoricItem historicItem = aggregateSince(item, timestamp, (AggregatingPersistenceService) service,
+                    AggregateFunction.MINIMUM);
+            if (historicItem != null) {
+                DecimalType value = (DecimalType) historicItem.getState();
                 if (minimum == null || value.compareTo(minimum) < 0) {
                     minimum = value;
                     minimumHistoricItem = historicItem;
                 }
             }
+        } else {
+            Iterator<HistoricItem> it = getAllStatesSince(item, timestamp, serviceName).iterator();
+            while (it.hasNext()) {
+                HistoricItem historicItem = it.next();
+                State state = historicItem.getState();
+                if (state instanceof DecimalType) {
+                    DecimalType value = (DecimalType) state;
+                    if (minimum == null || value.compareTo(minimum) < 0) {
+                        minimum = value;
+                        minimumHistoricItem = historicItem;
+                    }
+                }
+            }
         }
         if (minimumHistoricItem == null && minimum != null) {
             // the minimal state is the current one, so construct a historic item on the fly
@@ -372,22 +408,27 @@ public class PersistenceExtensions implements ManagedService {
      * @return the average state value since the given point in time
      */
     static public DecimalType averageSince(Item item, AbstractInstant timestamp, String serviceName) {
-        Iterable<HistoricItem> result = getAllStatesSince(item, timestamp, serviceName);
-        Iterator<HistoricItem> it = result.iterator();
-
         DecimalType value = (DecimalType) item.getStateAs(DecimalType.class);
         if (value == null) {
             value = DecimalType.ZERO;
         }
 
         double average = value.doubleValue();
-        int quantity = 1;
-        while (it.hasNext()) {
-            State state = it.next().getState();
-            if (state instanceof DecimalType) {
-                value = (DecimalType) state;
-                average += value.doubleValue();
-                quantity++;
+        long quantity = 1;
+        PersistenceService service = services.get(serviceName);
+        if (service instanceof AggregatingPersistenceService) {
+            AggregatingPersistenceService aService = (AggregatingPersistenceService) service;
+            average += aggregateValueSince(item, timestamp, aService, AggregateFunction.SUM);
+            quantity += (long) aggregateValueSince(item, timestamp, aService, AggregateFunction.COUNT);
+        } else {
+            Iterator<HistoricItem> it = getAllStatesSince(item, timestamp, serviceName).iterator();
+            while (it.hasNext()) {
+                State state = it.next().getState();
+                if (state instanceof DecimalType) {
+                    value = (DecimalType) state;
+                    average += value.doubleValue();
+                    quantity++;
+                }
             }
         }
         average /= quantity;
@@ -411,6 +452,29 @@ public class PersistenceExtensions implements ManagedService {
         }
     }
 
+    static private HistoricItem aggregateSince(Item item, AbstractInstant timestamp,
+            AggregatingPersistenceService service, AggregateFunction function) {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setBeginDate(timestamp.toDate());
+        filter.setItemName(item.getName());
+        return service.aggregate(filter, function);
+    }
+
+    /**
+     * Returns the value of an aggregate, which is held by a {@link DecimalType}.
+     *
+     * @return the value of the aggregate or 0, if no state has been regarded
+     */
+    static private double aggregateValueSince(Item item, AbstractInstant timestamp,
+            AggregatingPersistenceService service, AggregateFunction function) {
+        HistoricItem result = aggregateSince(item, timestamp, service, function);
+        if (result != null && result.getState() instanceof DecimalType) {
+            return ((DecimalType) result.getState()).doubleValue();
+        } else {
+            return 0;
+        }
+    }
+
     /**
      * Returns <code>true</code>, if a default service is configured and returns <code>false</code> and logs a warning
      * otherwise.
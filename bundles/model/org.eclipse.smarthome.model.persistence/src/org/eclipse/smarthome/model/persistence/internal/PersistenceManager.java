@@ -11,8 +11,10 @@ import static org.quartz.JobBuilder.newJob;
 import static org.quartz.TriggerBuilder.newTrigger;
 
 import java.text.DateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -23,6 +25,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.GroupItem;
 import org.eclipse.smarthome.core.items.Item;
@@ -30,8 +33,10 @@ import org.eclipse.smarthome.core.items.ItemNotFoundException;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
 import org.eclipse.smarthome.core.items.StateChangeListener;
+import org.eclipse.smarthome.core.persistence.BatchPersistenceService;
 import org.eclipse.smarthome.core.persistence.FilterCriteria;
 import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.persistence.PersistenceEntry;
 import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
 import org.eclipse.smarthome.core.types.State;
@@ -63,12 +68,32 @@ import org.slf4j.LoggerFactory;
  * This class is the central part of the persistence management and delegation. It reads the persistence
  * models, schedules timers and manages the invocation of {@link PersistenceService}s upon events.
  *
+ * <p>
+ * The states of items are handed to a {@link BatchPersistenceService} asynchronously: they are buffered in a
+ * {@link WriteBehindQueue} of the configured size ("queueSize") and written by the thread pool "persistence" in
+ * batches of the configured size ("flushSize"), or at the latest after the configured interval in milliseconds
+ * ("flushInterval").
+ *
+ * <p>
+ * The persistence configurations are compiled into a routing table, which holds the persistence targets (service,
+ * alias and strategies) for each item name. The table is rebuilt, if a persistence model or a group item changes, and
+ * it is updated for single items on changes of the item registry, so that the targets of a state update are resolved
+ * by a single lookup.
+ *
  * @author Kai Kreuzer - Initial contribution and API
  *
  */
 public class PersistenceManager implements ModelRepositoryChangeListener,
         ItemRegistryChangeListener, StateChangeListener {
 
+    private static final String THREAD_POOL_NAME = "persistence";
+
+    private static final String QUEUE_SIZE_PROPERTY = "queueSize";
+
+    private static final String FLUSH_SIZE_PROPERTY = "flushSize";
+
+    private static final String FLUSH_INTERVAL_PROPERTY = "flushInterval";
+
     private final Logger logger = LoggerFactory.getLogger(PersistenceManager.class);
 
     private static PersistenceManager instance;
@@ -80,7 +105,7 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
 
     private ItemRegistry itemRegistry;
 
-    /* default */Map<String, PersistenceService> persistenceServices = new HashMap<String, PersistenceService>();
+    /* default */Map<String, PersistenceService> persistenceServices = new ConcurrentHashMap<String, PersistenceService>();
 
     /** keeps a list of configurations for each persistence service */
     protected Map<String, List<PersistenceConfiguration>> persistenceConfigurations = new ConcurrentHashMap<String, List<PersistenceConfiguration>>();
@@ -89,6 +114,18 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
     protected Map<String, List<Strategy>> defaultStrategies = Collections
             .synchronizedMap(new HashMap<String, List<Strategy>>());
 
+    /** keeps the write-behind queue for each batch persistence service */
+    private final Map<String, WriteBehindQueue> writeBehindQueues = new ConcurrentHashMap<String, WriteBehindQueue>();
+
+    /** the persistence targets for each item name, see {@link #getTargets(Item)} */
+    private volatile Map<String, List<PersistenceTarget>> routes = new ConcurrentHashMap<String, List<PersistenceTarget>>();
+
+    private int queueSize = 10000;
+
+    private int flushSize = 100;
+
+    private long flushInterval = 1000;
+
     public PersistenceManager() {
         PersistenceManager.instance = this;
         try {
@@ -102,10 +139,47 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
         return instance;
     }
 
-    public void activate() {
+    public void activate(Map<String, Object> properties) {
+        modified(properties);
+    }
+
+    public synchronized void modified(Map<String, Object> properties) {
+        if (properties == null) {
+            return;
+        }
+        queueSize = getPositiveNumber(properties, QUEUE_SIZE_PROPERTY, 10000);
+        flushSize = getPositiveNumber(properties, FLUSH_SIZE_PROPERTY, 100);
+        flushInterval = getPositiveNumber(properties, FLUSH_INTERVAL_PROPERTY, 1000);
+
+        // recreate the queues with the new configuration
+        for (String serviceName : writeBehindQueues.keySet()) {
+            PersistenceService service = persistenceServices.get(serviceName);
+            if (service instanceof BatchPersistenceService) {
+                startWriteBehind((BatchPersistenceService) service);
+            }
+        }
+    }
+
+    private int getPositiveNumber(Map<String, Object> properties, String property, int defaultValue) {
+        Object value = properties.get(property);
+        if (value != null) {
+            try {
+                int number = Integer.parseInt(value.toString().trim());
+                if (number > 0) {
+                    return number;
+                }
+            } catch (NumberFormatException e) {
+                // fall through
+            }
+            logger.warn("Ignoring invalid value '{}' of persistence property '{}'", value, property);
+        }
+        return defaultValue;
     }
 
     public void deactivate() {
+        for (String serviceName : writeBehindQueues.keySet()) {
+            stopWriteBehind(serviceName);
+        }
     }
 
     public void setModelRepository(ModelRepository modelRepository) {
@@ -135,20 +209,87 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
     public void unsetItemRegistry(ItemRegistry itemRegistry) {
         itemRegistry.removeRegistryChangeListener(this);
         this.itemRegistry = null;
+        rebuildRoutes();
     }
 
     public void addPersistenceService(PersistenceService persistenceService) {
         logger.debug("Initializing {} persistence service.", persistenceService.getName());
         persistenceServices.put(persistenceService.getName(), persistenceService);
+        if (persistenceService instanceof BatchPersistenceService) {
+            startWriteBehind((BatchPersistenceService) persistenceService);
+        }
         stopEventHandling(persistenceService.getName());
         startEventHandling(persistenceService.getName());
     }
 
     public void removePersistenceService(PersistenceService persistenceService) {
         stopEventHandling(persistenceService.getName());
+        stopWriteBehind(persistenceService.getName());
         persistenceServices.remove(persistenceService.getName());
     }
 
+    private synchronized void startWriteBehind(BatchPersistenceService service) {
+        WriteBehindQueue queue = new WriteBehindQueue(service, ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME),
+                queueSize, flushSize);
+        queue.start(flushInterval);
+        WriteBehindQueue oldQueue = writeBehindQueues.put(service.getName(), queue);
+        if (oldQueue != null) {
+            oldQueue.stop();
+        }
+    }
+
+    private void stopWriteBehind(String serviceName) {
+        WriteBehindQueue queue = writeBehindQueues.remove(serviceName);
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    /**
+     * Returns the number of item states, which are buffered for the given batch persistence service.
+     *
+     * @param serviceName the name of the persistence service
+     * @return the queue depth or 0, if the service does not store in batches
+     */
+    public int getQueueDepth(String serviceName) {
+        WriteBehindQueue queue = writeBehindQueues.get(serviceName);
+        return queue != null ? queue.getQueueDepth() : 0;
+    }
+
+    /**
+     * Returns the number of item states, which have been dropped for the given batch persistence service, because
+     * the service could not keep up with the updates.
+     *
+     * @param serviceName the name of the persistence service
+     * @return the number of dropped item states or 0, if the service does not store in batches
+     */
+    public long getDroppedEntries(String serviceName) {
+        WriteBehindQueue queue = writeBehindQueues.get(serviceName);
+        return queue != null ? queue.getDroppedEntries() : 0;
+    }
+
+    /**
+     * Returns the average time the given batch persistence service took to store a batch.
+     *
+     * @param serviceName the name of the persistence service
+     * @return the average latency in milliseconds or 0, if the service does not store in batches
+     */
+    public double getAverageLatency(String serviceName) {
+        WriteBehindQueue queue = writeBehindQueues.get(serviceName);
+        return queue != null ? queue.getAverageLatency() : 0;
+    }
+
+    /**
+     * Returns the time the given batch persistence service took to store the last batch.
+     *
+     * @param serviceName the name of the persistence service
+     * @return the latency in milliseconds or 0, if the service does not store in batches
+     */
+    public double getLastLatency(String serviceName) {
+        WriteBehindQueue queue = writeBehindQueues.get(serviceName);
+        return queue != null ? queue.getLastLatency() : 0;
+    }
+
     @Override
     public void modelChanged(String modelName, EventType type) {
         if (modelName.endsWith(".persist")) {
@@ -176,6 +317,7 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
             if (model != null) {
                 persistenceConfigurations.put(modelName, model.getConfigs());
                 defaultStrategies.put(modelName, model.getDefaults());
+                rebuildRoutes();
                 for (PersistenceConfiguration config : model.getConfigs()) {
                     if (hasStrategy(modelName, config, GlobalStrategies.RESTORE)) {
                         for (Item item : getAllItems(config)) {
@@ -196,43 +338,132 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
     private void stopEventHandling(String modelName) {
         persistenceConfigurations.remove(modelName);
         defaultStrategies.remove(modelName);
+        rebuildRoutes();
         removeTimers(modelName);
     }
 
     @Override
     public void stateChanged(Item item, State oldState, State newState) {
-        handleStateEvent(item, true);
+        handleStateEvent(item, newState, true);
     }
 
     @Override
     public void stateUpdated(Item item, State state) {
-        handleStateEvent(item, false);
+        handleStateEvent(item, state, false);
     }
 
     /**
-     * Calls all persistence services which use change or update policy for the given item
+     * Calls all persistence services which use change or update policy for the given item. Batch persistence services
+     * are not called directly, the item state is added to their write-behind queue instead.
      * 
      * @param item the item to persist
+     * @param state the new state of the item
      * @param onlyChanges true, if it has the change strategy, false otherwise
      */
-    private void handleStateEvent(Item item, boolean onlyChanges) {
-        synchronized (persistenceConfigurations) {
-            for (Entry<String, List<PersistenceConfiguration>> entry : persistenceConfigurations.entrySet()) {
-                String serviceName = entry.getKey();
-                if (persistenceServices.containsKey(serviceName)) {
-                    for (PersistenceConfiguration config : entry.getValue()) {
-                        if (hasStrategy(serviceName, config, onlyChanges ? GlobalStrategies.CHANGE
-                                : GlobalStrategies.UPDATE)) {
-                            if (appliesToItem(config, item)) {
-                                persistenceServices.get(serviceName).store(item, config.getAlias());
-                            }
+    private void handleStateEvent(Item item, State state, boolean onlyChanges) {
+        Date timestamp = null;
+        for (PersistenceTarget target : getTargets(item)) {
+            if (onlyChanges ? target.change : target.update) {
+                PersistenceService service = persistenceServices.get(target.serviceName);
+                if (service != null) {
+                    WriteBehindQueue queue = writeBehindQueues.get(target.serviceName);
+                    if (queue != null) {
+                        if (timestamp == null) {
+                            timestamp = new Date();
                         }
+                        queue.add(new PersistenceEntry(item, state, timestamp, target.alias));
+                    } else {
+                        service.store(item, target.alias);
                     }
                 }
             }
         }
     }
 
+    /**
+     * Returns the persistence targets of the given item from the routing table.
+     *
+     * @param item the item
+     * @return the persistence targets in the order of the persistence configurations
+     */
+    private List<PersistenceTarget> getTargets(Item item) {
+        List<PersistenceTarget> targets = routes.get(item.getName());
+        if (targets == null) {
+            // the item is not known to the item registry
+            targets = computeTargets(item, getAncestorGroupNames(item));
+        }
+        return targets;
+    }
+
+    /**
+     * Rebuilds the routing table for all items of the item registry.
+     */
+    private synchronized void rebuildRoutes() {
+        Map<String, List<PersistenceTarget>> routes = new ConcurrentHashMap<String, List<PersistenceTarget>>();
+        ItemRegistry itemRegistry = this.itemRegistry;
+        if (itemRegistry != null && !persistenceConfigurations.isEmpty()) {
+            for (Item item : itemRegistry.getItems()) {
+                routes.put(item.getName(), computeTargets(item, getAncestorGroupNames(item)));
+            }
+        }
+        this.routes = routes;
+    }
+
+    /**
+     * Updates the routing table for a single item. If the item is a group item, the table is rebuilt, as the targets
+     * of all its members might have changed.
+     *
+     * @param item the added or updated item
+     */
+    private synchronized void updateRoute(Item item) {
+        if (item instanceof GroupItem) {
+            rebuildRoutes();
+        } else {
+            routes.put(item.getName(), computeTargets(item, getAncestorGroupNames(item)));
+        }
+    }
+
+    private List<PersistenceTarget> computeTargets(Item item, Set<String> groupNames) {
+        List<PersistenceTarget> targets = new ArrayList<PersistenceTarget>();
+        for (Entry<String, List<PersistenceConfiguration>> entry : persistenceConfigurations.entrySet()) {
+            String serviceName = entry.getKey();
+            for (PersistenceConfiguration config : entry.getValue()) {
+                if (appliesToItem(config, item, groupNames)) {
+                    targets.add(new PersistenceTarget(serviceName, config.getAlias(), hasStrategy(serviceName,
+                            config, GlobalStrategies.UPDATE), hasStrategy(serviceName, config, GlobalStrategies.CHANGE),
+                            hasStrategy(serviceName, config, GlobalStrategies.RESTORE)));
+                }
+            }
+        }
+        return targets.isEmpty() ? Collections.<PersistenceTarget> emptyList() : Collections.unmodifiableList(targets);
+    }
+
+    /**
+     * Returns the names of all group items, which the given item is a direct or indirect member of.
+     *
+     * @param item the item
+     * @return the names of the groups
+     */
+    private Set<String> getAncestorGroupNames(Item item) {
+        ItemRegistry itemRegistry = this.itemRegistry;
+        if (itemRegistry == null) {
+            return Collections.emptySet();
+        }
+        if (itemRegistry.get(item.getName()) != null) {
+            return itemRegistry.getAncestorGroupNames(item.getName());
+        }
+
+        // the item is not known to the item registry, so only its groups are looked up
+        Set<String> groupNames = new HashSet<String>();
+        for (String groupName : item.getGroupNames()) {
+            if (itemRegistry.get(groupName) instanceof GroupItem) {
+                groupNames.add(groupName);
+                groupNames.addAll(itemRegistry.getAncestorGroupNames(groupName));
+            }
+        }
+        return groupNames;
+    }
+
     /**
      * Checks if a given persistence configuration entry has a certain strategy for the given service
      * 
@@ -242,7 +473,8 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
      * @return true, if it has the given strategy
      */
     protected boolean hasStrategy(String serviceName, PersistenceConfiguration config, Strategy strategy) {
-        if (defaultStrategies.get(serviceName).contains(strategy) && config.getStrategies().isEmpty()) {
+        List<Strategy> defaults = defaultStrategies.get(serviceName);
+        if (defaults != null && defaults.contains(strategy) && config.getStrategies().isEmpty()) {
             return true;
         } else {
             for (Strategy s : config.getStrategies()) {
@@ -262,6 +494,18 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
      * @return true, if the configuration applies to the item
      */
     protected boolean appliesToItem(PersistenceConfiguration config, Item item) {
+        return appliesToItem(config, item, getAncestorGroupNames(item));
+    }
+
+    /**
+     * Checks if a given persistence configuration entry is relevant for an item
+     * 
+     * @param config the persistence configuration entry
+     * @param item to check if the configuration applies to
+     * @param groupNames the names of all groups the item is a direct or indirect member of
+     * @return true, if the configuration applies to the item
+     */
+    private boolean appliesToItem(PersistenceConfiguration config, Item item, Set<String> groupNames) {
         for (EObject itemCfg : config.getItems()) {
             if (itemCfg instanceof AllConfig) {
                 return true;
@@ -273,17 +517,10 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
                 }
             }
             if (itemCfg instanceof GroupConfig) {
+                // group configurations apply to the (indirect) members, which are no groups themselves
                 GroupConfig groupItemCfg = (GroupConfig) itemCfg;
-                String groupName = groupItemCfg.getGroup();
-                try {
-                    Item gItem = itemRegistry.getItem(groupName);
-                    if (gItem instanceof GroupItem) {
-                        GroupItem groupItem = (GroupItem) gItem;
-                        if (groupItem.getAllMembers().contains(item)) {
-                            return true;
-                        }
-                    }
-                } catch (Exception e) {
+                if (!(item instanceof GroupItem) && groupNames.contains(groupItemCfg.getGroup())) {
+                    return true;
                 }
             }
         }
@@ -322,6 +559,7 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
                 try {
                     Item gItem = itemRegistry.getItem(groupName);
                     if (gItem instanceof GroupItem) {
+                        // the current members of the group are used, as they may change without a registry update
                         GroupItem groupItem = (GroupItem) gItem;
                         items.addAll(groupItem.getAllMembers());
                     }
@@ -335,13 +573,19 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
 
     @Override
     public void allItemsChanged(Collection<String> oldItemNames) {
+        rebuildRoutes();
         for (Item item : itemRegistry.getItems()) {
-            added(item);
+            register(item);
         }
     }
 
     @Override
     public void added(Item item) {
+        updateRoute(item);
+        register(item);
+    }
+
+    private void register(Item item) {
         initialize(item);
         if (item instanceof GenericItem) {
             GenericItem genericItem = (GenericItem) item;
@@ -360,37 +604,29 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
     protected void initialize(Item item) {
         // get the last persisted state from the persistence service if no state is yet set
         if (item.getState().equals(UnDefType.NULL) && item instanceof GenericItem) {
-            for (Entry<String, List<PersistenceConfiguration>> entry : persistenceConfigurations.entrySet()) {
-                String serviceName = entry.getKey();
-                for (PersistenceConfiguration config : entry.getValue()) {
-                    if (hasStrategy(serviceName, config, GlobalStrategies.RESTORE)) {
-                        if (appliesToItem(config, item)) {
-                            PersistenceService service = persistenceServices.get(serviceName);
-                            if (service instanceof QueryablePersistenceService) {
-                                QueryablePersistenceService queryService = (QueryablePersistenceService) service;
-                                FilterCriteria filter = new FilterCriteria().setItemName(item.getName()).setPageSize(1);
-                                Iterable<HistoricItem> result = queryService.query(filter);
-                                Iterator<HistoricItem> it = result.iterator();
-                                if (it.hasNext()) {
-                                    HistoricItem historicItem = it.next();
-                                    GenericItem genericItem = (GenericItem) item;
-                                    genericItem.removeStateChangeListener(this);
-                                    genericItem.setState(historicItem.getState());
-                                    genericItem.addStateChangeListener(this);
-                                    logger.debug(
-                                            "Restored item state from '{}' for item '{}' -> '{}'",
-                                            new Object[] {
-                                                    DateFormat.getDateTimeInstance()
-                                                            .format(historicItem.getTimestamp()), item.getName(),
-                                                    historicItem.getState().toString() });
-                                    return;
-                                }
-                            } else if (service != null) {
-                                logger.warn(
-                                        "Failed to restore item states as persistence service '{}' can not be queried.",
-                                        serviceName);
-                            }
+            for (PersistenceTarget target : getTargets(item)) {
+                if (target.restore) {
+                    PersistenceService service = persistenceServices.get(target.serviceName);
+                    if (service instanceof QueryablePersistenceService) {
+                        QueryablePersistenceService queryService = (QueryablePersistenceService) service;
+                        FilterCriteria filter = new FilterCriteria().setItemName(item.getName()).setPageSize(1);
+                        Iterable<HistoricItem> result = queryService.query(filter);
+                        Iterator<HistoricItem> it = result.iterator();
+                        if (it.hasNext()) {
+                            HistoricItem historicItem = it.next();
+                            GenericItem genericItem = (GenericItem) item;
+                            genericItem.removeStateChangeListener(this);
+                            genericItem.setState(historicItem.getState());
+                            genericItem.addStateChangeListener(this);
+                            logger.debug(
+                                    "Restored item state from '{}' for item '{}' -> '{}'",
+                                    new Object[] { DateFormat.getDateTimeInstance().format(historicItem.getTimestamp()),
+                                            item.getName(), historicItem.getState().toString() });
+                            return;
                         }
+                    } else if (service != null) {
+                        logger.warn("Failed to restore item states as persistence service '{}' can not be queried.",
+                                target.serviceName);
                     }
                 }
             }
@@ -399,6 +635,11 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
 
     @Override
     public void removed(Item item) {
+        if (item instanceof GroupItem) {
+            rebuildRoutes();
+        } else {
+            routes.remove(item.getName());
+        }
         if (item instanceof GenericItem) {
             GenericItem genericItem = (GenericItem) item;
             genericItem.removeStateChangeListener(this);
@@ -471,7 +712,35 @@ public class PersistenceManager implements ModelRepositoryChangeListener,
 
     @Override
     public void updated(Item oldItem, Item item) {
-        // not needed here
+        if (oldItem instanceof GroupItem) {
+            rebuildRoutes();
+        } else {
+            updateRoute(item);
+        }
+    }
+
+    /**
+     * A persistence target of an item in the routing table.
+     */
+    private static class PersistenceTarget {
+
+        private final String serviceName;
+
+        private final String alias;
+
+        private final boolean update;
+
+        private final boolean change;
+
+        private final boolean restore;
+
+        private PersistenceTarget(String serviceName, String alias, boolean update, boolean change, boolean restore) {
+            this.serviceName = serviceName;
+            this.alias = alias;
+            this.update = update;
+            this.change = change;
+            this.restore = restore;
+        }
     }
 
 }
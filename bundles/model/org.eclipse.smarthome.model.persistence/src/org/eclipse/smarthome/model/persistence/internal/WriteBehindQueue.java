@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.model.persistence.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.smarthome.core.persistence.BatchPersistenceService;
+import org.eclipse.smarthome.core.persistence.PersistenceEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link WriteBehindQueue} buffers the {@link PersistenceEntry}s for a {@link BatchPersistenceService} in a
+ * bounded ring buffer and hands them to the service in batches by a background worker. A batch is written as soon as
+ * the flush size is reached or, at the latest, after the flush interval. If the buffer is full, the oldest entry is
+ * dropped.
+ *
+ * @author agent - Initial contribution
+ */
+class WriteBehindQueue {
+
+    private final Logger logger = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    private final BatchPersistenceService service;
+
+    private final ScheduledExecutorService executor;
+
+    private final int flushSize;
+
+    // the ring buffer and the counters are guarded by this queue
+    private final PersistenceEntry[] buffer;
+
+    private int head = 0;
+
+    private int size = 0;
+
+    private boolean flushScheduled = false;
+
+    private long droppedEntries = 0;
+
+    private long storedEntries = 0;
+
+    private long storedBatches = 0;
+
+    private long storeNanos = 0;
+
+    private long lastStoreNanos = 0;
+
+    // only a single flush is running at a time to keep the order of the entries
+    private final Lock flushLock = new ReentrantLock();
+
+    private ScheduledFuture<?> flushJob;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /**
+     * Creates a new write-behind queue.
+     *
+     * @param service the service to store the entries
+     * @param executor the executor, which runs the background flushes
+     * @param capacity the maximum number of buffered entries
+     * @param flushSize the maximum number of entries per batch
+     */
+    WriteBehindQueue(BatchPersistenceService service, ScheduledExecutorService executor, int capacity, int flushSize) {
+        this.service = service;
+        this.executor = executor;
+        this.buffer = new PersistenceEntry[capacity];
+        this.flushSize = Math.min(flushSize, capacity);
+    }
+
+    /**
+     * Starts the periodic flushes.
+     *
+     * @param flushInterval the interval in milliseconds
+     */
+    synchronized void start(long flushInterval) {
+        if (flushJob == null) {
+            flushJob = executor.scheduleWithFixedDelay(flushTask, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the periodic flushes and writes the buffered entries.
+     */
+    void stop() {
+        synchronized (this) {
+            if (flushJob != null) {
+                flushJob.cancel(false);
+                flushJob = null;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Adds an entry to the buffer. Never blocks.
+     *
+     * @param entry the entry to store
+     */
+    synchronized void add(PersistenceEntry entry) {
+        if (size == buffer.length) {
+            // drop the oldest entry
+            buffer[head] = null;
+            head = (head + 1) % buffer.length;
+            size--;
+            droppedEntries++;
+            if (droppedEntries % 1000 == 1) {
+                logger.warn("Write-behind queue of persistence service '{}' is full, dropped {} entries so far.",
+                        service.getName(), droppedEntries);
+            }
+        }
+        buffer[(head + size) % buffer.length] = entry;
+        size++;
+        if (size >= flushSize && !flushScheduled) {
+            flushScheduled = true;
+            executor.execute(flushTask);
+        }
+    }
+
+    /**
+     * Hands all buffered entries in batches to the service.
+     */
+    void flush() {
+        // if the lock is held, the running flush continues until the buffer is empty
+        while (flushLock.tryLock()) {
+            try {
+                storeBatches();
+            } finally {
+                flushLock.unlock();
+            }
+            // a flush, which has been scheduled after the buffer was found empty, could not acquire the lock
+            if (!isFlushScheduled()) {
+                return;
+            }
+        }
+    }
+
+    private void storeBatches() {
+        while (true) {
+            List<PersistenceEntry> batch = poll();
+            if (batch.isEmpty()) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                service.store(batch);
+            } catch (Exception e) {
+                logger.error("Persistence service '{}' failed to store {} entries: {}", new Object[] {
+                        service.getName(), batch.size(), e.getMessage(), e });
+            }
+            long duration = System.nanoTime() - start;
+            synchronized (this) {
+                storedEntries += batch.size();
+                storedBatches++;
+                storeNanos += duration;
+                lastStoreNanos = duration;
+            }
+        }
+    }
+
+    private synchronized boolean isFlushScheduled() {
+        return flushScheduled;
+    }
+
+    private synchronized List<PersistenceEntry> poll() {
+        flushScheduled = false;
+        int count = Math.min(size, flushSize);
+        List<PersistenceEntry> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            batch.add(buffer[head]);
+            buffer[head] = null;
+            head = (head + 1) % buffer.length;
+        }
+        size -= count;
+        return batch;
+    }
+
+    /**
+     * Returns the number of buffered entries.
+     *
+     * @return the queue depth
+     */
+    synchronized int getQueueDepth() {
+        return size;
+    }
+
+    /**
+     * Returns the number of entries, which have been dropped because the buffer was full.
+     *
+     * @return the number of dropped entries
+     */
+    synchronized long getDroppedEntries() {
+        return droppedEntries;
+    }
+
+    /**
+     * Returns the number of entries, which have been handed to the service.
+     *
+     * @return the number of stored entries
+     */
+    synchronized long getStoredEntries() {
+        return storedEntries;
+    }
+
+    /**
+     * Returns the average time the service took to store a batch.
+     *
+     * @return the average latency in milliseconds
+     */
+    synchronized double getAverageLatency() {
+        return storedBatches == 0 ? 0 : storeNanos / storedBatches / 1000000d;
+    }
+
+    /**
+     * Returns the time the service took to store the last batch.
+     *
+     * @return the latency in milliseconds
+     */
+    synchronized double getLastLatency() {
+        return lastStoreNanos / 1000000d;
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.model.rule.runtime.internal.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.eclipse.smarthome.model.rule.rules.Rule;
+import org.eclipse.smarthome.model.rule.rules.RulesFactory;
+import org.eclipse.smarthome.model.rule.runtime.internal.engine.RuleExecutor.QueuePolicy;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The {@link RuleExecutorTest} tests the queuing of rule executions by the {@link RuleExecutor}. The tasks, which are
+ * passed to the worker pool, are collected and run by the test itself.
+ *
+ * @author agent - Initial contribution
+ */
+public class RuleExecutorTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private final List<String> executions = new ArrayList<>();
+
+    private RuleExecutor ruleExecutor;
+
+    private Rule rule;
+
+    @Before
+    public void setUp() {
+        ruleExecutor = new RuleExecutor(new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                tasks.add(task);
+            }
+        });
+        rule = RulesFactory.eINSTANCE.createRule();
+        rule.setName("rule");
+    }
+
+    @Test
+    public void testExecutionsAreQueuedAndRunConcurrently() {
+        ruleExecutor.execute(rule, execution("1"));
+        ruleExecutor.execute(rule, execution("2"));
+
+        assertEquals(2, tasks.size());
+        assertEquals(2, ruleExecutor.getQueueDepth());
+
+        runTasks();
+
+        assertEquals(Arrays.asList("1", "2"), executions);
+        assertEquals(0, ruleExecutor.getQueueDepth());
+    }
+
+    @Test
+    public void testSerializedExecutionsAreRunOneAfterTheOther() {
+        ruleExecutor.setSerialized(true);
+        ruleExecutor.execute(rule, execution("1"));
+        ruleExecutor.execute(rule, execution("2"));
+
+        // the second execution is only scheduled after the first one has finished
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(Arrays.asList("1"), executions);
+        assertEquals(1, tasks.size());
+
+        runTasks();
+
+        assertEquals(Arrays.asList("1", "2"), executions);
+        assertEquals(0, ruleExecutor.getQueueDepth());
+    }
+
+    @Test
+    public void testFailedExecutionDoesNotStopSerializedExecutions() {
+        ruleExecutor.setSerialized(true);
+        ruleExecutor.execute(rule, new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("failed");
+            }
+        });
+        ruleExecutor.execute(rule, execution("2"));
+
+        runTasks();
+
+        assertEquals(Arrays.asList("2"), executions);
+    }
+
+    @Test
+    public void testQueuedExecutionsAreDropped() {
+        ruleExecutor.setQueuePolicy(QueuePolicy.DROP);
+        ruleExecutor.execute(rule, execution("1"));
+        ruleExecutor.execute(rule, execution("2"));
+
+        assertEquals(1, ruleExecutor.getQueueDepth());
+
+        runTasks();
+        ruleExecutor.execute(rule, execution("3"));
+        runTasks();
+
+        assertEquals(Arrays.asList("1", "3"), executions);
+    }
+
+    @Test
+    public void testQueuedExecutionsAreCoalesced() {
+        ruleExecutor.setSerialized(true);
+        ruleExecutor.setQueuePolicy(QueuePolicy.COALESCE);
+        ruleExecutor.execute(rule, execution("1"));
+        ruleExecutor.execute(rule, execution("2"));
+        ruleExecutor.execute(rule, execution("3"));
+
+        assertEquals(1, ruleExecutor.getQueueDepth());
+
+        runTasks();
+
+        assertEquals(Arrays.asList("3"), executions);
+    }
+
+    @Test
+    public void testQueuePolicyOnlyAppliesToTheSameRule() {
+        Rule otherRule = RulesFactory.eINSTANCE.createRule();
+        otherRule.setName("otherRule");
+        ruleExecutor.setQueuePolicy(QueuePolicy.DROP);
+        ruleExecutor.execute(rule, execution("1"));
+        ruleExecutor.execute(otherRule, execution("2"));
+
+        runTasks();
+
+        assertEquals(Arrays.asList("1", "2"), executions);
+    }
+
+    @Test
+    public void testQueuePolicyFromConfig() {
+        assertEquals(QueuePolicy.QUEUE, QueuePolicy.fromConfig("queue"));
+        assertEquals(QueuePolicy.COALESCE, QueuePolicy.fromConfig("Coalesce"));
+        assertEquals(null, QueuePolicy.fromConfig("unknown"));
+    }
+
+    private Runnable execution(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                executions.add(name);
+            }
+        };
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
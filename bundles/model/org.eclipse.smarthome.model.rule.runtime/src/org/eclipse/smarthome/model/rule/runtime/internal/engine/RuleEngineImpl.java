@@ -16,12 +16,14 @@ import static org.eclipse.smarthome.model.rule.runtime.internal.engine.RuleTrigg
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemNotFoundException;
@@ -43,6 +45,7 @@ import org.eclipse.smarthome.model.rule.jvmmodel.RulesJvmModelInferrer;
 import org.eclipse.smarthome.model.rule.rules.Rule;
 import org.eclipse.smarthome.model.rule.rules.RuleModel;
 import org.eclipse.smarthome.model.rule.runtime.RuleEngine;
+import org.eclipse.smarthome.model.rule.runtime.internal.engine.RuleExecutor.QueuePolicy;
 import org.eclipse.xtext.naming.QualifiedName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,6 +58,12 @@ import com.google.inject.Injector;
  * It listens to changes to the rules folder, evaluates the trigger conditions of the rules and
  * schedules them for execution dependent on their triggering conditions.
  *
+ * <p>
+ * Triggered rules are executed by the thread pool "ruleEngine". The executions of the same rule can be serialized by
+ * the configuration property "serializeExecutions" and the property "queuePolicy" defines, whether a triggered rule
+ * which is already queued is executed again ("queue", default), dropped ("drop") or replaces the queued execution
+ * ("coalesce").
+ *
  * @author Kai Kreuzer - Initial contribution and API
  * @author Oliver Libutzki - Bugfixing
  *
@@ -63,6 +72,12 @@ import com.google.inject.Injector;
 public class RuleEngineImpl extends AbstractItemEventSubscriber implements ItemRegistryChangeListener, StateChangeListener,
         ModelRepositoryChangeListener, RuleEngine {
 
+    private static final String THREAD_POOL_NAME = "ruleEngine";
+
+    private static final String SERIALIZE_EXECUTIONS_PROPERTY = "serializeExecutions";
+
+    private static final String QUEUE_POLICY_PROPERTY = "queuePolicy";
+
     private final Logger logger = LoggerFactory.getLogger(RuleEngineImpl.class);
 
     protected final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
@@ -73,6 +88,8 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber implements ItemR
 
     private RuleTriggerManager triggerManager;
 
+    private final RuleExecutor ruleExecutor = new RuleExecutor(ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME));
+
     private Injector injector;
     
     private ScheduledFuture<?> startupJob;
@@ -84,7 +101,9 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber implements ItemR
         }
     };
 
-    public void activate() {
+    public void activate(Map<String, Object> properties) {
+        modified(properties);
+
         injector = RulesStandaloneSetup.getInjector();
         triggerManager = injector.getInstance(RuleTriggerManager.class);
 
@@ -113,6 +132,22 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber implements ItemR
         scheduleStartupRules();
     }
 
+    public void modified(Map<String, Object> properties) {
+        if (properties == null) {
+            return;
+        }
+        Object serialize = properties.get(SERIALIZE_EXECUTIONS_PROPERTY);
+        ruleExecutor.setSerialized(serialize != null && Boolean.parseBoolean(serialize.toString()));
+        Object policyValue = properties.get(QUEUE_POLICY_PROPERTY);
+        QueuePolicy policy = policyValue != null ? QueuePolicy.fromConfig(policyValue.toString()) : QueuePolicy.QUEUE;
+        if (policy != null) {
+            ruleExecutor.setQueuePolicy(policy);
+        } else {
+            logger.warn("Ignoring invalid rule queue policy '{}' - allowed values are 'queue', 'drop' and 'coalesce'",
+                    policyValue);
+        }
+    }
+
     public void deactivate() {
         // execute all scripts that were registered for system shutdown
         executeRules(triggerManager.getRules(SHUTDOWN));
@@ -120,6 +155,15 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber implements ItemR
         triggerManager = null;
     }
 
+    /**
+     * Returns the number of triggered rule executions, which wait for a worker thread.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return ruleExecutor.getQueueDepth();
+    }
+
     public void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
         itemRegistry.addRegistryChangeListener(this);
@@ -285,29 +329,33 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber implements ItemR
         }
     }
 
-    protected synchronized void executeRule(Rule rule) {
+    protected void executeRule(Rule rule) {
         executeRule(rule, new RuleEvaluationContext());
     }
 
-    protected synchronized void executeRule(Rule rule, RuleEvaluationContext context) {
-        Script script = scriptEngine.newScriptFromXExpression(rule.getScript());
+    protected void executeRule(final Rule rule, final RuleEvaluationContext context) {
+        final Script script = scriptEngine.newScriptFromXExpression(rule.getScript());
 
         logger.debug("Executing rule '{}'", rule.getName());
 
         context.setGlobalContext(RuleContextHelper.getContext(rule, injector));
 
-        ScriptExecutionThread thread = new ScriptExecutionThread(rule.getName(), script, context);
-        thread.start();
+        ruleExecutor.execute(rule, new Runnable() {
+            @Override
+            public void run() {
+                ScriptExecutionThread.execute(rule.getName(), script, context);
+            }
+        });
     }
 
-    protected synchronized void executeRules(Iterable<Rule> rules) {
+    protected void executeRules(Iterable<Rule> rules) {
         for (Rule rule : rules) {
             RuleEvaluationContext context = new RuleEvaluationContext();
             executeRule(rule, context);
         }
     }
 
-    protected synchronized void executeRules(Iterable<Rule> rules, Command command) {
+    protected void executeRules(Iterable<Rule> rules, Command command) {
         for (Rule rule : rules) {
             RuleEvaluationContext context = new RuleEvaluationContext();
             context.newValue(QualifiedName.create(RulesJvmModelInferrer.VAR_RECEIVED_COMMAND), command);
@@ -315,7 +363,7 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber implements ItemR
         }
     }
 
-    protected synchronized void executeRules(Iterable<Rule> rules, State oldState) {
+    protected void executeRules(Iterable<Rule> rules, State oldState) {
         for (Rule rule : rules) {
             RuleEvaluationContext context = new RuleEvaluationContext();
             context.newValue(QualifiedName.create(RulesJvmModelInferrer.VAR_PREVIOUS_STATE), oldState);
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.model.rule.runtime.internal.engine;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.eclipse.smarthome.model.rule.rules.Rule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link RuleExecutor} executes triggered rules by a shared worker pool instead of a new thread per execution. The
+ * executions of a rule are queued per rule, so that executions of the same rule can optionally be serialized and
+ * further executions of a rule, which is already queued, can be dropped or coalesced (see {@link QueuePolicy}).
+ *
+ * @author agent - Initial contribution
+ */
+class RuleExecutor {
+
+    /**
+     * The {@link QueuePolicy} defines how a new execution of a rule is handled, if an execution of the same rule is
+     * already queued.
+     */
+    enum QueuePolicy {
+
+        /**
+         * The execution is queued in addition.
+         */
+        QUEUE,
+
+        /**
+         * The new execution is dropped.
+         */
+        DROP,
+
+        /**
+         * The queued executions are replaced by the new execution.
+         */
+        COALESCE;
+
+        /**
+         * Returns the queue policy for the given configuration value, e.g. "queue", "drop" or "coalesce".
+         *
+         * @param value the configuration value
+         * @return the queue policy or null if the value is unknown
+         */
+        static QueuePolicy fromConfig(String value) {
+            for (QueuePolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(value)) {
+                    return policy;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(RuleExecutor.class);
+
+    private final Executor executor;
+
+    // all fields below are guarded by this executor
+    private final Map<Rule, RuleQueue> queues = new HashMap<>();
+
+    private boolean serialized = false;
+
+    private QueuePolicy queuePolicy = QueuePolicy.QUEUE;
+
+    private int queueDepth = 0;
+
+    /**
+     * Creates a new rule executor.
+     *
+     * @param executor the executor, which runs the rule executions
+     */
+    RuleExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets whether the executions of the same rule are serialized, i.e. a rule does not run concurrently to itself.
+     *
+     * @param serialized true if the executions of a rule should be serialized
+     */
+    synchronized void setSerialized(boolean serialized) {
+        this.serialized = serialized;
+    }
+
+    /**
+     * Sets the policy for executions of rules, which are already queued.
+     *
+     * @param queuePolicy the queue policy (must not be null)
+     */
+    synchronized void setQueuePolicy(QueuePolicy queuePolicy) {
+        this.queuePolicy = queuePolicy;
+    }
+
+    /**
+     * Queues an execution of the given rule.
+     *
+     * @param rule the rule
+     * @param execution the execution of the rule
+     */
+    synchronized void execute(Rule rule, Runnable execution) {
+        RuleQueue queue = queues.get(rule);
+        if (queue == null) {
+            queue = new RuleQueue(rule);
+            queues.put(rule, queue);
+        }
+        if (!queue.executions.isEmpty() && queuePolicy != QueuePolicy.QUEUE) {
+            if (queuePolicy == QueuePolicy.DROP) {
+                logger.debug("Dropped execution of rule '{}', as it is already queued.", rule.getName());
+                return;
+            }
+            queueDepth -= queue.executions.size();
+            queue.executions.clear();
+            logger.debug("Coalesced queued executions of rule '{}'.", rule.getName());
+        }
+        queue.executions.add(execution);
+        queueDepth++;
+        if (!serialized) {
+            queue.scheduled++;
+            executor.execute(queue);
+        } else if (queue.scheduled == 0) {
+            queue.scheduled = 1;
+            executor.execute(queue);
+        }
+    }
+
+    /**
+     * Returns the number of queued executions, which have not been started yet.
+     *
+     * @return the queue depth
+     */
+    synchronized int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * The queued executions of a single rule. The queue is run by the worker pool once for every queued execution or,
+     * if the executions are serialized, until it is empty.
+     */
+    private class RuleQueue implements Runnable {
+
+        private final Rule rule;
+
+        private final ArrayDeque<Runnable> executions = new ArrayDeque<>();
+
+        private int scheduled = 0;
+
+        private RuleQueue(Rule rule) {
+            this.rule = rule;
+        }
+
+        @Override
+        public void run() {
+            Runnable execution;
+            synchronized (RuleExecutor.this) {
+                execution = executions.poll();
+                if (execution == null) {
+                    finished();
+                    return;
+                }
+                queueDepth--;
+            }
+            try {
+                execution.run();
+            } catch (Throwable t) {
+                logger.error("Error during the execution of rule '" + rule.getName() + "': " + t.getMessage(), t);
+            } finally {
+                synchronized (RuleExecutor.this) {
+                    if (serialized && !executions.isEmpty()) {
+                        // run the next execution by a new task to be fair to the other rules
+                        executor.execute(this);
+                    } else {
+                        finished();
+                    }
+                }
+            }
+        }
+
+        private void finished() {
+            scheduled = Math.max(scheduled - 1, 0);
+            if (scheduled == 0 && executions.isEmpty()) {
+                queues.remove(rule);
+            }
+        }
+    }
+
+}
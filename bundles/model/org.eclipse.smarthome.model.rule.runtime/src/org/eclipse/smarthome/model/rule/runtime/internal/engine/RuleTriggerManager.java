@@ -19,8 +19,10 @@ import static org.quartz.TriggerBuilder.newTrigger;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 
@@ -51,6 +53,8 @@ import org.quartz.impl.matchers.GroupMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -79,14 +83,19 @@ public class RuleTriggerManager {
         TIMER // fires at a given time
     }
 
-    // lookup maps for different triggering conditions
-    private Map<String, Set<Rule>> updateEventTriggeredRules = Maps.newHashMap();
-    private Map<String, Set<Rule>> changedEventTriggeredRules = Maps.newHashMap();
-    private Map<String, Set<Rule>> commandEventTriggeredRules = Maps.newHashMap();
+    // lookup maps for different triggering conditions, all event triggered rules are guarded by this manager
+    private final Map<String, Set<Rule>> updateEventTriggeredRules = Maps.newHashMap();
+    private final Map<String, Set<Rule>> changedEventTriggeredRules = Maps.newHashMap();
+    private final Map<String, Set<Rule>> commandEventTriggeredRules = Maps.newHashMap();
     private Set<Rule> systemStartupTriggeredRules = new CopyOnWriteArraySet<>();
     private Set<Rule> systemShutdownTriggeredRules = new CopyOnWriteArraySet<>();
     private Set<Rule> timerEventTriggeredRules = new CopyOnWriteArraySet<>();
 
+    // immutable tables of the compiled event triggers per item name, which are replaced on every modification
+    private volatile Map<String, List<TriggerMatcher>> updateEventTriggers = Collections.emptyMap();
+    private volatile Map<String, List<TriggerMatcher>> changedEventTriggers = Collections.emptyMap();
+    private volatile Map<String, List<TriggerMatcher>> commandEventTriggers = Collections.emptyMap();
+
     // the scheduler used for timer events
     private Scheduler scheduler;
 
@@ -119,13 +128,13 @@ public class RuleTriggerManager {
                 result = timerEventTriggeredRules;
                 break;
             case UPDATE:
-                result = Iterables.concat(updateEventTriggeredRules.values());
+                result = getEventTriggeredRules(updateEventTriggeredRules);
                 break;
             case CHANGE:
-                result = Iterables.concat(changedEventTriggeredRules.values());
+                result = getEventTriggeredRules(changedEventTriggeredRules);
                 break;
             case COMMAND:
-                result = Iterables.concat(commandEventTriggeredRules.values());
+                result = getEventTriggeredRules(commandEventTriggeredRules);
                 break;
             default:
                 result = Sets.newHashSet();
@@ -133,6 +142,10 @@ public class RuleTriggerManager {
         return result;
     }
 
+    private synchronized Iterable<Rule> getEventTriggeredRules(Map<String, Set<Rule>> rules) {
+        return Lists.newArrayList(Iterables.concat(rules.values()));
+    }
+
     /**
      * Returns all rules for which the trigger condition is true for the given type, item and state.
      * 
@@ -170,29 +183,9 @@ public class RuleTriggerManager {
         return internalGetRules(triggerType, item, null, command);
     }
 
-    private Iterable<Rule> getAllRules(TriggerTypes type, String itemName) {
-        switch (type) {
-            case STARTUP:
-                return systemStartupTriggeredRules;
-            case SHUTDOWN:
-                return systemShutdownTriggeredRules;
-            case UPDATE:
-                return updateEventTriggeredRules.get(itemName);
-            case CHANGE:
-                return changedEventTriggeredRules.get(itemName);
-            case COMMAND:
-                return commandEventTriggeredRules.get(itemName);
-            default:
-                return Sets.newHashSet();
-        }
-    }
-
     private Iterable<Rule> internalGetRules(TriggerTypes triggerType, Item item, Type oldType, Type newType) {
         List<Rule> result = Lists.newArrayList();
-        Iterable<Rule> rules = getAllRules(triggerType, item.getName());
-        if (rules == null) {
-            rules = Lists.newArrayList();
-        }
+        List<TriggerMatcher> matchers;
         switch (triggerType) {
             case STARTUP:
                 return systemStartupTriggeredRules;
@@ -201,75 +194,36 @@ public class RuleTriggerManager {
             case TIMER:
                 return timerEventTriggeredRules;
             case UPDATE:
-                if (newType instanceof State) {
+                matchers = updateEventTriggers.get(item.getName());
+                if (matchers != null && newType instanceof State) {
                     State state = (State) newType;
-                    for (Rule rule : rules) {
-                        for (EventTrigger t : rule.getEventtrigger()) {
-                            if (t instanceof UpdateEventTrigger) {
-                                UpdateEventTrigger ut = (UpdateEventTrigger) t;
-                                if (ut.getItem().equals(item.getName())) {
-                                    if (ut.getState() != null) {
-                                        State triggerState = TypeParser.parseState(item.getAcceptedDataTypes(),
-                                                ut.getState());
-                                        if (!state.equals(triggerState)) {
-                                            continue;
-                                        }
-                                    }
-                                    result.add(rule);
-                                }
-                            }
+                    for (TriggerMatcher matcher : matchers) {
+                        if (matcher.value == null || matcher.value.matchesState(item, state)) {
+                            result.add(matcher.rule);
                         }
                     }
                 }
                 break;
             case CHANGE:
-                if (newType instanceof State && oldType instanceof State) {
+                matchers = changedEventTriggers.get(item.getName());
+                if (matchers != null && newType instanceof State && oldType instanceof State) {
                     State newState = (State) newType;
                     State oldState = (State) oldType;
-                    for (Rule rule : rules) {
-                        for (EventTrigger t : rule.getEventtrigger()) {
-                            if (t instanceof ChangedEventTrigger) {
-                                ChangedEventTrigger ct = (ChangedEventTrigger) t;
-                                if (ct.getItem().equals(item.getName())) {
-                                    if (ct.getOldState() != null) {
-                                        State triggerOldState = TypeParser.parseState(item.getAcceptedDataTypes(),
-                                                ct.getOldState());
-                                        if (!oldState.equals(triggerOldState)) {
-                                            continue;
-                                        }
-                                    }
-                                    if (ct.getNewState() != null) {
-                                        State triggerNewState = TypeParser.parseState(item.getAcceptedDataTypes(),
-                                                ct.getNewState());
-                                        if (!newState.equals(triggerNewState)) {
-                                            continue;
-                                        }
-                                    }
-                                    result.add(rule);
-                                }
-                            }
+                    for (TriggerMatcher matcher : matchers) {
+                        if ((matcher.oldValue == null || matcher.oldValue.matchesState(item, oldState))
+                                && (matcher.value == null || matcher.value.matchesState(item, newState))) {
+                            result.add(matcher.rule);
                         }
                     }
                 }
                 break;
             case COMMAND:
-                if (newType instanceof Command) {
-                    final Command command = (Command) newType;
-                    for (Rule rule : rules) {
-                        for (final EventTrigger t : rule.getEventtrigger()) {
-                            if (t instanceof CommandEventTrigger) {
-                                final CommandEventTrigger ct = (CommandEventTrigger) t;
-                                if (ct.getItem().equals(item.getName())) {
-                                    if (ct.getCommand() != null) {
-                                        final Command triggerCommand = TypeParser.parseCommand(
-                                                item.getAcceptedCommandTypes(), ct.getCommand());
-                                        if (!command.equals(triggerCommand)) {
-                                            continue;
-                                        }
-                                    }
-                                    result.add(rule);
-                                }
-                            }
+                matchers = commandEventTriggers.get(item.getName());
+                if (matchers != null && newType instanceof Command) {
+                    Command command = (Command) newType;
+                    for (TriggerMatcher matcher : matchers) {
+                        if (matcher.value == null || matcher.value.matchesCommand(item, command)) {
+                            result.add(matcher.rule);
                         }
                     }
                 }
@@ -283,7 +237,7 @@ public class RuleTriggerManager {
      * 
      * @param type the trigger type
      */
-    public void clear(TriggerTypes type) {
+    public synchronized void clear(TriggerTypes type) {
         switch (type) {
             case STARTUP:
                 systemStartupTriggeredRules.clear();
@@ -307,12 +261,13 @@ public class RuleTriggerManager {
                 timerEventTriggeredRules.clear();
                 break;
         }
+        compileEventTriggers();
     }
 
     /**
      * Removes all rules from all mapping tables.
      */
-    public void clearAll() {
+    public synchronized void clearAll() {
         clear(STARTUP);
         clear(SHUTDOWN);
         clear(UPDATE);
@@ -327,6 +282,11 @@ public class RuleTriggerManager {
      * @param rule the rule to add
      */
     public synchronized void addRule(Rule rule) {
+        internalAddRule(rule);
+        compileEventTriggers();
+    }
+
+    private void internalAddRule(Rule rule) {
         for (EventTrigger t : rule.getEventtrigger()) {
             // add the rule to the lookup map for the trigger kind
             if (t instanceof SystemOnStartupTrigger) {
@@ -375,7 +335,7 @@ public class RuleTriggerManager {
      * @param type the trigger type for which the rule should be removed
      * @param rule the rule to add
      */
-    public void removeRule(TriggerTypes type, Rule rule) {
+    public synchronized void removeRule(TriggerTypes type, Rule rule) {
         switch (type) {
             case STARTUP:
                 systemStartupTriggeredRules.remove(rule);
@@ -384,19 +344,26 @@ public class RuleTriggerManager {
                 systemShutdownTriggeredRules.remove(rule);
                 break;
             case UPDATE:
-                updateEventTriggeredRules.remove(rule);
+                removeEventTriggeredRule(updateEventTriggeredRules, rule);
                 break;
             case CHANGE:
-                changedEventTriggeredRules.remove(rule);
+                removeEventTriggeredRule(changedEventTriggeredRules, rule);
                 break;
             case COMMAND:
-                commandEventTriggeredRules.remove(rule);
+                removeEventTriggeredRule(commandEventTriggeredRules, rule);
                 break;
             case TIMER:
                 timerEventTriggeredRules.remove(rule);
                 removeTimerRule(rule);
                 break;
         }
+        compileEventTriggers();
+    }
+
+    private void removeEventTriggeredRule(Map<String, Set<Rule>> rules, Rule rule) {
+        for (Set<Rule> ruleSet : rules.values()) {
+            ruleSet.remove(rule);
+        }
     }
 
     /**
@@ -404,10 +371,11 @@ public class RuleTriggerManager {
      * 
      * @param model the rule model
      */
-    public void addRuleModel(RuleModel model) {
+    public synchronized void addRuleModel(RuleModel model) {
         for (Rule rule : model.getRules()) {
-            addRule(rule);
+            internalAddRule(rule);
         }
+        compileEventTriggers();
     }
 
     /**
@@ -415,13 +383,14 @@ public class RuleTriggerManager {
      * 
      * @param ruleModel the rule model
      */
-    public void removeRuleModel(RuleModel ruleModel) {
+    public synchronized void removeRuleModel(RuleModel ruleModel) {
         removeRules(UPDATE, updateEventTriggeredRules.values(), ruleModel);
         removeRules(CHANGE, changedEventTriggeredRules.values(), ruleModel);
         removeRules(COMMAND, commandEventTriggeredRules.values(), ruleModel);
         removeRules(STARTUP, Collections.singletonList(systemStartupTriggeredRules), ruleModel);
         removeRules(SHUTDOWN, Collections.singletonList(systemShutdownTriggeredRules), ruleModel);
         removeRules(TIMER, Collections.singletonList(timerEventTriggeredRules), ruleModel);
+        compileEventTriggers();
     }
 
     private void removeRules(TriggerTypes type, Collection<? extends Collection<Rule>> ruleSets, RuleModel model) {
@@ -449,6 +418,53 @@ public class RuleTriggerManager {
         }
     }
 
+    /**
+     * Compiles the event triggers of all rules into new immutable tables of {@link TriggerMatcher}s per item name,
+     * which replace the current tables at once. Must be called whenever the event triggered rules have been modified.
+     */
+    private void compileEventTriggers() {
+        updateEventTriggers = compileEventTriggers(UPDATE, updateEventTriggeredRules);
+        changedEventTriggers = compileEventTriggers(CHANGE, changedEventTriggeredRules);
+        commandEventTriggers = compileEventTriggers(COMMAND, commandEventTriggeredRules);
+    }
+
+    private Map<String, List<TriggerMatcher>> compileEventTriggers(TriggerTypes type, Map<String, Set<Rule>> rules) {
+        ImmutableMap.Builder<String, List<TriggerMatcher>> triggers = ImmutableMap.builder();
+        Iterator<Entry<String, Set<Rule>>> iterator = rules.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<String, Set<Rule>> entry = iterator.next();
+            if (entry.getValue().isEmpty()) {
+                iterator.remove();
+                continue;
+            }
+            String itemName = entry.getKey();
+            ImmutableList.Builder<TriggerMatcher> matchers = ImmutableList.builder();
+            for (Rule rule : entry.getValue()) {
+                for (EventTrigger t : rule.getEventtrigger()) {
+                    if (type == UPDATE && t instanceof UpdateEventTrigger) {
+                        UpdateEventTrigger ut = (UpdateEventTrigger) t;
+                        if (itemName.equals(ut.getItem())) {
+                            matchers.add(new TriggerMatcher(rule, TriggerValue.of(ut.getState()), null));
+                        }
+                    } else if (type == CHANGE && t instanceof ChangedEventTrigger) {
+                        ChangedEventTrigger ct = (ChangedEventTrigger) t;
+                        if (itemName.equals(ct.getItem())) {
+                            matchers.add(new TriggerMatcher(rule, TriggerValue.of(ct.getNewState()), TriggerValue
+                                    .of(ct.getOldState())));
+                        }
+                    } else if (type == COMMAND && t instanceof CommandEventTrigger) {
+                        CommandEventTrigger ct = (CommandEventTrigger) t;
+                        if (itemName.equals(ct.getItem())) {
+                            matchers.add(new TriggerMatcher(rule, TriggerValue.of(ct.getCommand()), null));
+                        }
+                    }
+                }
+            }
+            triggers.put(itemName, matchers.build());
+        }
+        return triggers.build();
+    }
+
     private void removeTimerRule(Rule rule) {
         try {
             removeTimer(rule);
@@ -525,4 +541,81 @@ public class RuleTriggerManager {
         }
         return jobIdentity;
     }
+
+    /**
+     * A compiled event trigger of a rule. A value of null matches any state or command.
+     */
+    private static class TriggerMatcher {
+
+        private final Rule rule;
+
+        // the state of an update trigger, the new state of a change trigger or the command of a command trigger
+        private final TriggerValue value;
+
+        // the old state of a change trigger
+        private final TriggerValue oldValue;
+
+        private TriggerMatcher(Rule rule, TriggerValue value, TriggerValue oldValue) {
+            this.rule = rule;
+            this.value = value;
+            this.oldValue = oldValue;
+        }
+    }
+
+    /**
+     * The state or command of a trigger. As the string can only be parsed by the accepted types of the item, it is
+     * parsed at the first match and the parsed value is kept for as long as the accepted types of the item do not
+     * change, so that matching an event is an equality check only.
+     */
+    private static class TriggerValue {
+
+        private final String value;
+
+        private volatile ParsedValue parsed;
+
+        private TriggerValue(String value) {
+            this.value = value;
+        }
+
+        private static TriggerValue of(String value) {
+            return value != null ? new TriggerValue(value) : null;
+        }
+
+        private boolean matchesState(Item item, State state) {
+            List<Class<? extends State>> acceptedTypes = item.getAcceptedDataTypes();
+            ParsedValue parsed = this.parsed;
+            if (parsed == null || !parsed.isParsedBy(acceptedTypes)) {
+                parsed = new ParsedValue(acceptedTypes, TypeParser.parseState(acceptedTypes, value));
+                this.parsed = parsed;
+            }
+            return state.equals(parsed.type);
+        }
+
+        private boolean matchesCommand(Item item, Command command) {
+            List<Class<? extends Command>> acceptedTypes = item.getAcceptedCommandTypes();
+            ParsedValue parsed = this.parsed;
+            if (parsed == null || !parsed.isParsedBy(acceptedTypes)) {
+                parsed = new ParsedValue(acceptedTypes, TypeParser.parseCommand(acceptedTypes, value));
+                this.parsed = parsed;
+            }
+            return command.equals(parsed.type);
+        }
+    }
+
+    private static class ParsedValue {
+
+        private final List<? extends Class<? extends Type>> acceptedTypes;
+
+        // null if the value could not be parsed by the accepted types
+        private final Type type;
+
+        private ParsedValue(List<? extends Class<? extends Type>> acceptedTypes, Type type) {
+            this.acceptedTypes = acceptedTypes;
+            this.type = type;
+        }
+
+        private boolean isParsedBy(List<? extends Class<? extends Type>> acceptedTypes) {
+            return this.acceptedTypes == acceptedTypes || this.acceptedTypes.equals(acceptedTypes);
+        }
+    }
 }
@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.model.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is a data transfer object that is used to serialize the changes of a page since a given version.
+ *
+ * @author agent - Initial contribution
+ */
+public class PageDeltaDTO {
+
+    public String id;
+
+    /** the version of the page, which is to be passed as "since" parameter on the next request */
+    public long version;
+
+    /** true, if the widgets contain the whole page, because the requested version is not known anymore */
+    public boolean full;
+
+    public String title;
+    public String icon;
+
+    /** the widgets, which have changed or have become visible */
+    public List<WidgetDTO> widgets = new ArrayList<WidgetDTO>();
+
+    /** the ids of the widgets, which have become invisible */
+    public List<String> removed = new ArrayList<String>();
+
+    public PageDeltaDTO() {
+    }
+
+}
@@ -21,6 +21,8 @@ import org.eclipse.smarthome.test.OSGiTest
 import org.junit.After
 import org.junit.Before
 import org.junit.Test
+import org.mapdb.DB
+import org.mapdb.DBMaker
 
 /**
  * @author Thomas Eichstaedt-Engelen - Initial contribution
@@ -104,6 +106,56 @@ class StorageServiceOSGiTest extends OSGiTest {
         def bigDecimal = storageWithoutClassloader.get("configuration").get("bigDecimal")
         assertThat bigDecimal instanceof BigDecimal, is(true)
     }
+
+    @Test
+    void 'assert modifying a returned value does not change the stored value'() {
+        storage.put 'Key1', new PersistedItem('String', ['LIGHT'])
+
+        PersistedItem pItem = storage.get 'Key1'
+        assertThat storage.get('Key1'), is(not(sameInstance(pItem)))
+        assertThat storage.getValues().iterator().next(), is(not(sameInstance(pItem)))
+
+        pItem.itemType = 'Switch'
+        assertThat storage.get('Key1').itemType, is('String')
+
+        storage.put 'Key1', pItem
+        assertThat storage.get('Key1').itemType, is('Switch')
+
+        storage.remove 'Key1'
+        assertThat storage.get('Key1'), is(nullValue())
+    }
+
+    @Test
+    void 'assert flush commits the grouped writes'() {
+        storageService.modified([commitInterval: '60000', commitSize: '1000'])
+
+        storage.put 'Key1', new PersistedItem('String', ['LIGHT'])
+        storage.flush()
+        storage.put 'Key2', new PersistedItem('Number', ['TEMPERATURE'])
+
+        // the uncommitted write is discarded by a rollback
+        storageService.db.rollback()
+        assertThat storage.getKeys() as List, is(['Key1'])
+        assertThat storage.get('Key1').itemType, is('String')
+
+        storageService.modified([:])
+        storage.remove 'Key1'
+    }
+
+    @Test
+    void 'assert values are stored as type and JSON document, which are split at the first separator'() {
+        DB db = DBMaker.newMemoryDB().make()
+        db.createTreeMap('values').makeOrGet().put('Key1', 'java.lang.String@@@"Value@@@"')
+        def valueStorage = new MapDbStorage<String>(db, 'values', null)
+
+        assertThat valueStorage.get('Key1'), is(equalTo('Value@@@'))
+
+        valueStorage.put('Key1', 'NewValue')
+        assertThat db.getTreeMap('values').get('Key1'), is(equalTo('java.lang.String@@@"NewValue"'))
+        assertThat valueStorage.get('Key1'), is(equalTo('NewValue'))
+        assertThat valueStorage.getValues() as List, is(['NewValue'])
+        db.close()
+    }
     
     private class MockConfiguration {
         private Map<String, Object> configuration = new HashMap<String, Object>();
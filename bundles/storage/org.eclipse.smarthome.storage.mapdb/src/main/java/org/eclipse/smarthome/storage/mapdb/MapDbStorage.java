@@ -10,6 +10,7 @@ package org.eclipse.smarthome.storage.mapdb;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.smarthome.core.storage.Storage;
 import org.mapdb.DB;
@@ -25,6 +26,14 @@ import com.google.gson.GsonBuilder;
  * the given values using their JSON representation (generated by {@code Gson}.
  * This transformation should help maintaining version compatibility of the stored
  * data.
+ * <p>
+ * The values are stored as {@code <type name>@@@<JSON>}. Every read deserializes a new instance, so that callers can
+ * modify the returned values without changing the stored ones.
+ * </p>
+ * <p>
+ * Writes are committed by the {@link MapDbStorageService}, which groups the commits of all storages, unless it is
+ * configured to commit every single write.
+ * </p>
  *
  * @author Thomas.Eichstaedt-Engelen - Initial Contribution and API
  * @author Alex Tugarev - Loading with Class.forName() if classLoader is null
@@ -37,13 +46,22 @@ public class MapDbStorage<T> implements Storage<T> {
 
     private DB db;
     private ClassLoader classLoader;
+    private MapDbStorageService storageService;
     private Map<String, String> map;
 
+    /** the loaded value types by their qualified names */
+    private final Map<String, Class<T>> valueTypes = new ConcurrentHashMap<>();
+
     private transient Gson mapper;
 
     public MapDbStorage(DB db, String name, ClassLoader classLoader) {
+        this(db, name, classLoader, null);
+    }
+
+    MapDbStorage(DB db, String name, ClassLoader classLoader, MapDbStorageService storageService) {
         this.db = db;
         this.classLoader = classLoader;
+        this.storageService = storageService;
         this.map = db.createTreeMap(name).makeOrGet();
         this.mapper = new GsonBuilder().registerTypeAdapterFactory(new PropertiesTypeAdapterFactory()).create();
     }
@@ -53,8 +71,9 @@ public class MapDbStorage<T> implements Storage<T> {
      */
     @Override
     public T put(String key, T value) {
-        String previousValue = map.put(key, serialize(value));
-        db.commit();
+        String serializedValue = serialize(value);
+        String previousValue = map.put(key, serializedValue);
+        commit();
         return deserialize(previousValue);
     }
 
@@ -64,7 +83,9 @@ public class MapDbStorage<T> implements Storage<T> {
     @Override
     public T remove(String key) {
         String removedElement = map.remove(key);
-        db.commit();
+        if (removedElement != null) {
+            commit();
+        }
         return deserialize(removedElement);
     }
 
@@ -90,20 +111,37 @@ public class MapDbStorage<T> implements Storage<T> {
     @Override
     public Collection<T> getValues() {
         Collection<T> values = new ArrayList<T>();
-        for (String key : getKeys()) {
-            values.add(get(key));
+        for (String concatValue : map.values()) {
+            values.add(deserialize(concatValue));
         }
         return values;
     }
 
+    /**
+     * Commits all pending writes to disk.
+     */
+    public void flush() {
+        if (storageService != null) {
+            storageService.flush();
+        } else {
+            db.commit();
+        }
+    }
+
+    private void commit() {
+        if (storageService != null) {
+            storageService.commit();
+        } else {
+            db.commit();
+        }
+    }
+
     /**
      * Transforms the given {@code value} into its JSON representation using {@code Gson}. Since we do not know the type
-     * of {@code value} while
-     * deserializing it afterwards we prepend its qualified type name to the
-     * JSON String.
-     * 
+     * of {@code value} while deserializing it afterwards we prepend its qualified type name to the JSON document.
+     *
      * @param value the {@code value} to store
-     * @return the JSON document prepended with the qualified type name of {@code value}
+     * @return the concatenated version of the qualified type name of {@code value} and the JSON document
      */
     private String serialize(T value) {
 
@@ -121,42 +159,48 @@ public class MapDbStorage<T> implements Storage<T> {
 
     /**
      * Deserializes and instantiates an object of type {@code T} out of the
-     * given JSON String. A special classloader (other than the one of the
+     * given stored value. A special classloader (other than the one of the
      * MapDB bundle) is used in order to load the classes in the context of
      * the calling bundle.
-     * 
-     * @param json
-     * @return
+     *
+     * @param concatValue the concatenated qualified type name and JSON document
+     * @return the deserialized value or null, if it cannot be deserialized
      */
-    @SuppressWarnings("unchecked")
-    public T deserialize(String json) {
+    private T deserialize(String concatValue) {
 
-        if (json == null) {
+        if (concatValue == null) {
             // nothing to deserialize
             return null;
         }
 
-        String[] concatValue = json.split(TYPE_SEPARATOR);
-        String valueTypeName = concatValue[0];
-        String valueAsString = concatValue[1];
-
         T value = null;
         try {
-            // load required class within the given bundle context
-            Class<T> loadedValueType = null;
-            if (classLoader == null) {
-                loadedValueType = (Class<T>) Class.forName(valueTypeName);
-            } else {
-                loadedValueType = (Class<T>) classLoader.loadClass(valueTypeName);
-            }
-
-            value = mapper.fromJson(valueAsString, loadedValueType);
+            // the JSON document may contain the separator itself
+            int separatorIndex = concatValue.indexOf(TYPE_SEPARATOR);
+            String valueTypeName = concatValue.substring(0, separatorIndex);
+            String valueAsString = concatValue.substring(separatorIndex + TYPE_SEPARATOR.length());
+            value = mapper.fromJson(valueAsString, getValueType(valueTypeName));
             logger.trace("deserialized value '{}' from MapDB", value);
         } catch (Exception e) {
-            logger.warn("Couldn't deserialize value '{}'. Root cause is: {}", json, e.getMessage());
+            logger.warn("Couldn't deserialize value '{}'. Root cause is: {}", concatValue, e.getMessage());
         }
 
         return value;
     }
 
+    @SuppressWarnings("unchecked")
+    private Class<T> getValueType(String valueTypeName) throws ClassNotFoundException {
+        Class<T> valueType = valueTypes.get(valueTypeName);
+        if (valueType == null) {
+            // load required class within the given bundle context
+            if (classLoader == null) {
+                valueType = (Class<T>) Class.forName(valueTypeName);
+            } else {
+                valueType = (Class<T>) classLoader.loadClass(valueTypeName);
+            }
+            valueTypes.put(valueTypeName, valueType);
+        }
+        return valueType;
+    }
+
 }
@@ -8,8 +8,13 @@
 package org.eclipse.smarthome.storage.mapdb;
 
 import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.storage.Storage;
 import org.eclipse.smarthome.core.storage.StorageService;
 import org.mapdb.DB;
@@ -20,6 +25,12 @@ import org.slf4j.LoggerFactory;
 /**
  * This implementation of {@link StorageService} provides abilities to store
  * data in the lightweight key-value-store <a href="http://www.mapdb.org">MapDB</a>.
+ * <p>
+ * All storages share a single database, whose writes are committed in groups: at the latest after the configured
+ * interval in milliseconds ("commitInterval") or after the configured number of writes ("commitSize"), so that e.g.
+ * a bulk import does not sync the file to disk for every single entry. An interval of 0 commits every write
+ * immediately.
+ * </p>
  *
  * @author Thomas.Eichstaedt-Engelen - Initial Contribution and API
  * @author Alex Tugarev - Added getStorage for name only
@@ -31,13 +42,35 @@ public class MapDbStorageService implements StorageService {
     /** the name of the mapdb database ({@code storage.mapdb}) */
     private static final String DB_FILE_NAME = "storage.mapdb";
 
+    private static final String COMMIT_INTERVAL_PROPERTY = "commitInterval";
+
+    private static final String COMMIT_SIZE_PROPERTY = "commitSize";
+
+    private static final String THREAD_POOL_NAME = "storage";
+
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME);
+
     /** holds the local instance of the MapDB database */
     private DB db;
 
     /** the folder name to store mapdb databases ({@code mapdb} by default) */
     private String dbFolderName = "mapdb";
 
-    public void activate() {
+    /** the maximum time in milliseconds a write stays uncommitted, 0 to commit every write */
+    private long commitInterval = 1000;
+
+    /** the number of uncommitted writes, which are committed without waiting for the interval */
+    private int commitSize = 100;
+
+    /** the number of writes since the last commit, guarded by this */
+    private int uncommittedWrites = 0;
+
+    /** the scheduled commit, guarded by this */
+    private ScheduledFuture<?> commitJob;
+
+    public void activate(Map<String, Object> properties) {
+        modified(properties);
+
         dbFolderName = ConfigConstants.getUserDataFolder() + File.separator + dbFolderName;
         File folder = new File(dbFolderName);
         if (!folder.exists()) {
@@ -50,14 +83,42 @@ public class MapDbStorageService implements StorageService {
         logger.debug("Opened MapDB file at '{}'.", dbFile.getAbsolutePath());
     }
 
+    public synchronized void modified(Map<String, Object> properties) {
+        if (properties == null) {
+            return;
+        }
+        commitInterval = getNumber(properties, COMMIT_INTERVAL_PROPERTY, 1000, 0);
+        commitSize = getNumber(properties, COMMIT_SIZE_PROPERTY, 100, 1);
+        if (db != null) {
+            flush();
+        }
+    }
+
+    private int getNumber(Map<String, Object> properties, String property, int defaultValue, int minimum) {
+        Object value = properties.get(property);
+        if (value != null) {
+            try {
+                int number = Integer.parseInt(value.toString().trim());
+                if (number >= minimum) {
+                    return number;
+                }
+            } catch (NumberFormatException e) {
+                // fall through
+            }
+            logger.warn("Ignoring invalid value '{}' of MapDB storage property '{}'", value, property);
+        }
+        return defaultValue;
+    }
+
     public void deactivate() {
+        flush();
         db.close();
         logger.debug("Deactivated MapDB Storage Service.");
     }
 
     @Override
     public <T> Storage<T> getStorage(String name, ClassLoader classLoader) {
-        return new MapDbStorage<T>(db, name, classLoader);
+        return new MapDbStorage<T>(db, name, classLoader, this);
     }
 
     @Override
@@ -65,4 +126,35 @@ public class MapDbStorageService implements StorageService {
         return getStorage(name, null);
     }
 
+    /**
+     * Commits all pending writes of all storages to disk.
+     */
+    public synchronized void flush() {
+        if (commitJob != null) {
+            commitJob.cancel(false);
+            commitJob = null;
+        }
+        if (uncommittedWrites > 0) {
+            uncommittedWrites = 0;
+            db.commit();
+        }
+    }
+
+    /**
+     * Commits a write of a storage, either immediately or together with other writes.
+     */
+    synchronized void commit() {
+        uncommittedWrites++;
+        if (commitInterval == 0 || uncommittedWrites >= commitSize) {
+            flush();
+        } else if (commitJob == null) {
+            commitJob = scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, commitInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
 }
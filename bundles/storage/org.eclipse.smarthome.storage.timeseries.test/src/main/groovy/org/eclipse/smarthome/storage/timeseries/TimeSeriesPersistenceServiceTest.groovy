@@ -0,0 +1,318 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.storage.timeseries
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import org.eclipse.smarthome.core.library.items.NumberItem
+import org.eclipse.smarthome.core.library.types.DateTimeType
+import org.eclipse.smarthome.core.library.types.DecimalType
+import org.eclipse.smarthome.core.library.types.HSBType
+import org.eclipse.smarthome.core.library.types.OnOffType
+import org.eclipse.smarthome.core.library.types.OpenClosedType
+import org.eclipse.smarthome.core.library.types.PercentType
+import org.eclipse.smarthome.core.library.types.PointType
+import org.eclipse.smarthome.core.library.types.StringType
+import org.eclipse.smarthome.core.persistence.AggregatingPersistenceService.AggregateFunction
+import org.eclipse.smarthome.core.persistence.FilterCriteria
+import org.eclipse.smarthome.core.persistence.PersistenceEntry
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Operator
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering
+import org.eclipse.smarthome.core.types.UnDefType
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+
+/**
+ * The {@link TimeSeriesPersistenceServiceTest} tests storing and querying the states of items in time series files.
+ *
+ * @author agent - Initial contribution
+ */
+class TimeSeriesPersistenceServiceTest {
+
+    static final long START = 1420070400000L
+
+    static final long INTERVAL = 10000L
+
+    File folder
+    TimeSeriesPersistenceService service
+    NumberItem item
+
+    @Before
+    void setUp() {
+        folder = File.createTempFile("timeseries", "")
+        folder.delete()
+        service = new TimeSeriesPersistenceService()
+        service.activate(folder)
+        item = new NumberItem("Temperature")
+    }
+
+    @After
+    void tearDown() {
+        service.deactivate()
+        folder.deleteDir()
+    }
+
+    void storeSamples(int count) {
+        def entries = (0..<count).collect {
+            new PersistenceEntry(item, new DecimalType(20 + (it % 50) / 10), new Date(START + it * INTERVAL), null)
+        }
+        service.store(entries)
+    }
+
+    @Test
+    void 'assert states are returned in descending order by default'() {
+        storeSamples(3)
+
+        def result = service.query(new FilterCriteria().setItemName("Temperature")).toList()
+
+        assertThat result.size(), is(3)
+        assertThat result[0].timestamp, is(new Date(START + 2 * INTERVAL))
+        assertThat result[0].state, is(new DecimalType("20.2"))
+        assertThat result[2].state, is(new DecimalType("20"))
+        assertThat result[0].name, is("Temperature")
+    }
+
+    @Test
+    void 'assert time range and paging spanning several chunks are applied'() {
+        storeSamples(3 * TimeSeries.CHUNK_SIZE + 10)
+        service.flush()
+
+        def filter = new FilterCriteria().setItemName("Temperature").setOrdering(Ordering.ASCENDING)
+                .setBeginDate(new Date(START + 1000 * INTERVAL)).setEndDate(new Date(START + 2999 * INTERVAL))
+                .setPageSize(100).setPageNumber(3)
+        def result = service.query(filter).toList()
+
+        assertThat result.size(), is(100)
+        assertThat result[0].timestamp, is(new Date(START + 1300 * INTERVAL))
+        assertThat result[99].timestamp, is(new Date(START + 1399 * INTERVAL))
+
+        filter.setOrdering(Ordering.DESCENDING).setPageNumber(0).setPageSize(5)
+        result = service.query(filter).toList()
+        assertThat result[0].timestamp, is(new Date(START + 2999 * INTERVAL))
+        assertThat result[4].timestamp, is(new Date(START + 2995 * INTERVAL))
+    }
+
+    @Test
+    void 'assert states are filtered by the operator'() {
+        storeSamples(100)
+
+        def filter = new FilterCriteria().setItemName("Temperature").setOperator(Operator.GTE)
+                .setState(new DecimalType("24.8"))
+        def result = service.query(filter).toList()
+
+        assertThat result.size(), is(4)
+        assertThat result.every { it.state >= new DecimalType("24.8") }, is(true)
+    }
+
+    @Test
+    void 'assert states are restored after the service has been restarted'() {
+        storeSamples(TimeSeries.CHUNK_SIZE + 1)
+        service.deactivate()
+
+        service = new TimeSeriesPersistenceService()
+        service.activate(folder)
+        def result = service.query(new FilterCriteria().setItemName("Temperature").setPageSize(1)).toList()
+
+        assertThat result.size(), is(1)
+        assertThat result[0].timestamp, is(new Date(START + TimeSeries.CHUNK_SIZE * INTERVAL))
+        assertThat result[0].state, is(new DecimalType("22.4"))
+    }
+
+    @Test
+    void 'assert chunks are only sealed when they are full and the head chunk is restored from its sidecar file'() {
+        def file = new File(folder, "head.ts")
+        def headFile = new File(folder, "head.ts" + TimeSeries.HEAD_FILE_EXTENSION)
+        def timeSeries = new TimeSeries("head", file)
+        def queryAll = { TimeSeries series ->
+            def result = []
+            series.query(new FilterCriteria().setOrdering(Ordering.ASCENDING), 0, Integer.MAX_VALUE, result)
+            result*.state
+        }
+
+        10.times { timeSeries.append(START + it * INTERVAL, new DecimalType(it)) }
+        timeSeries.flush()
+        assertThat file.length(), is(8L)
+        byte[] staleHead = headFile.bytes
+
+        // the series has not been closed, as after a crash
+        def restored = new TimeSeries("head", file)
+        try {
+            assertThat queryAll(restored), is((0..<10).collect { new DecimalType(it) })
+        } finally {
+            restored.close()
+        }
+
+        (10..<TimeSeries.CHUNK_SIZE + 5).each { timeSeries.append(START + it * INTERVAL, new DecimalType(it)) }
+        assertThat file.length() > 8L, is(true)
+        timeSeries.close()
+        restored = new TimeSeries("head", file)
+        try {
+            assertThat queryAll(restored), is((0..<TimeSeries.CHUNK_SIZE + 5).collect { new DecimalType(it) })
+        } finally {
+            restored.close()
+        }
+
+        // a head chunk, which has been sealed already, is not restored
+        headFile.bytes = staleHead
+        restored = new TimeSeries("head", file)
+        try {
+            assertThat queryAll(restored), is((0..<TimeSeries.CHUNK_SIZE).collect { new DecimalType(it) })
+        } finally {
+            restored.close()
+        }
+    }
+
+    @Test
+    void 'assert chunks of mapped regions and of the tail of the file are read'() {
+        def file = new File(folder, "regions.ts")
+        def timeSeries = new TimeSeries("regions", file, 4096)
+        5000.times {
+            timeSeries.append(START + it * INTERVAL, new DecimalType(it))
+            if (it % 100 == 99) {
+                timeSeries.seal()
+            }
+        }
+
+        def assertSamples = { TimeSeries series ->
+            def result = []
+            series.query(new FilterCriteria().setOrdering(Ordering.ASCENDING), 0, Integer.MAX_VALUE, result)
+            assertThat result.size(), is(5000)
+            assertThat result*.state, is((0..<5000).collect { new DecimalType(it) })
+            assertThat result[4999].timestamp, is(new Date(START + 4999 * INTERVAL))
+        }
+        assertSamples(timeSeries)
+        timeSeries.close()
+
+        timeSeries = new TimeSeries("regions", file, 4096)
+        try {
+            assertSamples(timeSeries)
+        } finally {
+            timeSeries.close()
+        }
+    }
+
+    @Test
+    void 'assert codes of the state types are stable'() {
+        def codes = [
+            (StateType.DECIMAL): 0,
+            (StateType.PERCENT): 1,
+            (StateType.ON_OFF): 2,
+            (StateType.OPEN_CLOSED): 3,
+            (StateType.UP_DOWN): 4,
+            (StateType.DATE_TIME): 5,
+            (StateType.HSB): 6,
+            (StateType.POINT): 7,
+            (StateType.STRING): 8,
+            (StateType.UNDEF): 9
+        ]
+        assertThat codes.size(), is(StateType.values().length)
+        codes.each { type, code ->
+            assertThat type.getCode(), is(code)
+            assertThat StateType.fromCode(code), is(type)
+        }
+    }
+
+    @Test
+    void 'assert states are not stored after the service has been deactivated'() {
+        service.deactivate()
+
+        storeSamples(3)
+
+        assertThat folder.list().length, is(0)
+        assertThat service.query(new FilterCriteria().setItemName("Temperature")).toList().size(), is(0)
+    }
+
+    @Test
+    void 'assert all supported state types are restored'() {
+        def date = Calendar.getInstance()
+        def states = [
+            new DecimalType("-3.75"),
+            new PercentType(42),
+            OnOffType.ON,
+            OpenClosedType.CLOSED,
+            new DateTimeType(date),
+            new HSBType("120,100,50"),
+            new PointType("52.5,13.4"),
+            new StringType("some text"),
+            UnDefType.UNDEF
+        ]
+        states.eachWithIndex { state, i ->
+            service.store([
+                new PersistenceEntry(item, state, new Date(START + i), "alias")
+            ])
+        }
+
+        def result = service.query(new FilterCriteria().setItemName("alias").setOrdering(Ordering.ASCENDING))
+                .toList()
+
+        assertThat result*.state*.getClass(), is(states*.getClass())
+        // a point type does not implement equals
+        assertThat result.findAll { !(it.state instanceof PointType) }*.state, is(states.findAll {
+            !(it instanceof PointType)
+        })
+        assertThat result[6].state.toString(), is("52.5,13.4")
+        assertThat service.query(new FilterCriteria().setItemName("Temperature")).toList().size(), is(0)
+    }
+
+    @Test
+    void 'assert aggregates are computed over the time range'() {
+        storeSamples(2 * TimeSeries.CHUNK_SIZE + 10)
+
+        def filter = new FilterCriteria().setItemName("Temperature").setBeginDate(new Date(START + 1020 * INTERVAL))
+                .setEndDate(new Date(START + 1029 * INTERVAL))
+
+        def minimum = service.aggregate(filter, AggregateFunction.MINIMUM)
+        assertThat minimum.state, is(new DecimalType("22"))
+        assertThat minimum.timestamp, is(new Date(START + 1020 * INTERVAL))
+
+        def maximum = service.aggregate(filter, AggregateFunction.MAXIMUM)
+        assertThat maximum.state, is(new DecimalType("22.9"))
+        assertThat maximum.timestamp, is(new Date(START + 1029 * INTERVAL))
+
+        assertThat service.aggregate(filter, AggregateFunction.COUNT).state, is(new DecimalType(10))
+        assertEquals(224.5, service.aggregate(filter, AggregateFunction.SUM).state.doubleValue(), 0.001)
+        // the first state of the range is also the state at its begin
+        assertThat service.aggregate(filter, AggregateFunction.CHANGES).state, is(new DecimalType(9))
+
+        filter.setBeginDate(new Date(START + 10000 * INTERVAL)).setEndDate(null)
+        assertThat service.aggregate(filter, AggregateFunction.COUNT), is(nullValue())
+    }
+
+    @Test
+    void 'assert only changes of the state are counted'() {
+        [1, 1, 2, 2, 2, 1].eachWithIndex { value, i ->
+            service.store([
+                new PersistenceEntry(item, new DecimalType(value), new Date(START + i * INTERVAL), null)
+            ])
+        }
+
+        def filter = new FilterCriteria().setItemName("Temperature").setBeginDate(new Date(START + INTERVAL))
+        assertThat service.aggregate(filter, AggregateFunction.CHANGES).state, is(new DecimalType(2))
+
+        filter.setBeginDate(new Date(START + INTERVAL.intdiv(2)))
+        assertThat service.aggregate(filter, AggregateFunction.CHANGES).state, is(new DecimalType(2))
+
+        filter.setBeginDate(null)
+        assertThat service.aggregate(filter, AggregateFunction.CHANGES).state, is(new DecimalType(3))
+    }
+
+    @Test
+    void 'assert states of all items are merged if no item name is given'() {
+        storeSamples(3)
+        service.store([
+            new PersistenceEntry(new NumberItem("Humidity"), new DecimalType(60), new Date(START + INTERVAL + 1), null)
+        ])
+
+        def result = service.query(new FilterCriteria().setPageSize(2)).toList()
+
+        assertThat result*.name, is(["Temperature", "Humidity"])
+    }
+}
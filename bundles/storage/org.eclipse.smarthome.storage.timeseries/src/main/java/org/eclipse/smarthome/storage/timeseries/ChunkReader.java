@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.storage.timeseries;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * The {@link ChunkReader} decodes the payload of a chunk, which has been encoded by a {@link ChunkWriter}. The
+ * timestamps and raw values are decoded into arrays, the states are only created for the samples which are requested
+ * by {@link #getState(int)}.
+ */
+class ChunkReader {
+
+    private int count = 0;
+
+    private long[] timestamps = new long[0];
+
+    private StateType[] types = new StateType[0];
+
+    private double[] values = new double[0];
+
+    private String[] texts = new String[0];
+
+    /**
+     * Decodes a chunk.
+     *
+     * @param payload the payload of the chunk, starting at the current position
+     * @param count the number of samples in the chunk
+     * @param firstTimestamp the timestamp of the first sample
+     */
+    void read(ByteBuffer payload, int count, long firstTimestamp) {
+        if (timestamps.length < count) {
+            timestamps = new long[count];
+            types = new StateType[count];
+            values = new double[count];
+            texts = new String[count];
+        }
+        this.count = count;
+
+        long timestamp = firstTimestamp;
+        long delta = 0;
+        long bits = 0;
+        for (int i = 0; i < count; i++) {
+            StateType type = StateType.fromCode(payload.get());
+            if (i > 0) {
+                delta += readSignedVarLong(payload);
+                timestamp += delta;
+            }
+            timestamps[i] = timestamp;
+            types[i] = type;
+            texts[i] = null;
+            if (type.isNumeric()) {
+                long shift = readVarLong(payload);
+                if (shift != 0) {
+                    bits ^= readVarLong(payload) << (shift - 1);
+                }
+                values[i] = Double.longBitsToDouble(bits);
+            } else if (type.isText()) {
+                byte[] bytes = new byte[(int) readVarLong(payload)];
+                payload.get(bytes);
+                texts[i] = new String(bytes, ChunkWriter.UTF_8);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of decoded samples.
+     *
+     * @return the count
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the timestamp of a decoded sample.
+     *
+     * @param index the index of the sample
+     * @return the timestamp
+     */
+    long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * Returns the state of a decoded sample.
+     *
+     * @param index the index of the sample
+     * @return the state
+     */
+    State getState(int index) {
+        return types[index].toState(values[index], texts[index]);
+    }
+
+    /**
+     * Returns the type of a decoded sample.
+     *
+     * @param index the index of the sample
+     * @return the state type
+     */
+    StateType getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Returns the value of a decoded sample of a numeric type.
+     *
+     * @param index the index of the sample
+     * @return the value
+     */
+    double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the text of a decoded sample of a text type.
+     *
+     * @param index the index of the sample
+     * @return the text or null for other types
+     */
+    String getText(int index) {
+        return texts[index];
+    }
+
+    /**
+     * Returns the value of a decoded sample, whose state is a {@link DecimalType}.
+     *
+     * @param index the index of the sample
+     * @return the value or {@link Double#NaN}, if the state is no {@link DecimalType}
+     */
+    double getDecimalValue(int index) {
+        switch (types[index]) {
+            case DECIMAL:
+            case PERCENT:
+                return values[index];
+            case HSB:
+                return ((DecimalType) getState(index)).doubleValue();
+            default:
+                return Double.NaN;
+        }
+    }
+
+    private static long readSignedVarLong(ByteBuffer buffer) {
+        long value = readVarLong(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.storage.timeseries;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * The {@link ChunkWriter} encodes the samples of a time series into a chunk. Every sample is encoded by the code of its
+ * {@link StateType}, followed by the delta of its timestamp delta (the delta-of-delta) and its value.
+ * <p>
+ * Values of numeric types are encoded as XOR of their bits with the bits of the previous numeric value, so that repeated
+ * values take a single byte and slowly changing values only take the bytes of the changed bits. Values of text types
+ * are encoded as UTF-8. All numbers are written as variable-length integers, so that a chunk does not need to be
+ * decoded bit by bit.
+ * </p>
+ * <p>
+ * A written chunk consists of a header (payload length, sample count, first and last timestamp) and the payload, see
+ * {@link ChunkReader}.
+ * </p>
+ */
+class ChunkWriter {
+
+    /** the size of the chunk header: payload length, count, first and last timestamp */
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private byte[] payload = new byte[256];
+
+    private int length = 0;
+
+    private int count = 0;
+
+    private long firstTimestamp;
+
+    private long lastTimestamp;
+
+    private long lastDelta;
+
+    private long lastBits;
+
+    /**
+     * Appends a sample to the chunk.
+     *
+     * @param timestamp the timestamp, which must not be older than the last timestamp
+     * @param type the state type
+     * @param value the value of a numeric type
+     * @param text the text of a text type
+     */
+    void append(long timestamp, StateType type, double value, String text) {
+        writeByte(type.getCode());
+        if (count == 0) {
+            firstTimestamp = timestamp;
+            lastDelta = 0;
+        } else {
+            long delta = timestamp - lastTimestamp;
+            writeSignedVarLong(delta - lastDelta);
+            lastDelta = delta;
+        }
+        lastTimestamp = timestamp;
+        count++;
+
+        if (type.isNumeric()) {
+            long bits = Double.doubleToRawLongBits(value);
+            long xor = bits ^ lastBits;
+            lastBits = bits;
+            if (xor == 0) {
+                writeVarLong(0);
+            } else {
+                int trailingZeros = Long.numberOfTrailingZeros(xor);
+                writeVarLong(trailingZeros + 1);
+                writeVarLong(xor >>> trailingZeros);
+            }
+        } else if (type.isText()) {
+            byte[] bytes = text.getBytes(UTF_8);
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, payload, length, bytes.length);
+            length += bytes.length;
+        }
+    }
+
+    /**
+     * Returns the number of samples in the chunk.
+     *
+     * @return the count
+     */
+    int getCount() {
+        return count;
+    }
+
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * Returns the payload of the chunk for decoding by a {@link ChunkReader}.
+     *
+     * @return the payload (shares the content of this writer)
+     */
+    ByteBuffer getPayload() {
+        return ByteBuffer.wrap(payload, 0, length).slice();
+    }
+
+    /**
+     * Returns the header and the payload of the chunk.
+     *
+     * @return the encoded chunk
+     */
+    ByteBuffer toByteBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + length);
+        buffer.putInt(length).putInt(count).putLong(firstTimestamp).putLong(lastTimestamp);
+        buffer.put(payload, 0, length);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Removes all samples from the chunk.
+     */
+    void reset() {
+        length = 0;
+        count = 0;
+        lastBits = 0;
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        payload[length++] = (byte) b;
+    }
+
+    private void writeSignedVarLong(long value) {
+        // zig-zag encoding to keep small negative numbers short
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            payload[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        payload[length++] = (byte) value;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (length + bytes > payload.length) {
+            payload = Arrays.copyOf(payload, Math.max(payload.length * 2, length + bytes));
+        }
+    }
+
+}
@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.storage.timeseries;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+
+import org.eclipse.smarthome.core.library.types.DateTimeType;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.OpenClosedType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.library.types.PointType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.library.types.UpDownType;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.UnDefType;
+
+/**
+ * The {@link StateType} defines how the states of a type are encoded in a time series. Numeric states are stored as
+ * double values (see {@link #toDouble(State)}), all other states as text (see {@link #toText(State)}). States of
+ * unknown types are stored as {@link StringType}.
+ * <p>
+ * Every state type is identified by an explicit code in the time series files, so the codes must never be changed or
+ * reused.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+enum StateType {
+
+    DECIMAL(0, true) {
+        @Override
+        double toDouble(State state) {
+            return ((DecimalType) state).doubleValue();
+        }
+
+        @Override
+        State toState(double value, String text) {
+            return new DecimalType(BigDecimal.valueOf(value));
+        }
+    },
+
+    PERCENT(1, true) {
+        @Override
+        double toDouble(State state) {
+            return ((PercentType) state).doubleValue();
+        }
+
+        @Override
+        State toState(double value, String text) {
+            return new PercentType(BigDecimal.valueOf(value));
+        }
+    },
+
+    ON_OFF(2, true) {
+        @Override
+        double toDouble(State state) {
+            return state == OnOffType.ON ? 1 : 0;
+        }
+
+        @Override
+        State toState(double value, String text) {
+            return value != 0 ? OnOffType.ON : OnOffType.OFF;
+        }
+    },
+
+    OPEN_CLOSED(3, true) {
+        @Override
+        double toDouble(State state) {
+            return state == OpenClosedType.OPEN ? 1 : 0;
+        }
+
+        @Override
+        State toState(double value, String text) {
+            return value != 0 ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
+        }
+    },
+
+    UP_DOWN(4, true) {
+        @Override
+        double toDouble(State state) {
+            return state == UpDownType.DOWN ? 1 : 0;
+        }
+
+        @Override
+        State toState(double value, String text) {
+            return value != 0 ? UpDownType.DOWN : UpDownType.UP;
+        }
+    },
+
+    DATE_TIME(5, true) {
+        @Override
+        double toDouble(State state) {
+            return ((DateTimeType) state).getCalendar().getTimeInMillis();
+        }
+
+        @Override
+        State toState(double value, String text) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis((long) value);
+            return new DateTimeType(calendar);
+        }
+    },
+
+    HSB(6, false) {
+        @Override
+        State toState(double value, String text) {
+            return new HSBType(text);
+        }
+    },
+
+    POINT(7, false) {
+        @Override
+        State toState(double value, String text) {
+            return new PointType(text);
+        }
+    },
+
+    STRING(8, false) {
+        @Override
+        State toState(double value, String text) {
+            return new StringType(text);
+        }
+    },
+
+    UNDEF(9, false) {
+        @Override
+        State toState(double value, String text) {
+            return UnDefType.UNDEF;
+        }
+    };
+
+    private static final StateType[] TYPES;
+
+    static {
+        int maxCode = 0;
+        for (StateType type : values()) {
+            maxCode = Math.max(maxCode, type.code);
+        }
+        TYPES = new StateType[maxCode + 1];
+        for (StateType type : values()) {
+            TYPES[type.code] = type;
+        }
+    }
+
+    private final int code;
+
+    private final boolean numeric;
+
+    private StateType(int code, boolean numeric) {
+        this.code = code;
+        this.numeric = numeric;
+    }
+
+    /**
+     * Returns the state type for the given state.
+     *
+     * @param state the state (must not be {@link UnDefType#NULL})
+     * @return the state type
+     */
+    static StateType of(State state) {
+        // check subclasses first
+        if (state instanceof HSBType) {
+            return HSB;
+        } else if (state instanceof PercentType) {
+            return PERCENT;
+        } else if (state instanceof DecimalType) {
+            return DECIMAL;
+        } else if (state instanceof OnOffType) {
+            return ON_OFF;
+        } else if (state instanceof OpenClosedType) {
+            return OPEN_CLOSED;
+        } else if (state instanceof UpDownType) {
+            return UP_DOWN;
+        } else if (state instanceof DateTimeType) {
+            return DATE_TIME;
+        } else if (state instanceof PointType) {
+            return POINT;
+        } else if (state instanceof UnDefType) {
+            return UNDEF;
+        } else {
+            return STRING;
+        }
+    }
+
+    /**
+     * Returns the state type for the code written by {@link #getCode()}.
+     *
+     * @param code the code
+     * @return the state type
+     * @throws IllegalArgumentException if the code is unknown
+     */
+    static StateType fromCode(int code) {
+        if (code < 0 || code >= TYPES.length || TYPES[code] == null) {
+            throw new IllegalArgumentException("Unknown state type " + code);
+        }
+        return TYPES[code];
+    }
+
+    /**
+     * Returns the code, which identifies the state type in a time series.
+     *
+     * @return the code
+     */
+    int getCode() {
+        return code;
+    }
+
+    /**
+     * Returns true, if the states of this type are stored as double values.
+     *
+     * @return true for numeric types
+     */
+    boolean isNumeric() {
+        return numeric;
+    }
+
+    /**
+     * Returns true, if the states of this type are stored as text.
+     *
+     * @return true for text types
+     */
+    boolean isText() {
+        return this == HSB || this == POINT || this == STRING;
+    }
+
+    /**
+     * Converts a state of this numeric type into a double value.
+     *
+     * @param state the state
+     * @return the value
+     */
+    double toDouble(State state) {
+        throw new UnsupportedOperationException(name() + " is not numeric");
+    }
+
+    /**
+     * Converts a state of this type into text.
+     *
+     * @param state the state
+     * @return the text
+     */
+    String toText(State state) {
+        return state.toString();
+    }
+
+    /**
+     * Converts a stored value back into a state of this type.
+     *
+     * @param value the value of a numeric type
+     * @param text the text of a text type
+     * @return the state
+     */
+    abstract State toState(double value, String text);
+
+}
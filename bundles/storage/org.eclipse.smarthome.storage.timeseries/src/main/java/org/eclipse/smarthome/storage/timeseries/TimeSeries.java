@@ -0,0 +1,617 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.storage.timeseries;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.AggregatingPersistenceService.AggregateFunction;
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.types.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link TimeSeries} holds the persisted states of a single item (or alias) in an append-only file of chunks. New
+ * samples are encoded into an in-memory head chunk by a {@link ChunkWriter}, which is appended to the file when it is
+ * full.
+ * <p>
+ * Until then, the head chunk is made durable by {@link #flush()}, which rewrites it into a small sidecar file. The
+ * sidecar file records the size of the series file, which the head chunk follows, so a head chunk which has been
+ * sealed already is not restored twice.
+ * </p>
+ * <p>
+ * The sealed chunks are read from memory-mapped regions of the file. As the file is append-only, a region never
+ * changes after it has been completed. The chunks after the last completed region are read from a mapping, which is
+ * extended when a query needs a chunk that has been sealed after the mapping has been created.
+ * </p>
+ * <p>
+ * The timestamps of the samples are never decreasing, so a query only decodes the chunks which overlap the requested
+ * time range and stops decoding, as soon as the requested page is complete.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+class TimeSeries {
+
+    /** the maximum number of samples in a chunk */
+    static final int CHUNK_SIZE = 1024;
+
+    private static final int MAGIC = 0x45534854;
+
+    private static final int VERSION = 1;
+
+    private static final int FILE_HEADER_SIZE = 8;
+
+    /** the size of the sidecar header: the size of the series file, which the head chunk follows */
+    private static final int HEAD_FILE_HEADER_SIZE = 8;
+
+    /** the extension of the sidecar file, which holds the head chunk */
+    static final String HEAD_FILE_EXTENSION = ".head";
+
+    /** the minimum size of a completed region of sealed chunks */
+    static final int REGION_SIZE = 64 * 1024 * 1024;
+
+    private final Logger logger = LoggerFactory.getLogger(TimeSeries.class);
+
+    private final String name;
+
+    private final RandomAccessFile file;
+
+    private final FileChannel channel;
+
+    private final File headFile;
+
+    private final int regionSize;
+
+    /** the sealed chunks in the order of their timestamps */
+    private final List<ChunkInfo> chunks = new ArrayList<>();
+
+    private final ChunkWriter head = new ChunkWriter();
+
+    private final ChunkReader reader = new ChunkReader();
+
+    /** the size of the file, which is covered by sealed chunks */
+    private long size;
+
+    /** the offset of the first chunk and the index of the first chunk, which are not part of a region yet */
+    private long tailOffset = FILE_HEADER_SIZE;
+
+    private int tailIndex = 0;
+
+    /** the mapping of the chunks, which are not part of a region yet, starting at the tail offset */
+    private MappedByteBuffer tailMapping;
+
+    /** whether the head chunk has changed since it has been written to the sidecar file */
+    private boolean headChanged = false;
+
+    private boolean closed = false;
+
+    /**
+     * Opens a time series file. A new file is created, if it does not exist.
+     *
+     * @param name the name of the series
+     * @param file the file of the series
+     * @throws IOException if the file cannot be opened or is no time series file
+     */
+    TimeSeries(String name, File file) throws IOException {
+        this(name, file, REGION_SIZE);
+    }
+
+    /**
+     * Opens a time series file, whose chunks are grouped into regions of the given size.
+     *
+     * @param name the name of the series
+     * @param file the file of the series
+     * @param regionSize the minimum size of a completed region
+     * @throws IOException if the file cannot be opened or is no time series file
+     */
+    TimeSeries(String name, File file, int regionSize) throws IOException {
+        this.name = name;
+        this.regionSize = regionSize;
+        this.headFile = new File(file.getPath() + HEAD_FILE_EXTENSION);
+        this.file = new RandomAccessFile(file, "rw");
+        this.channel = this.file.getChannel();
+        try {
+            open(file.getPath());
+            restoreHead();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void open(String path) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < FILE_HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            writeFully(header, 0);
+            channel.truncate(FILE_HEADER_SIZE);
+            size = FILE_HEADER_SIZE;
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(ChunkWriter.HEADER_SIZE);
+        header.limit(FILE_HEADER_SIZE);
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("'" + path + "' is no time series file.");
+        }
+        long position = FILE_HEADER_SIZE;
+        while (position + ChunkWriter.HEADER_SIZE <= fileSize) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            int count = header.getInt(4);
+            if (length < 0 || count <= 0 || position + ChunkWriter.HEADER_SIZE + length > fileSize) {
+                break;
+            }
+            chunks.add(new ChunkInfo(position, length, count, header.getLong(8), header.getLong(16)));
+            position += ChunkWriter.HEADER_SIZE + length;
+            size = position;
+            completeRegion();
+        }
+        if (position < fileSize) {
+            // the last chunk has not been written completely
+            logger.warn("Discarding {} bytes of an incomplete chunk at the end of '{}'.", fileSize - position, path);
+            channel.truncate(position);
+        }
+        size = position;
+    }
+
+    /**
+     * Restores the head chunk from the sidecar file, unless it has been sealed already.
+     */
+    private void restoreHead() throws IOException {
+        if (!headFile.exists()) {
+            return;
+        }
+        ByteBuffer content;
+        try (RandomAccessFile headRandomAccessFile = new RandomAccessFile(headFile, "r")) {
+            long length = headRandomAccessFile.length();
+            if (length < HEAD_FILE_HEADER_SIZE + ChunkWriter.HEADER_SIZE) {
+                return;
+            }
+            content = ByteBuffer.allocate((int) Math.min(length, Integer.MAX_VALUE));
+            FileChannel headChannel = headRandomAccessFile.getChannel();
+            while (content.hasRemaining() && headChannel.read(content) >= 0) {
+                // read the whole sidecar file
+            }
+            content.flip();
+        }
+
+        long base = content.getLong();
+        int length = content.getInt();
+        int count = content.getInt();
+        long firstTimestamp = content.getLong();
+        content.getLong();
+        if (base != size) {
+            // the head chunk has been sealed before the sidecar file could be truncated
+            return;
+        }
+        if (length < 0 || count <= 0 || content.remaining() < length) {
+            logger.warn("Discarding the incomplete head chunk of '{}'.", headFile.getPath());
+            return;
+        }
+        content.limit(content.position() + length);
+        reader.read(content.slice(), count, firstTimestamp);
+        for (int i = 0; i < count; i++) {
+            head.append(reader.getTimestamp(i), reader.getType(i), reader.getValue(i), reader.getText(i));
+        }
+    }
+
+    /**
+     * Returns the name of this series.
+     *
+     * @return the name
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Appends a state to this series. As the series is append-only, a timestamp older than the last timestamp is
+     * replaced by the last timestamp.
+     *
+     * @param timestamp the timestamp of the state
+     * @param state the state
+     * @throws IOException if the chunk could not be written
+     */
+    synchronized void append(long timestamp, State state) throws IOException {
+        if (closed) {
+            throw new IOException("Time series '" + name + "' has been closed.");
+        }
+        long lastTimestamp = getLastTimestamp();
+        if (timestamp < lastTimestamp) {
+            logger.trace("Storing state of '{}' from {} at {}.", name, timestamp, lastTimestamp);
+            timestamp = lastTimestamp;
+        }
+        StateType type = StateType.of(state);
+        head.append(timestamp, type, type.isNumeric() ? type.toDouble(state) : 0,
+                type.isText() ? type.toText(state) : null);
+        headChanged = true;
+        if (head.getCount() >= CHUNK_SIZE) {
+            seal();
+        }
+    }
+
+    private long getLastTimestamp() {
+        if (head.getCount() > 0) {
+            return head.getLastTimestamp();
+        } else if (!chunks.isEmpty()) {
+            return chunks.get(chunks.size() - 1).lastTimestamp;
+        } else {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Appends the head chunk to the file. This is done, as soon as the head chunk is full, so that the chunks are
+     * large enough to be compressed well.
+     *
+     * @throws IOException if the chunk could not be written
+     */
+    synchronized void seal() throws IOException {
+        if (head.getCount() == 0) {
+            return;
+        }
+        ByteBuffer chunk = head.toByteBuffer();
+        writeFully(chunk, size);
+        chunks.add(new ChunkInfo(size, chunk.limit() - ChunkWriter.HEADER_SIZE, head.getCount(), head
+                .getFirstTimestamp(), head.getLastTimestamp()));
+        size += chunk.limit();
+        head.reset();
+        completeRegion();
+        // the sealed samples are now part of the file
+        headChanged = true;
+        flush();
+    }
+
+    /**
+     * Groups the chunks, which are not part of a region yet, into a new region, if they exceed the region size.
+     */
+    private void completeRegion() {
+        if (size - tailOffset >= regionSize) {
+            Region region = new Region(tailOffset, (int) (size - tailOffset));
+            if (tailMapping != null && tailMapping.capacity() == region.length) {
+                region.buffer = tailMapping;
+            }
+            for (int i = tailIndex; i < chunks.size(); i++) {
+                chunks.get(i).region = region;
+            }
+            tailOffset = size;
+            tailIndex = chunks.size();
+            tailMapping = null;
+        }
+    }
+
+    /**
+     * Writes the head chunk to the sidecar file, if it has changed. The payload is written before the header, and
+     * the payload of the head chunk only grows until it is sealed, so an interrupted write leaves a consistent head
+     * chunk behind.
+     *
+     * @throws IOException if the sidecar file could not be written
+     */
+    synchronized void flush() throws IOException {
+        if (!headChanged || closed) {
+            return;
+        }
+        try (RandomAccessFile headRandomAccessFile = new RandomAccessFile(headFile, "rw")) {
+            FileChannel headChannel = headRandomAccessFile.getChannel();
+            if (head.getCount() == 0) {
+                headChannel.truncate(0);
+            } else {
+                ByteBuffer chunk = head.toByteBuffer();
+                chunk.position(ChunkWriter.HEADER_SIZE);
+                writeFully(headChannel, chunk, HEAD_FILE_HEADER_SIZE + ChunkWriter.HEADER_SIZE);
+                ByteBuffer header = ByteBuffer.allocate(HEAD_FILE_HEADER_SIZE + ChunkWriter.HEADER_SIZE);
+                header.putLong(size);
+                chunk.position(0).limit(ChunkWriter.HEADER_SIZE);
+                header.put(chunk);
+                header.flip();
+                writeFully(headChannel, header, 0);
+                headChannel.truncate(HEAD_FILE_HEADER_SIZE + chunk.capacity());
+            }
+        }
+        headChanged = false;
+    }
+
+    /**
+     * Writes the head chunk to the sidecar file and closes the file.
+     *
+     * @throws IOException if the head chunk could not be written
+     */
+    synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            // the mappings are released, as soon as the regions are garbage collected
+            chunks.clear();
+            tailMapping = null;
+            file.close();
+        }
+    }
+
+    /**
+     * Adds the states which match the given filter to the result. The item name and the paging of the filter are not
+     * regarded.
+     *
+     * @param filter the filter
+     * @param skip the number of matching states to skip
+     * @param limit the maximum number of states to add
+     * @param result the result
+     * @throws IOException if the file cannot be read
+     */
+    synchronized void query(FilterCriteria filter, long skip, int limit, List<HistoricItem> result)
+            throws IOException {
+        if (limit <= 0) {
+            return;
+        }
+        long begin = filter.getBeginDate() != null ? filter.getBeginDate().getTime() : Long.MIN_VALUE;
+        long end = filter.getEndDate() != null ? filter.getEndDate().getTime() : Long.MAX_VALUE;
+        boolean ascending = filter.getOrdering() == Ordering.ASCENDING;
+
+        // the range of chunks to decode, the head chunk has the index chunks.size()
+        int first = findFirstChunk(begin);
+        int last = chunks.size() - (head.getCount() > 0 ? 0 : 1);
+        int added = 0;
+        for (int i = ascending ? first : last; ascending ? i <= last : i >= first; i += ascending ? 1 : -1) {
+            if (getFirstTimestamp(i) > end) {
+                if (ascending) {
+                    break;
+                }
+                continue;
+            }
+            readChunk(i);
+
+            int count = reader.getCount();
+            for (int j = ascending ? 0 : count - 1; ascending ? j < count : j >= 0; j += ascending ? 1 : -1) {
+                long timestamp = reader.getTimestamp(j);
+                if (timestamp < begin || timestamp > end) {
+                    continue;
+                }
+                State state = reader.getState(j);
+                if (!TimeSeriesPersistenceService.matches(state, filter)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                result.add(new TimeSeriesHistoricItem(name, state, new Date(timestamp)));
+                if (++added >= limit) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes an aggregate of the states which match the given filter. The item name, the paging and the ordering of
+     * the filter are not regarded. The samples are decoded chunk by chunk, so only the result is created as a state.
+     *
+     * @param filter the filter
+     * @param function the aggregate function
+     * @return the aggregate or null, if no state has been regarded
+     * @throws IOException if the file cannot be read
+     */
+    synchronized HistoricItem aggregate(FilterCriteria filter, AggregateFunction function) throws IOException {
+        long begin = filter.getBeginDate() != null ? filter.getBeginDate().getTime() : Long.MIN_VALUE;
+        long end = filter.getEndDate() != null ? filter.getEndDate().getTime() : Long.MAX_VALUE;
+        boolean filterState = filter.getState() != null;
+
+        // changes also need the last sample before the time range, which may be in the preceding chunk
+        int first = findFirstChunk(begin);
+        if (function == AggregateFunction.CHANGES && first > 0) {
+            first--;
+        }
+        int last = chunks.size() - (head.getCount() > 0 ? 0 : 1);
+
+        long regarded = 0;
+        long count = 0;
+        long lastTimestamp = 0;
+        double sum = 0;
+        // the extremum or the previous sample for changes
+        boolean found = false;
+        StateType type = null;
+        double value = 0;
+        String text = null;
+        for (int i = first; i <= last && getFirstTimestamp(i) <= end; i++) {
+            readChunk(i);
+            for (int j = 0; j < reader.getCount(); j++) {
+                long timestamp = reader.getTimestamp(j);
+                if (timestamp > end) {
+                    break;
+                }
+                if (function == AggregateFunction.CHANGES && timestamp <= begin) {
+                    found = true;
+                    type = reader.getType(j);
+                    value = reader.getValue(j);
+                    text = reader.getText(j);
+                }
+                if (timestamp < begin || filterState
+                        && !TimeSeriesPersistenceService.matches(reader.getState(j), filter)) {
+                    continue;
+                }
+
+                if (function == AggregateFunction.CHANGES) {
+                    regarded++;
+                    if (!found || reader.getType(j) != type
+                            || Double.doubleToLongBits(reader.getValue(j)) != Double.doubleToLongBits(value)
+                            || (text == null ? reader.getText(j) != null : !text.equals(reader.getText(j)))) {
+                        count++;
+                    }
+                    found = true;
+                    type = reader.getType(j);
+                    value = reader.getValue(j);
+                    text = reader.getText(j);
+                    lastTimestamp = timestamp;
+                    continue;
+                }
+
+                double decimal = reader.getDecimalValue(j);
+                if (Double.isNaN(decimal)) {
+                    continue;
+                }
+                regarded++;
+                count++;
+                sum += decimal;
+                if (function != AggregateFunction.MINIMUM && function != AggregateFunction.MAXIMUM) {
+                    lastTimestamp = timestamp;
+                } else if (!found || function == AggregateFunction.MINIMUM && decimal < value
+                        || function == AggregateFunction.MAXIMUM && decimal > value) {
+                    found = true;
+                    type = reader.getType(j);
+                    value = decimal;
+                    text = reader.getText(j);
+                    lastTimestamp = timestamp;
+                }
+            }
+        }
+
+        if (regarded == 0) {
+            return null;
+        }
+        switch (function) {
+            case MINIMUM:
+            case MAXIMUM:
+                return new TimeSeriesHistoricItem(name, type.toState(value, text), new Date(lastTimestamp));
+            case SUM:
+                return new TimeSeriesHistoricItem(name, new DecimalType(sum), new Date(lastTimestamp));
+            default:
+                return new TimeSeriesHistoricItem(name, new DecimalType(count), new Date(lastTimestamp));
+        }
+    }
+
+    /**
+     * Decodes a sealed chunk or the head chunk, which has the index <code>chunks.size()</code>.
+     */
+    private void readChunk(int index) throws IOException {
+        if (index < chunks.size()) {
+            ChunkInfo chunk = chunks.get(index);
+            ByteBuffer payload;
+            long offset;
+            if (chunk.region != null) {
+                payload = chunk.region.getBuffer().duplicate();
+                offset = chunk.region.offset;
+            } else {
+                if (tailMapping == null
+                        || chunk.offset + ChunkWriter.HEADER_SIZE + chunk.length > tailOffset + tailMapping.capacity()) {
+                    // the mapping is extended to all chunks, which have been sealed so far
+                    tailMapping = channel.map(MapMode.READ_ONLY, tailOffset, size - tailOffset);
+                }
+                payload = tailMapping.duplicate();
+                offset = tailOffset;
+            }
+            int position = (int) (chunk.offset - offset) + ChunkWriter.HEADER_SIZE;
+            payload.position(position);
+            payload.limit(position + chunk.length);
+            reader.read(payload.slice(), chunk.count, chunk.firstTimestamp);
+        } else {
+            reader.read(head.getPayload(), head.getCount(), head.getFirstTimestamp());
+        }
+    }
+
+    private long getFirstTimestamp(int index) {
+        return index < chunks.size() ? chunks.get(index).firstTimestamp : head.getFirstTimestamp();
+    }
+
+    /**
+     * Returns the index of the first chunk, which contains samples not older than the given timestamp.
+     */
+    private int findFirstChunk(long timestamp) {
+        int low = 0;
+        int high = chunks.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (chunks.get(middle).lastTimestamp < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        writeFully(channel, buffer, position);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of time series '" + name + "'.");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * A completed region of the file, which is mapped when one of its chunks is read first.
+     */
+    private class Region {
+        private final long offset;
+        private final int length;
+        private MappedByteBuffer buffer;
+
+        private Region(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private MappedByteBuffer getBuffer() throws IOException {
+            if (buffer == null) {
+                buffer = channel.map(MapMode.READ_ONLY, offset, length);
+            }
+            return buffer;
+        }
+    }
+
+    private static class ChunkInfo {
+        private final long offset;
+        private final int length;
+        private final int count;
+        private final long firstTimestamp;
+        private final long lastTimestamp;
+        /** the region of the chunk or null, if the chunk is not part of a region yet */
+        private Region region;
+
+        private ChunkInfo(long offset, int length, int count, long firstTimestamp, long lastTimestamp) {
+            this.offset = offset;
+            this.length = length;
+            this.count = count;
+            this.firstTimestamp = firstTimestamp;
+            this.lastTimestamp = lastTimestamp;
+        }
+    }
+
+}
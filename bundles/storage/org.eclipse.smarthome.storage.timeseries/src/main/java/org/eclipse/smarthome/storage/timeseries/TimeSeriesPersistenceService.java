@@ -0,0 +1,306 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.storage.timeseries;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.AggregatingPersistenceService;
+import org.eclipse.smarthome.core.persistence.BatchPersistenceService;
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.persistence.PersistenceEntry;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.UnDefType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This implementation of {@link AggregatingPersistenceService} stores the states of every item in an embedded
+ * {@link TimeSeries} file below the user data folder, so that no external database is required. The states are
+ * stored in compressed chunks and queries only decode the chunks of the requested time range. Aggregates are computed
+ * while decoding, without creating a historic item for every state.
+ * <p>
+ * Numeric states are stored as double values, so decimal values are restored with double precision. A chunk is only
+ * appended to a series file, when it is full. Until then, the head chunks of all series are written to sidecar files
+ * every minute and when the service is deactivated. States, which are stored after the service has been deactivated,
+ * are ignored.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+public class TimeSeriesPersistenceService implements AggregatingPersistenceService, BatchPersistenceService {
+
+    private static final String SERVICE_NAME = "timeseries";
+
+    /** the name of the folder below the user data folder, which holds the time series files */
+    private static final String FOLDER_NAME = "timeseries";
+
+    private static final String FILE_EXTENSION = ".ts";
+
+    private static final String THREAD_POOL_NAME = "persistence";
+
+    /** the interval, in which the head chunks are written to their sidecar files, in seconds */
+    private static final long FLUSH_INTERVAL = 60;
+
+    private final Logger logger = LoggerFactory.getLogger(TimeSeriesPersistenceService.class);
+
+    private final Map<String, TimeSeries> series = new ConcurrentHashMap<>();
+
+    private volatile File folder;
+
+    private ScheduledFuture<?> flushJob;
+
+    public void activate() {
+        activate(new File(ConfigConstants.getUserDataFolder(), FOLDER_NAME));
+    }
+
+    /* default */void activate(File folder) {
+        this.folder = folder;
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        flushJob = ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME).scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.SECONDS);
+        logger.debug("Opened time series folder at '{}'.", folder.getAbsolutePath());
+    }
+
+    public void deactivate() {
+        if (flushJob != null) {
+            flushJob.cancel(false);
+            flushJob = null;
+        }
+        synchronized (series) {
+            // no series must be opened anymore
+            folder = null;
+            for (TimeSeries timeSeries : series.values()) {
+                try {
+                    timeSeries.close();
+                } catch (IOException e) {
+                    logger.error("Failed to close time series '{}': {}", timeSeries.getName(), e.getMessage());
+                }
+            }
+            series.clear();
+        }
+        logger.debug("Deactivated time series persistence service.");
+    }
+
+    @Override
+    public String getName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void store(Item item) {
+        store(item, null);
+    }
+
+    @Override
+    public void store(Item item, String alias) {
+        store(alias != null ? alias : item.getName(), System.currentTimeMillis(), item.getState());
+    }
+
+    @Override
+    public void store(List<PersistenceEntry> entries) {
+        for (PersistenceEntry entry : entries) {
+            String name = entry.getAlias() != null ? entry.getAlias() : entry.getItem().getName();
+            store(name, entry.getTimestamp().getTime(), entry.getState());
+        }
+    }
+
+    private void store(String name, long timestamp, State state) {
+        if (state == null || state == UnDefType.NULL) {
+            return;
+        }
+        try {
+            TimeSeries timeSeries = getSeries(name, true);
+            if (timeSeries != null) {
+                timeSeries.append(timestamp, state);
+            } else {
+                logger.debug("Ignoring state of '{}', as the service has been deactivated.", name);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to store state of '{}': {}", name, e.getMessage());
+        }
+    }
+
+    @Override
+    public Iterable<HistoricItem> query(FilterCriteria filter) {
+        long offset = (long) filter.getPageNumber() * filter.getPageSize();
+        int pageSize = filter.getPageSize();
+        List<HistoricItem> result = new ArrayList<>();
+        try {
+            if (filter.getItemName() != null) {
+                TimeSeries timeSeries = getSeries(filter.getItemName(), false);
+                if (timeSeries != null) {
+                    timeSeries.query(filter, offset, pageSize, result);
+                }
+                return result;
+            }
+
+            // query all series and merge them by their timestamps
+            int limit = (int) Math.min(offset + pageSize, Integer.MAX_VALUE);
+            for (String name : getSeriesNames()) {
+                TimeSeries timeSeries = getSeries(name, false);
+                if (timeSeries != null) {
+                    timeSeries.query(filter, 0, limit, result);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to query time series: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+        final boolean ascending = filter.getOrdering() == Ordering.ASCENDING;
+        Collections.sort(result, new Comparator<HistoricItem>() {
+            @Override
+            public int compare(HistoricItem item1, HistoricItem item2) {
+                int result = item1.getTimestamp().compareTo(item2.getTimestamp());
+                return ascending ? result : -result;
+            }
+        });
+        if (offset >= result.size()) {
+            return Collections.emptyList();
+        }
+        return result.subList((int) offset, (int) Math.min(offset + pageSize, result.size()));
+    }
+
+    @Override
+    public HistoricItem aggregate(FilterCriteria filter, AggregateFunction function) {
+        if (filter.getItemName() == null) {
+            throw new IllegalArgumentException("The item name of the filter must be set.");
+        }
+        try {
+            TimeSeries timeSeries = getSeries(filter.getItemName(), false);
+            return timeSeries != null ? timeSeries.aggregate(filter, function) : null;
+        } catch (IOException e) {
+            logger.error("Failed to aggregate time series '{}': {}", filter.getItemName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the head chunks of all series to their sidecar files.
+     */
+    void flush() {
+        for (TimeSeries timeSeries : series.values()) {
+            try {
+                timeSeries.flush();
+            } catch (IOException e) {
+                logger.error("Failed to write time series '{}': {}", timeSeries.getName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks if a state matches the state and the operator of the filter.
+     *
+     * @param state the state
+     * @param filter the filter
+     * @return true, if the state matches or the filter does not define a state
+     */
+    static boolean matches(State state, FilterCriteria filter) {
+        State filterState = filter.getState();
+        if (filterState == null) {
+            return true;
+        }
+        switch (filter.getOperator()) {
+            case EQ:
+                return state.equals(filterState);
+            case NEQ:
+                return !state.equals(filterState);
+            default:
+                if (!(state instanceof DecimalType) || !(filterState instanceof DecimalType)) {
+                    return false;
+                }
+                int comparison = ((DecimalType) state).compareTo((DecimalType) filterState);
+                switch (filter.getOperator()) {
+                    case GT:
+                        return comparison > 0;
+                    case LT:
+                        return comparison < 0;
+                    case GTE:
+                        return comparison >= 0;
+                    case LTE:
+                        return comparison <= 0;
+                    default:
+                        return false;
+                }
+        }
+    }
+
+    private TimeSeries getSeries(String name, boolean create) throws IOException {
+        TimeSeries timeSeries = series.get(name);
+        if (timeSeries == null) {
+            synchronized (series) {
+                timeSeries = series.get(name);
+                if (timeSeries == null && folder != null) {
+                    File file = new File(folder, toFileName(name));
+                    if (create || file.exists()) {
+                        timeSeries = new TimeSeries(name, file);
+                        series.put(name, timeSeries);
+                    }
+                }
+            }
+        }
+        return timeSeries;
+    }
+
+    private Set<String> getSeriesNames() {
+        Set<String> names = new TreeSet<>(series.keySet());
+        File currentFolder = folder;
+        File[] files = currentFolder != null ? currentFolder.listFiles() : null;
+        if (files != null) {
+            for (File file : files) {
+                String fileName = file.getName();
+                if (fileName.endsWith(FILE_EXTENSION)) {
+                    names.add(fromFileName(fileName));
+                }
+            }
+        }
+        return names;
+    }
+
+    private static String toFileName(String name) {
+        try {
+            return URLEncoder.encode(name, "UTF-8").replace("*", "%2A") + FILE_EXTENSION;
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String fromFileName(String fileName) {
+        try {
+            return URLDecoder.decode(fileName.substring(0, fileName.length() - FILE_EXTENSION.length()), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
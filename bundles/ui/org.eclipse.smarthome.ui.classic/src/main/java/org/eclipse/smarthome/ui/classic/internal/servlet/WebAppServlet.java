@@ -8,13 +8,16 @@
 package org.eclipse.smarthome.ui.classic.internal.servlet;
 
 import java.io.IOException;
-import java.util.Date;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
@@ -23,8 +26,6 @@ import org.eclipse.emf.common.util.EList;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemNotFoundException;
-import org.eclipse.smarthome.core.items.StateChangeListener;
-import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.model.sitemap.Frame;
 import org.eclipse.smarthome.model.sitemap.LinkableWidget;
 import org.eclipse.smarthome.model.sitemap.Sitemap;
@@ -32,6 +33,8 @@ import org.eclipse.smarthome.model.sitemap.SitemapProvider;
 import org.eclipse.smarthome.model.sitemap.Widget;
 import org.eclipse.smarthome.ui.classic.internal.render.PageRenderer;
 import org.eclipse.smarthome.ui.classic.render.RenderException;
+import org.eclipse.smarthome.ui.items.PageChangeListener;
+import org.eclipse.smarthome.ui.items.PageChangeNotifier;
 import org.osgi.service.http.NamespaceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,7 +59,23 @@ public class WebAppServlet extends BaseServlet {
     /** the name of the servlet to be used in the URL */
     public static final String SERVLET_NAME = "app";
 
+    /** the request attribute, which holds the result of a suspended polling request after its dispatch */
+    private static final String POLL_RESULT_ATTRIBUTE = WebAppServlet.class.getName() + ".pollResult";
+
+    /**
+     * Whether the Servlet 3 API is available. The bundle also runs with Servlet 2.5, which lacks asynchronous
+     * requests, so the classes of the Servlet 3 API must only be used if this is true.
+     */
+    private static final boolean SERVLET_3_API = isServlet3Api();
+
+    private enum PollResult {
+        CHANGED,
+        TIMEOUT,
+        SUSPENDED
+    }
+
     private PageRenderer renderer;
+    private PageChangeNotifier pageChangeNotifier;
     protected Set<SitemapProvider> sitemapProviders = new CopyOnWriteArraySet<>();
 
     private String defaultSitemap = "default";
@@ -73,6 +92,14 @@ public class WebAppServlet extends BaseServlet {
         this.renderer = renderer;
     }
 
+    public void setPageChangeNotifier(PageChangeNotifier pageChangeNotifier) {
+        this.pageChangeNotifier = pageChangeNotifier;
+    }
+
+    public void unsetPageChangeNotifier(PageChangeNotifier pageChangeNotifier) {
+        this.pageChangeNotifier = null;
+    }
+
     protected void activate(Map<String, Object> configProps) {
         String value = (String) configProps.get("defaultSitemap");
         if (value != null) {
@@ -137,10 +164,17 @@ public class WebAppServlet extends BaseServlet {
                 // we are at the homepage, so we render the children of the sitemap root node
                 String label = sitemap.getLabel() != null ? sitemap.getLabel() : sitemapName;
                 EList<Widget> children = sitemap.getChildren();
-                if (poll && waitForChanges(children) == false) {
-                    // we have reached the timeout, so we do not return any content as nothing has changed
-                    res.getWriter().append(getTimeoutResponse()).close();
-                    return;
+                if (poll) {
+                    PollResult pollResult = waitForChanges(req, children);
+                    if (pollResult == PollResult.SUSPENDED) {
+                        // the request is dispatched again as soon as something has changed
+                        return;
+                    }
+                    if (pollResult == PollResult.TIMEOUT) {
+                        // we have reached the timeout, so we do not return any content as nothing has changed
+                        res.getWriter().append(getTimeoutResponse()).close();
+                        return;
+                    }
                 }
                 result.append(renderer.processPage("Home", sitemapName, label, sitemap.getChildren(), async));
             } else if (!widgetId.equals("Colorpicker")) {
@@ -154,10 +188,17 @@ public class WebAppServlet extends BaseServlet {
                         throw new RenderException("Widget '" + w + "' can not have any content");
                     }
                     EList<Widget> children = renderer.getItemUIRegistry().getChildren((LinkableWidget) w);
-                    if (poll && waitForChanges(children) == false) {
-                        // we have reached the timeout, so we do not return any content as nothing has changed
-                        res.getWriter().append(getTimeoutResponse()).close();
-                        return;
+                    if (poll) {
+                        PollResult pollResult = waitForChanges(req, children);
+                        if (pollResult == PollResult.SUSPENDED) {
+                            // the request is dispatched again as soon as something has changed
+                            return;
+                        }
+                        if (pollResult == PollResult.TIMEOUT) {
+                            // we have reached the timeout, so we do not return any content as nothing has changed
+                            res.getWriter().append(getTimeoutResponse()).close();
+                            return;
+                        }
                     }
                     result.append(renderer.processPage(renderer.getItemUIRegistry().getWidgetId(w), sitemapName, label,
                             children, async));
@@ -185,32 +226,30 @@ public class WebAppServlet extends BaseServlet {
     }
 
     /**
-     * This method only returns when a change has occurred to any item on the page to display
+     * Waits for a change of any item on the page to display. If the servlet container supports asynchronous
+     * requests, the request is suspended instead of blocking the thread and it is dispatched again as soon as
+     * something has changed or the timeout is reached.
      *
+     * @param req the polling request
      * @param widgets the widgets of the page to observe
+     * @return the result of the polling, {@link PollResult#SUSPENDED} if the request has been suspended
      */
-    private boolean waitForChanges(EList<Widget> widgets) {
-        long startTime = (new Date()).getTime();
-        boolean timeout = false;
-        BlockingStateChangeListener listener = new BlockingStateChangeListener();
-        // let's get all items for these widgets
-        Set<GenericItem> items = getAllItems(widgets);
-        for (GenericItem item : items) {
-            item.addStateChangeListener(listener);
+    private PollResult waitForChanges(ServletRequest req, EList<Widget> widgets) {
+        Object pollResult = req.getAttribute(POLL_RESULT_ATTRIBUTE);
+        if (pollResult instanceof PollResult) {
+            // this is the dispatch of a suspended request
+            return (PollResult) pollResult;
         }
-        while (!listener.hasChangeOccurred() && !timeout) {
-            timeout = (new Date()).getTime() - startTime > TIMEOUT_IN_MS;
-            try {
-                Thread.sleep(300);
-            } catch (InterruptedException e) {
-                timeout = true;
-                break;
-            }
+        PageChangeNotifier notifier = pageChangeNotifier;
+        if (notifier == null) {
+            return PollResult.TIMEOUT;
         }
-        for (GenericItem item : items) {
-            item.removeStateChangeListener(listener);
+        // let's get all items for these widgets
+        Set<GenericItem> items = getAllItems(widgets);
+        if (SERVLET_3_API && AsyncPoll.suspend(req, notifier, items)) {
+            return PollResult.SUSPENDED;
         }
-        return !timeout;
+        return notifier.waitForChange(items, TIMEOUT_IN_MS) ? PollResult.CHANGED : PollResult.TIMEOUT;
     }
 
     /**
@@ -244,40 +283,80 @@ public class WebAppServlet extends BaseServlet {
         return items;
     }
 
+    private static boolean isServlet3Api() {
+        try {
+            ServletRequest.class.getMethod("isAsyncSupported");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
     /**
-     * This is a state change listener, which is merely used to determine, if a state
-     * change has occurred on one of a list of items.
-     *
-     * @author Kai Kreuzer - Initial contribution and API
-     *
+     * This is a suspended polling request, which is dispatched again on the first change of the page or when the
+     * timeout of the request is reached. This class uses the Servlet 3 API, so it must only be loaded, if the API is
+     * available.
      */
-    private static class BlockingStateChangeListener implements StateChangeListener {
+    private static class AsyncPoll implements PageChangeListener, AsyncListener {
 
-        private boolean changed = false;
+        private final PageChangeNotifier notifier;
+        private final Set<GenericItem> items;
+        private final AsyncContext asyncContext;
+        private final AtomicBoolean finished = new AtomicBoolean(false);
 
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void stateChanged(Item item, State oldState, State newState) {
-            changed = true;
+        private AsyncPoll(PageChangeNotifier notifier, Set<GenericItem> items, AsyncContext asyncContext) {
+            this.notifier = notifier;
+            this.items = items;
+            this.asyncContext = asyncContext;
         }
 
         /**
-         * determines, whether a state change has occurred since its creation
+         * Suspends the polling request until the first change of the page, if the request supports it.
          *
-         * @return true, if a state has changed
+         * @return true, if the request has been suspended
          */
-        public boolean hasChangeOccurred() {
-            return changed;
+        private static boolean suspend(ServletRequest req, PageChangeNotifier notifier, Set<GenericItem> items) {
+            if (!req.isAsyncSupported()) {
+                return false;
+            }
+            AsyncContext asyncContext = req.startAsync();
+            asyncContext.setTimeout(TIMEOUT_IN_MS);
+            AsyncPoll poll = new AsyncPoll(notifier, items, asyncContext);
+            asyncContext.addListener(poll);
+            notifier.addPageChangeListener(items, poll);
+            return true;
         }
 
-        /**
-         * {@inheritDoc}
-         */
         @Override
-        public void stateUpdated(Item item, State state) {
-            // ignore if the state did not change
+        public void pageChanged() {
+            finish(PollResult.CHANGED);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            finish(PollResult.TIMEOUT);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) throws IOException {
+            finish(PollResult.TIMEOUT);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            notifier.removePageChangeListener(items, this);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) throws IOException {
+        }
+
+        private void finish(PollResult result) {
+            if (finished.compareAndSet(false, true)) {
+                notifier.removePageChangeListener(items, this);
+                asyncContext.getRequest().setAttribute(POLL_RESULT_ATTRIBUTE, result);
+                asyncContext.dispatch();
+            }
         }
     }
 
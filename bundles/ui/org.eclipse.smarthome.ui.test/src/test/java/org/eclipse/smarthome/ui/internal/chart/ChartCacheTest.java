@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.chart;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * The {@link ChartCacheTest} tests the invalidation, expiry and eviction of cached charts.
+ *
+ * @author agent - Initial contribution
+ */
+public class ChartCacheTest {
+
+    private static final byte[] IMAGE = { 1, 2, 3 };
+
+    @Test
+    public void testChartIsRemovedIfAnItemReceivesAState() {
+        ChartCache cache = new ChartCache(10, 0);
+        cache.put("a", IMAGE, 60000, items("Temperature", "Humidity"), cache.getGeneration());
+        cache.put("b", IMAGE, 60000, items("Humidity"), cache.getGeneration());
+        cache.put("c", IMAGE, 60000, items("Pressure"), cache.getGeneration());
+        assertArrayEquals(IMAGE, cache.get("a"));
+
+        cache.invalidate("Humidity");
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertArrayEquals(IMAGE, cache.get("c"));
+        cache.invalidate("Temperature");
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testChartExpires() {
+        ChartCache cache = new ChartCache(10, 0);
+        cache.put("a", IMAGE, 0, items("Temperature"), cache.getGeneration());
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedChartIsEvicted() {
+        ChartCache cache = new ChartCache(2, 0);
+        cache.put("a", IMAGE, 60000, items("Temperature"), cache.getGeneration());
+        cache.put("b", IMAGE, 60000, items("Temperature"), cache.getGeneration());
+        cache.get("a");
+        cache.put("c", IMAGE, 60000, items("Temperature"), cache.getGeneration());
+
+        assertArrayEquals(IMAGE, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertArrayEquals(IMAGE, cache.get("c"));
+
+        cache.setMaxSize(0);
+        assertEquals(0, cache.size());
+        cache.put("d", IMAGE, 60000, items("Temperature"), cache.getGeneration());
+        assertNull(cache.get("d"));
+    }
+
+    @Test
+    public void testChartIsNotCachedIfAnItemReceivesAStateWhileItIsRendered() {
+        ChartCache cache = new ChartCache(10, 0);
+        long generation = cache.getGeneration();
+        cache.invalidate("Temperature");
+        cache.put("a", IMAGE, 60000, items("Temperature"), generation);
+        cache.put("b", IMAGE, 60000, items("Humidity"), generation);
+
+        assertNull(cache.get("a"));
+        assertArrayEquals(IMAGE, cache.get("b"));
+    }
+
+    @Test
+    public void testChartExpiresAfterTheStoreDelayOfAStateEvent() throws InterruptedException {
+        ChartCache cache = new ChartCache(10, 200);
+        cache.invalidate("Temperature");
+        cache.put("a", IMAGE, 60000, items("Temperature"), cache.getGeneration());
+        cache.put("b", IMAGE, 60000, items("Humidity"), cache.getGeneration());
+        assertArrayEquals(IMAGE, cache.get("a"));
+
+        Thread.sleep(300);
+
+        // the chart may miss the new state, which is stored by now
+        assertNull(cache.get("a"));
+        assertArrayEquals(IMAGE, cache.get("b"));
+        cache.put("a", IMAGE, 60000, items("Temperature"), cache.getGeneration());
+        assertArrayEquals(IMAGE, cache.get("a"));
+        assertEquals(2, cache.size());
+    }
+
+    private Set<String> items(String... itemNames) {
+        return new HashSet<String>(Arrays.asList(itemNames));
+    }
+
+}
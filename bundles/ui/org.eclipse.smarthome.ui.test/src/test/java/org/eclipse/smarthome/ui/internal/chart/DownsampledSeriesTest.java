@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.chart;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * The {@link DownsampledSeriesTest} tests the reduction of a series to the first, minimum, maximum and last sample of
+ * every pixel column.
+ *
+ * @author agent - Initial contribution
+ */
+public class DownsampledSeriesTest {
+
+    @Test
+    public void testSamplesAreReducedToFourPointsPerColumn() {
+        DownsampledSeries series = new DownsampledSeries(new Date(0), new Date(100000), 10);
+        for (int i = 0; i < 100000; i++) {
+            series.add(new Date(i), Math.sin(i / 100.0));
+        }
+
+        List<Date> xData = series.getXData();
+        List<Number> yData = series.getYData();
+        assertEquals(xData.size(), yData.size());
+        assertTrue(xData.size() <= 40);
+        for (int i = 1; i < xData.size(); i++) {
+            assertTrue(xData.get(i - 1).before(xData.get(i)));
+        }
+        assertEquals(new Date(0), xData.get(0));
+        assertEquals(new Date(99999), xData.get(xData.size() - 1));
+        assertEquals(1.0, Collections.max(toDoubles(yData)), 0.0001);
+        assertEquals(-1.0, Collections.min(toDoubles(yData)), 0.0001);
+    }
+
+    @Test
+    public void testExtremaOfEachColumnAreKeptInOrder() {
+        DownsampledSeries series = new DownsampledSeries(new Date(0), new Date(20), 2);
+        int[] values = { 5, 9, 1, 4, 6, 3, 3, 8, 2, 7 };
+        for (int i = 0; i < values.length; i++) {
+            series.add(new Date(i), values[i]);
+        }
+        series.add(new Date(10), 1);
+        series.add(new Date(15), 1);
+
+        assertEquals(Arrays.<Number> asList(5, 9, 1, 7, 1, 1), series.getYData());
+        assertEquals(Arrays.asList(new Date(0), new Date(1), new Date(2), new Date(9), new Date(10), new Date(15)),
+                series.getXData());
+    }
+
+    @Test
+    public void testSamplesOutsideOfTheTimeRangeAreKept() {
+        DownsampledSeries series = new DownsampledSeries(new Date(1000), new Date(2000), 100);
+        series.add(new Date(500), 1);
+        series.add(new Date(2500), 2);
+
+        assertEquals(Arrays.<Number> asList(1, 2), series.getYData());
+    }
+
+    private List<Double> toDoubles(List<Number> numbers) {
+        Double[] doubles = new Double[numbers.size()];
+        for (int i = 0; i < doubles.length; i++) {
+            doubles[i] = numbers.get(i).doubleValue();
+        }
+        return Arrays.asList(doubles);
+    }
+
+}
@@ -24,6 +24,7 @@ import org.eclipse.smarthome.core.library.types.DateTimeType;
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.OnOffType;
 import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.types.StateDescription;
 import org.eclipse.smarthome.core.types.UnDefType;
 import org.eclipse.smarthome.model.sitemap.Sitemap;
 import org.eclipse.smarthome.model.sitemap.SitemapFactory;
@@ -296,6 +297,35 @@ public class ItemUIRegistryImplTest {
         assertEquals("Label [5]", label);
     }
 
+    @Test
+    public void getLabel_labelWithChangedStateDescription() throws ItemNotFoundException {
+        Widget w = mock(Widget.class);
+        Item item = mock(Item.class);
+        when(w.getLabel()).thenReturn("Label");
+        when(w.getItem()).thenReturn("Item");
+        when(registry.getItem("Item")).thenReturn(item);
+        when(item.getState()).thenReturn(new StringType("State"));
+        when(item.getStateDescription()).thenReturn(new StateDescription(null, null, null, "%s", true, null));
+        assertEquals("Label [State]", uiRegistry.getLabel(w));
+
+        when(item.getStateDescription()).thenReturn(new StateDescription(null, null, null, "(%s)", true, null));
+        assertEquals("Label [(State)]", uiRegistry.getLabel(w));
+    }
+
+    @Test
+    public void getLabel_labelWithChangedState() throws ItemNotFoundException {
+        Widget w = mock(Widget.class);
+        Item item = mock(Item.class);
+        when(w.getLabel()).thenReturn("Label [%s]");
+        when(w.getItem()).thenReturn("Item");
+        when(registry.getItem("Item")).thenReturn(item);
+        when(item.getState()).thenReturn(new StringType("State"));
+        assertEquals("Label [State]", uiRegistry.getLabel(w));
+
+        when(item.getState()).thenReturn(UnDefType.UNDEF);
+        assertEquals("Label [-]", uiRegistry.getLabel(w));
+    }
+
     @Test
     public void getWidget_UnknownPageId() throws ItemNotFoundException {
         Sitemap sitemap = SitemapFactory.eINSTANCE.createSitemap();
@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.items;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.library.items.SwitchItem;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.ui.items.PageChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The {@link PageChangeNotifierImplTest} tests the notification of listeners, which wait for a change of a page.
+ *
+ * @author agent - Initial contribution
+ */
+public class PageChangeNotifierImplTest {
+
+    private PageChangeNotifierImpl notifier;
+    private SwitchItem light;
+    private SwitchItem fan;
+
+    @Before
+    public void setUp() {
+        notifier = new PageChangeNotifierImpl();
+        light = new SwitchItem("Light");
+        fan = new SwitchItem("Fan");
+    }
+
+    @Test
+    public void testListenersOfAPageAreNotifiedOnceOnAStateChange() {
+        CountingListener first = new CountingListener();
+        CountingListener second = new CountingListener();
+        notifier.addPageChangeListener(items(light, fan), first);
+        notifier.addPageChangeListener(items(fan, light), second);
+
+        light.setState(OnOffType.ON);
+        fan.setState(OnOffType.ON);
+
+        assertEquals(1, first.count.get());
+        assertEquals(1, second.count.get());
+    }
+
+    @Test
+    public void testListenersAreNotNotifiedOnUpdatesWithoutChange() {
+        light.setState(OnOffType.ON);
+        CountingListener listener = new CountingListener();
+        notifier.addPageChangeListener(items(light), listener);
+
+        light.setState(OnOffType.ON);
+
+        assertEquals(0, listener.count.get());
+    }
+
+    @Test
+    public void testRemovedListenersAreNotNotified() {
+        CountingListener removed = new CountingListener();
+        CountingListener remaining = new CountingListener();
+        notifier.addPageChangeListener(items(light), removed);
+        notifier.addPageChangeListener(items(light), remaining);
+        notifier.removePageChangeListener(items(light), removed);
+
+        light.setState(OnOffType.ON);
+
+        assertEquals(0, removed.count.get());
+        assertEquals(1, remaining.count.get());
+    }
+
+    @Test
+    public void testListenersAreRemovedAfterTheTagsOfAnItemHaveChanged() {
+        CountingListener listener = new CountingListener();
+        notifier.addPageChangeListener(items(light, fan), listener);
+        light.addTag("Lighting");
+        notifier.removePageChangeListener(items(light, fan), listener);
+
+        light.setState(OnOffType.ON);
+
+        assertEquals(0, listener.count.get());
+    }
+
+    @Test
+    public void testListenersAreNotifiedAboutChangesOfReplacedItems() {
+        SwitchItem newLight = new SwitchItem("Light");
+        CountingListener first = new CountingListener();
+        CountingListener second = new CountingListener();
+        notifier.addPageChangeListener(items(light), first);
+        notifier.addPageChangeListener(items(newLight), second);
+
+        newLight.setState(OnOffType.ON);
+
+        assertEquals(1, first.count.get());
+        assertEquals(1, second.count.get());
+    }
+
+    @Test
+    public void testWaitForChangeReturnsOnAStateChange() throws InterruptedException {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                fan.setState(OnOffType.ON);
+            }
+        };
+        thread.start();
+
+        long start = System.currentTimeMillis();
+        assertTrue(notifier.waitForChange(items(light, fan), 10000));
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        thread.join();
+    }
+
+    @Test
+    public void testWaitForChangeReturnsFalseOnTimeout() {
+        assertFalse(notifier.waitForChange(items(light), 50));
+    }
+
+    private Set<GenericItem> items(GenericItem... items) {
+        Set<GenericItem> result = new HashSet<>();
+        for (GenericItem item : items) {
+            result.add(item);
+        }
+        return result;
+    }
+
+    private static class CountingListener implements PageChangeListener {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void pageChanged() {
+            count.incrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.items;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+
+import org.eclipse.smarthome.core.library.types.DateTimeType;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.junit.Test;
+
+/**
+ * The {@link StateConditionTest} tests the evaluation of precompiled visibility and color conditions.
+ *
+ * @author agent - Initial contribution
+ */
+public class StateConditionTest {
+
+    @Test
+    public void decimalConditions() {
+        assertTrue(StateCondition.of("Item", null, "25", null, null).matches(new DecimalType(25)));
+        assertTrue(StateCondition.of("Item", null, "25", ">=", null).matches(new DecimalType(25)));
+        assertFalse(StateCondition.of("Item", null, "25", ">", null).matches(new DecimalType(25)));
+        assertTrue(StateCondition.of("Item", null, "25", "<", null).matches(new DecimalType("24.5")));
+        assertTrue(StateCondition.of("Item", "-", "5", "<=", null).matches(new DecimalType(-5)));
+        assertTrue(StateCondition.of("Item", null, "25", "!=", null).matches(new DecimalType(24)));
+        assertFalse(StateCondition.of("Item", null, "ON", null, null).matches(new DecimalType(1)));
+    }
+
+    @Test
+    public void dateTimeConditions() {
+        Calendar tenMinutesAgo = Calendar.getInstance();
+        tenMinutesAgo.add(Calendar.MINUTE, -10);
+        DateTimeType state = new DateTimeType(tenMinutesAgo);
+
+        assertTrue(StateCondition.of("Item", null, "300", ">", null).matches(state));
+        assertFalse(StateCondition.of("Item", null, "3600", ">", null).matches(state));
+        assertTrue(StateCondition.of("Item", null, "3600", "<", null).matches(state));
+    }
+
+    @Test
+    public void stringConditions() {
+        assertTrue(StateCondition.of("Item", null, "ON", null, null).matches(OnOffType.ON));
+        assertTrue(StateCondition.of("Item", null, "\"Open\"", "==", null).matches(new StringType("Open")));
+        assertTrue(StateCondition.of("Item", null, "ON", "!=", null).matches(OnOffType.OFF));
+        assertFalse(StateCondition.of("Item", null, "ON", "!", null).matches(OnOffType.ON));
+        // strings only allow = and !=
+        assertTrue(StateCondition.of("Item", null, "ON", ">", null).matches(OnOffType.ON));
+    }
+
+    @Test
+    public void alwaysMatchesAndKeepsArgument() {
+        StateCondition condition = StateCondition.always("red");
+        assertTrue(condition.matches(OnOffType.OFF));
+        assertEquals("red", condition.getArg());
+        assertNull(condition.getItemName());
+    }
+
+}
@@ -0,0 +1,256 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.chart;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * The {@link ChartCache} holds the encoded images of recently rendered charts. A chart is removed from the cache
+ * <ul>
+ * <li>when one of its items receives a new state, as a new sample may have been persisted,</li>
+ * <li>when it is older than its maximum age, as the time axis of the chart has moved on,</li>
+ * <li>or when the cache is full and the chart has been used least recently.</li>
+ * </ul>
+ * <p>
+ * As a persistence service may store a new state only some time after the state event, a chart, which is rendered
+ * within the store delay after a state event of one of its items, expires at the end of the store delay. A chart, whose
+ * item receives a state while the chart is rendered, is not cached at all. Therefore the caller has to get the current
+ * generation of the cache before it renders a chart and pass it to {@link #put}.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+class ChartCache {
+
+    private static final int MIN_PURGE_THRESHOLD = 64;
+
+    private final Map<String, CachedChart> charts = new LinkedHashMap<String, CachedChart>(16, 0.75f, true);
+
+    /** the keys of the cached charts by the names of their items */
+    private final Map<String, Set<String>> keysByItemName = new HashMap<String, Set<String>>();
+
+    /** the last state events by the names of their items */
+    private final Map<String, StateEvent> stateEvents = new HashMap<String, StateEvent>();
+
+    private int maxSize;
+
+    private long storeDelay;
+
+    private long generation;
+
+    private int purgeThreshold = MIN_PURGE_THRESHOLD;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize the maximum number of cached charts
+     * @param storeDelay the time in milliseconds, within which a new state is stored by the persistence services
+     */
+    ChartCache(int maxSize, long storeDelay) {
+        this.maxSize = maxSize;
+        this.storeDelay = storeDelay;
+    }
+
+    /**
+     * Returns the current generation of the cache, which is incremented by every state event.
+     *
+     * @return the generation, which must be passed to {@link #put}
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns a cached chart.
+     *
+     * @param key the key of the chart
+     * @return the encoded image or null, if the chart is not cached or has expired
+     */
+    synchronized byte[] get(String key) {
+        CachedChart chart = charts.get(key);
+        if (chart == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= chart.expires) {
+            remove(key);
+            return null;
+        }
+        return chart.image;
+    }
+
+    /**
+     * Adds a chart to the cache.
+     *
+     * @param key the key of the chart
+     * @param image the encoded image
+     * @param maxAge the time in milliseconds, after which the chart expires
+     * @param itemNames the names of the items, whose states are shown in the chart
+     * @param generation the generation of the cache before the chart has been rendered
+     */
+    synchronized void put(String key, byte[] image, long maxAge, Set<String> itemNames, long generation) {
+        if (maxSize <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expires = now + maxAge;
+        for (String itemName : itemNames) {
+            StateEvent stateEvent = stateEvents.get(itemName);
+            if (stateEvent != null) {
+                if (stateEvent.generation > generation) {
+                    // the item has received a state while the chart has been rendered
+                    return;
+                }
+                long stored = stateEvent.time + storeDelay;
+                if (stored > now) {
+                    // the chart may miss a state, which has not been stored yet
+                    expires = Math.min(expires, stored);
+                }
+            }
+        }
+        remove(key);
+        charts.put(key, new CachedChart(image, expires, itemNames));
+        for (String itemName : itemNames) {
+            Set<String> keys = keysByItemName.get(itemName);
+            if (keys == null) {
+                keys = new HashSet<String>();
+                keysByItemName.put(itemName, keys);
+            }
+            keys.add(key);
+        }
+        trim();
+    }
+
+    /**
+     * Removes all charts, which show the state of the given item.
+     *
+     * @param itemName the name of the item
+     */
+    synchronized void invalidate(String itemName) {
+        long now = System.currentTimeMillis();
+        generation++;
+        stateEvents.put(itemName, new StateEvent(generation, now));
+        purgeStateEvents(now);
+        Set<String> keys = keysByItemName.get(itemName);
+        if (keys != null) {
+            for (String key : keys.toArray(new String[keys.size()])) {
+                remove(key);
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum number of cached charts.
+     *
+     * @param maxSize the maximum number of cached charts, 0 disables the cache
+     */
+    synchronized void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        trim();
+    }
+
+    /**
+     * Sets the time, within which a new state is stored by the persistence services.
+     *
+     * @param storeDelay the store delay in milliseconds
+     */
+    synchronized void setStoreDelay(long storeDelay) {
+        this.storeDelay = storeDelay;
+    }
+
+    /**
+     * Removes all charts from the cache.
+     */
+    synchronized void clear() {
+        charts.clear();
+        keysByItemName.clear();
+        stateEvents.clear();
+    }
+
+    /**
+     * Returns the number of cached charts.
+     *
+     * @return the size of the cache
+     */
+    synchronized int size() {
+        return charts.size();
+    }
+
+    private void trim() {
+        Iterator<Entry<String, CachedChart>> it = charts.entrySet().iterator();
+        while (charts.size() > Math.max(maxSize, 0) && it.hasNext()) {
+            Entry<String, CachedChart> eldest = it.next();
+            it.remove();
+            removeItemNames(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    /**
+     * Removes the state events, which are older than the store delay. The events are only removed, when their number
+     * has doubled since the last removal, so that the removal does not iterate over all events on every state event.
+     */
+    private void purgeStateEvents(long now) {
+        if (stateEvents.size() < purgeThreshold) {
+            return;
+        }
+        Iterator<StateEvent> it = stateEvents.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().time + storeDelay < now) {
+                it.remove();
+            }
+        }
+        purgeThreshold = Math.max(MIN_PURGE_THRESHOLD, 2 * stateEvents.size());
+    }
+
+    private void remove(String key) {
+        CachedChart chart = charts.remove(key);
+        if (chart != null) {
+            removeItemNames(key, chart);
+        }
+    }
+
+    private void removeItemNames(String key, CachedChart chart) {
+        for (String itemName : chart.itemNames) {
+            Set<String> keys = keysByItemName.get(itemName);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByItemName.remove(itemName);
+                }
+            }
+        }
+    }
+
+    private static class StateEvent {
+        private final long generation;
+        private final long time;
+
+        private StateEvent(long generation, long time) {
+            this.generation = generation;
+            this.time = time;
+        }
+    }
+
+    private static class CachedChart {
+        private final byte[] image;
+        private final long expires;
+        private final Set<String> itemNames;
+
+        private CachedChart(byte[] image, long expires, Set<String> itemNames) {
+            this.image = image;
+            this.expires = expires;
+            this.itemNames = itemNames;
+        }
+    }
+
+}
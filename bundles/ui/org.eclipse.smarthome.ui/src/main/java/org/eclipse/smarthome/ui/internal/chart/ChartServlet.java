@@ -9,12 +9,16 @@ package org.eclipse.smarthome.ui.internal.chart;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Map;
+import java.util.Set;
 
 import javax.imageio.ImageIO;
 import javax.servlet.ServletConfig;
@@ -23,10 +27,20 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventFilter;
+import org.eclipse.smarthome.core.events.EventSubscriber;
+import org.eclipse.smarthome.core.items.GroupItem;
+import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemNotFoundException;
+import org.eclipse.smarthome.core.items.events.ItemStateEvent;
 import org.eclipse.smarthome.ui.chart.ChartProvider;
 import org.eclipse.smarthome.ui.items.ItemUIRegistry;
+import org.osgi.service.cm.Configuration;
+import org.osgi.service.cm.ConfigurationAdmin;
+import org.osgi.service.cm.ConfigurationEvent;
 import org.osgi.service.cm.ConfigurationException;
+import org.osgi.service.cm.ConfigurationListener;
 import org.osgi.service.cm.ManagedService;
 import org.osgi.service.http.HttpContext;
 import org.osgi.service.http.HttpService;
@@ -44,20 +58,50 @@ import org.slf4j.LoggerFactory;
  * <li>items: A comma separated list of item names to display</li>
  * <li>groups: A comma separated list of group names, whose members should be displayed</li>
  * <li>service: The persistence service name. If not supplied the first service found will be used.</li>
+ * <li>theme: The theme of the chart. If not supplied the default theme of the chart provider will be used.</li>
  * </ul>
+ * <p>
+ * Rendered charts are cached until one of their items receives a new state or until the time axis has moved by a
+ * pixel. The maximum number of cached charts can be configured by the <code>cacheSize</code> property. A chart, which
+ * is rendered shortly after a state event of one of its items, is only cached until the persistence services have
+ * stored the new state, which takes at most the milliseconds configured by the <code>storeDelay</code> property. If
+ * it is not configured, it is derived from the <code>flushInterval</code> of the persistence manager, which delays the
+ * storage of new states for batch persistence services.
+ * </p>
  *
  * @author Chris Jackson
  *
  */
 
-public class ChartServlet extends HttpServlet implements ManagedService {
+public class ChartServlet extends HttpServlet implements ManagedService, ConfigurationListener, EventSubscriber {
 
     private static final long serialVersionUID = 7700873790924746422L;
 
     private final Logger logger = LoggerFactory.getLogger(ChartServlet.class);
 
+    private static final int DEFAULT_CACHE_SIZE = 50;
+
+    /** the configuration of the persistence manager, whose flush interval delays the storage of new states */
+    private static final String PERSISTENCE_MANAGER_PID = "org.eclipse.smarthome.core.persistence.manager";
+
+    private static final String FLUSH_INTERVAL_PROPERTY = "flushInterval";
+
+    private static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+    /** the time in milliseconds, which is allowed for writing a flushed batch of states on top of the flush interval */
+    private static final long STORE_DURATION = 4000;
+
+    private static final long DEFAULT_STORE_DELAY = DEFAULT_FLUSH_INTERVAL + STORE_DURATION;
+
+    private static final Set<String> SUBSCRIBED_EVENT_TYPES = Collections.singleton(ItemStateEvent.TYPE);
+
     protected String providerName = "default";
 
+    private final ChartCache cache = new ChartCache(DEFAULT_CACHE_SIZE, DEFAULT_STORE_DELAY);
+
+    /** the store delay of the <code>storeDelay</code> property or <code>null</code>, if it is derived */
+    private Long configuredStoreDelay;
+
     // The URI of this servlet
     public static final String SERVLET_NAME = "/chart";
 
@@ -87,6 +131,7 @@ public class ChartServlet extends HttpServlet implements ManagedService {
 
     protected HttpService httpService;
     protected ItemUIRegistry itemUIRegistry;
+    protected ConfigurationAdmin configurationAdmin;
     static protected Map<String, ChartProvider> chartProviders = new HashMap<String, ChartProvider>();
 
     public void setHttpService(HttpService httpService) {
@@ -105,6 +150,15 @@ public class ChartServlet extends HttpServlet implements ManagedService {
         this.itemUIRegistry = null;
     }
 
+    public void setConfigurationAdmin(ConfigurationAdmin configurationAdmin) {
+        this.configurationAdmin = configurationAdmin;
+        updateStoreDelay();
+    }
+
+    public void unsetConfigurationAdmin(ConfigurationAdmin configurationAdmin) {
+        this.configurationAdmin = null;
+    }
+
     public void addChartProvider(ChartProvider provider) {
         chartProviders.put(provider.getName(), provider);
     }
@@ -133,6 +187,25 @@ public class ChartServlet extends HttpServlet implements ManagedService {
 
     protected void deactivate() {
         httpService.unregister(SERVLET_NAME);
+        cache.clear();
+    }
+
+    @Override
+    public Set<String> getSubscribedEventTypes() {
+        return SUBSCRIBED_EVENT_TYPES;
+    }
+
+    @Override
+    public EventFilter getEventFilter() {
+        return null;
+    }
+
+    @Override
+    public void receive(Event event) {
+        if (event instanceof ItemStateEvent) {
+            // a new sample of the item may have been persisted
+            cache.invalidate(((ItemStateEvent) event).getItemName());
+        }
     }
 
     @Override
@@ -149,10 +222,12 @@ public class ChartServlet extends HttpServlet implements ManagedService {
             height = Integer.parseInt(req.getParameter("h"));
         } catch (Exception e) {
         }
-        Long period = PERIODS.get(req.getParameter("period"));
+        String periodName = req.getParameter("period");
+        Long period = PERIODS.get(periodName);
         if (period == null) {
             // use a day as the default period
-            period = PERIODS.get("D");
+            periodName = "D";
+            period = PERIODS.get(periodName);
         }
         // Create the start and stop time
         Date timeEnd = new Date();
@@ -160,6 +235,9 @@ public class ChartServlet extends HttpServlet implements ManagedService {
 
         // If a persistence service is specified, find the provider
         String serviceName = req.getParameter("service");
+        String theme = req.getParameter("theme");
+        String items = req.getParameter("items");
+        String groups = req.getParameter("groups");
 
         ChartProvider provider = getChartProviders().get(providerName);
         if (provider == null)
@@ -167,10 +245,25 @@ public class ChartServlet extends HttpServlet implements ManagedService {
 
         // Set the content type to that provided by the chart provider
         res.setContentType("image/" + provider.getChartType());
+        String key = providerName + "|" + serviceName + "|" + theme + "|" + periodName + "|" + width + "|"
+                + height + "|" + items + "|" + groups;
+        byte[] image = cache.get(key);
+        if (image != null) {
+            res.getOutputStream().write(image);
+            return;
+        }
         try {
-            BufferedImage chart = provider.createChart(serviceName, null, timeBegin, timeEnd, height, width,
-                    req.getParameter("items"), req.getParameter("groups"));
-            ImageIO.write(chart, provider.getChartType().toString(), res.getOutputStream());
+            // the generation must be taken before the states are queried
+            long generation = cache.getGeneration();
+            Set<String> itemNames = getItemNames(items, groups);
+            BufferedImage chart = provider.createChart(serviceName, theme, timeBegin, timeEnd, height, width,
+                    items, groups);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(chart, provider.getChartType().toString(), out);
+            image = out.toByteArray();
+            // the time axis moves by a pixel after this time
+            cache.put(key, image, period / Math.max(width, 1), itemNames, generation);
+            res.getOutputStream().write(image);
         } catch (ItemNotFoundException e) {
             logger.debug("Item not found error while generating chart.");
         } catch (IllegalArgumentException e) {
@@ -178,6 +271,33 @@ public class ChartServlet extends HttpServlet implements ManagedService {
         }
     }
 
+    /**
+     * Returns the names of the items and groups and of the members of the groups.
+     *
+     * @param items the comma separated item names or null
+     * @param groups the comma separated group names or null
+     * @return the names of all items shown in the chart
+     * @throws ItemNotFoundException if an item or a group does not exist
+     */
+    private Set<String> getItemNames(String items, String groups) throws ItemNotFoundException {
+        Set<String> itemNames = new HashSet<String>();
+        if (items != null) {
+            Collections.addAll(itemNames, items.split(","));
+        }
+        if (groups != null) {
+            for (String groupName : groups.split(",")) {
+                itemNames.add(groupName);
+                Item item = itemUIRegistry.getItem(groupName);
+                if (item instanceof GroupItem) {
+                    for (Item member : ((GroupItem) item).getMembers()) {
+                        itemNames.add(member.getName());
+                    }
+                }
+            }
+        }
+        return itemNames;
+    }
+
     /**
      * Creates a {@link HttpContext}
      * 
@@ -230,6 +350,68 @@ public class ChartServlet extends HttpServlet implements ManagedService {
         if (properties.get("provider") != null) {
             providerName = (String) properties.get("provider");
         }
+
+        if (properties.get("cacheSize") != null) {
+            try {
+                cache.setMaxSize(Integer.parseInt(properties.get("cacheSize").toString()));
+            } catch (NumberFormatException e) {
+                throw new ConfigurationException("cacheSize", "The cache size must be a number.");
+            }
+        }
+
+        if (properties.get("storeDelay") != null) {
+            try {
+                configuredStoreDelay = Long.parseLong(properties.get("storeDelay").toString());
+            } catch (NumberFormatException e) {
+                throw new ConfigurationException("storeDelay", "The store delay must be a number.");
+            }
+        } else {
+            configuredStoreDelay = null;
+        }
+        updateStoreDelay();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void configurationEvent(ConfigurationEvent event) {
+        if (PERSISTENCE_MANAGER_PID.equals(event.getPid())) {
+            updateStoreDelay();
+        }
+    }
+
+    /**
+     * Sets the store delay of the chart cache to the configured store delay or, if there is none, to the flush interval
+     * of the persistence manager plus the time for writing the flushed states.
+     */
+    private synchronized void updateStoreDelay() {
+        if (configuredStoreDelay != null) {
+            cache.setStoreDelay(configuredStoreDelay);
+        } else {
+            cache.setStoreDelay(getFlushInterval() + STORE_DURATION);
+        }
+    }
+
+    private long getFlushInterval() {
+        ConfigurationAdmin configurationAdmin = this.configurationAdmin;
+        if (configurationAdmin != null) {
+            try {
+                Configuration configuration = configurationAdmin.getConfiguration(PERSISTENCE_MANAGER_PID, null);
+                Dictionary<?, ?> properties = configuration.getProperties();
+                if (properties != null && properties.get(FLUSH_INTERVAL_PROPERTY) != null) {
+                    long flushInterval = Long.parseLong(properties.get(FLUSH_INTERVAL_PROPERTY).toString());
+                    if (flushInterval > 0) {
+                        return flushInterval;
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Cannot read the flush interval of the persistence manager: {}", e.getMessage());
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring the invalid flush interval of the persistence manager: {}", e.getMessage());
+            }
+        }
+        return DEFAULT_FLUSH_INTERVAL;
     }
 
 }
@@ -17,6 +17,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -168,7 +169,7 @@ public class DefaultChartProvider implements ChartProvider {
             String[] itemNames = items.split(",");
             for (String itemName : itemNames) {
                 Item item = itemUIRegistry.getItem(itemName);
-                if (addItem(chart, persistenceService, startTime, endTime, item, seriesCounter))
+                if (addItem(chart, persistenceService, startTime, endTime, width, item, seriesCounter))
                     seriesCounter++;
             }
         }
@@ -181,7 +182,7 @@ public class DefaultChartProvider implements ChartProvider {
                 if (item instanceof GroupItem) {
                     GroupItem groupItem = (GroupItem) item;
                     for (Item member : groupItem.getMembers()) {
-                        if (addItem(chart, persistenceService, startTime, endTime, member, seriesCounter))
+                        if (addItem(chart, persistenceService, startTime, endTime, width, member, seriesCounter))
                             seriesCounter++;
                     }
                 } else {
@@ -223,8 +224,8 @@ public class DefaultChartProvider implements ChartProvider {
         return lBufferedImage;
     }
 
-    boolean addItem(Chart chart, QueryablePersistenceService service, Date timeBegin, Date timeEnd, Item item,
-            int seriesCounter) {
+    boolean addItem(Chart chart, QueryablePersistenceService service, Date timeBegin, Date timeEnd, int width,
+            Item item, int seriesCounter) {
         Color color = LINECOLORS[seriesCounter % LINECOLORS.length];
 
         // Get the item label
@@ -251,19 +252,17 @@ public class DefaultChartProvider implements ChartProvider {
         Iterable<HistoricItem> result = service.query(filter);
         Iterator<HistoricItem> it = result.iterator();
 
-        // Generate data collections
-        Collection<Date> xData = new ArrayList<Date>();
-        Collection<Number> yData = new ArrayList<Number>();
-
-        // Iterate through the data
+        // Iterate through the data and reduce it to the points, which can be drawn at the width of the chart
+        DownsampledSeries downsampledSeries = new DownsampledSeries(timeBegin, timeEnd, width);
         while (it.hasNext()) {
             HistoricItem historicItem = it.next();
             org.eclipse.smarthome.core.types.State state = historicItem.getState();
             if (state instanceof DecimalType) {
-                xData.add(historicItem.getTimestamp());
-                yData.add((DecimalType) state);
+                downsampledSeries.add(historicItem.getTimestamp(), (DecimalType) state);
             }
         }
+        List<Date> xData = downsampledSeries.getXData();
+        List<Number> yData = downsampledSeries.getYData();
 
         // Add the new series to the chart - only if there's data elements to display
         if (xData.size() == 0) {
@@ -272,8 +271,8 @@ public class DefaultChartProvider implements ChartProvider {
 
         // If there's only 1 data point, plot it again!
         if (xData.size() == 1) {
-            xData.add(xData.iterator().next());
-            yData.add(yData.iterator().next());
+            xData.add(xData.get(0));
+            yData.add(yData.get(0));
         }
 
         Series series = chart.addDateSeries(label, xData, yData);
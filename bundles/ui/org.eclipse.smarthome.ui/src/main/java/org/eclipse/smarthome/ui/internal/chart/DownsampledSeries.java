@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.chart;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A {@link DownsampledSeries} reduces the samples of a chart series to at most four points per pixel column of the
+ * chart: the first, the minimum, the maximum and the last sample of the column. A line drawn through these points
+ * covers the same pixels as a line drawn through all samples, but the number of points only depends on the width of
+ * the chart and not on the length of the time range.
+ * <p>
+ * The samples must be added in the ascending order of their timestamps. Only the points of the current column are
+ * held, so the samples can be streamed from a query result.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+class DownsampledSeries {
+
+    private final long begin;
+
+    private final double columnDuration;
+
+    private final int columns;
+
+    private final List<Date> xData = new ArrayList<Date>();
+
+    private final List<Number> yData = new ArrayList<Number>();
+
+    private int column = -1;
+
+    private int count;
+
+    private Date firstTimestamp;
+    private Number firstValue;
+
+    private int minimumIndex;
+    private Date minimumTimestamp;
+    private Number minimumValue;
+
+    private int maximumIndex;
+    private Date maximumTimestamp;
+    private Number maximumValue;
+
+    private Date lastTimestamp;
+    private Number lastValue;
+
+    /**
+     * Creates a series for the given time range.
+     *
+     * @param begin the begin of the time range
+     * @param end the end of the time range
+     * @param width the width of the chart in pixels
+     */
+    DownsampledSeries(Date begin, Date end, int width) {
+        this.begin = begin.getTime();
+        this.columns = Math.max(width, 1);
+        this.columnDuration = Math.max(end.getTime() - this.begin, 1) / (double) columns;
+    }
+
+    /**
+     * Adds a sample to the series.
+     *
+     * @param timestamp the timestamp of the sample, not before the timestamp of the last sample
+     * @param value the value of the sample
+     */
+    void add(Date timestamp, Number value) {
+        int sampleColumn = (int) Math.min(Math.max((timestamp.getTime() - begin) / columnDuration, 0), columns - 1);
+        if (sampleColumn != column) {
+            flush();
+            column = sampleColumn;
+        }
+
+        if (count == 0) {
+            firstTimestamp = timestamp;
+            firstValue = value;
+        }
+        if (count == 0 || value.doubleValue() < minimumValue.doubleValue()) {
+            minimumIndex = count;
+            minimumTimestamp = timestamp;
+            minimumValue = value;
+        }
+        if (count == 0 || value.doubleValue() > maximumValue.doubleValue()) {
+            maximumIndex = count;
+            maximumTimestamp = timestamp;
+            maximumValue = value;
+        }
+        lastTimestamp = timestamp;
+        lastValue = value;
+        count++;
+    }
+
+    /**
+     * Returns the timestamps of the points to draw.
+     *
+     * @return the timestamps
+     */
+    List<Date> getXData() {
+        flush();
+        return xData;
+    }
+
+    /**
+     * Returns the values of the points to draw.
+     *
+     * @return the values
+     */
+    List<Number> getYData() {
+        flush();
+        return yData;
+    }
+
+    /**
+     * Appends the points of the current column in the order of their timestamps.
+     */
+    private void flush() {
+        if (count == 0) {
+            return;
+        }
+        addPoint(firstTimestamp, firstValue);
+        int lastIndex = count - 1;
+        if (minimumIndex < maximumIndex) {
+            addPoint(minimumIndex, minimumTimestamp, minimumValue, lastIndex);
+            addPoint(maximumIndex, maximumTimestamp, maximumValue, lastIndex);
+        } else {
+            addPoint(maximumIndex, maximumTimestamp, maximumValue, lastIndex);
+            addPoint(minimumIndex, minimumTimestamp, minimumValue, lastIndex);
+        }
+        if (lastIndex > 0) {
+            addPoint(lastTimestamp, lastValue);
+        }
+        count = 0;
+    }
+
+    private void addPoint(int index, Date timestamp, Number value, int lastIndex) {
+        // the first and the last sample are added anyway
+        if (index > 0 && index < lastIndex) {
+            addPoint(timestamp, value);
+        }
+    }
+
+    private void addPoint(Date timestamp, Number value) {
+        xData.add(timestamp);
+        yData.add(value);
+    }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.items;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.smarthome.model.sitemap.ColorArray;
+import org.eclipse.smarthome.model.sitemap.VisibilityRule;
+import org.eclipse.smarthome.model.sitemap.Widget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link CompiledWidget} holds the parsed label, color and visibility rules of a widget. It is created once per
+ * widget of the sitemap model; a changed sitemap model consists of new widgets and hence gets new compiled widgets.
+ * The label format additionally depends on the item and its state description, so it is parsed again, whenever one
+ * of these sources changes.
+ *
+ * @author agent - Initial contribution
+ */
+final class CompiledWidget {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompiledWidget.class);
+
+    /** the visibility rules or null, if the widget is always visible */
+    private final List<StateCondition> visibility;
+
+    private final List<StateCondition> labelColors;
+
+    private final List<StateCondition> valueColors;
+
+    private volatile LabelFormat labelFormat;
+
+    CompiledWidget(Widget widget) {
+        this.visibility = compileVisibility(widget.getVisibility());
+        this.labelColors = compileColors(widget.getLabelColor());
+        this.valueColors = compileColors(widget.getValueColor());
+    }
+
+    private static List<StateCondition> compileVisibility(List<VisibilityRule> ruleList) {
+        // Default to visible if parameters not set
+        if (ruleList == null || ruleList.isEmpty()) {
+            return null;
+        }
+        List<StateCondition> conditions = new ArrayList<>(ruleList.size());
+        for (VisibilityRule rule : ruleList) {
+            if (rule.getItem() == null || rule.getState() == null) {
+                continue;
+            }
+            conditions.add(StateCondition.of(rule.getItem(), rule.getSign(), rule.getState(), rule.getCondition(),
+                    null));
+        }
+        return conditions;
+    }
+
+    private static List<StateCondition> compileColors(List<ColorArray> colorList) {
+        if (colorList == null || colorList.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Check for the "arg". If it doesn't exist, assume there's just an
+        // static colour
+        if (colorList.size() == 1 && colorList.get(0).getState() == null) {
+            return Collections.singletonList(StateCondition.always(unquote(colorList.get(0).getArg())));
+        }
+
+        List<StateCondition> conditions = new ArrayList<>(colorList.size());
+        for (ColorArray color : colorList) {
+            if (color.getState() == null) {
+                logger.error("Error parsing color");
+                continue;
+            }
+            conditions.add(StateCondition.of(color.getItem(), color.getSign(), color.getState(),
+                    color.getCondition(), unquote(color.getArg())));
+        }
+        return conditions;
+    }
+
+    private static String unquote(String colorString) {
+        // Remove quotes off the colour - if they exist
+        if (colorString != null && colorString.startsWith("\"") && colorString.endsWith("\"")) {
+            return colorString.substring(1, colorString.length() - 1);
+        }
+        return colorString;
+    }
+
+    /**
+     * Returns the visibility rules.
+     *
+     * @return the rules, one of which has to match, or null if the widget is always visible
+     */
+    List<StateCondition> getVisibility() {
+        return visibility;
+    }
+
+    /**
+     * Returns the label color rules; the argument of the first matching rule is the color.
+     *
+     * @return the rules
+     */
+    List<StateCondition> getLabelColors() {
+        return labelColors;
+    }
+
+    /**
+     * Returns the value color rules; the argument of the first matching rule is the color.
+     *
+     * @return the rules
+     */
+    List<StateCondition> getValueColors() {
+        return valueColors;
+    }
+
+    /**
+     * Returns the label format for the given sources. It is only parsed again, if the sources have changed since the
+     * last call.
+     *
+     * @param label the label of the widget or the item
+     * @param statePattern the pattern of the state description of the item or null
+     * @return the label format
+     */
+    LabelFormat getLabelFormat(String label, String statePattern) {
+        LabelFormat format = labelFormat;
+        if (format == null || !format.isCompiledFrom(label, statePattern)) {
+            format = LabelFormat.compile(label, statePattern);
+            labelFormat = format;
+        }
+        return format;
+    }
+
+}
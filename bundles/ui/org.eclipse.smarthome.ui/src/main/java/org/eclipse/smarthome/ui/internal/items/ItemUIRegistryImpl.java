@@ -8,13 +8,14 @@
 package org.eclipse.smarthome.ui.internal.items;
 
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import org.eclipse.emf.common.util.BasicEList;
@@ -36,18 +37,14 @@ import org.eclipse.smarthome.core.library.items.PlayerItem;
 import org.eclipse.smarthome.core.library.items.RollershutterItem;
 import org.eclipse.smarthome.core.library.items.StringItem;
 import org.eclipse.smarthome.core.library.items.SwitchItem;
-import org.eclipse.smarthome.core.library.types.DateTimeType;
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.NextPreviousType;
 import org.eclipse.smarthome.core.library.types.PercentType;
 import org.eclipse.smarthome.core.library.types.PlayPauseType;
 import org.eclipse.smarthome.core.transform.TransformationException;
-import org.eclipse.smarthome.core.transform.TransformationHelper;
 import org.eclipse.smarthome.core.transform.TransformationService;
 import org.eclipse.smarthome.core.types.State;
-import org.eclipse.smarthome.core.types.Type;
 import org.eclipse.smarthome.core.types.UnDefType;
-import org.eclipse.smarthome.model.sitemap.ColorArray;
 import org.eclipse.smarthome.model.sitemap.Group;
 import org.eclipse.smarthome.model.sitemap.LinkableWidget;
 import org.eclipse.smarthome.model.sitemap.Mapping;
@@ -55,15 +52,15 @@ import org.eclipse.smarthome.model.sitemap.Sitemap;
 import org.eclipse.smarthome.model.sitemap.SitemapFactory;
 import org.eclipse.smarthome.model.sitemap.Slider;
 import org.eclipse.smarthome.model.sitemap.Switch;
-import org.eclipse.smarthome.model.sitemap.VisibilityRule;
 import org.eclipse.smarthome.model.sitemap.Widget;
 import org.eclipse.smarthome.ui.icon.IconProvider;
-import org.eclipse.smarthome.ui.internal.UIActivator;
 import org.eclipse.smarthome.ui.items.ItemUIProvider;
 import org.eclipse.smarthome.ui.items.ItemUIRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.MapMaker;
+
 /**
  * This class provides a simple way to ask different item providers by a
  * single method call, i.e. the consumer does not need to iterate over all
@@ -89,12 +86,21 @@ public class ItemUIRegistryImpl implements ItemUIRegistry {
     protected static final Pattern EXTRACT_TRANSFORMFUNCTION_PATTERN = Pattern.compile("\\[(.*?)\\((.*)\\):(.*)\\]");
 
     /* RegEx to identify format patterns. See java.util.Formatter#formatSpecifier (without the '%' at the very end). */
+    /* the service property, which contains the type of a transformation service */
+    private static final String TRANSFORMATION_TYPE_PROPERTY = "smarthome.transform";
+
     protected static final String IDENTIFY_FORMAT_PATTERN_PATTERN = "%(\\d+\\$)?([-#+ 0,(\\<]*)?(\\d+)?(\\.\\d+)?([tT])?([a-zA-Z])";
 
     protected Set<ItemUIProvider> itemUIProviders = new HashSet<ItemUIProvider>();
 
     private List<IconProvider> iconProviders = new ArrayList<>();
 
+    /** the transformation services by their type, e.g. "MAP" */
+    private final Map<String, TransformationService> transformationServices = new ConcurrentHashMap<>();
+
+    /** the compiled widgets, which are removed together with the widgets of an outdated sitemap model */
+    private final ConcurrentMap<Widget, CompiledWidget> compiledWidgets = new MapMaker().weakKeys().makeMap();
+
     protected ItemRegistry itemRegistry;
 
     public ItemUIRegistryImpl() {
@@ -124,6 +130,21 @@ public class ItemUIRegistryImpl implements ItemUIRegistry {
         this.iconProviders.remove(iconProvider);
     }
 
+    public void addTransformationService(TransformationService transformationService, Map<String, Object> properties) {
+        Object type = properties.get(TRANSFORMATION_TYPE_PROPERTY);
+        if (type != null) {
+            transformationServices.put(type.toString(), transformationService);
+        }
+    }
+
+    public void removeTransformationService(TransformationService transformationService,
+            Map<String, Object> properties) {
+        Object type = properties.get(TRANSFORMATION_TYPE_PROPERTY);
+        if (type != null) {
+            transformationServices.remove(type.toString(), transformationService);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -281,79 +302,46 @@ public class ItemUIRegistryImpl implements ItemUIRegistry {
         String label = getLabelFromWidget(w);
 
         // now insert the value, if the state is a string or decimal value and there is some formatting pattern defined
-        // in the label
+        // in the label or in the state description of the item
         // (i.e. it contains at least a %)
         String itemName = w.getItem();
+        Item item = null;
+        String statePattern = null;
         if (itemName != null) {
-            State state = null;
-            String formatPattern = null;
-
             try {
-                Item item = getItem(itemName);
-                if (getFormatPattern(label) == null && item.getStateDescription() != null
-                        && item.getStateDescription().getPattern() != null) {
-                    label = label + " [" + item.getStateDescription().getPattern() + "]";
-                }
-
-                String updatedPattern = getFormatPattern(label);
-                if (updatedPattern != null) {
-                    formatPattern = updatedPattern;
-
-                    // TODO: TEE: we should find a more generic solution here! When
-                    // using indexes in formatString this 'contains' will fail again
-                    // and will cause an 'java.util.IllegalFormatConversionException:
-                    // d != java.lang.String' later on when trying to format a String
-                    // as %d (number).
-                    if (label.contains("%d")) {
-                        // a number is requested
-                        state = item.getState();
-                        if (!(state instanceof DecimalType)) {
-                            state = item.getStateAs(DecimalType.class);
-                        }
-                    } else {
-                        state = item.getState();
-                    }
+                item = getItem(itemName);
+                if (item.getStateDescription() != null) {
+                    statePattern = item.getStateDescription().getPattern();
                 }
             } catch (ItemNotFoundException e) {
                 logger.error("Cannot retrieve item for widget {}", w.eClass().getInstanceTypeName());
             }
-
-            if (formatPattern != null) {
-                if (state == null || state instanceof UnDefType) {
-                    formatPattern = formatUndefined(formatPattern);
-                } else if (state instanceof Type) {
-                    // The following exception handling has been added to work around a Java bug with formatting
-                    // numbers. See http://bugs.sun.com/view_bug.do?bug_id=6476425
-                    // Without this catch, the whole sitemap, or page can not be displayed!
-                    // This also handles IllegalFormatConversionException, which is a subclass of IllegalArgument.
-                    try {
-                        formatPattern = ((Type) state).format(formatPattern);
-                    } catch (IllegalArgumentException e) {
-                        logger.warn("Exception while formatting value '{}' of item {} with format '{}': {}", state,
-                                itemName, formatPattern, e);
-                        formatPattern = new String("Err");
-                    }
-                }
-
-                label = label.trim().substring(0, label.indexOf("[") + 1) + formatPattern + "]";
-            }
         }
 
-        label = transform(label);
-
-        return label;
-    }
-
-    private String getFormatPattern(String label) {
-        label = label.trim();
-        int indexOpenBracket = label.indexOf("[");
-        int indexCloseBracket = label.endsWith("]") ? label.length() - 1 : -1;
+        LabelFormat labelFormat = getCompiledWidget(w).getLabelFormat(label, statePattern);
+        if (!labelFormat.hasValue()) {
+            return label;
+        }
 
-        if ((indexOpenBracket > 0) && (indexCloseBracket > indexOpenBracket)) {
-            return label.substring(indexOpenBracket + 1, indexCloseBracket);
+        String value;
+        if (itemName == null) {
+            value = labelFormat.getValuePattern();
         } else {
-            return null;
+            State state = null;
+            if (item != null) {
+                state = item.getState();
+                if (labelFormat.isNumberRequested() && !(state instanceof DecimalType)) {
+                    // a number is requested
+                    state = item.getStateAs(DecimalType.class);
+                }
+            }
+            value = labelFormat.format(state);
+            if (value == null) {
+                return labelFormat.getPrefix() + "Err]";
+            }
         }
+
+        return labelFormat.getPrefix() + transform(labelFormat, value) + "]";
     }
 
     private String getLabelFromWidget(Widget w) {
@@ -384,49 +372,51 @@ public class ItemUIRegistryImpl implements ItemUIRegistry {
      * @return a formatted String with dashes ("-") as value replacement
      */
     protected String formatUndefined(String formatPattern) {
-        String undefinedFormatPattern = formatPattern.replaceAll(IDENTIFY_FORMAT_PATTERN_PATTERN, "%1\\$s");
-        try {
-            return String.format(undefinedFormatPattern, "-");
-        } catch (Exception e) {
-            logger.warn("Exception while formatting undefined value [sourcePattern={}, targetPattern={}, {}]",
-                    formatPattern, undefinedFormatPattern, e);
-            return "Err";
-        }
+        String undefinedValue = LabelFormat.formatUndefined(formatPattern);
+        return undefinedValue != null ? undefinedValue : "Err";
     }
 
     /*
-     * check if there is a status value being displayed on the right side of the
-     * label (the right side is signified by being enclosed in square brackets [].
-     * If so, check if the value starts with the call to a transformation service
-     * (e.g. "[MAP(en.map):%s]") and execute the transformation in this case.
+     * check if the status value being displayed on the right side of the label
+     * starts with the call to a transformation service (e.g. "[MAP(en.map):%s]")
+     * and execute the transformation in this case.
      */
-    private String transform(String label) {
-        if (getFormatPattern(label) != null) {
-            Matcher matcher = EXTRACT_TRANSFORMFUNCTION_PATTERN.matcher(label);
-            if (matcher.find()) {
-                String type = matcher.group(1);
-                String pattern = matcher.group(2);
-                String value = matcher.group(3);
-                TransformationService transformation = TransformationHelper.getTransformationService(
-                        UIActivator.getContext(), type);
-                if (transformation != null) {
-                    try {
-                        label = label.substring(0, label.indexOf("[") + 1) + transformation.transform(pattern, value)
-                                + "]";
-                    } catch (TransformationException e) {
-                        logger.error("transformation throws exception [transformation=" + transformation + ", value="
-                                + value + "]", e);
-                        label = label.substring(0, label.indexOf("[") + 1) + value + "]";
-                    }
-                } else {
-                    logger.warn(
-                            "couldn't transform value in label because transformationService of type '{}' is unavailable",
-                            type);
-                    label = label.substring(0, label.indexOf("[") + 1) + value + "]";
-                }
+    private String transform(LabelFormat labelFormat, String value) {
+        String type = labelFormat.getTransformationType();
+        if (type == null) {
+            return value;
+        }
+        TransformationService transformation = transformationServices.get(type);
+        if (transformation != null) {
+            try {
+                return transformation.transform(labelFormat.getTransformationPattern(), value);
+            } catch (TransformationException e) {
+                logger.error("transformation throws exception [transformation=" + transformation + ", value="
+                        + value + "]", e);
             }
+        } else {
+            logger.warn("couldn't transform value in label because transformationService of type '{}' is unavailable",
+                    type);
         }
-        return label;
+        return value;
+    }
+
+    /**
+     * Returns the parsed label, color and visibility rules of a widget.
+     *
+     * @param w the widget
+     * @return the compiled widget
+     */
+    private CompiledWidget getCompiledWidget(Widget w) {
+        CompiledWidget compiledWidget = compiledWidgets.get(w);
+        if (compiledWidget == null) {
+            compiledWidget = new CompiledWidget(w);
+            CompiledWidget previous = compiledWidgets.putIfAbsent(w, compiledWidget);
+            if (previous != null) {
+                compiledWidget = previous;
+            }
+        }
+        return compiledWidget;
     }
 
     /**
@@ -752,176 +742,40 @@ public class ItemUIRegistryImpl implements ItemUIRegistry {
     }
 
     /**
-     * {@inheritDoc}
+     * Determines the color of the first matching color rule.
+     *
+     * @param w the widget
+     * @param colors the compiled color rules of the widget
+     * @return the color or null, if no rule matches
      */
-    private boolean matchStateToValue(State state, String value, String matchCondition) {
-        // Check if the value is equal to the supplied value
-        boolean matched = false;
-
-        // Remove quotes - this occurs in some instances where multiple types
-        // are defined in the xtext definitions
-        if (value.startsWith("\"") && value.endsWith("\""))
-            value = value.substring(1, value.length() - 1);
-
-        // Convert the condition string into enum
-        Condition condition = Condition.EQUAL;
-        if (matchCondition != null)
-            condition = Condition.fromString(matchCondition);
-
-        if (DecimalType.class.isInstance(state)) {
-            try {
-                switch (condition) {
-                    case EQUAL:
-                        if (Double.parseDouble(state.toString()) == Double.parseDouble(value))
-                            matched = true;
-                        break;
-                    case LTE:
-                        if (Double.parseDouble(state.toString()) <= Double.parseDouble(value))
-                            matched = true;
-                        break;
-                    case GTE:
-                        if (Double.parseDouble(state.toString()) >= Double.parseDouble(value))
-                            matched = true;
-                        break;
-                    case GREATER:
-                        if (Double.parseDouble(state.toString()) > Double.parseDouble(value))
-                            matched = true;
-                        break;
-                    case LESS:
-                        if (Double.parseDouble(state.toString()) < Double.parseDouble(value))
-                            matched = true;
-                        break;
-                    case NOT:
-                    case NOTEQUAL:
-                        if (Double.parseDouble(state.toString()) != Double.parseDouble(value))
-                            matched = true;
-                        break;
+    private String processColorDefinition(Widget w, List<StateCondition> colors) {
+        State widgetState = null;
+        for (StateCondition color : colors) {
+            State cmpState;
+            // If there's an item defined here, get it's state
+            if (color.getItemName() != null) {
+                try {
+                    cmpState = itemRegistry.getItem(color.getItemName()).getState();
+                } catch (ItemNotFoundException e) {
+                    logger.warn("Cannot retrieve color item {} for widget", color.getItemName());
+                    if (widgetState == null) {
+                        widgetState = getState(w);
+                    }
+                    cmpState = widgetState;
                 }
-            } catch (NumberFormatException e) {
-                logger.debug("matchStateToValue: Decimal format exception: " + e);
-            }
-        } else if (state instanceof DateTimeType) {
-            Calendar val = ((DateTimeType) state).getCalendar();
-            Calendar now = Calendar.getInstance();
-            long secsDif = (now.getTimeInMillis() - val.getTimeInMillis()) / 1000;
-
-            try {
-                switch (condition) {
-                    case EQUAL:
-                        if (secsDif == Integer.parseInt(value))
-                            matched = true;
-                        break;
-                    case LTE:
-                        if (secsDif <= Integer.parseInt(value))
-                            matched = true;
-                        break;
-                    case GTE:
-                        if (secsDif >= Integer.parseInt(value))
-                            matched = true;
-                        break;
-                    case GREATER:
-                        if (secsDif > Integer.parseInt(value))
-                            matched = true;
-                        break;
-                    case LESS:
-                        if (secsDif < Integer.parseInt(value))
-                            matched = true;
-                        break;
-                    case NOT:
-                    case NOTEQUAL:
-                        if (secsDif != Integer.parseInt(value))
-                            matched = true;
-                        break;
+            } else {
+                if (widgetState == null) {
+                    widgetState = getState(w);
                 }
-            } catch (NumberFormatException e) {
-                logger.debug("matchStateToValue: Decimal format exception: " + e);
+                cmpState = widgetState;
             }
-        } else {
-            // Strings only allow = and !=
-            switch (condition) {
-                case NOT:
-                case NOTEQUAL:
-                    if (!value.equals(state.toString()))
-                        matched = true;
-                    break;
-                default:
-                    if (value.equals(state.toString()))
-                        matched = true;
-                    break;
-            }
-        }
-
-        return matched;
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    private String processColorDefinition(State state, List<ColorArray> colorList) {
-        // Sanity check
-        if (colorList == null) {
-            return null;
-        }
-        if (colorList.size() == 0) {
-            return null;
-        }
-
-        String colorString = null;
-
-        // Check for the "arg". If it doesn't exist, assume there's just an
-        // static colour
-        if (colorList.size() == 1 && colorList.get(0).getState() == null) {
-            colorString = colorList.get(0).getArg();
-        } else {
-            // Loop through all elements looking for the definition associated
-            // with the supplied value
-            for (ColorArray color : colorList) {
-                // Use a local state variable in case it gets overridden below
-                State cmpState = state;
-
-                if (color.getState() == null) {
-                    logger.error("Error parsing color");
-                    continue;
-                }
-
-                // If there's an item defined here, get it's state
-                if (color.getItem() != null) {
-                    // Try and find the item to test.
-                    // If it's not found, return visible
-                    Item item;
-                    try {
-                        item = itemRegistry.getItem(color.getItem());
-
-                        // Get the item state
-                        cmpState = item.getState();
-                    } catch (ItemNotFoundException e) {
-                        logger.warn("Cannot retrieve color item {} for widget", color.getItem());
-                    }
-                }
 
-                // Handle the sign
-                String value;
-                if (color.getSign() != null)
-                    value = color.getSign() + color.getState();
-                else
-                    value = color.getState();
-
-                if (matchStateToValue(cmpState, value, color.getCondition()) == true) {
-                    // We have the color for this value - break!
-                    colorString = color.getArg();
-                    break;
-                }
+            if (color.matches(cmpState)) {
+                // We have the color for this value!
+                return color.getArg();
             }
         }
-
-        // Remove quotes off the colour - if they exist
-        if (colorString == null)
-            return null;
-
-        if (colorString.startsWith("\"") && colorString.endsWith("\""))
-            colorString = colorString.substring(1, colorString.length() - 1);
-
-        return colorString;
+        return null;
     }
 
     /**
@@ -929,7 +783,7 @@ public class ItemUIRegistryImpl implements ItemUIRegistry {
      */
     @Override
     public String getLabelColor(Widget w) {
-        return processColorDefinition(getState(w), w.getLabelColor());
+        return processColorDefinition(w, getCompiledWidget(w).getLabelColors());
     }
 
     /**
@@ -937,7 +791,7 @@ public class ItemUIRegistryImpl implements ItemUIRegistry {
      */
     @Override
     public String getValueColor(Widget w) {
-        return processColorDefinition(getState(w), w.getValueColor());
+        return processColorDefinition(w, getCompiledWidget(w).getValueColors());
     }
 
     /**
@@ -946,44 +800,28 @@ public class ItemUIRegistryImpl implements ItemUIRegistry {
     @Override
     public boolean getVisiblity(Widget w) {
         // Default to visible if parameters not set
-        List<VisibilityRule> ruleList = w.getVisibility();
-        if (ruleList == null)
-            return true;
-        if (ruleList.size() == 0)
+        List<StateCondition> rules = getCompiledWidget(w).getVisibility();
+        if (rules == null) {
             return true;
+        }
 
         logger.debug("Checking visiblity for widget '{}'.", w.getLabel());
 
-        for (VisibilityRule rule : w.getVisibility()) {
-            if (rule.getItem() == null)
-                continue;
-            if (rule.getState() == null)
-                continue;
-
+        for (StateCondition rule : rules) {
             // Try and find the item to test.
             // If it's not found, return visible
             Item item;
             try {
-                item = itemRegistry.getItem(rule.getItem());
+                item = itemRegistry.getItem(rule.getItemName());
             } catch (ItemNotFoundException e) {
-                logger.error("Cannot retrieve visibility item {} for widget {}", rule.getItem(), w.eClass()
+                logger.error("Cannot retrieve visibility item {} for widget {}", rule.getItemName(), w.eClass()
                         .getInstanceTypeName());
 
                 // Default to visible!
                 return true;
             }
 
-            // Get the item state
-            State state = item.getState();
-
-            // Handle the sign
-            String value;
-            if (rule.getSign() != null)
-                value = rule.getSign() + rule.getState();
-            else
-                value = rule.getState();
-
-            if (matchStateToValue(state, value, rule.getCondition()) == true) {
+            if (rule.matches(item.getState())) {
                 // We have the name for this value!
                 return true;
             }
@@ -1054,6 +892,24 @@ public class ItemUIRegistryImpl implements ItemUIRegistry {
         }
     }
 
+    @Override
+    public Set<String> getAncestorGroupNames(String itemName) {
+        if (itemRegistry != null) {
+            return itemRegistry.getAncestorGroupNames(itemName);
+        } else {
+            return Collections.emptySet();
+        }
+    }
+
+    @Override
+    public Set<String> getAllMemberNames(String groupName) {
+        if (itemRegistry != null) {
+            return itemRegistry.getAllMemberNames(groupName);
+        } else {
+            return Collections.emptySet();
+        }
+    }
+
     @Override
     public void add(Item element) {
         if (itemRegistry != null) {
@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.items;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.Type;
+import org.eclipse.smarthome.core.types.UnDefType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link LabelFormat} is a parsed widget label. The label is split into the text in front of the value, the format
+ * pattern of the value and an optional transformation function (e.g. "[MAP(en.map):%s]"), so that rendering the label
+ * only has to format the current state.
+ * <p>
+ * The label is either taken from the widget or from the item, and the pattern of the state description of the item is
+ * used, if the label does not define one. Both sources are remembered, so that a cached label format can be checked
+ * against the current sources.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+final class LabelFormat {
+
+    private static final Logger logger = LoggerFactory.getLogger(LabelFormat.class);
+
+    /* RegEx to extract and parse a function String <code>'\[(.*?)\((.*)\):(.*)\]'</code> */
+    private static final Pattern EXTRACT_TRANSFORMFUNCTION_PATTERN = ItemUIRegistryImpl.EXTRACT_TRANSFORMFUNCTION_PATTERN;
+
+    private static final Pattern IDENTIFY_FORMAT_PATTERN = Pattern
+            .compile(ItemUIRegistryImpl.IDENTIFY_FORMAT_PATTERN_PATTERN);
+
+    private final String label;
+
+    /** true, if the label defines the pattern itself, so that the pattern of the state description is not used */
+    private final boolean ownPattern;
+
+    private final String statePattern;
+
+    /** the text of the label up to and including the opening bracket of the value, or null without a value */
+    private final String prefix;
+
+    /** the format pattern of the value without the transformation function */
+    private final String valuePattern;
+
+    /** the value of an undefined state, or null if it cannot be formatted */
+    private final String undefinedValue;
+
+    private final boolean numberRequested;
+
+    private final String transformationType;
+
+    private final String transformationPattern;
+
+    private LabelFormat(String label, boolean ownPattern, String statePattern, String prefix, String valuePattern,
+            boolean numberRequested, String transformationType, String transformationPattern) {
+        this.label = label;
+        this.ownPattern = ownPattern;
+        this.statePattern = statePattern;
+        this.prefix = prefix;
+        this.valuePattern = valuePattern;
+        this.numberRequested = numberRequested;
+        this.transformationType = transformationType;
+        this.transformationPattern = transformationPattern;
+        this.undefinedValue = valuePattern != null ? formatUndefined(valuePattern) : null;
+    }
+
+    /**
+     * Parses a label.
+     *
+     * @param label the label of the widget or the item
+     * @param statePattern the pattern of the state description of the item, which is used if the label does not
+     *            contain a pattern, or null
+     * @return the parsed label
+     */
+    static LabelFormat compile(String label, String statePattern) {
+        String fullLabel = label;
+        boolean ownPattern = getFormatPattern(label) != null;
+        if (ownPattern) {
+            statePattern = null;
+        } else if (statePattern != null) {
+            fullLabel = label + " [" + statePattern + "]";
+        } else {
+            return new LabelFormat(label, false, null, null, null, false, null, null);
+        }
+
+        String formatPattern = getFormatPattern(fullLabel);
+        String trimmedLabel = fullLabel.trim();
+        String prefix = trimmedLabel.substring(0, trimmedLabel.indexOf("[") + 1);
+        // TODO: TEE: we should find a more generic solution here! When using indexes in formatString this 'contains'
+        // will fail again and will cause an 'java.util.IllegalFormatConversionException: d != java.lang.String' later
+        // on when trying to format a String as %d (number).
+        boolean numberRequested = fullLabel.contains("%d");
+
+        Matcher matcher = EXTRACT_TRANSFORMFUNCTION_PATTERN.matcher("[" + formatPattern + "]");
+        if (matcher.matches()) {
+            return new LabelFormat(label, ownPattern, statePattern, prefix, matcher.group(3), numberRequested,
+                    matcher.group(1), matcher.group(2));
+        } else {
+            return new LabelFormat(label, ownPattern, statePattern, prefix, formatPattern, numberRequested, null,
+                    null);
+        }
+    }
+
+    private static String getFormatPattern(String label) {
+        label = label.trim();
+        int indexOpenBracket = label.indexOf("[");
+        int indexCloseBracket = label.endsWith("]") ? label.length() - 1 : -1;
+
+        if ((indexOpenBracket > 0) && (indexCloseBracket > indexOpenBracket)) {
+            return label.substring(indexOpenBracket + 1, indexCloseBracket);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Takes the given <code>formatPattern</code> and replaces it with a analog
+     * String-based pattern to replace all value Occurrences with a dash ("-")
+     *
+     * @param formatPattern the original pattern which will be replaces by a
+     *            String pattern.
+     * @return a formatted String with dashes ("-") as value replacement or null, if the pattern is invalid
+     */
+    static String formatUndefined(String formatPattern) {
+        String undefinedFormatPattern = IDENTIFY_FORMAT_PATTERN.matcher(formatPattern).replaceAll("%1\\$s");
+        try {
+            return String.format(undefinedFormatPattern, "-");
+        } catch (Exception e) {
+            logger.warn("Exception while formatting undefined value [sourcePattern={}, targetPattern={}, {}]",
+                    formatPattern, undefinedFormatPattern, e);
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether this label format has been parsed from the given sources.
+     *
+     * @param label the label of the widget or the item
+     * @param statePattern the pattern of the state description of the item or null
+     * @return true, if the label format can be used for the given sources
+     */
+    boolean isCompiledFrom(String label, String statePattern) {
+        if (!this.label.equals(label)) {
+            return false;
+        }
+        // the state pattern only matters, if the label does not define a pattern itself
+        if (ownPattern) {
+            return true;
+        }
+        return this.statePattern == null ? statePattern == null : this.statePattern.equals(statePattern);
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    /**
+     * Checks whether the label shows a value in square brackets.
+     *
+     * @return true, if there is a value
+     */
+    boolean hasValue() {
+        return prefix != null;
+    }
+
+    String getPrefix() {
+        return prefix;
+    }
+
+    String getValuePattern() {
+        return valuePattern;
+    }
+
+    /**
+     * Checks whether the value is formatted as number, so that the state has to be converted to a decimal.
+     *
+     * @return true, if a number is requested
+     */
+    boolean isNumberRequested() {
+        return numberRequested;
+    }
+
+    String getTransformationType() {
+        return transformationType;
+    }
+
+    String getTransformationPattern() {
+        return transformationPattern;
+    }
+
+    /**
+     * Formats a state with the value pattern of the label.
+     *
+     * @param state the state or null
+     * @return the formatted value or null, if the state cannot be formatted
+     */
+    String format(State state) {
+        if (state == null || state instanceof UnDefType) {
+            return undefinedValue;
+        }
+        // The following exception handling has been added to work around a Java bug with formatting
+        // numbers. See http://bugs.sun.com/view_bug.do?bug_id=6476425
+        // Without this catch, the whole sitemap, or page can not be displayed!
+        // This also handles IllegalFormatConversionException, which is a subclass of IllegalArgument.
+        try {
+            return ((Type) state).format(valuePattern);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Exception while formatting value '{}' with format '{}': {}", state, valuePattern, e);
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.items;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.StateChangeListener;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.ui.items.PageChangeListener;
+import org.eclipse.smarthome.ui.items.PageChangeNotifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This is the default implementation of the {@link PageChangeNotifier}. It keeps a {@link PageObserver} for every set
+ * of item names, for which listeners are waiting. The observers are registered at and removed from the items while
+ * holding the lock of the notifier, so that no registration is left behind by a concurrent change.
+ *
+ * @author agent - Initial contribution
+ */
+public class PageChangeNotifierImpl implements PageChangeNotifier {
+
+    private final Logger logger = LoggerFactory.getLogger(PageChangeNotifierImpl.class);
+
+    /** the observers by the names of their items, as the hash code of an item depends on its mutable tags */
+    private final Map<Set<String>, PageObserver> observers = new HashMap<>();
+
+    protected synchronized void deactivate() {
+        for (PageObserver observer : observers.values()) {
+            observer.stop();
+        }
+        observers.clear();
+    }
+
+    @Override
+    public synchronized void addPageChangeListener(Set<GenericItem> items, PageChangeListener listener) {
+        Set<String> itemNames = getItemNames(items);
+        PageObserver observer = observers.get(itemNames);
+        if (observer == null) {
+            observer = new PageObserver(itemNames);
+            observers.put(itemNames, observer);
+        }
+        // an item may have been replaced by a new instance with the same name
+        observer.observe(items);
+        observer.listeners.add(listener);
+    }
+
+    @Override
+    public synchronized void removePageChangeListener(Set<GenericItem> items, PageChangeListener listener) {
+        Set<String> itemNames = getItemNames(items);
+        PageObserver observer = observers.get(itemNames);
+        if (observer == null || !observer.listeners.remove(listener) || !observer.listeners.isEmpty()) {
+            return;
+        }
+        observers.remove(itemNames);
+        observer.stop();
+    }
+
+    @Override
+    public boolean waitForChange(Set<GenericItem> items, long timeout) {
+        final CountDownLatch latch = new CountDownLatch(1);
+        PageChangeListener listener = new PageChangeListener() {
+            @Override
+            public void pageChanged() {
+                latch.countDown();
+            }
+        };
+        addPageChangeListener(items, listener);
+        try {
+            return latch.await(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            removePageChangeListener(items, listener);
+        }
+    }
+
+    private void pageChanged(PageObserver observer) {
+        List<PageChangeListener> listeners;
+        synchronized (this) {
+            if (observers.get(observer.itemNames) != observer) {
+                // the observer has already been notified or removed
+                return;
+            }
+            observers.remove(observer.itemNames);
+            observer.stop();
+            listeners = new ArrayList<>(observer.listeners);
+        }
+        for (PageChangeListener listener : listeners) {
+            try {
+                listener.pageChanged();
+            } catch (RuntimeException e) {
+                logger.error("Page change listener threw an exception: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private static Set<String> getItemNames(Set<GenericItem> items) {
+        Set<String> itemNames = new HashSet<>();
+        for (GenericItem item : items) {
+            itemNames.add(item.getName());
+        }
+        return Collections.unmodifiableSet(itemNames);
+    }
+
+    /**
+     * A {@link PageObserver} is registered as state change listener at all items of a page and notifies the waiting
+     * listeners about the first change. Its fields are guarded by the notifier.
+     */
+    private class PageObserver implements StateChangeListener {
+
+        private final Set<String> itemNames;
+
+        /** the item instances, at which the observer is registered */
+        private final Set<GenericItem> items = Collections.newSetFromMap(new IdentityHashMap<GenericItem, Boolean>());
+
+        /** the waiting listeners */
+        private final Set<PageChangeListener> listeners = new LinkedHashSet<>();
+
+        private PageObserver(Set<String> itemNames) {
+            this.itemNames = itemNames;
+        }
+
+        private void observe(Set<GenericItem> pageItems) {
+            for (GenericItem item : pageItems) {
+                if (items.add(item)) {
+                    item.addStateChangeListener(this);
+                }
+            }
+        }
+
+        private void stop() {
+            for (GenericItem item : items) {
+                item.removeStateChangeListener(this);
+            }
+            items.clear();
+        }
+
+        @Override
+        public void stateChanged(Item item, State oldState, State newState) {
+            pageChanged(this);
+        }
+
+        @Override
+        public void stateUpdated(Item item, State state) {
+            // ignore if the state did not change
+        }
+    }
+
+}
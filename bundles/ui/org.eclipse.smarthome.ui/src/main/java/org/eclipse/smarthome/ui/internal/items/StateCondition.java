@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.items;
+
+import java.util.Calendar;
+
+import org.eclipse.smarthome.core.library.types.DateTimeType;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.ui.internal.items.ItemUIRegistryImpl.Condition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link StateCondition} is a parsed visibility or color rule of a widget, e.g. <code>Temperature>=25</code>. The
+ * value of the rule is parsed once, so that matching a state only has to compare it.
+ *
+ * @author agent - Initial contribution
+ */
+final class StateCondition {
+
+    private static final Logger logger = LoggerFactory.getLogger(StateCondition.class);
+
+    private final String itemName;
+
+    private final Condition condition;
+
+    /** the value to compare with, or null if the condition always matches */
+    private final String value;
+
+    /** the value as number for decimal states, or null if it is not a number */
+    private final Double decimalValue;
+
+    /** the value as number of seconds for date time states, or null if it is not an integer */
+    private final Integer secondsValue;
+
+    private final String arg;
+
+    private StateCondition(String itemName, Condition condition, String value, String arg) {
+        this.itemName = itemName;
+        this.condition = condition;
+        this.value = value;
+        this.arg = arg;
+
+        Double decimalValue = null;
+        Integer secondsValue = null;
+        // the value is only compared as string, if it is not a number
+        if (value != null) {
+            try {
+                decimalValue = Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+            }
+            try {
+                secondsValue = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+            }
+        }
+        this.decimalValue = decimalValue;
+        this.secondsValue = secondsValue;
+    }
+
+    /**
+     * Parses a rule.
+     *
+     * @param itemName the name of the item, whose state is matched, or null for the item of the widget
+     * @param sign the sign of the value or null
+     * @param state the value of the rule
+     * @param condition the condition, e.g. ">=", or null for equality
+     * @param arg the argument of the rule, e.g. the color, or null
+     * @return the parsed rule
+     */
+    static StateCondition of(String itemName, String sign, String state, String condition, String arg) {
+        String value = sign != null ? sign + state : state;
+
+        // Remove quotes - this occurs in some instances where multiple types
+        // are defined in the xtext definitions
+        if (value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+
+        // Convert the condition string into enum
+        Condition parsedCondition = condition != null ? Condition.fromString(condition) : null;
+        return new StateCondition(itemName, parsedCondition != null ? parsedCondition : Condition.EQUAL, value,
+                arg);
+    }
+
+    /**
+     * Creates a rule, which matches all states.
+     *
+     * @param arg the argument of the rule, e.g. the color
+     * @return the rule
+     */
+    static StateCondition always(String arg) {
+        return new StateCondition(null, Condition.EQUAL, null, arg);
+    }
+
+    /**
+     * Returns the name of the item, whose state is matched.
+     *
+     * @return the name of the item or null, if the state of the widget item is matched
+     */
+    String getItemName() {
+        return itemName;
+    }
+
+    String getArg() {
+        return arg;
+    }
+
+    /**
+     * Checks whether a state matches the condition.
+     *
+     * @param state the state
+     * @return true, if the state matches
+     */
+    boolean matches(State state) {
+        if (value == null) {
+            return true;
+        }
+        if (state instanceof DecimalType) {
+            if (decimalValue == null) {
+                return false;
+            }
+            double stateValue;
+            try {
+                stateValue = Double.parseDouble(state.toString());
+            } catch (NumberFormatException e) {
+                logger.debug("matchStateToValue: Decimal format exception: " + e);
+                return false;
+            }
+            return compare(stateValue < decimalValue ? -1 : (stateValue > decimalValue ? 1 : 0));
+        } else if (state instanceof DateTimeType) {
+            if (secondsValue == null) {
+                return false;
+            }
+            Calendar val = ((DateTimeType) state).getCalendar();
+            long secsDif = (System.currentTimeMillis() - val.getTimeInMillis()) / 1000;
+            return compare(secsDif < secondsValue ? -1 : (secsDif > secondsValue ? 1 : 0));
+        } else {
+            // Strings only allow = and !=
+            switch (condition) {
+                case NOT:
+                case NOTEQUAL:
+                    return !value.equals(state.toString());
+                default:
+                    return value.equals(state.toString());
+            }
+        }
+    }
+
+    private boolean compare(int comparison) {
+        switch (condition) {
+            case EQUAL:
+                return comparison == 0;
+            case LTE:
+                return comparison <= 0;
+            case GTE:
+                return comparison >= 0;
+            case GREATER:
+                return comparison > 0;
+            case LESS:
+                return comparison < 0;
+            case NOT:
+            case NOTEQUAL:
+                return comparison != 0;
+            default:
+                return false;
+        }
+    }
+
+}
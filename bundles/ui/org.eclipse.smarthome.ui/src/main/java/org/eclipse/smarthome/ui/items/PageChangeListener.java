@@ -0,0 +1,24 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.items;
+
+/**
+ * A {@link PageChangeListener} is notified by the {@link PageChangeNotifier}, when the state of an item on a page
+ * changes.
+ *
+ * @author agent - Initial contribution
+ */
+public interface PageChangeListener {
+
+    /**
+     * Is called once, when the state of one of the observed items has changed. The listener is removed from the
+     * {@link PageChangeNotifier} before it is called.
+     */
+    void pageChanged();
+
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.items;
+
+import java.util.Set;
+
+import org.eclipse.smarthome.core.items.GenericItem;
+
+/**
+ * The {@link PageChangeNotifier} notifies UIs, which poll for changes of a page, as soon as the state of an item on
+ * the page changes.
+ * <p>
+ * The items of a page are observed by a single state change listener, which is shared by all clients waiting for the
+ * same set of items. The listener is registered with the first waiting client and removed with the last one.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+public interface PageChangeNotifier {
+
+    /**
+     * Adds a listener, which is notified once, when the state of one of the given items changes.
+     *
+     * @param items the items of the page
+     * @param listener the listener
+     */
+    void addPageChangeListener(Set<GenericItem> items, PageChangeListener listener);
+
+    /**
+     * Removes a listener, which has not been notified yet.
+     *
+     * @param items the items the listener has been added for
+     * @param listener the listener
+     */
+    void removePageChangeListener(Set<GenericItem> items, PageChangeListener listener);
+
+    /**
+     * Blocks the calling thread until the state of one of the given items changes or the timeout is reached.
+     *
+     * @param items the items of the page
+     * @param timeout the timeout in milliseconds
+     * @return true, if a state has changed, false on a timeout or if the thread has been interrupted
+     */
+    boolean waitForChange(Set<GenericItem> items, long timeout);
+
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.transform.javascript.internal;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+/**
+ * A {@link JavaScript} is the source of a script file together with its compiled versions. Every thread compiles the
+ * script with its own engine, because compiled scripts are bound to the engine, which compiled them.
+ *
+ * @author agent - Initial contribution
+ */
+class JavaScript {
+
+    private final String filename;
+
+    private final String source;
+
+    private final ThreadLocal<CompiledScript> compiledScripts = new ThreadLocal<>();
+
+    JavaScript(String filename, String source) {
+        this.filename = filename;
+        this.source = source;
+    }
+
+    String getFilename() {
+        return filename;
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the script compiled by the given engine of the current thread.
+     *
+     * @param engine the engine of the current thread
+     * @return the compiled script or null, if the engine cannot compile scripts
+     * @throws ScriptException if the script cannot be compiled
+     */
+    CompiledScript getCompiledScript(ScriptEngine engine) throws ScriptException {
+        if (!(engine instanceof Compilable)) {
+            return null;
+        }
+        CompiledScript compiledScript = compiledScripts.get();
+        if (compiledScript == null) {
+            compiledScript = ((Compilable) engine).compile(source);
+            compiledScripts.set(compiledScript);
+        }
+        return compiledScript;
+    }
+
+}
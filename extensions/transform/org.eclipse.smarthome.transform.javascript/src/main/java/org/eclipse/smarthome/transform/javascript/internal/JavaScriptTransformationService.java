@@ -8,17 +8,16 @@
 package org.eclipse.smarthome.transform.javascript.internal;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.io.IOException;
 
+import javax.script.Bindings;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
-import org.apache.commons.io.IOUtils;
-import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.smarthome.core.transform.AbstractFileTransformationService;
 import org.eclipse.smarthome.core.transform.TransformationException;
 import org.eclipse.smarthome.core.transform.TransformationService;
 import org.slf4j.Logger;
@@ -27,58 +26,76 @@ import org.slf4j.LoggerFactory;
 /**
  * The implementation of {@link TransformationService} which transforms the
  * input by Java Script.
- * 
+ * <p>
+ * The scripts are read once and compiled once per thread, because script engines are not guaranteed to be thread
+ * safe. Every thread keeps its own engine, whose compiled scripts are reused until the script file changes.
+ * </p>
+ * <p>
+ * Every thread also reuses its own bindings, which only get the 'input' variable replaced before each run, because
+ * creating new bindings is expensive. Thus global variables, which a script defines, are kept between its runs on the
+ * same thread.
+ * </p>
+ *
  * @author Pauli Anttila
  */
-public class JavaScriptTransformationService implements TransformationService {
+public class JavaScriptTransformationService extends AbstractFileTransformationService<JavaScript> {
+
+    private final Logger logger = LoggerFactory.getLogger(JavaScriptTransformationService.class);
+
+    private final ScriptEngineManager manager = new ScriptEngineManager();
+
+    private final ThreadLocal<ScriptEngine> engines = new ThreadLocal<ScriptEngine>() {
+        @Override
+        protected ScriptEngine initialValue() {
+            return manager.getEngineByName("javascript");
+        }
+    };
+
+    private final ThreadLocal<Bindings> bindings = new ThreadLocal<Bindings>() {
+        @Override
+        protected Bindings initialValue() {
+            ScriptEngine engine = engines.get();
+            return engine != null ? engine.createBindings() : null;
+        }
+    };
 
     /**
      * Transforms the input <code>source</code> by Java Script. It expects the
      * transformation rule to be read from a file which is stored under the
      * 'configurations/transform' folder. To organize the various
      * transformations one should use subfolders.
-     * 
-     * @param filename
-     *            the name of the file which contains the Java script
-     *            transformation rule. Transformation service inject input
+     *
+     * @param script
+     *            the Java script transformation rule. Transformation service inject input
      *            (source) to 'input' variable.
      * @param source
      *            the input to transform
      */
     @Override
-    public String transform(String filename, String source) throws TransformationException {
-        Logger logger = LoggerFactory.getLogger(JavaScriptTransformationService.class);
-        if (filename == null || source == null) {
-            throw new TransformationException("the given parameters 'filename' and 'source' must not be null");
-        }
-
-        logger.debug("about to transform '{}' by the Java Script '{}'", source, filename);
-
-        Reader reader;
+    protected String internalTransform(JavaScript script, String source) throws TransformationException {
+        logger.debug("about to transform '{}' by the Java Script '{}'", source, script.getFilename());
 
-        try {
-            String path = ConfigConstants.getConfigFolder() + File.separator
-                    + TransformationService.TRANSFORM_FOLDER_NAME + File.separator + filename;
-            reader = new InputStreamReader(new FileInputStream(path));
-        } catch (FileNotFoundException e) {
-            throw new TransformationException("An error occured while loading script.", e);
+        ScriptEngine engine = engines.get();
+        if (engine == null) {
+            throw new TransformationException("No Java Script engine is available.");
         }
 
-        ScriptEngineManager manager = new ScriptEngineManager();
-
-        ScriptEngine engine = manager.getEngineByName("javascript");
-        engine.put("input", source);
+        Bindings bindings = this.bindings.get();
+        bindings.put("input", source);
 
         Object result = null;
 
         long startTime = System.currentTimeMillis();
 
         try {
-            result = engine.eval(reader);
+            CompiledScript compiledScript = script.getCompiledScript(engine);
+            if (compiledScript != null) {
+                result = compiledScript.eval(bindings);
+            } else {
+                result = engine.eval(script.getSource(), bindings);
+            }
         } catch (ScriptException e) {
             throw new TransformationException("An error occured while executing script.", e);
-        } finally {
-            IOUtils.closeQuietly(reader);
         }
 
         logger.trace("JavaScript execution elapsed {} ms", System.currentTimeMillis() - startTime);
@@ -86,4 +103,13 @@ public class JavaScriptTransformationService implements TransformationService {
         return String.valueOf(result);
     }
 
+    @Override
+    protected JavaScript internalLoadTransform(String filename) throws TransformationException {
+        try {
+            return new JavaScript(filename, FileUtils.readFileToString(new File(filename)));
+        } catch (IOException e) {
+            throw new TransformationException("An error occured while loading script.", e);
+        }
+    }
+
 }
@@ -57,4 +57,16 @@ public class RegExTransformationServiceTest extends AbstractTransformationServic
         Assert.assertEquals("8", transformedResponse);
     }
 
+    @Test
+    public void testPatternIsCompiledOnce() throws TransformationException {
+        String regex = ".*?<current_conditions>.*?<temp_c data=\"(.*?)\".*";
+
+        Assert.assertEquals("8", processor.transform(regex, source));
+        Assert.assertEquals("8", processor.transform(regex, source));
+
+        // Asserts
+        Assert.assertSame(processor.getPattern(regex), processor.getPattern(regex));
+        Assert.assertNotSame(processor.getPattern(regex), processor.getPattern(".*"));
+    }
+
 }
@@ -7,6 +7,8 @@
  */
 package org.eclipse.smarthome.transform.regex.internal;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -21,13 +23,22 @@ import org.slf4j.LoggerFactory;
  * </p>
  * <p>
  * <b>Note:</b> the given Regular Expression must contain exactly one group!
- * 
+ * </p>
+ * <p>
+ * The compiled patterns are cached, because the same expressions are usually applied to many inputs.
+ * </p>
+ *
  * @author Thomas.Eichstaedt-Engelen
  */
 public class RegExTransformationService implements TransformationService {
 
+    /** the maximum number of cached patterns; the cache is cleared, if it grows larger */
+    private static final int MAX_CACHED_PATTERNS = 100;
+
     private final Logger logger = LoggerFactory.getLogger(RegExTransformationService.class);
 
+    private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
     /**
      * @{inheritDoc
      */
@@ -40,7 +51,7 @@ public class RegExTransformationService implements TransformationService {
 
         logger.debug("about to transform '{}' by the function '{}'", source, regExpression);
 
-        Matcher matcher = Pattern.compile("^" + regExpression + "$", Pattern.DOTALL).matcher(source.trim());
+        Matcher matcher = getPattern(regExpression).matcher(source.trim());
         if (!matcher.matches()) {
             logger.debug(
                     "the given regex '^{}$' doesn't match the given content '{}' -> couldn't compute transformation",
@@ -71,4 +82,16 @@ public class RegExTransformationService implements TransformationService {
         return result;
     }
 
+    Pattern getPattern(String regExpression) {
+        Pattern pattern = patterns.get(regExpression);
+        if (pattern == null) {
+            if (patterns.size() >= MAX_CACHED_PATTERNS) {
+                patterns.clear();
+            }
+            pattern = Pattern.compile("^" + regExpression + "$", Pattern.DOTALL);
+            patterns.put(regExpression, pattern);
+        }
+        return pattern;
+    }
+
 }
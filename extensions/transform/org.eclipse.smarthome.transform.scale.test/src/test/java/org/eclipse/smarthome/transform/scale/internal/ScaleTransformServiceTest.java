@@ -56,11 +56,24 @@ public class ScaleTransformServiceTest {
         transformedResponse = processor.transform(existingscale, source);
         Assert.assertEquals("low", transformedResponse);
         
-        // Testing unfinite up and down range
+        // Testing unfinite up and down range, which applies only if no other range matches
         existingscale = "scale/catchall.scale";
         source="-10";
         transformedResponse = processor.transform(existingscale, source);
-        Assert.assertEquals("catchall", transformedResponse);
+        Assert.assertEquals("low", transformedResponse);
+    }
+    
+    @Test
+    public void testTransformByScaleCatchAllFallback() throws TransformationException {
+        
+        // the catch-all range matches the values between the other ranges
+        String existingscale = "scale/fallback.scale";
+        Assert.assertEquals("low", processor.transform(existingscale, "5"));
+        Assert.assertEquals("other", processor.transform(existingscale, "15"));
+        Assert.assertEquals("high", processor.transform(existingscale, "20"));
+        Assert.assertEquals("other", processor.transform(existingscale, "-5"));
+        Assert.assertEquals("other", processor.transform(existingscale, "30"));
+        
     }
     
     @Test
@@ -91,4 +104,49 @@ public class ScaleTransformServiceTest {
         
     }
     
+    @Test
+    public void testTransformByScaleOverlappingRanges() throws TransformationException {
+        
+        // the tested file contains two ranges which overlap each other
+        String existingscale = "scale/overlapping.scale";
+        String source="7";
+        try {
+            processor.transform(existingscale, source);
+            fail();
+        } catch (TransformationException e) {
+            // awaited result
+        }
+        
+    }
+    
+    @Test
+    public void testTransformByScaleSharedBound() throws TransformationException {
+        
+        // a bound shared by two closed ranges belongs to the lower one
+        String existingscale = "scale/humidex.scale";
+        Assert.assertEquals("no significant", processor.transform(existingscale, "20"));
+        Assert.assertEquals("comfortable", processor.transform(existingscale, "20.5"));
+        Assert.assertEquals("heat stroke imminent", processor.transform(existingscale, "100"));
+        Assert.assertEquals("101", processor.transform(existingscale, "101"));
+        
+    }
+    
+    @Test
+    public void testParseDouble() {
+        String[] sources = { "0", "-0", "10", "+10", "-10.25", "0.1", ".5", "5.", "123456789012345",
+                "1234567890.123456789", "0.000000000000000000000001", "1e3", " 10 " };
+        for (String source : sources) {
+            Assert.assertEquals(source, Double.doubleToLongBits(Double.parseDouble(source)),
+                    Double.doubleToLongBits(ScaleTransformationService.parseDouble(source)));
+        }
+        for (String source : new String[] { "", "-", ".", "1.2.3", "ON" }) {
+            try {
+                ScaleTransformationService.parseDouble(source);
+                fail(source);
+            } catch (NumberFormatException e) {
+                // awaited result
+            }
+        }
+    }
+    
 }
@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.transform.scale.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.smarthome.core.transform.TransformationException;
+
+/**
+ * A {@link Scale} is the compiled form of a scale file. Its ranges are sorted by their lower bounds and must not
+ * overlap, so the range of a value is found by a binary search. Ranges may only share a common bound, which is
+ * then assigned to the lower range. The catch-all range {@code [..]} does not take part in the search, its label is
+ * returned for values which are not contained in any other range.
+ * <p>
+ * Instances are immutable and therefore thread safe.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+final class Scale {
+
+    private final double[] lowValues;
+    private final boolean[] lowClosed;
+    private final double[] highValues;
+    private final boolean[] highClosed;
+    private final String[] labels;
+    private final String fallbackLabel;
+
+    private Scale(List<Interval> intervals, String fallbackLabel) {
+        int size = intervals.size();
+        lowValues = new double[size];
+        lowClosed = new boolean[size];
+        highValues = new double[size];
+        highClosed = new boolean[size];
+        labels = new String[size];
+        for (int i = 0; i < size; i++) {
+            Interval interval = intervals.get(i);
+            lowValues[i] = interval.lowValue;
+            lowClosed[i] = interval.lowClosed;
+            highValues[i] = interval.highValue;
+            highClosed[i] = interval.highClosed;
+            labels[i] = interval.label;
+        }
+        this.fallbackLabel = fallbackLabel;
+    }
+
+    /**
+     * Returns the label of the range that contains the given value.
+     *
+     * @param value the value to look up
+     * @return the label of the matching range, the label of the catch-all range, if no other range contains the
+     *         value, or null, if there is no catch-all range either
+     */
+    String lookup(double value) {
+        // the lower bounds of the ranges up to this index admit the value
+        int low = 0;
+        int high = labels.length - 1;
+        int index = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (admitsFromBelow(mid, value)) {
+                index = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        if (index < 0) {
+            return fallbackLabel;
+        }
+        if (index > 0 && contains(index - 1, value)) {
+            // a bound shared by two ranges belongs to the lower one
+            return labels[index - 1];
+        }
+        return contains(index, value) ? labels[index] : fallbackLabel;
+    }
+
+    /**
+     * @return the number of ranges of this scale, including the catch-all range
+     */
+    int size() {
+        return fallbackLabel != null ? labels.length + 1 : labels.length;
+    }
+
+    private boolean admitsFromBelow(int index, double value) {
+        return lowClosed[index] ? value >= lowValues[index] : value > lowValues[index];
+    }
+
+    private boolean contains(int index, double value) {
+        return admitsFromBelow(index, value)
+                && (highClosed[index] ? value <= highValues[index] : value < highValues[index]);
+    }
+
+    /**
+     * The {@link Builder} collects the ranges of a scale file and compiles them into a {@link Scale}.
+     */
+    static class Builder {
+
+        private final List<Interval> intervals = new ArrayList<Interval>();
+
+        private String fallbackLabel;
+
+        /**
+         * Adds a range to the scale.
+         *
+         * @param lowValue the lower bound or null, if the range is unbounded below
+         * @param lowClosed whether the lower bound belongs to the range
+         * @param highValue the upper bound or null, if the range is unbounded above
+         * @param highClosed whether the upper bound belongs to the range
+         * @param label the label of the range
+         * @return this builder
+         * @throws TransformationException if the range is empty or if it is a second catch-all range
+         */
+        Builder add(Double lowValue, boolean lowClosed, Double highValue, boolean highClosed, String label)
+                throws TransformationException {
+            if (lowValue == null && highValue == null) {
+                if (fallbackLabel != null) {
+                    throw new TransformationException("Scale contains more than one catch-all range");
+                }
+                fallbackLabel = label;
+                return this;
+            }
+            Interval interval = new Interval(lowValue != null ? lowValue : Double.NEGATIVE_INFINITY, lowValue == null
+                    || lowClosed, highValue != null ? highValue : Double.POSITIVE_INFINITY, highValue == null
+                    || highClosed, label);
+            if (interval.isEmpty()) {
+                throw new TransformationException("Scale range " + interval + " is empty");
+            }
+            intervals.add(interval);
+            return this;
+        }
+
+        /**
+         * Sorts the ranges and verifies that they do not overlap.
+         *
+         * @return the compiled scale
+         * @throws TransformationException if two ranges overlap
+         */
+        Scale build() throws TransformationException {
+            List<Interval> sorted = new ArrayList<Interval>(intervals);
+            Collections.sort(sorted, Interval.BY_LOWER_BOUND);
+            for (int i = 1; i < sorted.size(); i++) {
+                Interval previous = sorted.get(i - 1);
+                Interval next = sorted.get(i);
+                if (previous.overlaps(next)) {
+                    throw new TransformationException("Scale range " + previous + " overlaps with range " + next);
+                }
+            }
+            return new Scale(sorted, fallbackLabel);
+        }
+    }
+
+    private static class Interval {
+
+        static final Comparator<Interval> BY_LOWER_BOUND = new Comparator<Interval>() {
+            @Override
+            public int compare(Interval first, Interval second) {
+                int result = Double.compare(first.lowValue, second.lowValue);
+                if (result == 0 && first.lowClosed != second.lowClosed) {
+                    result = first.lowClosed ? -1 : 1;
+                }
+                if (result == 0) {
+                    result = Double.compare(first.highValue, second.highValue);
+                }
+                return result;
+            }
+        };
+
+        final double lowValue;
+        final boolean lowClosed;
+        final double highValue;
+        final boolean highClosed;
+        final String label;
+
+        Interval(double lowValue, boolean lowClosed, double highValue, boolean highClosed, String label) {
+            this.lowValue = lowValue;
+            this.lowClosed = lowClosed;
+            this.highValue = highValue;
+            this.highClosed = highClosed;
+            this.label = label;
+        }
+
+        boolean isEmpty() {
+            return lowValue > highValue || (lowValue == highValue && !(lowClosed && highClosed));
+        }
+
+        /**
+         * Checks whether this interval, which does not start behind the given one, overlaps with it. Sharing a
+         * single closed bound is not considered as overlapping, unless the given interval consists of nothing else.
+         */
+        boolean overlaps(Interval next) {
+            if (next.lowValue != highValue) {
+                return next.lowValue < highValue;
+            }
+            return highClosed && next.lowClosed && next.lowValue == next.highValue;
+        }
+
+        @Override
+        public String toString() {
+            return (lowClosed ? "[" : "]") + (Double.isInfinite(lowValue) ? "" : lowValue) + ".."
+                    + (Double.isInfinite(highValue) ? "" : highValue) + (highClosed ? "]" : "[") + "=" + label;
+        }
+    }
+
+}
@@ -9,44 +9,47 @@ package org.eclipse.smarthome.transform.scale.internal;
 
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.Reader;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.eclipse.smarthome.core.transform.AbstractFileTransformationService;
 import org.eclipse.smarthome.core.transform.TransformationException;
 import org.eclipse.smarthome.core.transform.TransformationService;
-import org.eclipse.smarthome.core.transform.AbstractFileTransformationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.BoundType;
-import com.google.common.collect.Range;
-import com.google.common.collect.Ranges;
-
 /**
  * The implementation of {@link TransformationService} which transforms the
- * input by matching it between limits of ranges in a scale file
+ * input by matching it between limits of ranges in a scale file.
+ * <p>
+ * The scale files are compiled into a {@link Scale}, which rejects overlapping ranges and finds the matching range by
+ * a binary search.
+ * </p>
  *
  * @author Gaël L'hopital
  */
-public class ScaleTransformationService extends AbstractFileTransformationService<Map<Range<Double>, String>> {
+public class ScaleTransformationService extends AbstractFileTransformationService<Scale> {
 
     private final Logger logger = LoggerFactory.getLogger(ScaleTransformationService.class);
 
     /** RegEx to extract a scale definition */
     private static final Pattern limits_pattern = Pattern.compile("(\\[|\\])(.*)\\.\\.(.*)(\\[|\\])");
 
+    /** the powers of ten, which are exactly representable as double */
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
     /**
      * <p>
      * Transforms the input <code>source</code> by matching searching the range where it fits
      * i.e. [min..max]=value or ]min..max]=value
      * </p>
      *
-     * @param properties
-     *            the list of properties defining all the available ranges
+     * @param scale
+     *            the compiled scale defining all the available ranges
      * @param source
      *            the input to transform
      *
@@ -54,74 +57,113 @@ public class ScaleTransformationService extends AbstractFileTransformationServic
      *
      */
     @Override
-    protected String internalTransform(Map<Range<Double>, String> data, String source)  throws TransformationException {
-        
-        Double value = null;
+    protected String internalTransform(Scale scale, String source) throws TransformationException {
         try {
-            value = new Double(source);
-            for (Range<Double> range : data.keySet()) {
-                if (range.contains(value)) {
-                    return data.get(range);
-                }
+            String result = scale.lookup(parseDouble(source));
+            if (result == null) {
+                logger.debug("No matching range for '{}'", source);
             }
-            logger.debug("No matching range for '{}'", source);
+            return result;
         } catch (NumberFormatException e) {
-            logger.debug("Scale can not work with non numeric input");          
+            logger.debug("Scale can not work with non numeric input");
         }
         return null;
     }
-    
+
     @Override
-    protected Map<Range<Double>, String> internalLoadTransform(String filename) throws TransformationException {
+    protected Scale internalLoadTransform(String filename) throws TransformationException {
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader(filename)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new TransformationException("An error occured while opening file.", e);
+        }
+
+        Scale.Builder builder = new Scale.Builder();
+        for (Entry<Object, Object> f : properties.entrySet()) {
+            String key = (String) f.getKey();
+            String value = properties.getProperty(key);
+            Matcher matcher = limits_pattern.matcher(key);
+            if (matcher.matches() && (matcher.groupCount() == 4)) {
+
+                boolean lowClosed = !matcher.group(1).equals("]");
+                boolean highClosed = !matcher.group(4).equals("[");
+
+                String lowLimit = matcher.group(2);
+                String highLimit = matcher.group(3);
+
+                Double lowValue = null;
+                Double highValue = null;
+
+                try {
+                    if (!lowLimit.isEmpty()) lowValue = new Double(lowLimit);
+                    if (!highLimit.isEmpty()) highValue = new Double(highLimit);
+                } catch (NumberFormatException e) {
+                    throw new TransformationException("Error parsing bounds : "+lowLimit+".."+highLimit);
+                }
+
+                builder.add(lowValue, lowClosed, highValue, highClosed, value);
+
+            } else {
+                logger.warn("Scale transform entry does not comply with syntax : '{}', '{}'",key,value);
+            }
+        }
+
         try {
-            Properties properties = new Properties();
-            properties.load(new FileReader(filename));
-            Map<Range<Double>,String> data = new HashMap<Range<Double>,String>();
-            
-            for (Entry<Object, Object> f : properties.entrySet()) {
-                String key = (String) f.getKey();
-                String value = properties.getProperty(key);
-                Matcher matcher = limits_pattern.matcher(key);
-                if (matcher.matches() && (matcher.groupCount() == 4)) {
-                    
-                    BoundType lowBoundType = matcher.group(1).equals("]") ? BoundType.OPEN  : BoundType.CLOSED;
-                    BoundType highBoundType = matcher.group(4).equals("[") ? BoundType.OPEN : BoundType.CLOSED;
-
-                    String lowLimit = matcher.group(2);
-                    String highLimit = matcher.group(3);
-
-                    Range<Double> range = null;
-
-                    Double lowValue = null;
-                    Double highValue = null;
-
-                    try {
-                        if (!lowLimit.isEmpty()) lowValue = new Double(lowLimit);
-                        if (!highLimit.isEmpty()) highValue = new Double(highLimit);
-                    } catch (NumberFormatException e) {
-                        throw new TransformationException("Error parsing bounds : "+lowLimit+".."+highLimit);
-                    }
-
-                    if (lowValue == null && highValue == null) {
-                        range = Ranges.all();
-                    } else if (lowValue == null) {
-                        range = Ranges.upTo(highValue, highBoundType);
-                    } else if (highValue == null) {
-                        range = Ranges.downTo(lowValue, lowBoundType);
-                    } else {
-                        range = Ranges.range(lowValue, lowBoundType, highValue, highBoundType);
-                    }
-                    
-                    data.put(range, value);
-                    
-                } else {
-                    logger.warn("Scale transform entry does not comply with syntax : '{}', '{}'",key,value);
+            Scale scale = builder.build();
+            logger.debug("Loaded scale '{}' with {} ranges", filename, scale.size());
+            return scale;
+        } catch (TransformationException e) {
+            throw new TransformationException("Invalid scale file '" + filename + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses the given decimal number without creating any objects, as long as it consists of at most 15 digits and
+     * an optional sign and decimal point. Any other input is handed over to {@link Double#parseDouble(String)}.
+     *
+     * @param source the number to parse
+     * @return the parsed number
+     * @throws NumberFormatException if the source is not a number
+     */
+    static double parseDouble(String source) {
+        int length = source.length();
+        int index = 0;
+        boolean negative = false;
+        if (length > 0 && (source.charAt(0) == '-' || source.charAt(0) == '+')) {
+            negative = source.charAt(0) == '-';
+            index++;
+        }
+
+        boolean hasDigits = false;
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; index < length; index++) {
+            char c = source.charAt(index);
+            if (c >= '0' && c <= '9') {
+                hasDigits = true;
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa > 0 && ++digits > 15) {
+                    return Double.parseDouble(source);
+                }
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
                 }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return Double.parseDouble(source);
             }
-            return data;
-        } catch (IOException e) {
-            throw new TransformationException("An error occured while opening file.", e);
-        }       
+        }
+
+        if (!hasDigits || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(source);
+        }
+
+        // both operands are exactly representable, so the division is correctly rounded
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
     }
 
 }
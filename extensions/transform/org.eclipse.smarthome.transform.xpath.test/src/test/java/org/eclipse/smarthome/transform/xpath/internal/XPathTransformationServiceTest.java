@@ -7,6 +7,9 @@
  */
 package org.eclipse.smarthome.transform.xpath.internal;
 
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+
 import junit.framework.Assert;
 
 import org.eclipse.smarthome.core.transform.TransformationException;
@@ -35,4 +38,35 @@ public class XPathTransformationServiceTest extends AbstractTransformationServic
         Assert.assertEquals("8", transformedResponse);
     }
 
+    @Test
+    public void testExpressionIsCompiledOncePerThread() throws Exception {
+        final String xpath = "//current_conditions/temp_c/@data";
+
+        Assert.assertEquals("8", processor.transform(xpath, source));
+        Assert.assertEquals("8", processor.transform(xpath, source));
+
+        final XPathExpression expression = processor.getExpression(xpath);
+        Assert.assertSame(expression, processor.getExpression(xpath));
+        Assert.assertNotSame(expression, processor.getExpression("//current_conditions/temp_f/@data"));
+
+        // compiled expressions are not thread safe, so another thread compiles its own one
+        final XPathExpression[] otherThreadExpression = new XPathExpression[1];
+        Thread otherThread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    otherThreadExpression[0] = processor.getExpression(xpath);
+                } catch (XPathExpressionException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        otherThread.start();
+        otherThread.join();
+
+        // Asserts
+        Assert.assertNotNull(otherThreadExpression[0]);
+        Assert.assertNotSame(expression, otherThreadExpression[0]);
+    }
+
 }
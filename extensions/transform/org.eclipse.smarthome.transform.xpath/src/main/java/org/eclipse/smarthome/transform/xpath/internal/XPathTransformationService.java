@@ -8,12 +8,16 @@
 package org.eclipse.smarthome.transform.xpath.internal;
 
 import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.eclipse.smarthome.core.transform.TransformationException;
@@ -27,13 +31,27 @@ import org.xml.sax.InputSource;
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by XPath Expressions.
  * </p>
+ * <p>
+ * Neither document builders nor compiled expressions are thread safe, so every thread keeps its own document builder
+ * and its own cache of the recently used compiled expressions.
+ * </p>
  *
  * @author Thomas.Eichstaedt-Engelen
  */
 public class XPathTransformationService implements TransformationService {
 
+    /** the maximum number of compiled expressions cached per thread */
+    private static final int MAX_CACHED_EXPRESSIONS = 50;
+
     private final Logger logger = LoggerFactory.getLogger(XPathTransformationService.class);
 
+    private final ThreadLocal<XPathContext> contexts = new ThreadLocal<XPathContext>() {
+        @Override
+        protected XPathContext initialValue() {
+            return new XPathContext();
+        }
+    };
+
     /**
      * @{inheritDoc
      */
@@ -49,10 +67,8 @@ public class XPathTransformationService implements TransformationService {
         StringReader stringReader = null;
 
         try {
-            DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-            domFactory.setNamespaceAware(true);
-            domFactory.setValidating(false);
-            DocumentBuilder builder = domFactory.newDocumentBuilder();
+            XPathContext context = contexts.get();
+            DocumentBuilder builder = context.getDocumentBuilder();
 
             stringReader = new StringReader(source);
             InputSource inputSource = new InputSource(stringReader);
@@ -60,8 +76,7 @@ public class XPathTransformationService implements TransformationService {
 
             Document doc = builder.parse(inputSource);
 
-            XPath xpath = XPathFactory.newInstance().newXPath();
-            XPathExpression expr = xpath.compile(xpathExpression);
+            XPathExpression expr = getExpression(xpathExpression);
 
             String transformationResult = (String) expr.evaluate(doc, XPathConstants.STRING);
 
@@ -78,4 +93,49 @@ public class XPathTransformationService implements TransformationService {
 
     }
 
+    XPathExpression getExpression(String xpathExpression) throws XPathExpressionException {
+        return contexts.get().getExpression(xpathExpression);
+    }
+
+    /**
+     * The {@link XPathContext} holds the document builder and the compiled expressions of a single thread.
+     */
+    private static class XPathContext {
+
+        private final XPath xpath = XPathFactory.newInstance().newXPath();
+
+        private final Map<String, XPathExpression> expressions = new LinkedHashMap<String, XPathExpression>(16,
+                0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+                return size() > MAX_CACHED_EXPRESSIONS;
+            }
+        };
+
+        private DocumentBuilder documentBuilder;
+
+        DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+            if (documentBuilder == null) {
+                DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+                domFactory.setNamespaceAware(true);
+                domFactory.setValidating(false);
+                documentBuilder = domFactory.newDocumentBuilder();
+            } else {
+                documentBuilder.reset();
+            }
+            return documentBuilder;
+        }
+
+        XPathExpression getExpression(String xpathExpression) throws XPathExpressionException {
+            XPathExpression expression = expressions.get(xpathExpression);
+            if (expression == null) {
+                expression = xpath.compile(xpathExpression);
+                expressions.put(xpathExpression, expression);
+            }
+            return expression;
+        }
+    }
+
 }
@@ -7,9 +7,18 @@
  */
 package org.eclipse.smarthome.transform.xslt.internal;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.xml.transform.Templates;
+
 import junit.framework.Assert;
 
 import org.eclipse.smarthome.core.transform.TransformationException;
+import org.eclipse.smarthome.core.transform.TransformationService;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -18,11 +27,32 @@ import org.junit.Test;
  */
 public class XsltTransformationServiceTest extends AbstractTransformationServiceTest {
 
+    private static final String RELOADED_FILENAME = "reloaded.xsl";
+
+    private static final long RELOAD_TIMEOUT = 30000;
+
     private XsltTransformationService processor;
 
+    private int loadedTransforms;
+
+    private File reloadedFile;
+
     @Before
     public void init() {
-        processor = new XsltTransformationService();
+        loadedTransforms = 0;
+        processor = new XsltTransformationService() {
+            @Override
+            protected Templates internalLoadTransform(String filename) throws TransformationException {
+                loadedTransforms++;
+                return super.internalLoadTransform(filename);
+            }
+        };
+        reloadedFile = new File("conf" + File.separator + TransformationService.TRANSFORM_FOLDER_NAME, RELOADED_FILENAME);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(reloadedFile.toPath());
     }
 
     @Test
@@ -35,4 +65,41 @@ public class XsltTransformationServiceTest extends AbstractTransformationService
         Assert.assertEquals("8", transformedResponse);
     }
 
+    @Test
+    public void testStylesheetIsCompiledOnce() throws TransformationException {
+        Assert.assertEquals("8", processor.transform("http/google_weather.xsl", source));
+        Assert.assertEquals("8", processor.transform("http/google_weather.xsl", source));
+
+        // Asserts
+        Assert.assertEquals(1, loadedTransforms);
+    }
+
+    @Test
+    public void testStylesheetIsReloadedAfterItChanged() throws Exception {
+        writeStylesheet("temp_c");
+        Assert.assertEquals("8", processor.transform(RELOADED_FILENAME, source));
+
+        writeStylesheet("temp_f");
+
+        // the watch service reports the change asynchronously
+        String transformedResponse = processor.transform(RELOADED_FILENAME, source);
+        long timeout = System.currentTimeMillis() + RELOAD_TIMEOUT;
+        while ("8".equals(transformedResponse) && System.currentTimeMillis() < timeout) {
+            Thread.sleep(100);
+            transformedResponse = processor.transform(RELOADED_FILENAME, source);
+        }
+
+        // Asserts
+        Assert.assertEquals("46", transformedResponse);
+    }
+
+    private void writeStylesheet(String element) throws IOException {
+        String stylesheet = "<?xml version=\"1.0\"?>"
+                + "<xsl:stylesheet xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\" version=\"1.0\">"
+                + "<xsl:output method=\"text\" encoding=\"UTF-8\" />"
+                + "<xsl:template match=\"//current_conditions\"><xsl:value-of select=\"" + element + "/@data\" />"
+                + "</xsl:template></xsl:stylesheet>";
+        Files.write(reloadedFile.toPath(), stylesheet.getBytes(StandardCharsets.UTF_8));
+    }
+
 }
@@ -11,13 +11,12 @@ import java.io.File;
 import java.io.StringReader;
 import java.io.StringWriter;
 
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
+import javax.xml.transform.Templates;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
-import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.core.transform.AbstractFileTransformationService;
 import org.eclipse.smarthome.core.transform.TransformationException;
 import org.eclipse.smarthome.core.transform.TransformationService;
 import org.slf4j.Logger;
@@ -27,10 +26,14 @@ import org.slf4j.LoggerFactory;
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by XSLT.
  * </p>
- * 
+ * <p>
+ * The stylesheets are compiled into {@link Templates} once, which are thread safe and create a lightweight
+ * transformer per transformation.
+ * </p>
+ *
  * @author Thomas.Eichstaedt-Engelen
  */
-public class XsltTransformationService implements TransformationService {
+public class XsltTransformationService extends AbstractFileTransformationService<Templates> {
 
     static final Logger logger = LoggerFactory.getLogger(XsltTransformationService.class);
 
@@ -40,46 +43,24 @@ public class XsltTransformationService implements TransformationService {
      * is stored under the 'configurations/transform' folder. To organize the various transformations one should use
      * subfolders.
      * </p>
-     * 
-     * @param filename
-     *            the name of the file which contains the XSLT transformation rule. The name may contain subfoldernames
-     *            as well
+     *
+     * @param templates
+     *            the compiled XSLT transformation rule
      * @param source
      *            the input to transform
-     * 
+     *
      * @{inheritDoc
-     * 
+     *
      */
     @Override
-    public String transform(String filename, String source) throws TransformationException {
-
-        if (filename == null || source == null) {
-            throw new TransformationException("the given parameters 'filename' and 'source' must not be null");
-        }
-
-        Source xsl = null;
-
-        try {
-            String path = ConfigConstants.getConfigFolder() + File.separator
-                    + TransformationService.TRANSFORM_FOLDER_NAME + File.separator + filename;
-            xsl = new StreamSource(new File(path));
-        } catch (Exception e) {
-            String message = "opening file '" + filename + "' throws exception";
-
-            logger.error(message, e);
-            throw new TransformationException(message, e);
-        }
-
-        logger.debug("about to transform '{}' by the function '{}'", source, xsl);
+    protected String internalTransform(Templates templates, String source) throws TransformationException {
+        logger.debug("about to transform '{}' by the function '{}'", source, templates);
 
         StringReader xml = new StringReader(source);
         StringWriter out = new StringWriter();
 
-        Transformer transformer;
-
         try {
-            transformer = TransformerFactory.newInstance().newTransformer(xsl);
-            transformer.transform(new StreamSource(xml), new StreamResult(out));
+            templates.newTransformer().transform(new StreamSource(xml), new StreamResult(out));
         } catch (Exception e) {
             logger.error("transformation throws exception", e);
             throw new TransformationException("transformation throws exception", e);
@@ -90,4 +71,16 @@ public class XsltTransformationService implements TransformationService {
         return out.toString();
     }
 
+    @Override
+    protected Templates internalLoadTransform(String filename) throws TransformationException {
+        try {
+            return TransformerFactory.newInstance().newTemplates(new StreamSource(new File(filename)));
+        } catch (Exception e) {
+            String message = "opening file '" + filename + "' throws exception";
+
+            logger.error(message, e);
+            throw new TransformationException(message, e);
+        }
+    }
+
 }